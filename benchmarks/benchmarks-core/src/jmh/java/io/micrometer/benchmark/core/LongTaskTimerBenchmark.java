@@ -0,0 +1,92 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.benchmark.core;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.internal.DefaultLongTaskTimer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starting and stopping tasks on several threads while another thread polls the timer the way a publishing
+ * registry does, with a standing population of long-running tasks in flight.
+ */
+@State(Scope.Group)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class LongTaskTimerBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LongTaskTimerBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Param({"10000"})
+    int inFlight;
+
+    private LongTaskTimer timer;
+
+    @Setup
+    public void setup() {
+        timer = new DefaultLongTaskTimer(new Meter.Id("ltt", Tags.empty(), null, null, Meter.Type.LONG_TASK_TIMER),
+                Clock.SYSTEM, TimeUnit.SECONDS, DistributionStatisticConfig.NONE, false);
+        for (int i = 0; i < inFlight; i++) {
+            timer.start();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Tasks {
+        final Deque<LongTaskTimer.Sample> running = new ArrayDeque<>();
+    }
+
+    /**
+     * Each thread keeps a few tasks of its own running and stops them out of order, so stops are rarely at the head.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public long startStop(Tasks tasks) {
+        tasks.running.addLast(timer.start());
+        if (tasks.running.size() > 8) {
+            return tasks.running.pollFirst().stop();
+        }
+        return 0;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public double poll() {
+        return timer.duration(TimeUnit.SECONDS) + timer.max(TimeUnit.SECONDS) + timer.activeTasks();
+    }
+}
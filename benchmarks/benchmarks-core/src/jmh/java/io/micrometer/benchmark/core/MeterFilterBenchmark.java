@@ -0,0 +1,126 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.benchmark.core;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.config.MeterFilterReply;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating 100 name-prefix-based filters one by one with evaluating them through
+ * {@link MeterFilter#compile(MeterFilter...)}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MeterFilterBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MeterFilterBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    private static final int FILTER_COUNT = 100;
+
+    private MeterFilter[] filters;
+    private MeterFilter compiled;
+    private Meter.Id id;
+
+    @Setup
+    public void setup() {
+        filters = new MeterFilter[FILTER_COUNT];
+        for (int i = 0; i < FILTER_COUNT; i++) {
+            switch (i % 4) {
+                case 0:
+                    filters[i] = MeterFilter.denyNameStartsWith("app" + i + ".");
+                    break;
+                case 1:
+                    filters[i] = MeterFilter.acceptNameStartsWith("service" + i + ".");
+                    break;
+                case 2:
+                    filters[i] = MeterFilter.renameTag("app" + i + ".", "from", "to");
+                    break;
+                default:
+                    filters[i] = MeterFilter.maxExpected("service" + i + ".", Duration.ofSeconds(i));
+                    break;
+            }
+        }
+        compiled = MeterFilter.compile(filters);
+        id = new Meter.Id("http.server.requests", Tags.of("uri", "/api/users", "status", "200"), null, null, Meter.Type.TIMER);
+    }
+
+    @Benchmark
+    public Meter.Id mapLinear() {
+        Meter.Id mappedId = id;
+        for (MeterFilter filter : filters) {
+            mappedId = filter.map(mappedId);
+        }
+        return mappedId;
+    }
+
+    @Benchmark
+    public Meter.Id mapCompiled() {
+        return compiled.map(id);
+    }
+
+    @Benchmark
+    public boolean acceptLinear() {
+        for (MeterFilter filter : filters) {
+            MeterFilterReply reply = filter.accept(id);
+            if (reply != MeterFilterReply.NEUTRAL) {
+                return reply == MeterFilterReply.ACCEPT;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean acceptCompiled() {
+        return compiled.accept(id) != MeterFilterReply.DENY;
+    }
+
+    @Benchmark
+    public DistributionStatisticConfig configureLinear() {
+        DistributionStatisticConfig config = DistributionStatisticConfig.DEFAULT;
+        for (MeterFilter filter : filters) {
+            DistributionStatisticConfig filtered = filter.configure(id, config);
+            if (filtered != null) {
+                config = filtered;
+            }
+        }
+        return config;
+    }
+
+    @Benchmark
+    public DistributionStatisticConfig configureCompiled() {
+        return compiled.configure(id, DistributionStatisticConfig.DEFAULT);
+    }
+}
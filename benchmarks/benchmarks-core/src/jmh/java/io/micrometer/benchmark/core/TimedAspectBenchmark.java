@@ -0,0 +1,87 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.benchmark.core;
+
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimedAspectBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TimedAspectBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    private Service timed;
+    private Service counted;
+
+    @Setup
+    public void setup() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        timed = proxy(new TimedAspect(registry));
+        counted = proxy(new CountedAspect(registry));
+    }
+
+    private static Service proxy(Object aspect) {
+        AspectJProxyFactory pf = new AspectJProxyFactory(new Service());
+        pf.addAspect(aspect);
+        return pf.getProxy();
+    }
+
+    @Benchmark
+    public int timedCall() {
+        return timed.timedCall();
+    }
+
+    @Benchmark
+    public int countedCall() {
+        return counted.countedCall();
+    }
+
+    public static class Service {
+        private int calls;
+
+        @Timed(value = "service.call", extraTags = {"kind", "timed"})
+        public int timedCall() {
+            return ++calls;
+        }
+
+        @Counted(value = "service.call.count")
+        public int countedCall() {
+            return ++calls;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.benchmark.jersey2;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.jersey2.server.DefaultJerseyTagsProvider;
+import io.micrometer.jersey2.server.MetricsApplicationEventListener;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests against an in-memory Jersey application, with and without the metrics listener registered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class JerseyServerBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JerseyServerBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    private static final URI BASE_URI = URI.create("http://localhost/");
+    private static final URI TIMED_URI = URI.create("http://localhost/timed/1");
+    private static final URI UNTIMED_URI = URI.create("http://localhost/untimed/1");
+
+    @Param({"true", "false"})
+    boolean instrumented;
+
+    private ApplicationHandler handler;
+
+    @Setup
+    public void setup() {
+        ResourceConfig config = new ResourceConfig(TestResource.class);
+        if (instrumented) {
+            MeterRegistry registry = new SimpleMeterRegistry();
+            config.register(new MetricsApplicationEventListener(registry, new DefaultJerseyTagsProvider(),
+                    "http.server.requests", true));
+        }
+        handler = new ApplicationHandler(config);
+    }
+
+    @Benchmark
+    public ContainerResponse timedResource() throws Exception {
+        return handler.apply(request(TIMED_URI)).get();
+    }
+
+    @Benchmark
+    public ContainerResponse untimedResource() throws Exception {
+        return handler.apply(request(UNTIMED_URI)).get();
+    }
+
+    private static ContainerRequest request(URI requestUri) {
+        return new ContainerRequest(BASE_URI, requestUri, "GET", null, new MapPropertiesDelegate());
+    }
+
+    @Path("/")
+    public static class TestResource {
+        @GET
+        @Path("timed/{id}")
+        @Timed(value = "timed.resource", longTask = true)
+        public String timed(@PathParam("id") String id) {
+            return id;
+        }
+
+        @GET
+        @Path("untimed/{id}")
+        public String untimed(@PathParam("id") String id) {
+            return id;
+        }
+    }
+}
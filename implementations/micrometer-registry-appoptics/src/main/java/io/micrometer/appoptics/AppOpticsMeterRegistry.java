@@ -93,7 +93,7 @@ public class AppOpticsMeterRegistry extends StepMeterRegistry {
     protected void publish() {
         try {
             String bodyMeasurementsPrefix = getBodyMeasurementsPrefix();
-            for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
+            for (List<Meter> batch : new MeterPartition(getMetersToPublish(), config.batchSize())) {
                 final List<String> meters = batch.stream()
                         .map(meter -> meter.match(
                                 this::writeGauge,
@@ -77,7 +77,7 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
 
     @Override
     protected void publish() {
-        for (Meter meter : getMeters()) {
+        for (Meter meter : getMetersToPublish()) {
             meter.match(
                     this::trackGauge,
                     this::trackCounter,
@@ -148,7 +148,7 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
     //VisibleForTesting
     List<MetricDatum> metricData() {
         Batch batch = new Batch();
-        return getMeters().stream().flatMap(m -> m.match(
+        return getMetersToPublish().stream().flatMap(m -> m.match(
                 batch::gaugeData,
                 batch::counterData,
                 batch::timerData,
@@ -237,7 +237,7 @@ class CloudWatchMeterRegistryTest {
             Timer timer = Timer.builder("timer." + i).register(this.registry);
             meters.add(timer);
         }
-        when(this.registry.getMeters()).thenReturn(meters);
+        when(this.registry.getMetersToPublish()).thenReturn(meters);
         doNothing().when(this.registry).sendMetricData(any());
         this.registry.publish();
         @SuppressWarnings("unchecked")
@@ -27,6 +27,8 @@ import java.util.function.Predicate;
 import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.check;
 import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.checkAll;
 import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.checkRequired;
+import static io.micrometer.core.instrument.config.validate.PropertyValidator.getBoolean;
+import static io.micrometer.core.instrument.config.validate.PropertyValidator.getDuration;
 import static io.micrometer.core.instrument.config.validate.PropertyValidator.getInteger;
 import static io.micrometer.core.instrument.config.validate.PropertyValidator.getString;
 
@@ -71,6 +73,44 @@ public interface CloudWatchConfig extends StepRegistryConfig {
         return step().compareTo(Duration.ofMinutes(1)) < 0;
     }
 
+    /**
+     * Whether to ship timers and distribution summaries that have a histogram configured (a percentile histogram or
+     * service level objectives) as a single datum carrying the histogram's values and counts, instead of separate
+     * count, sum, avg and max datums. CloudWatch then computes statistics and percentiles from the distribution
+     * server-side. Each bucket is represented by its upper bound, so sums and averages are approximate. Meters without
+     * a histogram are shipped as before.
+     *
+     * @return Whether to ship histograms as values and counts.
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    default boolean histogramValuesAndCounts() {
+        return getBoolean(this, "histogramValuesAndCounts").orElse(false);
+    }
+
+    /**
+     * The maximum number of {@code PutMetricData} requests that may be in flight at the same time
+     * while publishing. Further batches wait for an in-flight request to complete.
+     *
+     * @return The maximum number of concurrent {@code PutMetricData} requests.
+     * @since 1.8.0
+     */
+    default int maxConcurrentRequests() {
+        return getInteger(this, "maxConcurrentRequests").orElse(4);
+    }
+
+    /**
+     * The overall time allowed for publishing the metric data of one step. Batches not yet sent when
+     * this deadline passes are skipped and requests still in flight are cancelled. By default, this is the step
+     * interval so that a slow publish never spills over into the next one.
+     *
+     * @return The deadline for publishing all batches of one step.
+     * @since 1.8.0
+     */
+    default Duration publishTimeout() {
+        return getDuration(this, "publishTimeout").orElse(step());
+    }
+
     @Override
     default Validated<?> validate() {
         return checkAll(this,
@@ -78,6 +118,11 @@ public interface CloudWatchConfig extends StepRegistryConfig {
                 checkRequired("namespace", CloudWatchConfig::namespace),
                 check("batchSize", CloudWatchConfig::batchSize)
                         .andThen(v -> v.invalidateWhen(b -> b > MAX_BATCH_SIZE, "cannot be greater than " + MAX_BATCH_SIZE,
+                                InvalidReason.MALFORMED)),
+                check("maxConcurrentRequests", CloudWatchConfig::maxConcurrentRequests)
+                        .andThen(v -> v.invalidateWhen(c -> c < 1, "must be at least 1", InvalidReason.MALFORMED)),
+                check("publishTimeout", CloudWatchConfig::publishTimeout)
+                        .andThen(v -> v.invalidateWhen(t -> t.isNegative() || t.isZero(), "must be positive",
                                 InvalidReason.MALFORMED))
         );
     }
@@ -17,6 +17,8 @@ package io.micrometer.cloudwatch2;
 
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
 import io.micrometer.core.instrument.step.StepMeterRegistry;
 import io.micrometer.core.instrument.util.NamedThreadFactory;
 import io.micrometer.core.instrument.util.StringUtils;
@@ -29,13 +31,21 @@ import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
 import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -54,6 +64,11 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
 
     private static final Map<String, StandardUnit> STANDARD_UNIT_BY_LOWERCASE_VALUE;
 
+    /**
+     * Maximum number of distinct values in a single {@link MetricDatum#values()}.
+     */
+    private static final int MAX_VALUES_PER_DATUM = 150;
+
     static {
         Map<String, StandardUnit> standardUnitByLowercaseValue = new HashMap<>();
         for (StandardUnit standardUnit : StandardUnit.values()) {
@@ -86,56 +101,125 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
 
     @Override
     protected void publish() {
+        long deadline = System.nanoTime() + config.publishTimeout().toNanos();
+        Semaphore permits = new Semaphore(config.maxConcurrentRequests());
+        PublishResult result = new PublishResult();
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+        List<CompletableFuture<?>> completions = new ArrayList<>();
         boolean interrupted = false;
         try {
             for (List<MetricDatum> batch : MetricDatumPartition.partition(metricData(), config.batchSize())) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    result.skipped(batch.size());
+                    continue;
+                }
+                CompletableFuture<?> request;
                 try {
-                    sendMetricData(batch);
-                } catch (InterruptedException ex) {
-                    interrupted = true;
+                    request = sendMetricData(batch);
+                } catch (RuntimeException e) {
+                    permits.release();
+                    result.completed(batch.size(), e);
+                    continue;
                 }
+                requests.add(request);
+                completions.add(request.handle((response, t) -> {
+                    permits.release();
+                    result.completed(batch.size(), t);
+                    return null;
+                }));
             }
-        }
-        finally {
+            awaitCompletions(completions, deadline);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            // requests outliving the deadline would otherwise overlap with the next step's publish
+            requests.forEach(request -> request.cancel(true));
+            CompletableFuture.allOf(completions.toArray(new CompletableFuture[0])).join();
+            result.log();
             if (interrupted) {
                 Thread.currentThread().interrupt();
             }
         }
     }
 
+    private void awaitCompletions(List<CompletableFuture<?>> completions, long deadline) throws InterruptedException {
+        try {
+            CompletableFuture.allOf(completions.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException ignored) {
+            // failures are recorded per request, and stragglers are cancelled by the caller
+        }
+    }
+
     // VisibleForTesting
-    void sendMetricData(List<MetricDatum> metricData) throws InterruptedException {
+    CompletableFuture<PutMetricDataResponse> sendMetricData(List<MetricDatum> metricData) {
         PutMetricDataRequest putMetricDataRequest = PutMetricDataRequest.builder()
                 .namespace(config.namespace())
                 .metricData(metricData)
                 .build();
-        CountDownLatch latch = new CountDownLatch(1);
-        cloudWatchAsyncClient.putMetricData(putMetricDataRequest).whenCompleteAsync((response, t) -> {
-            if (t != null) {
-                if (t instanceof AbortedException) {
-                    logger.warn("sending metric data was aborted: {}", t.getMessage());
-                } else {
-                    logger.error("error sending metric data.", t);
-                }
+        return cloudWatchAsyncClient.putMetricData(putMetricDataRequest);
+    }
+
+    /**
+     * Outcome of all {@code PutMetricData} requests made during one publish, summarized in a single log line.
+     */
+    private class PublishResult {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger datums = new AtomicInteger();
+        private final AtomicInteger failedRequests = new AtomicInteger();
+        private final AtomicInteger abortedRequests = new AtomicInteger();
+        private final AtomicInteger timedOutRequests = new AtomicInteger();
+        private final AtomicInteger skippedBatches = new AtomicInteger();
+        private final AtomicInteger lostDatums = new AtomicInteger();
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        void skipped(int batchSize) {
+            datums.addAndGet(batchSize);
+            skippedBatches.incrementAndGet();
+            lostDatums.addAndGet(batchSize);
+        }
+
+        void completed(int batchSize, @Nullable Throwable t) {
+            requests.incrementAndGet();
+            datums.addAndGet(batchSize);
+            if (t == null) {
+                return;
+            }
+            lostDatums.addAndGet(batchSize);
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            if (cause instanceof CancellationException) {
+                timedOutRequests.incrementAndGet();
+            } else if (cause instanceof AbortedException) {
+                abortedRequests.incrementAndGet();
             } else {
-                logger.debug("published metric with namespace:{}", putMetricDataRequest.namespace());
+                failedRequests.incrementAndGet();
+                firstFailure.compareAndSet(null, cause);
+            }
+        }
+
+        void log() {
+            if (lostDatums.get() == 0) {
+                logger.debug("published {} metric data in {} requests with namespace:{}", datums, requests, config.namespace());
+                return;
+            }
+            String message = "failed to publish " + lostDatums + " of " + datums + " metric data with namespace:" +
+                    config.namespace() + " (" + failedRequests + " requests failed, " + abortedRequests + " aborted, " +
+                    timedOutRequests + " cancelled and " + skippedBatches + " batches skipped; publish timeout " +
+                    config.publishTimeout() + ")";
+            Throwable failure = firstFailure.get();
+            if (failure != null) {
+                logger.error(message, failure);
+            } else {
+                logger.warn(message);
             }
-            latch.countDown();
-        });
-        try {
-            @SuppressWarnings("deprecation")
-            long readTimeoutMillis = config.readTimeout().toMillis();
-            latch.await(readTimeoutMillis, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            logger.warn("metrics push to cloudwatch took longer than expected");
-            throw e;
         }
     }
 
     //VisibleForTesting
     List<MetricDatum> metricData() {
         Batch batch = new Batch();
-        return getMeters().stream().flatMap(m -> m.match(
+        return getMetersToPublish().stream().flatMap(m -> m.match(
                 batch::gaugeData,
                 batch::counterData,
                 batch::timerData,
@@ -166,6 +250,12 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
 
         // VisibleForTesting
         Stream<MetricDatum> timerData(Timer timer) {
+            if (config.histogramValuesAndCounts()) {
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                if (snapshot.histogramCounts().length > 0) {
+                    return histogramData(timer.getId(), snapshot, toStandardUnit(getBaseTimeUnit().name()), true);
+                }
+            }
             Stream.Builder<MetricDatum> metrics = Stream.builder();
             metrics.add(metricDatum(timer.getId(), "sum", getBaseTimeUnit().name(), timer.totalTime(getBaseTimeUnit())));
             long count = timer.count();
@@ -179,6 +269,12 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
 
         // VisibleForTesting
         Stream<MetricDatum> summaryData(DistributionSummary summary) {
+            if (config.histogramValuesAndCounts()) {
+                HistogramSnapshot snapshot = summary.takeSnapshot();
+                if (snapshot.histogramCounts().length > 0) {
+                    return histogramData(summary.getId(), snapshot, toStandardUnit(summary.getId().getBaseUnit()), false);
+                }
+            }
             Stream.Builder<MetricDatum> metrics = Stream.builder();
             metrics.add(metricDatum(summary.getId(), "sum", summary.totalAmount()));
             long count = summary.count();
@@ -190,6 +286,52 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
             return metrics.build();
         }
 
+        /**
+         * Converts cumulative bucket counts into the count of samples in each bucket, represented by the bucket's
+         * upper bound. Samples above the largest bucket are represented by the max.
+         */
+        // VisibleForTesting
+        Stream<MetricDatum> histogramData(Meter.Id id, HistogramSnapshot snapshot, StandardUnit standardUnit,
+                                          boolean timeDomain) {
+            List<Double> values = new ArrayList<>();
+            List<Double> counts = new ArrayList<>();
+            double cumulativeCount = 0;
+            for (CountAtBucket countAtBucket : snapshot.histogramCounts()) {
+                double bucketCount = countAtBucket.count() - cumulativeCount;
+                cumulativeCount = countAtBucket.count();
+                addValue(values, counts, timeDomain ? countAtBucket.bucket(getBaseTimeUnit()) : countAtBucket.bucket(),
+                        bucketCount);
+            }
+            // the step count and the time-windowed histogram aren't snapshotted together, so this can be negative
+            addValue(values, counts, timeDomain ? snapshot.max(getBaseTimeUnit()) : snapshot.max(),
+                    snapshot.count() - cumulativeCount);
+
+            // an empty distribution cannot be shipped, so a step without samples has no datum
+            Stream.Builder<MetricDatum> metrics = Stream.builder();
+            for (int from = 0; from < values.size(); from += MAX_VALUES_PER_DATUM) {
+                int to = Math.min(from + MAX_VALUES_PER_DATUM, values.size());
+                metrics.add(metricDatumBuilder(id, null, standardUnit)
+                        .values(values.subList(from, to))
+                        .counts(counts.subList(from, to))
+                        .build());
+            }
+            return metrics.build();
+        }
+
+        private void addValue(List<Double> values, List<Double> counts, double value, double count) {
+            if (count <= 0 || Double.isNaN(value)) {
+                return;
+            }
+            double clamped = CloudWatchUtils.clampMetricValue(value);
+            int last = values.size() - 1;
+            if (last >= 0 && values.get(last) == clamped) {
+                counts.set(last, counts.get(last) + count);
+            } else {
+                values.add(clamped);
+                counts.add(count);
+            }
+        }
+
         private Stream<MetricDatum> longTaskTimerData(LongTaskTimer longTaskTimer) {
             return Stream.of(
                     metricDatum(longTaskTimer.getId(), "activeTasks", longTaskTimer.activeTasks()),
@@ -258,15 +400,19 @@ public class CloudWatchMeterRegistry extends StepMeterRegistry {
                 return null;
             }
 
+            return metricDatumBuilder(id, suffix, standardUnit)
+                    .value(CloudWatchUtils.clampMetricValue(value))
+                    .build();
+        }
+
+        private MetricDatum.Builder metricDatumBuilder(Meter.Id id, @Nullable String suffix, StandardUnit standardUnit) {
             List<Tag> tags = id.getConventionTags(config().namingConvention());
             return MetricDatum.builder()
                     .storageResolution(config.highResolution() ? 1 : 60)
                     .metricName(getMetricName(id, suffix))
                     .dimensions(toDimensions(tags))
                     .timestamp(timestamp)
-                    .value(CloudWatchUtils.clampMetricValue(value))
-                    .unit(standardUnit)
-                    .build();
+                    .unit(standardUnit);
         }
 
         // VisibleForTesting
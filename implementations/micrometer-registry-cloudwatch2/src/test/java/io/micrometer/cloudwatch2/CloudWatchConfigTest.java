@@ -19,6 +19,7 @@ import io.micrometer.core.Issue;
 import io.micrometer.core.instrument.config.validate.Validated;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -91,6 +92,24 @@ class CloudWatchConfigTest {
                 .containsExactly("is required");
     }
 
+    @Test
+    void invalidConcurrencyAndPublishTimeout() {
+        props.put("cloudwatch.namespace", "name");
+        props.put("cloudwatch.maxConcurrentRequests", "0");
+        props.put("cloudwatch.publishTimeout", "0s");
+
+        assertThat(config.validate().failures().stream().map(Validated.Invalid::getMessage))
+                .containsExactlyInAnyOrder("must be at least 1", "must be positive");
+    }
+
+    @Test
+    void publishTimeoutDefaultsToStep() {
+        props.put("cloudwatch.step", "10s");
+
+        assertThat(config.publishTimeout()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(config.maxConcurrentRequests()).isEqualTo(4);
+    }
+
     @Test
     void valid() {
         props.put("cloudwatch.namespace", "name");
@@ -16,21 +16,32 @@
 package io.micrometer.cloudwatch2;
 
 import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static io.micrometer.core.instrument.Meter.Id;
 import static io.micrometer.core.instrument.Meter.Type;
@@ -230,6 +241,100 @@ class CloudWatchMeterRegistryTest {
         assertThat(streamSupplier.get().noneMatch(hasMaxMetric(meterId))).isTrue();
     }
 
+    @Test
+    void histogramDataAsValuesAndCounts() {
+        CloudWatchMeterRegistry registry = histogramValuesAndCountsRegistry();
+        HistogramSnapshot snapshot = new HistogramSnapshot(4, 5.6e8, 5e8, null, new CountAtBucket[]{
+                new CountAtBucket(1e6, 0), new CountAtBucket(1e7, 2), new CountAtBucket(1e8, 3)}, null);
+
+        List<MetricDatum> metricData = registry.new Batch()
+                .histogramData(new Id("timer", Tags.empty(), null, null, TIMER), snapshot, StandardUnit.MILLISECONDS, true)
+                .collect(toList());
+
+        assertThat(metricData).hasSize(1);
+        MetricDatum metricDatum = metricData.get(0);
+        assertThat(metricDatum.metricName()).isEqualTo("timer");
+        assertThat(metricDatum.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+        assertThat(metricDatum.values()).containsExactly(10.0, 100.0, 500.0);
+        assertThat(metricDatum.counts()).containsExactly(2.0, 1.0, 1.0);
+    }
+
+    @Test
+    void histogramDataAboveLargestBucketIsNotNegative() {
+        CloudWatchMeterRegistry registry = histogramValuesAndCountsRegistry();
+        // count is 4, but sum of bucket counts is 5 due to inconsistent snapshotting
+        HistogramSnapshot snapshot = new HistogramSnapshot(4, 14.7, 5, null, new CountAtBucket[]{
+                new CountAtBucket(1.0, 2), new CountAtBucket(2.0, 5)}, null);
+
+        List<MetricDatum> metricData = registry.new Batch()
+                .histogramData(new Id("summary", Tags.empty(), null, null, DISTRIBUTION_SUMMARY), snapshot, StandardUnit.NONE, false)
+                .collect(toList());
+
+        assertThat(metricData).hasSize(1);
+        assertThat(metricData.get(0).values()).containsExactly(1.0, 2.0);
+        assertThat(metricData.get(0).counts()).containsExactly(2.0, 3.0);
+    }
+
+    @Test
+    void histogramDataSplitsLargeDistributions() {
+        CloudWatchMeterRegistry registry = histogramValuesAndCountsRegistry();
+        CountAtBucket[] histogramCounts = new CountAtBucket[200];
+        for (int i = 0; i < histogramCounts.length; i++) {
+            histogramCounts[i] = new CountAtBucket(i + 1, i + 1);
+        }
+        HistogramSnapshot snapshot = new HistogramSnapshot(200, 20100, 200, null, histogramCounts, null);
+
+        List<MetricDatum> metricData = registry.new Batch()
+                .histogramData(new Id("summary", Tags.empty(), null, null, DISTRIBUTION_SUMMARY), snapshot, StandardUnit.NONE, false)
+                .collect(toList());
+
+        assertThat(metricData).hasSize(2);
+        assertThat(metricData.get(0).values()).hasSize(150);
+        assertThat(metricData.get(1).values()).hasSize(50);
+        assertThat(metricData.get(1).values().get(49)).isEqualTo(200.0);
+    }
+
+    @Test
+    void histogramDataIsEmptyWithoutSamples() {
+        CloudWatchMeterRegistry registry = histogramValuesAndCountsRegistry();
+        HistogramSnapshot snapshot = new HistogramSnapshot(0, 0, 0, null, new CountAtBucket[]{
+                new CountAtBucket(1.0, 0), new CountAtBucket(2.0, 0)}, null);
+
+        assertThat(registry.new Batch()
+                .histogramData(new Id("summary", Tags.empty(), null, null, DISTRIBUTION_SUMMARY), snapshot, StandardUnit.NONE, false)
+                .count()).isZero();
+    }
+
+    @Test
+    void writeTimerWithoutHistogramAsStatisticsWhenValuesAndCountsEnabled() {
+        CloudWatchMeterRegistry registry = histogramValuesAndCountsRegistry();
+        Timer timer = Timer.builder("timer").register(registry);
+        timer.record(5, TimeUnit.MILLISECONDS);
+        clock.add(Duration.ofMinutes(1));
+
+        assertThat(registry.new Batch().timerData(timer).map(MetricDatum::metricName))
+                .containsExactly("timer.sum", "timer.count", "timer.avg", "timer.max");
+    }
+
+    private CloudWatchMeterRegistry histogramValuesAndCountsRegistry() {
+        return new CloudWatchMeterRegistry(new CloudWatchConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public String namespace() {
+                return "namespace";
+            }
+
+            @Override
+            public boolean histogramValuesAndCounts() {
+                return true;
+            }
+        }, clock, null);
+    }
+
     @Test
     void batchSizeShouldWorkOnMetricDatum() throws InterruptedException {
         List<Meter> meters = new ArrayList<>();
@@ -237,8 +342,9 @@ class CloudWatchMeterRegistryTest {
             Timer timer = Timer.builder("timer." + i).register(this.registry);
             meters.add(timer);
         }
-        when(this.registry.getMeters()).thenReturn(meters);
-        doNothing().when(this.registry).sendMetricData(any());
+        when(this.registry.getMetersToPublish()).thenReturn(meters);
+        doReturn(CompletableFuture.completedFuture(PutMetricDataResponse.builder().build()))
+                .when(this.registry).sendMetricData(any());
         this.registry.publish();
         @SuppressWarnings("unchecked")
         ArgumentCaptor<List<MetricDatum>> argumentCaptor = ArgumentCaptor.forClass(List.class);
@@ -248,6 +354,97 @@ class CloudWatchMeterRegistryTest {
         assertThat(allValues.get(1)).hasSize(20);
     }
 
+    @Test
+    void publishKeepsBoundedNumberOfRequestsInFlight() {
+        StubCloudWatchAsyncClient client = new StubCloudWatchAsyncClient(request -> {
+            CompletableFuture<PutMetricDataResponse> response = new CompletableFuture<>();
+            new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignored) {
+                }
+                response.complete(PutMetricDataResponse.builder().build());
+            }).start();
+            return response;
+        });
+        CloudWatchMeterRegistry registry = publishingRegistry(client, 2, Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            registry.counter("counter." + i).increment();
+        }
+
+        registry.publish();
+
+        assertThat(client.requests).hasSize(5);
+        assertThat(client.maxInFlight.get()).isEqualTo(2);
+        assertThat(client.inFlight.get()).isZero();
+    }
+
+    @Test
+    void publishCancelsRequestsStillInFlightAtPublishTimeout() {
+        StubCloudWatchAsyncClient client = new StubCloudWatchAsyncClient(request -> new CompletableFuture<>());
+        CloudWatchMeterRegistry registry = publishingRegistry(client, 2, Duration.ofMillis(100));
+        for (int i = 0; i < 100; i++) {
+            registry.counter("counter." + i).increment();
+        }
+
+        long start = System.nanoTime();
+        registry.publish();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        // the remaining three batches are skipped rather than waiting for a permit past the deadline
+        assertThat(client.requests).hasSize(2);
+        assertThat(client.responses).allMatch(CompletableFuture::isCancelled);
+    }
+
+    @Test
+    void publishSendsAllBatchesWhenRequestsFail() {
+        StubCloudWatchAsyncClient client = new StubCloudWatchAsyncClient(request -> {
+            CompletableFuture<PutMetricDataResponse> response = new CompletableFuture<>();
+            response.completeExceptionally(new IllegalStateException("throttled"));
+            return response;
+        });
+        CloudWatchMeterRegistry registry = publishingRegistry(client, 1, Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            registry.counter("counter." + i).increment();
+        }
+
+        registry.publish();
+
+        assertThat(client.requests).hasSize(5);
+        assertThat(client.inFlight.get()).isZero();
+    }
+
+    private CloudWatchMeterRegistry publishingRegistry(CloudWatchAsyncClient client, int maxConcurrentRequests,
+                                                       Duration publishTimeout) {
+        CloudWatchConfig config = new CloudWatchConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public String namespace() {
+                return "namespace";
+            }
+
+            @Override
+            public boolean enabled() {
+                return false;
+            }
+
+            @Override
+            public int maxConcurrentRequests() {
+                return maxConcurrentRequests;
+            }
+
+            @Override
+            public Duration publishTimeout() {
+                return publishTimeout;
+            }
+        };
+        return new CloudWatchMeterRegistry(config, clock, client);
+    }
+
     @Test
     void batchToStandardUnitWhenUnitIsUnknownShouldReturnNone() {
         assertThat(this.registry.new Batch().toStandardUnit("unknownUnit")).isEqualTo(StandardUnit.NONE);
@@ -260,4 +457,35 @@ class CloudWatchMeterRegistryTest {
     private Predicate<MetricDatum> hasMaxMetric(Id id) {
         return e -> e.metricName().equals(id.getName().concat(".max"));
     }
+
+    private static class StubCloudWatchAsyncClient implements CloudWatchAsyncClient {
+        private final Function<PutMetricDataRequest, CompletableFuture<PutMetricDataResponse>> handler;
+        private final List<PutMetricDataRequest> requests = new CopyOnWriteArrayList<>();
+        private final List<CompletableFuture<PutMetricDataResponse>> responses = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        StubCloudWatchAsyncClient(Function<PutMetricDataRequest, CompletableFuture<PutMetricDataResponse>> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public CompletableFuture<PutMetricDataResponse> putMetricData(PutMetricDataRequest putMetricDataRequest) {
+            requests.add(putMetricDataRequest);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<PutMetricDataResponse> response = handler.apply(putMetricDataRequest)
+                    .whenComplete((r, t) -> inFlight.decrementAndGet());
+            responses.add(response);
+            return response;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -103,7 +103,7 @@ public class DatadogMeterRegistry extends StepMeterRegistry {
         String datadogEndpoint = config.uri() + "/api/v1/series?api_key=" + config.apiKey();
 
         try {
-            for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
+            for (List<Meter> batch : new MeterPartition(getMetersToPublish(), config.batchSize())) {
                 /*
                 Example post body from Datadog API docs. Host and tags are optional.
                 "{ \"series\" :
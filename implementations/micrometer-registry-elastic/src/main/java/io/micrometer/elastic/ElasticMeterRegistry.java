@@ -202,7 +202,7 @@ public class ElasticMeterRegistry extends StepMeterRegistry {
         createIndexTemplateIfNeeded();
 
         String uri = config.host() + "/" + indexName() + "/_bulk";
-        for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
+        for (List<Meter> batch : new MeterPartition(getMetersToPublish(), config.batchSize())) {
             try {
                 String requestBody = batch.stream()
                         .map(m -> m.match(
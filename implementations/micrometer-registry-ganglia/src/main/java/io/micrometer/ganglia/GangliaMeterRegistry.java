@@ -104,7 +104,7 @@ public class GangliaMeterRegistry extends StepMeterRegistry {
 
     @Override
     protected void publish() {
-        for (Meter meter : getMeters()) {
+        for (Meter meter : getMetersToPublish()) {
             meter.use(
                     this::announceGauge,
                     this::announceCounter,
@@ -0,0 +1,369 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.graphite;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.step.StepMeterRegistry;
+import io.micrometer.core.instrument.step.StepRegistryConfig;
+import io.micrometer.core.instrument.util.DoubleFormat;
+import io.micrometer.core.instrument.util.HierarchicalNameMapper;
+import io.micrometer.core.instrument.util.MeterPartition;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.InternalLogger;
+import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MeterRegistry} for Graphite that writes directly to Graphite rather than through a Dropwizard
+ * {@code MetricRegistry} and {@code GraphiteReporter} as {@link GraphiteMeterRegistry} does.
+ * <p>
+ * Meters report the statistics of the last step, so counts are the counts of the last step rather than cumulative
+ * ones. Their names follow the Graphite reporter's: statistics are appended to the hierarchical name of a meter as
+ * {@code .count}, {@code .max} and so on, or as a {@code metricattribute} tag when Graphite tags are enabled. A batch
+ * of up to {@link StepRegistryConfig#batchSize()} meters is written with a single frame of the configured protocol.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+public class GraphiteStepMeterRegistry extends StepMeterRegistry {
+    private static final ThreadFactory DEFAULT_THREAD_FACTORY = new NamedThreadFactory("graphite-metrics-publisher");
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(GraphiteStepMeterRegistry.class);
+
+    /**
+     * Keeps datagrams within the MTU of most networks.
+     */
+    private static final int MAX_DATAGRAM_LENGTH = 1400;
+
+    private final GraphiteConfig config;
+    private final StepRegistryConfig stepConfig;
+    private final HierarchicalNameMapper nameMapper;
+    private final Map<Meter.Id, GraphiteName> names = new ConcurrentHashMap<>();
+
+    @Nullable
+    private ByteChannel channel;
+
+    public GraphiteStepMeterRegistry(GraphiteConfig config, Clock clock) {
+        this(config, clock, config.graphiteTagsEnabled() ? new GraphiteDimensionalNameMapper() : new GraphiteHierarchicalNameMapper(config.tagsAsPrefix()));
+    }
+
+    public GraphiteStepMeterRegistry(GraphiteConfig config, Clock clock, HierarchicalNameMapper nameMapper) {
+        this(config, stepRegistryConfig(config), clock, nameMapper, DEFAULT_THREAD_FACTORY);
+    }
+
+    private GraphiteStepMeterRegistry(GraphiteConfig config, StepRegistryConfig stepConfig, Clock clock,
+                                      HierarchicalNameMapper nameMapper, ThreadFactory threadFactory) {
+        super(stepConfig, clock);
+
+        config.requireValid();
+
+        this.config = config;
+        this.stepConfig = stepConfig;
+        this.nameMapper = nameMapper;
+
+        config().namingConvention(config.graphiteTagsEnabled() ? new GraphiteDimensionalNamingConvention() : new GraphiteHierarchicalNamingConvention());
+        config().onMeterRemoved(meter -> names.remove(meter.getId()));
+
+        start(threadFactory);
+    }
+
+    /**
+     * The step settings that a {@link GraphiteConfig} doesn't have, like {@code graphite.batchSize} and
+     * {@code graphite.connectTimeout}, are read with the same prefix.
+     */
+    private static StepRegistryConfig stepRegistryConfig(GraphiteConfig config) {
+        return new StepRegistryConfig() {
+            @Override
+            public String prefix() {
+                return config.prefix();
+            }
+
+            @Override
+            @Nullable
+            public String get(String key) {
+                return config.get(key);
+            }
+
+            @Override
+            public Duration step() {
+                return config.step();
+            }
+
+            @Override
+            public boolean enabled() {
+                return config.enabled();
+            }
+        };
+    }
+
+    @Override
+    protected void publish() {
+        long timestamp = TimeUnit.MILLISECONDS.toSeconds(config().clock().wallTime());
+        for (List<Meter> batch : new MeterPartition(getMetersToPublish(), stepConfig.batchSize())) {
+            Frame frame = config.protocol() == GraphiteProtocol.PICKLED ? new PickleFrame() : new PlaintextFrame();
+            for (Meter meter : batch) {
+                write(frame, meter, timestamp);
+            }
+            try {
+                send(frame);
+            } catch (Throwable t) {
+                logger.warn("failed to send metrics to graphite", t);
+            }
+        }
+    }
+
+    private void write(Frame frame, Meter meter, long timestamp) {
+        GraphiteName name = name(meter.getId());
+        meter.use(
+                gauge -> frame.add(name.name, gauge.value(), timestamp),
+                counter -> frame.add(name.withAttribute("count"), counter.count(), timestamp),
+                timer -> {
+                    frame.add(name.withAttribute("count"), timer.count(), timestamp);
+                    frame.add(name.withAttribute("sum"), timer.totalTime(getBaseTimeUnit()), timestamp);
+                    frame.add(name.withAttribute("mean"), timer.mean(getBaseTimeUnit()), timestamp);
+                    frame.add(name.withAttribute("max"), timer.max(getBaseTimeUnit()), timestamp);
+                },
+                summary -> {
+                    frame.add(name.withAttribute("count"), summary.count(), timestamp);
+                    frame.add(name.withAttribute("sum"), summary.totalAmount(), timestamp);
+                    frame.add(name.withAttribute("mean"), summary.mean(), timestamp);
+                    frame.add(name.withAttribute("max"), summary.max(), timestamp);
+                },
+                longTaskTimer -> {
+                    frame.add(name.withAttribute("activeTasks"), longTaskTimer.activeTasks(), timestamp);
+                    frame.add(name.withAttribute("duration"), longTaskTimer.duration(getBaseTimeUnit()), timestamp);
+                    frame.add(name.withAttribute("max"), longTaskTimer.max(getBaseTimeUnit()), timestamp);
+                },
+                timeGauge -> frame.add(name.name, timeGauge.value(getBaseTimeUnit()), timestamp),
+                functionCounter -> frame.add(name.withAttribute("count"), functionCounter.count(), timestamp),
+                functionTimer -> {
+                    frame.add(name.withAttribute("count"), functionTimer.count(), timestamp);
+                    frame.add(name.withAttribute("sum"), functionTimer.totalTime(getBaseTimeUnit()), timestamp);
+                    frame.add(name.withAttribute("mean"), functionTimer.mean(getBaseTimeUnit()), timestamp);
+                },
+                custom -> {
+                    for (Measurement measurement : custom.measure()) {
+                        frame.add(name.withAttribute(measurement.getStatistic().getTagValueRepresentation()),
+                                measurement.getValue(), timestamp);
+                    }
+                });
+    }
+
+    private GraphiteName name(Meter.Id id) {
+        return names.computeIfAbsent(id, i -> new GraphiteName(nameMapper.toHierarchicalName(i, config().namingConvention()),
+                config.graphiteTagsEnabled() ? ";metricattribute=" : "."));
+    }
+
+    private synchronized void send(Frame frame) throws IOException {
+        if (frame.isEmpty()) {
+            return;
+        }
+        try {
+            write(frame);
+        } catch (IOException e) {
+            if (config.protocol() == GraphiteProtocol.UDP) {
+                throw e;
+            }
+            // Graphite may have closed an idle connection since the last step, so reconnect once
+            write(frame);
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        ByteChannel channel = channel();
+        try {
+            if (config.protocol() == GraphiteProtocol.UDP) {
+                for (ByteBuffer datagram : ((PlaintextFrame) frame).datagrams()) {
+                    channel.write(datagram);
+                }
+            } else {
+                ByteBuffer buffer = frame.buffer();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            closeChannel();
+            throw e;
+        }
+    }
+
+    private ByteChannel channel() throws IOException {
+        if (channel == null) {
+            InetSocketAddress address = new InetSocketAddress(config.host(), config.port());
+            if (config.protocol() == GraphiteProtocol.UDP) {
+                channel = DatagramChannel.open().connect(address);
+            } else {
+                SocketChannel socketChannel = SocketChannel.open();
+                try {
+                    socketChannel.socket().connect(address, (int) stepConfig.connectTimeout().toMillis());
+                } catch (IOException e) {
+                    socketChannel.close();
+                    throw e;
+                }
+                channel = socketChannel;
+            }
+        }
+        return channel;
+    }
+
+    private synchronized void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        closeChannel();
+    }
+
+    @Override
+    protected TimeUnit getBaseTimeUnit() {
+        return config.durationUnits();
+    }
+
+    /**
+     * The hierarchical name of a meter, rendered once along with the names of its statistics.
+     */
+    private static class GraphiteName {
+        final String name;
+        private final String attributeSeparator;
+        private final Map<String, String> withAttributes = new ConcurrentHashMap<>(4);
+
+        GraphiteName(String name, String attributeSeparator) {
+            this.name = name;
+            this.attributeSeparator = attributeSeparator;
+        }
+
+        String withAttribute(String attribute) {
+            return withAttributes.computeIfAbsent(attribute, a -> name + attributeSeparator + a);
+        }
+    }
+
+    private abstract static class Frame {
+        private int size;
+
+        void add(String name, double value, long timestamp) {
+            if (Double.isFinite(value)) {
+                append(name, DoubleFormat.wholeOrDecimal(value), timestamp);
+                size++;
+            }
+        }
+
+        abstract void append(String name, String value, long timestamp);
+
+        abstract ByteBuffer buffer();
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Lines of {@code name value timestamp}.
+     */
+    private static class PlaintextFrame extends Frame {
+        private final List<String> lines = new ArrayList<>();
+
+        @Override
+        void append(String name, String value, long timestamp) {
+            lines.add(name + ' ' + value + ' ' + timestamp + '\n');
+        }
+
+        @Override
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(String.join("", lines).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @return Datagrams of as many whole lines as fit in {@link #MAX_DATAGRAM_LENGTH} bytes.
+         */
+        List<ByteBuffer> datagrams() {
+            List<ByteBuffer> datagrams = new ArrayList<>();
+            ByteBuffer datagram = ByteBuffer.allocate(MAX_DATAGRAM_LENGTH);
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                if (datagram.position() > 0 && datagram.remaining() < bytes.length) {
+                    datagram.flip();
+                    datagrams.add(datagram);
+                    datagram = ByteBuffer.allocate(MAX_DATAGRAM_LENGTH);
+                }
+                if (bytes.length > datagram.remaining()) {
+                    // a line longer than a datagram goes on its own
+                    datagrams.add(ByteBuffer.wrap(bytes));
+                } else {
+                    datagram.put(bytes);
+                }
+            }
+            if (datagram.position() > 0) {
+                datagram.flip();
+                datagrams.add(datagram);
+            }
+            return datagrams;
+        }
+    }
+
+    /**
+     * A length-prefixed pickle of a list of {@code (name, (timestamp, value))} tuples, pickled the same way as by
+     * Dropwizard's {@code PickledGraphite}.
+     */
+    private static class PickleFrame extends Frame {
+        private final StringBuilder pickle = new StringBuilder("(l");
+
+        @Override
+        void append(String name, String value, long timestamp) {
+            pickle.append("(S'");
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '\'' || c == '\\') {
+                    pickle.append('\\');
+                }
+                pickle.append(c);
+            }
+            pickle.append("'\n(L").append(timestamp).append("L\nS'").append(value).append("'\ntta");
+        }
+
+        @Override
+        ByteBuffer buffer() {
+            byte[] payload = (pickle.toString() + '.').getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+            buffer.putInt(payload.length).put(payload);
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.graphite;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.lang.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GraphiteStepMeterRegistry} against local sockets standing in for Graphite.
+ */
+class GraphiteStepMeterRegistryTest {
+    private final MockClock clock = new MockClock();
+    private final AtomicInteger gaugeValue = new AtomicInteger(42);
+
+    @Nullable
+    private GraphiteStepMeterRegistry registry;
+
+    @AfterEach
+    void closeRegistry() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void plaintext() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            registry = new GraphiteStepMeterRegistry(config(GraphiteProtocol.PLAINTEXT, localPort(server), false), clock);
+            recordAndPublish();
+
+            try (Socket socket = server.accept().socket()) {
+                socket.setSoTimeout(10_000);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                List<String> lines = new ArrayList<>();
+                for (int i = 0; i < 6; i++) {
+                    lines.add(reader.readLine());
+                }
+                assertThat(lines).containsExactlyInAnyOrder(
+                        "myCounter.k.v.count 3 60",
+                        "myGauge 42 60",
+                        "myTimer.count 1 60",
+                        "myTimer.sum 10 60",
+                        "myTimer.mean 10 60",
+                        "myTimer.max 10 60");
+
+                // the connection is kept open for the next step
+                clock.add(Duration.ofMinutes(1));
+                registry.publish();
+                assertThat(reader.readLine()).endsWith(" 120");
+            }
+        }
+    }
+
+    @Test
+    void pickled() throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            registry = new GraphiteStepMeterRegistry(config(GraphiteProtocol.PICKLED, localPort(server), false), clock);
+            registry.counter("my.counter", "k", "v").increment(3);
+            clock.add(Duration.ofMinutes(1));
+            registry.publish();
+
+            try (Socket socket = server.accept().socket()) {
+                socket.setSoTimeout(10_000);
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                assertThat(new String(payload, StandardCharsets.UTF_8))
+                        .isEqualTo("(l(S'myCounter.k.v.count'\n(L60L\nS'3'\ntta.");
+            }
+        }
+    }
+
+    @Test
+    void udpWithGraphiteTags() throws IOException {
+        try (DatagramChannel server = DatagramChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            registry = new GraphiteStepMeterRegistry(config(GraphiteProtocol.UDP, localPort(server), true), clock);
+            registry.counter("my.counter", "k", "v").increment(3);
+            clock.add(Duration.ofMinutes(1));
+            registry.publish();
+
+            server.socket().setSoTimeout(10_000);
+            ByteBuffer datagram = ByteBuffer.allocate(1500);
+            server.receive(datagram);
+            datagram.flip();
+            assertThat(StandardCharsets.UTF_8.decode(datagram).toString())
+                    .isEqualTo("my.counter;k=v;metricattribute=count 3 60\n");
+        }
+    }
+
+    private void recordAndPublish() {
+        registry.counter("my.counter", "k", "v").increment(3);
+        registry.gauge("my.gauge", gaugeValue);
+        Timer.builder("my.timer").register(registry).record(10, TimeUnit.MILLISECONDS);
+        clock.add(Duration.ofMinutes(1));
+        registry.publish();
+    }
+
+    private static int localPort(ServerSocketChannel server) throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    private static int localPort(DatagramChannel server) throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    private static GraphiteConfig config(GraphiteProtocol protocol, int port, boolean graphiteTagsEnabled) {
+        return new GraphiteConfig() {
+            @Override
+            @Nullable
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public boolean graphiteTagsEnabled() {
+                return graphiteTagsEnabled;
+            }
+
+            @Override
+            public GraphiteProtocol protocol() {
+                return protocol;
+            }
+
+            @Override
+            public String host() {
+                return "localhost";
+            }
+
+            @Override
+            public int port() {
+                return port;
+            }
+        };
+    }
+}
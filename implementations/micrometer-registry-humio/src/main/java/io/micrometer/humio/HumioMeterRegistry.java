@@ -80,7 +80,7 @@ public class HumioMeterRegistry extends StepMeterRegistry {
 
     @Override
     protected void publish() {
-        for (List<Meter> meters : MeterPartition.partition(this, config.batchSize())) {
+        for (List<Meter> meters : new MeterPartition(getMetersToPublish(), config.batchSize())) {
             try {
                 HttpSender.Request.Builder post = httpClient.post(config.uri() + "/api/v1/ingest/humio-structured");
                 String token = config.apiToken();
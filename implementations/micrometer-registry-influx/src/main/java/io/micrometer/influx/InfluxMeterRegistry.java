@@ -118,7 +118,7 @@ public class InfluxMeterRegistry extends StepMeterRegistry {
         try {
             String influxEndpoint = config.apiVersion().writeEndpoint(config);
 
-            for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
+            for (List<Meter> batch : new MeterPartition(getMetersToPublish(), config.batchSize())) {
                 HttpSender.Request.Builder requestBuilder = httpClient
                         .post(influxEndpoint)
                         .withBasicAuthentication(config.userName(), config.password());
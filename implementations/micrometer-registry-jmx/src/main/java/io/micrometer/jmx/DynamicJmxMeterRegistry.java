@@ -0,0 +1,208 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.jmx;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.cumulative.CumulativeCounter;
+import io.micrometer.core.instrument.cumulative.CumulativeDistributionSummary;
+import io.micrometer.core.instrument.cumulative.CumulativeFunctionCounter;
+import io.micrometer.core.instrument.cumulative.CumulativeFunctionTimer;
+import io.micrometer.core.instrument.cumulative.CumulativeTimer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramGauges;
+import io.micrometer.core.instrument.distribution.pause.PauseDetector;
+import io.micrometer.core.instrument.internal.DefaultGauge;
+import io.micrometer.core.instrument.internal.DefaultLongTaskTimer;
+import io.micrometer.core.instrument.internal.DefaultMeter;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.InternalLogger;
+import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link MeterRegistry} that exposes meters through JMX without Dropwizard's {@code JmxReporter}, which registers an
+ * MBean for every meter. Instead, all the meters with the same name share a single {@link javax.management.DynamicMBean}
+ * named {@code <domain>:name=<meter name>}, with an attribute per statistic and set of tags. Attribute values are
+ * cumulative and measured when they are read.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+public class DynamicJmxMeterRegistry extends MeterRegistry {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(DynamicJmxMeterRegistry.class);
+
+    private final JmxConfig config;
+    private final MBeanServer mBeanServer;
+    private final ConcurrentMap<String, MeterNameMBean> mBeans = new ConcurrentHashMap<>();
+
+    public DynamicJmxMeterRegistry(JmxConfig config, Clock clock) {
+        this(config, clock, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public DynamicJmxMeterRegistry(JmxConfig config, Clock clock, MBeanServer mBeanServer) {
+        super(clock);
+
+        config.requireValid();
+
+        this.config = config;
+        this.mBeanServer = mBeanServer;
+
+        config().namingConvention(NamingConvention.camelCase);
+        config().onMeterAdded(this::expose);
+        config().onMeterRemoved(this::unexpose);
+    }
+
+    private void expose(Meter meter) {
+        String name = meter.getId().getConventionName(config().namingConvention());
+        mBeans.compute(name, (n, mBean) -> {
+            if (mBean == null) {
+                mBean = register(n);
+            }
+            if (mBean != null) {
+                mBean.add(meter, config().namingConvention());
+            }
+            return mBean;
+        });
+    }
+
+    private void unexpose(Meter meter) {
+        String name = meter.getId().getConventionName(config().namingConvention());
+        mBeans.computeIfPresent(name, (n, mBean) -> {
+            mBean.remove(meter);
+            if (mBean.isEmpty()) {
+                unregister(mBean);
+                return null;
+            }
+            return mBean;
+        });
+    }
+
+    @Nullable
+    private MeterNameMBean register(String name) {
+        try {
+            Hashtable<String, String> properties = new Hashtable<>();
+            properties.put("name", quoteIfNecessary(name));
+            MeterNameMBean mBean = new MeterNameMBean(new ObjectName(config.domain(), properties));
+            mBeanServer.registerMBean(mBean, mBean.getObjectName());
+            return mBean;
+        } catch (JMException e) {
+            logger.warn("Unable to register an MBean for meters named '" + name + "'", e);
+            return null;
+        }
+    }
+
+    private void unregister(MeterNameMBean mBean) {
+        try {
+            mBeanServer.unregisterMBean(mBean.getObjectName());
+        } catch (JMException e) {
+            logger.warn("Unable to unregister MBean " + mBean.getObjectName(), e);
+        }
+    }
+
+    private static String quoteIfNecessary(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            switch (value.charAt(i)) {
+                case ',':
+                case '=':
+                case ':':
+                case '"':
+                case '*':
+                case '?':
+                case '\n':
+                    return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        mBeans.values().forEach(this::unregister);
+        mBeans.clear();
+    }
+
+    @Override
+    protected <T> Gauge newGauge(Meter.Id id, @Nullable T obj, ToDoubleFunction<T> valueFunction) {
+        return new DefaultGauge<>(id, obj, valueFunction);
+    }
+
+    @Override
+    protected Counter newCounter(Meter.Id id) {
+        return new CumulativeCounter(id);
+    }
+
+    @Override
+    protected Timer newTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
+        Timer timer = new CumulativeTimer(id, clock, distributionStatisticConfig, pauseDetector, getBaseTimeUnit(), false);
+        HistogramGauges.registerWithCommonFormat(timer, this);
+        return timer;
+    }
+
+    @Override
+    protected DistributionSummary newDistributionSummary(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, double scale) {
+        DistributionSummary summary = new CumulativeDistributionSummary(id, clock, distributionStatisticConfig, scale, false);
+        HistogramGauges.registerWithCommonFormat(summary, this);
+        return summary;
+    }
+
+    @Override
+    protected LongTaskTimer newLongTaskTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig) {
+        LongTaskTimer ltt = new DefaultLongTaskTimer(id, clock, getBaseTimeUnit(), distributionStatisticConfig, false);
+        HistogramGauges.registerWithCommonFormat(ltt, this);
+        return ltt;
+    }
+
+    @Override
+    protected <T> FunctionTimer newFunctionTimer(Meter.Id id, T obj, ToLongFunction<T> countFunction, ToDoubleFunction<T> totalTimeFunction, TimeUnit totalTimeFunctionUnit) {
+        return new CumulativeFunctionTimer<>(id, obj, countFunction, totalTimeFunction, totalTimeFunctionUnit, getBaseTimeUnit());
+    }
+
+    @Override
+    protected <T> FunctionCounter newFunctionCounter(Meter.Id id, T obj, ToDoubleFunction<T> countFunction) {
+        return new CumulativeFunctionCounter<>(id, obj, countFunction);
+    }
+
+    @Override
+    protected Meter newMeter(Meter.Id id, Meter.Type type, Iterable<Measurement> measurements) {
+        return new DefaultMeter(id, type, measurements);
+    }
+
+    @Override
+    protected TimeUnit getBaseTimeUnit() {
+        return TimeUnit.MILLISECONDS;
+    }
+
+    @Override
+    protected DistributionStatisticConfig defaultHistogramConfig() {
+        return DistributionStatisticConfig.builder()
+                .expiry(config.step())
+                .build()
+                .merge(DistributionStatisticConfig.DEFAULT);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.jmx;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.lang.Nullable;
+
+import javax.management.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exposes every meter with the same name as attributes of a single {@link DynamicMBean}. Each attribute is a
+ * statistic of one meter, named after the statistic and the meter's tags, like {@code count{method=GET,status=200}}.
+ * Its value is only measured when the attribute is read.
+ */
+class MeterNameMBean implements DynamicMBean {
+    private final ObjectName objectName;
+    private final Map<String, MeterAttribute> attributes = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile String description;
+
+    @Nullable
+    private volatile MBeanInfo mBeanInfo;
+
+    MeterNameMBean(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    ObjectName getObjectName() {
+        return objectName;
+    }
+
+    void add(Meter meter, NamingConvention convention) {
+        Meter.Id id = meter.getId();
+        if (description == null) {
+            description = id.getDescription();
+        }
+        String tags = tags(id, convention);
+        for (Measurement measurement : meter.measure()) {
+            attributes.put(measurement.getStatistic().getTagValueRepresentation() + tags, new MeterAttribute(id, measurement));
+        }
+        mBeanInfo = null;
+    }
+
+    void remove(Meter meter) {
+        attributes.values().removeIf(attribute -> attribute.id.equals(meter.getId()));
+        mBeanInfo = null;
+    }
+
+    boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+
+    private static String tags(Meter.Id id, NamingConvention convention) {
+        StringBuilder tags = new StringBuilder();
+        for (Tag tag : id.getConventionTags(convention)) {
+            tags.append(tags.length() == 0 ? '{' : ',').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return tags.length() == 0 ? "" : tags.append('}').toString();
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        MeterAttribute meterAttribute = attributes.get(attribute);
+        if (meterAttribute == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return meterAttribute.measurement.getValue();
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            MeterAttribute meterAttribute = this.attributes.get(attribute);
+            if (meterAttribute != null) {
+                list.add(new Attribute(attribute, meterAttribute.measurement.getValue()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanInfo info = mBeanInfo;
+        if (info == null) {
+            MBeanAttributeInfo[] attributeInfos = attributes.keySet().stream()
+                    .sorted()
+                    .map(name -> new MBeanAttributeInfo(name, "double", name, true, false, false))
+                    .toArray(MBeanAttributeInfo[]::new);
+            info = new MBeanInfo(getClass().getName(), description, attributeInfos, null, null, null);
+            mBeanInfo = info;
+        }
+        return info;
+    }
+
+    private static class MeterAttribute {
+        final Meter.Id id;
+        final Measurement measurement;
+
+        MeterAttribute(Meter.Id id, Measurement measurement) {
+            this.id = id;
+            this.measurement = measurement;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.jmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DynamicJmxMeterRegistry}.
+ */
+class DynamicJmxMeterRegistryTest {
+    private final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+    private final DynamicJmxMeterRegistry registry = new DynamicJmxMeterRegistry(JmxConfig.DEFAULT, new MockClock(), mBeanServer);
+
+    @AfterEach
+    void close() {
+        registry.close();
+    }
+
+    @Test
+    void oneMBeanPerMeterName() throws Exception {
+        registry.counter("http.requests", "status", "200").increment(3);
+        registry.counter("http.requests", "status", "500").increment();
+        registry.timer("http.latency").record(Duration.ofMillis(15));
+
+        assertThat(mBeanServer.queryNames(new ObjectName("metrics:*"), null)).containsExactlyInAnyOrder(
+                new ObjectName("metrics:name=httpRequests"),
+                new ObjectName("metrics:name=httpLatency"));
+
+        ObjectName requests = new ObjectName("metrics:name=httpRequests");
+        assertThat(mBeanServer.getAttribute(requests, "count{status=200}")).isEqualTo(3.0);
+        assertThat(mBeanServer.getAttribute(requests, "count{status=500}")).isEqualTo(1.0);
+        assertThat(Arrays.stream(mBeanServer.getMBeanInfo(requests).getAttributes()).map(MBeanAttributeInfo::getName))
+                .containsExactly("count{status=200}", "count{status=500}");
+
+        ObjectName latency = new ObjectName("metrics:name=httpLatency");
+        assertThat(mBeanServer.getAttribute(latency, "count")).isEqualTo(1.0);
+        assertThat(mBeanServer.getAttribute(latency, "total")).isEqualTo(15.0);
+        assertThat(mBeanServer.getAttribute(latency, "max")).isEqualTo(15.0);
+    }
+
+    @Test
+    void attributesAreMeasuredWhenRead() throws Exception {
+        Counter counter = registry.counter("my.counter");
+        ObjectName name = new ObjectName("metrics:name=myCounter");
+
+        assertThat(mBeanServer.getAttribute(name, "count")).isEqualTo(0.0);
+        counter.increment(2);
+        assertThat(mBeanServer.getAttribute(name, "count")).isEqualTo(2.0);
+        assertThatThrownBy(() -> mBeanServer.getAttribute(name, "max")).isInstanceOf(AttributeNotFoundException.class);
+    }
+
+    @Test
+    void removingTheLastMeterOfANameUnregistersItsMBean() throws Exception {
+        Counter ok = registry.counter("my.counter", "status", "ok");
+        Timer timer = registry.timer("my.timer");
+        Counter error = registry.counter("my.counter", "status", "error");
+        ObjectName name = new ObjectName("metrics:name=myCounter");
+
+        registry.remove(ok);
+        assertThat(mBeanServer.isRegistered(name)).isTrue();
+        assertThat(mBeanServer.getMBeanInfo(name).getAttributes()).hasSize(1);
+
+        registry.remove(error);
+        assertThat(mBeanServer.isRegistered(name)).isFalse();
+
+        registry.close();
+        assertThat(mBeanServer.isRegistered(new ObjectName("metrics:name=myTimer"))).isFalse();
+        assertThat(timer.count()).isZero();
+    }
+
+    @Test
+    void quotesNamesThatNeedIt() throws Exception {
+        registry.counter("odd:name").increment();
+
+        assertThat(mBeanServer.isRegistered(new ObjectName("metrics:name=" + ObjectName.quote("odd:name")))).isTrue();
+    }
+}
@@ -71,7 +71,7 @@ public class KairosMeterRegistry extends StepMeterRegistry {
 
     @Override
     protected void publish() {
-        for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
+        for (List<Meter> batch : new MeterPartition(getMetersToPublish(), config.batchSize())) {
             try {
                 httpClient.post(config.uri())
                         .withBasicAuthentication(config.userName(), config.password())
@@ -99,7 +99,7 @@ public class NewRelicInsightsApiClientProvider implements NewRelicClientProvider
     public void publish(NewRelicMeterRegistry meterRegistry) {
         // New Relic's Insights API limits us to 1000 events per call
         // 1:1 mapping between Micrometer meters and New Relic events
-        for (List<Meter> batch : MeterPartition.partition(meterRegistry, Math.min(config.batchSize(), 1000))) {
+        for (List<Meter> batch : new MeterPartition(meterRegistry.getMetersToPublish(), Math.min(config.batchSize(), 1000))) {
             sendEvents(batch.stream().flatMap(meter -> meter.match(
                     this::writeGauge,
                     this::writeCounter,
@@ -114,7 +114,7 @@ public class OpenTSDBDistributionSummary extends AbstractDistributionSummary {
      * @return Cumulative histogram buckets.
      */
     public CountAtBucket[] histogramCounts() {
-        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(0, 0, 0).histogramCounts();
+        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(count(), 0, 0).histogramCounts();
     }
 
     @Override
@@ -18,6 +18,7 @@ package io.micrometer.prometheus;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.lang.Nullable;
 import io.prometheus.client.Collector;
 
 import java.util.*;
@@ -35,6 +36,7 @@ import static java.util.stream.Collectors.toList;
 class MicrometerCollector extends Collector implements Collector.Describable {
     private final Meter.Id id;
     private final Map<List<String>, Child> children = new ConcurrentHashMap<>();
+    private final Map<List<String>, NativeHistogram> nativeHistograms = new ConcurrentHashMap<>();
     private final String conventionName;
     private final List<String> tagKeys;
     private final String help;
@@ -50,8 +52,18 @@ class MicrometerCollector extends Collector implements Collector.Describable {
         children.put(tagValues, child);
     }
 
+    void addNativeHistogram(List<String> tagValues, NativeHistogram nativeHistogram) {
+        nativeHistograms.put(tagValues, nativeHistogram);
+    }
+
+    @Nullable
+    NativeHistogram nativeHistogram(List<String> tagValues) {
+        return nativeHistograms.get(tagValues);
+    }
+
     public void remove(List<String> tagValues) {
         children.remove(tagValues);
+        nativeHistograms.remove(tagValues);
     }
 
     public boolean isEmpty() {
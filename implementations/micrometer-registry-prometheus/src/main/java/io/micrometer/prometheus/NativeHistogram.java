@@ -0,0 +1,190 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Prometheus native histogram, with sparse buckets whose boundaries grow exponentially by a factor of
+ * {@code 2^(2^-schema)}. Bucket {@code i} counts the values in {@code (2^((i-1)/2^schema), 2^(i/2^schema)]}, and the
+ * zero bucket the values up to {@link #ZERO_THRESHOLD}.
+ * <p>
+ * Buckets between the minimum and maximum expected values are kept in an array so that recording is a single atomic
+ * increment. Values outside of this range are rare by definition and go to buckets kept in a map.
+ */
+class NativeHistogram {
+    /**
+     * The zero threshold used by default by the Prometheus client libraries.
+     */
+    static final double ZERO_THRESHOLD = Math.scalb(1.0, -128);
+
+    /**
+     * How many powers of two above the minimum expected value are covered by the bucket array when the maximum
+     * expected value is larger or unbounded.
+     */
+    private static final int MAX_ARRAY_OCTAVES = 32;
+
+    private final int schema;
+
+    /**
+     * {@code 2^(j/2^schema)} for {@code j} from 0 to {@code 2^schema}, the bucket boundaries between 1 and 2.
+     */
+    private final double[] boundaries;
+
+    private final int arrayOffset;
+    private final AtomicLongArray arrayBuckets;
+    private final ConcurrentMap<Integer, LongAdder> mapBuckets = new ConcurrentHashMap<>();
+    private final LongAdder zeroCount = new LongAdder();
+
+    /**
+     * @param schema               The resolution of the histogram, from 0 to 8.
+     * @param minimumExpectedValue The minimum value expected to be recorded, in base units.
+     * @param maximumExpectedValue The maximum value expected to be recorded, in base units.
+     */
+    NativeHistogram(int schema, double minimumExpectedValue, double maximumExpectedValue) {
+        if (schema < 0 || schema > 8) {
+            throw new IllegalArgumentException("schema must be between 0 and 8, was " + schema);
+        }
+        this.schema = schema;
+        this.boundaries = new double[(1 << schema) + 1];
+        for (int j = 0; j < boundaries.length; j++) {
+            boundaries[j] = Math.pow(2, (double) j / (1 << schema));
+        }
+        // avoid rounding errors on the boundaries that are powers of two
+        boundaries[0] = 1;
+        boundaries[boundaries.length - 1] = 2;
+
+        double min = Math.max(minimumExpectedValue, ZERO_THRESHOLD * 2);
+        double max = Math.min(Math.max(maximumExpectedValue, min), Math.scalb(min, MAX_ARRAY_OCTAVES));
+        this.arrayOffset = index(min);
+        this.arrayBuckets = new AtomicLongArray(index(max) - arrayOffset + 1);
+    }
+
+    int schema() {
+        return schema;
+    }
+
+    /**
+     * @param value A value in base units. Negative values are counted in the zero bucket, non-finite values are
+     *              ignored.
+     */
+    void record(double value) {
+        if (value <= ZERO_THRESHOLD) {
+            zeroCount.increment();
+            return;
+        }
+        if (value == Double.POSITIVE_INFINITY || Double.isNaN(value)) {
+            return;
+        }
+        int index = index(value);
+        int arrayIndex = index - arrayOffset;
+        if (arrayIndex >= 0 && arrayIndex < arrayBuckets.length()) {
+            arrayBuckets.incrementAndGet(arrayIndex);
+        } else {
+            mapBuckets.computeIfAbsent(index, i -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * @return The index of the bucket of a positive, finite value above the zero threshold.
+     */
+    // VisibleForTesting
+    int index(double value) {
+        int exponent = Math.getExponent(value);
+        // exact, since it only changes the exponent, and in [1, 2)
+        double fraction = value / Math.scalb(1.0, exponent);
+        int j = Arrays.binarySearch(boundaries, fraction);
+        if (j < 0) {
+            // the boundary above the value
+            j = -j - 1;
+        }
+        return (exponent << schema) + j;
+    }
+
+    Snapshot takeSnapshot() {
+        TreeMap<Integer, Long> counts = new TreeMap<>();
+        for (int i = 0; i < arrayBuckets.length(); i++) {
+            long count = arrayBuckets.get(i);
+            if (count > 0) {
+                counts.put(i + arrayOffset, count);
+            }
+        }
+        for (Map.Entry<Integer, LongAdder> bucket : mapBuckets.entrySet()) {
+            counts.put(bucket.getKey(), bucket.getValue().sum());
+        }
+        return new Snapshot(schema, zeroCount.sum(), counts);
+    }
+
+    /**
+     * The buckets of a histogram in the form of the Prometheus exposition formats: spans of consecutive buckets, and
+     * the count of each bucket as the difference to the count of the previous bucket.
+     */
+    static class Snapshot {
+        final int schema;
+        final long zeroCount;
+        final long count;
+
+        /**
+         * The gap to the previous span, or the index of the first bucket for the first span.
+         */
+        final int[] spanOffsets;
+        final int[] spanLengths;
+        final long[] deltas;
+
+        Snapshot(int schema, long zeroCount, TreeMap<Integer, Long> counts) {
+            this.schema = schema;
+            this.zeroCount = zeroCount;
+
+            int spans = 0;
+            Integer previousIndex = null;
+            for (Integer index : counts.keySet()) {
+                if (previousIndex == null || index != previousIndex + 1) {
+                    spans++;
+                }
+                previousIndex = index;
+            }
+
+            this.spanOffsets = new int[spans];
+            this.spanLengths = new int[spans];
+            this.deltas = new long[counts.size()];
+
+            long count = zeroCount;
+            int span = -1;
+            int bucket = 0;
+            long previousCount = 0;
+            previousIndex = null;
+            for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+                int index = entry.getKey();
+                if (previousIndex == null || index != previousIndex + 1) {
+                    span++;
+                    spanOffsets[span] = previousIndex == null ? index : index - previousIndex - 1;
+                }
+                spanLengths[span]++;
+                deltas[bucket++] = entry.getValue() - previousCount;
+                previousCount = entry.getValue();
+                previousIndex = index;
+                count += entry.getValue();
+            }
+            this.count = count;
+        }
+    }
+}
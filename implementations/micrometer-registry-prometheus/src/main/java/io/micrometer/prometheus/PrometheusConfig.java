@@ -16,10 +16,12 @@
 package io.micrometer.prometheus;
 
 import io.micrometer.core.instrument.config.MeterRegistryConfig;
+import io.micrometer.core.instrument.config.validate.InvalidReason;
 import io.micrometer.core.instrument.config.validate.Validated;
 
 import java.time.Duration;
 
+import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.check;
 import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.checkAll;
 import static io.micrometer.core.instrument.config.MeterRegistryConfigValidator.checkRequired;
 import static io.micrometer.core.instrument.config.validate.PropertyValidator.*;
@@ -66,11 +68,62 @@ public interface PrometheusConfig extends MeterRegistryConfig {
         return getEnum(this, HistogramFlavor.class, "histogramFlavor").orElse(HistogramFlavor.Prometheus);
     }
 
+    /**
+     * Whether timers and distribution summaries with a percentile histogram also record a native histogram, which
+     * is exposed instead of their classic buckets when Prometheus scrapes the {@link ProtobufFormat protobuf format}.
+     * Scrapes in a text format still expose the classic buckets.
+     *
+     * @return {@code true} to record native histograms.
+     * @since 1.8.0
+     */
+    default boolean nativeHistograms() {
+        return getBoolean(this, "nativeHistograms").orElse(false);
+    }
+
+    /**
+     * The resolution of native histograms: the boundaries of consecutive buckets differ by a factor of
+     * {@code 2^(2^-schema)}. The default of 3 gives a factor of about 1.09.
+     *
+     * @return The schema of native histograms, from 0 to 8.
+     * @since 1.8.0
+     */
+    default int nativeHistogramSchema() {
+        return getInteger(this, "nativeHistogramSchema").orElse(3);
+    }
+
+    /**
+     * Whether concurrent scrapes with the same content type and included names share a single render of the scrape
+     * body. This cuts the cost of several Prometheus servers scraping the same instance at about the same time.
+     *
+     * @return {@code true} to coalesce concurrent scrapes.
+     * @since 1.8.0
+     */
+    default boolean scrapeCoalescing() {
+        return getBoolean(this, "scrapeCoalescing").orElse(false);
+    }
+
+    /**
+     * How long a scrape body rendered with {@link #scrapeCoalescing()} is served to later scrapes. The default of
+     * zero only shares a render between scrapes that overlap it.
+     *
+     * @return The time-to-live of a coalesced scrape body.
+     * @since 1.8.0
+     */
+    default Duration scrapeCacheTtl() {
+        return getDuration(this, "scrapeCacheTtl").orElse(Duration.ZERO);
+    }
+
     @Override
     default Validated<?> validate() {
         return checkAll(this,
                 checkRequired("step", PrometheusConfig::step),
-                checkRequired("histogramFlavor", PrometheusConfig::histogramFlavor)
+                checkRequired("histogramFlavor", PrometheusConfig::histogramFlavor),
+                check("nativeHistogramSchema", PrometheusConfig::nativeHistogramSchema)
+                        .andThen(v -> v.invalidateWhen(schema -> schema < 0 || schema > 8, "must be between 0 and 8",
+                                InvalidReason.MALFORMED)),
+                check("scrapeCacheTtl", PrometheusConfig::scrapeCacheTtl)
+                        .andThen(v -> v.invalidateWhen(Duration::isNegative, "must not be negative",
+                                InvalidReason.MALFORMED))
         );
     }
 }
@@ -35,7 +35,15 @@ public class PrometheusDistributionSummary extends AbstractDistributionSummary {
 
     private final HistogramFlavor histogramFlavor;
 
+    @Nullable
+    private final NativeHistogram nativeHistogram;
+
     PrometheusDistributionSummary(Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig, double scale, HistogramFlavor histogramFlavor) {
+        this(id, clock, distributionStatisticConfig, scale, histogramFlavor, null);
+    }
+
+    PrometheusDistributionSummary(Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig, double scale,
+                                  HistogramFlavor histogramFlavor, @Nullable NativeHistogram nativeHistogram) {
         super(id, clock,
                 DistributionStatisticConfig.builder()
                         .percentilesHistogram(false)
@@ -45,6 +53,7 @@ public class PrometheusDistributionSummary extends AbstractDistributionSummary {
                 scale, false);
 
         this.histogramFlavor = histogramFlavor;
+        this.nativeHistogram = nativeHistogram;
         this.max = new TimeWindowMax(clock, distributionStatisticConfig);
 
         if (distributionStatisticConfig.isPublishingHistogram()) {
@@ -76,6 +85,9 @@ public class PrometheusDistributionSummary extends AbstractDistributionSummary {
 
         if (histogram != null)
             histogram.recordDouble(amount);
+
+        if (nativeHistogram != null)
+            nativeHistogram.record(amount);
     }
 
     @Override
@@ -97,6 +109,11 @@ public class PrometheusDistributionSummary extends AbstractDistributionSummary {
         return histogramFlavor;
     }
 
+    @Nullable
+    NativeHistogram nativeHistogram() {
+        return nativeHistogram;
+    }
+
     @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
     @Override
     public boolean equals(@Nullable Object o) {
@@ -115,7 +132,7 @@ public class PrometheusDistributionSummary extends AbstractDistributionSummary {
      * @return Cumulative histogram buckets.
      */
     public CountAtBucket[] histogramCounts() {
-        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(0, 0, 0).histogramCounts();
+        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(count(), 0, 0).histogramCounts();
     }
 
     @Override
@@ -28,9 +28,13 @@ import io.prometheus.client.Collector;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.exporter.common.TextFormat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
@@ -59,6 +63,9 @@ public class PrometheusMeterRegistry extends MeterRegistry {
     private final CollectorRegistry registry;
     private final ConcurrentMap<String, MicrometerCollector> collectorMap = new ConcurrentHashMap<>();
 
+    @Nullable
+    private final ScrapeCoalescer scrapeCoalescer;
+
     public PrometheusMeterRegistry(PrometheusConfig config) {
         this(config, new CollectorRegistry(), Clock.SYSTEM);
     }
@@ -70,6 +77,7 @@ public class PrometheusMeterRegistry extends MeterRegistry {
 
         this.prometheusConfig = config;
         this.registry = registry;
+        this.scrapeCoalescer = config.scrapeCoalescing() ? new ScrapeCoalescer(clock, config.scrapeCacheTtl()) : null;
 
         config().namingConvention(new PrometheusNamingConvention());
         config().onMeterRemoved(this::onMeterRemoved);
@@ -127,7 +135,7 @@ public class PrometheusMeterRegistry extends MeterRegistry {
      * @since 1.7.0
      */
     public void scrape(Writer writer, String contentType) throws IOException {
-        scrape(writer, contentType, registry.metricFamilySamples());
+        scrape(writer, contentType, (Set<String>) null);
     }
 
     private void scrape(Writer writer, String contentType, Enumeration<Collector.MetricFamilySamples> samples) throws IOException {
@@ -164,10 +172,62 @@ public class PrometheusMeterRegistry extends MeterRegistry {
      * @since 1.7.0
      */
     public void scrape(Writer writer, String contentType, @Nullable Set<String> includedNames) throws IOException {
-        Enumeration<Collector.MetricFamilySamples> samples = includedNames != null
+        if (scrapeCoalescer != null) {
+            byte[] body = scrapeCoalescer.scrape(contentType, includedNames, () -> {
+                StringWriter render = new StringWriter();
+                scrape(render, contentType, metricFamilySamples(includedNames));
+                return render.toString().getBytes(StandardCharsets.UTF_8);
+            });
+            writer.write(new String(body, StandardCharsets.UTF_8));
+            return;
+        }
+        scrape(writer, contentType, metricFamilySamples(includedNames));
+    }
+
+    /**
+     * Scrape to the specified output stream in a text format or the {@link ProtobufFormat protobuf format}, which is
+     * the only one that exposes native histograms. Use {@link ProtobufFormat#chooseContentType(String)} to pick the
+     * content type from the {@code Accept} header of the scrape request.
+     *
+     * @param outputStream Target that serves the content to be scraped by Prometheus.
+     * @param contentType the Content-Type of the scrape.
+     * @param includedNames Sample names to be included. All samples will be included if {@code null}.
+     * @throws IOException if writing fails
+     * @since 1.8.0
+     */
+    public void scrape(OutputStream outputStream, String contentType, @Nullable Set<String> includedNames) throws IOException {
+        if (scrapeCoalescer != null) {
+            outputStream.write(scrapeCoalescer.scrape(contentType, includedNames, () -> {
+                ByteArrayOutputStream render = new ByteArrayOutputStream();
+                scrape(render, contentType, metricFamilySamples(includedNames));
+                return render.toByteArray();
+            }));
+            return;
+        }
+        scrape(outputStream, contentType, metricFamilySamples(includedNames));
+    }
+
+    private void scrape(OutputStream outputStream, String contentType, Enumeration<Collector.MetricFamilySamples> samples) throws IOException {
+        if (ProtobufFormat.isProtobuf(contentType)) {
+            ProtobufFormat.write(outputStream, samples, this::nativeHistogram);
+        } else {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            scrape(writer, contentType, samples);
+            writer.flush();
+        }
+    }
+
+    private Enumeration<Collector.MetricFamilySamples> metricFamilySamples(@Nullable Set<String> includedNames) {
+        removeIdleMeters();
+        return includedNames != null
                 ? registry.filteredMetricFamilySamples(includedNames)
                 : registry.metricFamilySamples();
-        scrape(writer, contentType, samples);
+    }
+
+    @Nullable
+    private NativeHistogram nativeHistogram(String familyName, List<String> labelValues) {
+        MicrometerCollector collector = collectorMap.get(familyName);
+        return collector == null ? null : collector.nativeHistogram(labelValues);
     }
 
     @Override
@@ -183,9 +243,14 @@ public class PrometheusMeterRegistry extends MeterRegistry {
 
     @Override
     public DistributionSummary newDistributionSummary(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, double scale) {
-        PrometheusDistributionSummary summary = new PrometheusDistributionSummary(id, clock, distributionStatisticConfig, scale, prometheusConfig.histogramFlavor());
+        NativeHistogram nativeHistogram = nativeHistogram(distributionStatisticConfig, 1);
+        PrometheusDistributionSummary summary = new PrometheusDistributionSummary(id, clock, distributionStatisticConfig, scale,
+                prometheusConfig.histogramFlavor(), nativeHistogram);
         applyToCollector(id, (collector) -> {
             List<String> tagValues = tagValues(id);
+            if (nativeHistogram != null) {
+                collector.addNativeHistogram(tagValues, nativeHistogram);
+            }
             collector.add(tagValues, (conventionName, tagKeys) -> {
                 Stream.Builder<Collector.MetricFamilySamples.Sample> samples = Stream.builder();
 
@@ -265,12 +330,35 @@ public class PrometheusMeterRegistry extends MeterRegistry {
 
     @Override
     protected io.micrometer.core.instrument.Timer newTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
-        PrometheusTimer timer = new PrometheusTimer(id, clock, distributionStatisticConfig, pauseDetector, prometheusConfig.histogramFlavor());
-        applyToCollector(id, (collector) ->
-                addDistributionStatisticSamples(distributionStatisticConfig, collector, timer, tagValues(id), false));
+        // expected values of timers are in nanoseconds
+        NativeHistogram nativeHistogram = nativeHistogram(distributionStatisticConfig, 1e-9);
+        PrometheusTimer timer = new PrometheusTimer(id, clock, distributionStatisticConfig, pauseDetector,
+                prometheusConfig.histogramFlavor(), nativeHistogram);
+        applyToCollector(id, (collector) -> {
+            if (nativeHistogram != null) {
+                collector.addNativeHistogram(tagValues(id), nativeHistogram);
+            }
+            addDistributionStatisticSamples(distributionStatisticConfig, collector, timer, tagValues(id), false);
+        });
         return timer;
     }
 
+    /**
+     * @param toBaseUnit The factor that converts the expected values of the distribution to base units.
+     */
+    @Nullable
+    private NativeHistogram nativeHistogram(DistributionStatisticConfig distributionStatisticConfig, double toBaseUnit) {
+        Boolean percentileHistogram = distributionStatisticConfig.isPercentileHistogram();
+        if (!prometheusConfig.nativeHistograms() || percentileHistogram == null || !percentileHistogram) {
+            return null;
+        }
+        Double min = distributionStatisticConfig.getMinimumExpectedValueAsDouble();
+        Double max = distributionStatisticConfig.getMaximumExpectedValueAsDouble();
+        return new NativeHistogram(prometheusConfig.nativeHistogramSchema(),
+                (min == null ? 1.0 : min) * toBaseUnit,
+                (max == null ? Double.POSITIVE_INFINITY : max) * toBaseUnit);
+    }
+
     @Override
     protected <T> io.micrometer.core.instrument.Gauge newGauge(Meter.Id id, @Nullable T obj, ToDoubleFunction<T> valueFunction) {
         Gauge gauge = new DefaultGauge<>(id, obj, valueFunction);
@@ -38,7 +38,15 @@ public class PrometheusTimer extends AbstractTimer {
     @Nullable
     private final Histogram histogram;
 
+    @Nullable
+    private final NativeHistogram nativeHistogram;
+
     PrometheusTimer(Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector, HistogramFlavor histogramFlavor) {
+        this(id, clock, distributionStatisticConfig, pauseDetector, histogramFlavor, null);
+    }
+
+    PrometheusTimer(Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector,
+                    HistogramFlavor histogramFlavor, @Nullable NativeHistogram nativeHistogram) {
         super(id, clock,
                 DistributionStatisticConfig.builder()
                         .percentilesHistogram(false)
@@ -48,6 +56,7 @@ public class PrometheusTimer extends AbstractTimer {
                 pauseDetector, TimeUnit.SECONDS, false);
 
         this.histogramFlavor = histogramFlavor;
+        this.nativeHistogram = nativeHistogram;
         this.max = new TimeWindowMax(clock, distributionStatisticConfig);
 
         if (distributionStatisticConfig.isPublishingHistogram()) {
@@ -80,6 +89,9 @@ public class PrometheusTimer extends AbstractTimer {
 
         if (histogram != null)
             histogram.recordLong(TimeUnit.NANOSECONDS.convert(amount, unit));
+
+        if (nativeHistogram != null)
+            nativeHistogram.record(TimeUtils.nanosToUnit(nanoAmount, TimeUnit.SECONDS));
     }
 
     @Override
@@ -101,6 +113,11 @@ public class PrometheusTimer extends AbstractTimer {
         return histogramFlavor;
     }
 
+    @Nullable
+    NativeHistogram nativeHistogram() {
+        return nativeHistogram;
+    }
+
     /**
      * For Prometheus we cannot use the histogram counts from HistogramSnapshot, as it is based on a
      * rolling histogram. Prometheus requires a histogram that accumulates values over the lifetime of the app.
@@ -108,7 +125,7 @@ public class PrometheusTimer extends AbstractTimer {
      * @return Cumulative histogram buckets.
      */
     public CountAtBucket[] histogramCounts() {
-        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(0, 0, 0).histogramCounts();
+        return histogram == null ? EMPTY_HISTOGRAM : histogram.takeSnapshot(count(), 0, 0).histogramCounts();
     }
 
     @Override
@@ -0,0 +1,431 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import io.micrometer.core.lang.Nullable;
+import io.prometheus.client.Collector;
+import io.prometheus.client.exporter.common.TextFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Prometheus protobuf exposition format: a sequence of length-delimited {@code io.prometheus.client.MetricFamily}
+ * messages, as defined by
+ * <a href="https://github.com/prometheus/client_model/blob/master/io/prometheus/client/metrics.proto">metrics.proto</a>.
+ * It is the only exposition format that supports native histograms.
+ *
+ * @since 1.8.0
+ */
+public final class ProtobufFormat {
+    public static final String CONTENT_TYPE = "application/vnd.google.protobuf; " +
+            "proto=io.prometheus.client.MetricFamily; encoding=delimited";
+
+    // values of MetricType
+    private static final int COUNTER_TYPE = 0;
+    private static final int GAUGE_TYPE = 1;
+    private static final int SUMMARY_TYPE = 2;
+    private static final int UNTYPED_TYPE = 3;
+    private static final int HISTOGRAM_TYPE = 4;
+
+    private ProtobufFormat() {
+    }
+
+    /**
+     * Choose the exposition format from the {@code Accept} header of a scrape request. Prometheus only asks for the
+     * protobuf format when native histograms are enabled.
+     *
+     * @param acceptHeader The {@code Accept} header of the scrape request.
+     * @return {@link #CONTENT_TYPE} if the scraper accepts it, otherwise the text format chosen by
+     * {@link TextFormat#chooseContentType(String)}.
+     */
+    public static String chooseContentType(@Nullable String acceptHeader) {
+        if (acceptHeader != null) {
+            for (String accepted : acceptHeader.split(",")) {
+                if (accepted.contains("application/vnd.google.protobuf") &&
+                        accepted.contains("proto=io.prometheus.client.MetricFamily") &&
+                        accepted.contains("encoding=delimited")) {
+                    return CONTENT_TYPE;
+                }
+            }
+        }
+        return TextFormat.chooseContentType(acceptHeader);
+    }
+
+    static boolean isProtobuf(String contentType) {
+        return contentType.startsWith("application/vnd.google.protobuf");
+    }
+
+    interface NativeHistograms {
+        /**
+         * @return The native histogram of a histogram family sample group, if any.
+         */
+        @Nullable
+        NativeHistogram find(String familyName, List<String> labelValues);
+    }
+
+    /**
+     * Write metric families in the protobuf format. Samples of histograms and summaries are grouped back into one
+     * metric per label set. A histogram that also publishes percentiles is written as a histogram family and a summary
+     * family of the same name, as a family can only have one type. Samples that don't belong to such a metric are
+     * written as untyped families of their own.
+     */
+    static void write(OutputStream out, Enumeration<Collector.MetricFamilySamples> families,
+                      NativeHistograms nativeHistograms) throws IOException {
+        Output family = new Output();
+        while (families.hasMoreElements()) {
+            Collector.MetricFamilySamples samples = families.nextElement();
+            switch (samples.type) {
+                case COUNTER:
+                    writeCounter(out, family, samples);
+                    break;
+                case GAUGE:
+                    writeValues(out, family, samples, GAUGE_TYPE, 2);
+                    break;
+                case SUMMARY:
+                case HISTOGRAM:
+                case GAUGE_HISTOGRAM:
+                    writeDistribution(out, family, samples, nativeHistograms);
+                    break;
+                default:
+                    writeValues(out, family, samples, UNTYPED_TYPE, 5);
+                    break;
+            }
+        }
+    }
+
+    private static void writeCounter(OutputStream out, Output family, Collector.MetricFamilySamples samples) throws IOException {
+        family.reset();
+        // the family name of counters doesn't include the _total suffix of their samples
+        String name = samples.name;
+        for (Collector.MetricFamilySamples.Sample sample : samples.samples) {
+            if (sample.name.endsWith("_created")) {
+                continue;
+            }
+            name = sample.name;
+            Output metric = new Output();
+            writeLabels(metric, sample.labelNames, sample.labelValues);
+            Output counter = new Output();
+            counter.doubleField(1, sample.value);
+            metric.message(3, counter);
+            family.message(4, metric);
+        }
+        writeFamily(out, family, name, samples.help, COUNTER_TYPE);
+    }
+
+    private static void writeValues(OutputStream out, Output family, Collector.MetricFamilySamples samples,
+                                    int type, int valueField) throws IOException {
+        family.reset();
+        for (Collector.MetricFamilySamples.Sample sample : samples.samples) {
+            Output metric = new Output();
+            writeLabels(metric, sample.labelNames, sample.labelValues);
+            Output value = new Output();
+            value.doubleField(1, sample.value);
+            metric.message(valueField, value);
+            family.message(4, metric);
+        }
+        writeFamily(out, family, samples.name, samples.help, type);
+    }
+
+    private static void writeDistribution(OutputStream out, Output family, Collector.MetricFamilySamples samples,
+                                          NativeHistograms nativeHistograms) throws IOException {
+        boolean histogram = samples.type != Collector.Type.SUMMARY;
+        String countName = samples.name + "_count";
+        String sumName = samples.name + "_sum";
+        // the count and sum of a long task timer
+        String activeCountName = samples.name + "_active_count";
+        String durationSumName = samples.name + "_duration_sum";
+        String bucketName = samples.name + "_bucket";
+
+        Map<List<String>, Distribution> distributions = new LinkedHashMap<>();
+        Map<String, List<Collector.MetricFamilySamples.Sample>> others = new LinkedHashMap<>();
+        for (Collector.MetricFamilySamples.Sample sample : samples.samples) {
+            int le = sample.labelNames.indexOf("le");
+            int vmrange = sample.labelNames.indexOf("vmrange");
+            int quantile = sample.labelNames.indexOf("quantile");
+            if (sample.name.equals(countName) || sample.name.equals(activeCountName)) {
+                distribution(distributions, sample, -1).count = sample.value;
+            } else if (sample.name.equals(sumName) || sample.name.equals(durationSumName)) {
+                distribution(distributions, sample, -1).sum = sample.value;
+            } else if (sample.name.equals(bucketName) && le >= 0) {
+                double upperBound = parseDouble(sample.labelValues.get(le));
+                if (upperBound != Double.POSITIVE_INFINITY) {
+                    distribution(distributions, sample, le).buckets.add(new double[]{upperBound, sample.value});
+                }
+            } else if (sample.name.equals(bucketName) && vmrange >= 0) {
+                // VictoriaMetrics ranges look like 1.0e-9...1.136e-9 and count only the values in the range
+                String range = sample.labelValues.get(vmrange);
+                double upperBound = parseDouble(range.substring(range.indexOf("...") + 3));
+                distribution(distributions, sample, vmrange).ranges.add(new double[]{upperBound, sample.value});
+            } else if (sample.name.equals(samples.name) && quantile >= 0) {
+                distribution(distributions, sample, quantile).quantiles
+                        .add(new double[]{parseDouble(sample.labelValues.get(quantile)), sample.value});
+            } else if (!sample.name.endsWith("_created")) {
+                others.computeIfAbsent(sample.name, n -> new ArrayList<>()).add(sample);
+            }
+        }
+
+        family.reset();
+        boolean quantiles = false;
+        for (Distribution distribution : distributions.values()) {
+            Output metric = new Output();
+            writeLabels(metric, distribution.labelNames, distribution.labelValues);
+            if (histogram) {
+                NativeHistogram nativeHistogram = nativeHistograms.find(samples.name, distribution.labelValues);
+                metric.message(7, nativeHistogram == null ? classicHistogram(distribution) :
+                        nativeHistogram(distribution, nativeHistogram.takeSnapshot()));
+                quantiles |= !distribution.quantiles.isEmpty();
+            } else {
+                metric.message(4, summary(distribution));
+            }
+            family.message(4, metric);
+        }
+        writeFamily(out, family, samples.name, samples.help, histogram ? HISTOGRAM_TYPE : SUMMARY_TYPE);
+
+        if (quantiles) {
+            // the summary repeats the count and sum of the histogram, which Prometheus accepts as they are equal
+            family.reset();
+            for (Distribution distribution : distributions.values()) {
+                if (!distribution.quantiles.isEmpty()) {
+                    Output metric = new Output();
+                    writeLabels(metric, distribution.labelNames, distribution.labelValues);
+                    metric.message(4, summary(distribution));
+                    family.message(4, metric);
+                }
+            }
+            writeFamily(out, family, samples.name, samples.help, SUMMARY_TYPE);
+        }
+
+        for (Map.Entry<String, List<Collector.MetricFamilySamples.Sample>> other : others.entrySet()) {
+            writeValues(out, family, new Collector.MetricFamilySamples(other.getKey(), Collector.Type.UNKNOWN,
+                    samples.help, other.getValue()), UNTYPED_TYPE, 5);
+        }
+    }
+
+    private static Output classicHistogram(Distribution distribution) {
+        Output histogram = new Output();
+        histogram.uint64(1, (long) distribution.count);
+        histogram.doubleField(2, distribution.sum);
+        for (double[] bucket : distribution.cumulativeBuckets()) {
+            Output b = new Output();
+            b.uint64(1, (long) bucket[1]);
+            b.doubleField(2, bucket[0]);
+            histogram.message(3, b);
+        }
+        return histogram;
+    }
+
+    /**
+     * The classic buckets are left out: Prometheus ingests only the native buckets of a histogram that has both,
+     * unless it is configured to keep the classic ones too.
+     */
+    private static Output nativeHistogram(Distribution distribution, NativeHistogram.Snapshot snapshot) {
+        Output histogram = new Output();
+        // the buckets and their count come from the same snapshot
+        histogram.uint64(1, snapshot.count);
+        histogram.doubleField(2, distribution.sum);
+        histogram.sint(5, snapshot.schema);
+        histogram.doubleField(6, NativeHistogram.ZERO_THRESHOLD);
+        histogram.uint64(7, snapshot.zeroCount);
+        for (int i = 0; i < snapshot.spanOffsets.length; i++) {
+            Output span = new Output();
+            span.sint(1, snapshot.spanOffsets[i]);
+            span.uint64(2, snapshot.spanLengths[i]);
+            histogram.message(12, span);
+        }
+        for (long delta : snapshot.deltas) {
+            histogram.sint(13, delta);
+        }
+        return histogram;
+    }
+
+    private static Output summary(Distribution distribution) {
+        Output summary = new Output();
+        summary.uint64(1, (long) distribution.count);
+        summary.doubleField(2, distribution.sum);
+        for (double[] quantile : distribution.quantiles) {
+            Output q = new Output();
+            q.doubleField(1, quantile[0]);
+            q.doubleField(2, quantile[1]);
+            summary.message(3, q);
+        }
+        return summary;
+    }
+
+    private static Distribution distribution(Map<List<String>, Distribution> distributions,
+                                             Collector.MetricFamilySamples.Sample sample, int excludedLabel) {
+        List<String> labelNames = sample.labelNames;
+        List<String> labelValues = sample.labelValues;
+        if (excludedLabel >= 0) {
+            labelNames = new ArrayList<>(labelNames);
+            labelNames.remove(excludedLabel);
+            labelValues = new ArrayList<>(labelValues);
+            labelValues.remove(excludedLabel);
+        }
+        List<String> finalLabelNames = labelNames;
+        return distributions.computeIfAbsent(labelValues, values -> new Distribution(finalLabelNames, values));
+    }
+
+    private static void writeLabels(Output metric, List<String> labelNames, List<String> labelValues) {
+        for (int i = 0; i < labelNames.size(); i++) {
+            Output label = new Output();
+            label.string(1, labelNames.get(i));
+            label.string(2, labelValues.get(i));
+            metric.message(1, label);
+        }
+    }
+
+    private static void writeFamily(OutputStream out, Output family, String name, String help, int type) throws IOException {
+        Output header = new Output();
+        header.string(1, name);
+        header.string(2, help);
+        header.uint64(3, type);
+
+        Output length = new Output();
+        length.varint(header.size + family.size);
+        length.writeTo(out);
+        header.writeTo(out);
+        family.writeTo(out);
+    }
+
+    private static double parseDouble(String value) {
+        switch (value) {
+            case "+Inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return Double.parseDouble(value);
+        }
+    }
+
+    private static class Distribution {
+        final List<String> labelNames;
+        final List<String> labelValues;
+        double count;
+        double sum;
+        final List<double[]> buckets = new ArrayList<>();
+        // VictoriaMetrics buckets, which aren't cumulative
+        final List<double[]> ranges = new ArrayList<>();
+        final List<double[]> quantiles = new ArrayList<>();
+
+        Distribution(List<String> labelNames, List<String> labelValues) {
+            this.labelNames = labelNames;
+            this.labelValues = labelValues;
+        }
+
+        List<double[]> cumulativeBuckets() {
+            if (ranges.isEmpty()) {
+                return buckets;
+            }
+            ranges.sort(Comparator.comparingDouble(range -> range[0]));
+            List<double[]> cumulative = new ArrayList<>(ranges.size());
+            double count = 0;
+            for (double[] range : ranges) {
+                count += range[1];
+                if (range[0] != Double.POSITIVE_INFINITY) {
+                    cumulative.add(new double[]{range[0], count});
+                }
+            }
+            return cumulative;
+        }
+    }
+
+    /**
+     * A protobuf message being written. Nested messages are written to their own output first, since a message is
+     * prefixed by its length.
+     */
+    static class Output {
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void uint64(int field, long value) {
+            tag(field, 0);
+            varint(value);
+        }
+
+        /**
+         * A {@code sint32} or {@code sint64} field, which are ZigZag encoded.
+         */
+        void sint(int field, long value) {
+            tag(field, 0);
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void doubleField(int field, double value) {
+            tag(field, 1);
+            long bits = Double.doubleToRawLongBits(value);
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                buffer[size++] = (byte) (bits >>> (8 * i));
+            }
+        }
+
+        void string(int field, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            tag(field, 2);
+            varint(bytes.length);
+            write(bytes, bytes.length);
+        }
+
+        void message(int field, Output message) {
+            tag(field, 2);
+            varint(message.size);
+            write(message.buffer, message.size);
+        }
+
+        void varint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+
+        private void tag(int field, int wireType) {
+            varint((field << 3) | wireType);
+        }
+
+        private void write(byte[] bytes, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, 0, buffer, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+            }
+        }
+    }
+}
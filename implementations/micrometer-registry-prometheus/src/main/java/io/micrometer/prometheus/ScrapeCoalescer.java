@@ -0,0 +1,111 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.lang.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Lets concurrent scrapes for the same content type and included names share a single render, and serves the
+ * rendered body to later scrapes until it is older than a time-to-live.
+ */
+class ScrapeCoalescer {
+    private final Clock clock;
+    private final long ttlNanos;
+    private final ConcurrentMap<List<Object>, Flight> flights = new ConcurrentHashMap<>();
+
+    ScrapeCoalescer(Clock clock, Duration ttl) {
+        this.clock = clock;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    byte[] scrape(String contentType, @Nullable Set<String> includedNames, Renderer renderer) throws IOException {
+        List<Object> key = Arrays.asList(contentType, includedNames == null ? null : new HashSet<>(includedNames));
+        long now = clock.monotonicTime();
+
+        Flight[] created = new Flight[1];
+        Flight flight = flights.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isExpired(now)) {
+                return existing;
+            }
+            return created[0] = new Flight();
+        });
+
+        if (flight == created[0]) {
+            try {
+                byte[] body = renderer.render();
+                flight.completedAt = clock.monotonicTime();
+                flight.body.complete(body);
+            } catch (IOException | RuntimeException | Error e) {
+                // waiting scrapes fail along with this one, but the next scrape renders again
+                flights.remove(key, flight);
+                flight.body.completeExceptionally(e);
+                throw e;
+            }
+            removeExpired(flight.completedAt);
+        }
+        return flight.await();
+    }
+
+    private void removeExpired(long now) {
+        flights.values().removeIf(flight -> flight.isExpired(now));
+    }
+
+    interface Renderer {
+        byte[] render() throws IOException;
+    }
+
+    private class Flight {
+        final CompletableFuture<byte[]> body = new CompletableFuture<>();
+
+        /**
+         * Written before the body is completed, so it is visible to anyone who sees a completed body.
+         */
+        volatile long completedAt;
+
+        boolean isExpired(long now) {
+            return body.isDone() && now - completedAt >= ttlNanos;
+        }
+
+        byte[] await() throws IOException {
+            try {
+                return body.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for a concurrent scrape", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new IOException(cause.getMessage(), cause);
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link NativeHistogram}.
+ */
+class NativeHistogramTest {
+
+    @Test
+    void bucketIndexes() {
+        NativeHistogram histogram = new NativeHistogram(3, 0.001, 30);
+
+        // bucket i has the upper bound 2^(i/8), inclusive
+        assertThat(histogram.index(1)).isEqualTo(0);
+        assertThat(histogram.index(2)).isEqualTo(8);
+        assertThat(histogram.index(0.5)).isEqualTo(-8);
+        assertThat(histogram.index(Math.nextUp(1.0))).isEqualTo(1);
+        assertThat(histogram.index(Math.pow(2, 0.125))).isEqualTo(1);
+        assertThat(histogram.index(Math.nextUp(Math.pow(2, 0.125)))).isEqualTo(2);
+        assertThat(histogram.index(1.5)).isEqualTo(5);
+
+        NativeHistogram schema0 = new NativeHistogram(0, 1, 1024);
+        assertThat(schema0.index(3)).isEqualTo(2);
+        assertThat(schema0.index(4)).isEqualTo(2);
+        assertThat(schema0.index(5)).isEqualTo(3);
+    }
+
+    @Test
+    void spansAndDeltas() {
+        NativeHistogram histogram = new NativeHistogram(0, 1, 16);
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(16);
+        histogram.record(32);
+        // outside of the expected range
+        histogram.record(1024);
+        histogram.record(0.25);
+
+        NativeHistogram.Snapshot snapshot = histogram.takeSnapshot();
+        assertThat(snapshot.schema).isEqualTo(0);
+        assertThat(snapshot.zeroCount).isEqualTo(1);
+        assertThat(snapshot.count).isEqualTo(8);
+        // buckets -2, 0, 1, 4, 5 and 10
+        assertThat(snapshot.spanOffsets).containsExactly(-2, 1, 2, 4);
+        assertThat(snapshot.spanLengths).containsExactly(1, 2, 2, 1);
+        assertThat(snapshot.deltas).containsExactly(1, 1, -1, 0, 0, 0);
+    }
+
+    @Test
+    void emptySnapshot() {
+        NativeHistogram.Snapshot snapshot = new NativeHistogram(3, 1, Double.POSITIVE_INFINITY).takeSnapshot();
+        assertThat(snapshot.count).isZero();
+        assertThat(snapshot.spanOffsets).isEmpty();
+        assertThat(snapshot.deltas).isEmpty();
+    }
+}
@@ -39,6 +39,14 @@ class PrometheusConfigTest {
                 );
     }
 
+    @Test
+    void negativeScrapeCacheTtl() {
+        props.put("prometheus.scrapeCacheTtl", "PT-1S");
+
+        assertThat(config.validate().failures().stream().map(Validated.Invalid::getMessage))
+                .containsExactly("must not be negative");
+    }
+
     @Test
     void valid() {
         assertThat(config.validate().isValid()).isTrue();
@@ -19,6 +19,7 @@ import io.micrometer.core.Issue;
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.binder.BaseUnits;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.core.instrument.distribution.HistogramSnapshot;
 import io.prometheus.client.Collector;
@@ -308,6 +309,21 @@ class PrometheusMeterRegistryTest {
         assertThat(registry.scrape()).contains("my_timer_seconds_bucket{le=\"0.001\",} 1.0");
     }
 
+    @Test
+    void sampledHistogramBucketsNeverExceedCount() {
+        Timer timer = Timer.builder("my.timer")
+                .serviceLevelObjectives(Duration.ofMillis(1))
+                .histogramSampleInterval(3)
+                .register(registry);
+
+        for (int i = 0; i < 1000; i++) {
+            timer.record(500, TimeUnit.MICROSECONDS);
+            for (CountAtBucket countAtBucket : ((PrometheusTimer) timer).histogramCounts()) {
+                assertThat(countAtBucket.count()).isLessThanOrEqualTo(timer.count());
+            }
+        }
+    }
+
     @Issue("#61")
     @Test
     void timersRecordMax() {
@@ -0,0 +1,321 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.lang.Nullable;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProtobufFormat}.
+ */
+class ProtobufFormatTest {
+
+    private final MockClock clock = new MockClock();
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(new PrometheusConfig() {
+        @Override
+        public String get(String key) {
+            return null;
+        }
+
+        @Override
+        public boolean nativeHistograms() {
+            return true;
+        }
+    }, new CollectorRegistry(true), clock);
+
+    @Test
+    void chooseContentType() {
+        assertThat(ProtobufFormat.chooseContentType("application/vnd.google.protobuf;proto=io.prometheus.client.MetricFamily;" +
+                "encoding=delimited;q=0.7,text/plain;version=0.0.4;q=0.3,*/*;q=0.1")).isEqualTo(ProtobufFormat.CONTENT_TYPE);
+        assertThat(ProtobufFormat.chooseContentType("text/plain;version=0.0.4")).isEqualTo(TextFormat.CONTENT_TYPE_004);
+        assertThat(ProtobufFormat.chooseContentType(null)).isEqualTo(TextFormat.CONTENT_TYPE_004);
+    }
+
+    @Test
+    void counter() throws IOException {
+        Counter.builder("my.counter").tag("k", "v").register(registry).increment(3);
+
+        Message family = single(scrape());
+        assertThat(family.string(1)).isEqualTo("my_counter_total");
+        assertThat(family.uint(3)).isEqualTo(0);
+
+        Message metric = family.message(4);
+        Message label = metric.message(1);
+        assertThat(label.string(1)).isEqualTo("k");
+        assertThat(label.string(2)).isEqualTo("v");
+        assertThat(metric.message(3).doubleValue(1)).isEqualTo(3.0);
+    }
+
+    @Test
+    void nativeHistogram() throws IOException {
+        Timer timer = Timer.builder("my.timer").publishPercentileHistogram().register(registry);
+        timer.record(Duration.ofSeconds(1));
+        timer.record(Duration.ofSeconds(1));
+        timer.record(Duration.ofSeconds(2));
+
+        Message family = scrape().stream().filter(f -> f.string(1).equals("my_timer_seconds")).findFirst().get();
+        assertThat(family.uint(3)).isEqualTo(4);
+
+        Message histogram = family.message(4).message(7);
+        assertThat(histogram.uint(1)).isEqualTo(3);
+        assertThat(histogram.doubleValue(2)).isEqualTo(4.0);
+        assertThat(histogram.sint(5)).isEqualTo(3);
+        assertThat(histogram.uint(7)).isEqualTo(0);
+        // no classic buckets
+        assertThat(histogram.all(3)).isEmpty();
+
+        // buckets 0 and 8 of schema 3 hold 1s and 2s
+        List<Message> spans = histogram.all(12).stream().map(Message::new).collect(Collectors.toList());
+        assertThat(spans).hasSize(2);
+        assertThat(spans.get(0).sint(1)).isEqualTo(0);
+        assertThat(spans.get(0).uint(2)).isEqualTo(1);
+        assertThat(spans.get(1).sint(1)).isEqualTo(7);
+        assertThat(spans.get(1).uint(2)).isEqualTo(1);
+        assertThat(histogram.all(13).stream().map(f -> decodeZigZag(f.varint)).collect(Collectors.toList()))
+                .containsExactly(2L, -1L);
+
+        // text scrapes keep the classic buckets
+        assertThat(registry.scrape()).contains("my_timer_seconds_bucket{le=\"1.073741824\",} 2.0");
+    }
+
+    @Test
+    void classicHistogramWithoutPercentileHistogram() throws IOException {
+        Timer.builder("my.timer").serviceLevelObjectives(Duration.ofSeconds(1)).register(registry)
+                .record(Duration.ofMillis(500));
+
+        Message family = scrape().stream().filter(f -> f.string(1).equals("my_timer_seconds")).findFirst().get();
+        Message histogram = family.message(4).message(7);
+        assertThat(histogram.all(12)).isEmpty();
+
+        Message bucket = histogram.message(3);
+        assertThat(bucket.uint(1)).isEqualTo(1);
+        assertThat(bucket.doubleValue(2)).isEqualTo(1.0);
+    }
+
+    @Test
+    void histogramWithPercentiles() throws IOException {
+        Timer timer = Timer.builder("my.timer").publishPercentiles(0.5).serviceLevelObjectives(Duration.ofSeconds(1))
+                .register(registry);
+        timer.record(Duration.ofMillis(500));
+
+        List<Message> families = scrape().stream().filter(f -> f.string(1).equals("my_timer_seconds"))
+                .collect(Collectors.toList());
+        assertThat(families).hasSize(2);
+
+        Message histogram = families.get(0);
+        assertThat(histogram.uint(3)).isEqualTo(4);
+        assertThat(histogram.message(4).message(7).uint(1)).isEqualTo(1);
+
+        Message summaryFamily = families.get(1);
+        assertThat(summaryFamily.uint(3)).isEqualTo(2);
+        Message summary = summaryFamily.message(4).message(4);
+        assertThat(summary.uint(1)).isEqualTo(1);
+        assertThat(summary.doubleValue(2)).isEqualTo(0.5);
+        assertThat(summary.message(3).doubleValue(1)).isEqualTo(0.5);
+    }
+
+    @Test
+    void longTaskTimer() throws IOException {
+        LongTaskTimer ltt = LongTaskTimer.builder("my.ltt").serviceLevelObjectives(Duration.ofMinutes(1)).register(registry);
+        ltt.start();
+        ltt.start();
+        clock.add(Duration.ofSeconds(30));
+
+        List<Message> families = scrape();
+        assertThat(families).extracting(f -> f.string(1)).containsExactly("my_ltt_seconds", "my_ltt_seconds_max");
+
+        Message family = families.get(0);
+        assertThat(family.uint(3)).isEqualTo(4);
+        Message histogram = family.message(4).message(7);
+        assertThat(histogram.uint(1)).isEqualTo(2);
+        assertThat(histogram.doubleValue(2)).isEqualTo(60.0);
+        assertThat(histogram.message(3).uint(1)).isEqualTo(2);
+    }
+
+    @Test
+    void victoriaMetricsHistogram() throws IOException {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(new PrometheusConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public HistogramFlavor histogramFlavor() {
+                return HistogramFlavor.VictoriaMetrics;
+            }
+        }, new CollectorRegistry(true), clock);
+        DistributionSummary summary = DistributionSummary.builder("my.summary").publishPercentileHistogram()
+                .register(registry);
+        summary.record(3);
+        summary.record(1);
+        summary.record(3);
+
+        List<Message> families = scrape(registry);
+        assertThat(families).extracting(f -> f.string(1)).containsExactly("my_summary", "my_summary_max");
+
+        Message histogram = families.get(0).message(4).message(7);
+        assertThat(histogram.uint(1)).isEqualTo(3);
+        List<Message> buckets = histogram.all(3).stream().map(Message::new).collect(Collectors.toList());
+        assertThat(buckets).hasSize(2);
+        assertThat(buckets.get(0).uint(1)).isEqualTo(1);
+        assertThat(buckets.get(0).doubleValue(2)).isEqualTo(1.0);
+        assertThat(buckets.get(1).uint(1)).isEqualTo(3);
+        assertThat(buckets.get(1).doubleValue(2)).isEqualTo(3.0);
+    }
+
+    private List<Message> scrape() throws IOException {
+        return scrape(registry);
+    }
+
+    private static List<Message> scrape(PrometheusMeterRegistry registry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        registry.scrape(out, ProtobufFormat.CONTENT_TYPE, null);
+        byte[] bytes = out.toByteArray();
+
+        List<Message> families = new ArrayList<>();
+        int[] pos = {0};
+        while (pos[0] < bytes.length) {
+            int length = (int) readVarint(bytes, pos);
+            byte[] family = new byte[length];
+            System.arraycopy(bytes, pos[0], family, 0, length);
+            pos[0] += length;
+            families.add(new Message(family));
+        }
+        return families;
+    }
+
+    private static Message single(List<Message> families) {
+        assertThat(families).hasSize(1);
+        return families.get(0);
+    }
+
+    private static long readVarint(byte[] bytes, int[] pos) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Field {
+        final int number;
+        final long varint;
+        @Nullable
+        final byte[] bytes;
+
+        Field(int number, long varint, @Nullable byte[] bytes) {
+            this.number = number;
+            this.varint = varint;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Just enough of a protobuf decoder to look at the fields of a message.
+     */
+    private static class Message {
+        private final List<Field> fields = new ArrayList<>();
+
+        Message(Field field) {
+            this(field.bytes);
+        }
+
+        Message(byte[] bytes) {
+            int[] pos = {0};
+            while (pos[0] < bytes.length) {
+                long tag = readVarint(bytes, pos);
+                int number = (int) (tag >>> 3);
+                switch ((int) (tag & 7)) {
+                    case 0:
+                        fields.add(new Field(number, readVarint(bytes, pos), null));
+                        break;
+                    case 1:
+                        long bits = 0;
+                        for (int i = 0; i < 8; i++) {
+                            bits |= (bytes[pos[0]++] & 0xffL) << (8 * i);
+                        }
+                        fields.add(new Field(number, bits, null));
+                        break;
+                    case 2:
+                        int length = (int) readVarint(bytes, pos);
+                        byte[] value = new byte[length];
+                        System.arraycopy(bytes, pos[0], value, 0, length);
+                        pos[0] += length;
+                        fields.add(new Field(number, 0, value));
+                        break;
+                    default:
+                        throw new IllegalStateException("unexpected wire type in tag " + tag);
+                }
+            }
+        }
+
+        List<Field> all(int number) {
+            return fields.stream().filter(f -> f.number == number).collect(Collectors.toList());
+        }
+
+        Field first(int number) {
+            List<Field> all = all(number);
+            assertThat(all).isNotEmpty();
+            return all.get(0);
+        }
+
+        String string(int number) {
+            return new String(first(number).bytes, StandardCharsets.UTF_8);
+        }
+
+        long uint(int number) {
+            return first(number).varint;
+        }
+
+        long sint(int number) {
+            return decodeZigZag(uint(number));
+        }
+
+        double doubleValue(int number) {
+            return Double.longBitsToDouble(first(number).varint);
+        }
+
+        Message message(int number) {
+            return new Message(first(number));
+        }
+    }
+}
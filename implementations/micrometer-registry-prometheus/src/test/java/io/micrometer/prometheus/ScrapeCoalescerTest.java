@@ -0,0 +1,112 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.prometheus;
+
+import io.micrometer.core.instrument.MockClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ScrapeCoalescer}.
+ */
+class ScrapeCoalescerTest {
+    private final MockClock clock = new MockClock();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    void concurrentScrapesShareOneRender() throws Exception {
+        ScrapeCoalescer coalescer = new ScrapeCoalescer(clock, Duration.ZERO);
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> first = executor.submit(() -> coalescer.scrape("text", null, () -> {
+                rendering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return render();
+            }));
+            assertThat(rendering.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<byte[]> second = executor.submit(() -> coalescer.scrape("text", null, this::render));
+            // the second scrape can't finish until the render it joined does
+            Thread.sleep(50);
+            assertThat(second.isDone()).isFalse();
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(new byte[]{1});
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(new byte[]{1});
+            assertThat(renders.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // without a time-to-live, a scrape that starts after the render completes renders again
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{2});
+    }
+
+    @Test
+    void cachedUntilTtlExpires() throws IOException {
+        ScrapeCoalescer coalescer = new ScrapeCoalescer(clock, Duration.ofSeconds(5));
+
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{1});
+        clock.add(Duration.ofSeconds(4));
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{1});
+
+        clock.add(Duration.ofSeconds(1));
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{2});
+    }
+
+    @Test
+    void contentTypeAndIncludedNamesAreRenderedSeparately() throws IOException {
+        ScrapeCoalescer coalescer = new ScrapeCoalescer(clock, Duration.ofSeconds(5));
+
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{1});
+        assertThat(coalescer.scrape("protobuf", null, this::render)).isEqualTo(new byte[]{2});
+        assertThat(coalescer.scrape("text", Collections.singleton("a"), this::render)).isEqualTo(new byte[]{3});
+        assertThat(coalescer.scrape("text", Collections.singleton("a"), this::render)).isEqualTo(new byte[]{3});
+    }
+
+    @Test
+    void failedRenderIsNotCached() throws IOException {
+        ScrapeCoalescer coalescer = new ScrapeCoalescer(clock, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> coalescer.scrape("text", null, () -> {
+            throw new IOException("boom");
+        })).isInstanceOf(IOException.class);
+        assertThat(coalescer.scrape("text", null, this::render)).isEqualTo(new byte[]{1});
+    }
+
+    private byte[] render() {
+        return new byte[]{(byte) renders.incrementAndGet()};
+    }
+}
@@ -16,6 +16,7 @@
 package io.micrometer.statsd;
 
 import io.micrometer.core.instrument.config.MeterRegistryConfig;
+import io.micrometer.core.instrument.config.validate.InvalidReason;
 import io.micrometer.core.instrument.config.validate.Validated;
 
 import java.time.Duration;
@@ -59,7 +60,8 @@ public interface StatsdConfig extends MeterRegistryConfig {
     }
 
     /**
-     * @return The host name of the StatsD agent.
+     * @return The host name of the StatsD agent, or the path of its socket for the
+     * {@link StatsdProtocol#UDS_DATAGRAM} and {@link StatsdProtocol#UDS_STREAM} protocols.
      */
     default String host() {
         return getString(this, "host").orElse("localhost");
@@ -139,6 +141,19 @@ public interface StatsdConfig extends MeterRegistryConfig {
         return getBoolean(this, "buffered").orElse(true);
     }
 
+    /**
+     * The capacity of a bounded queue that recording threads hand lines to, and that a dedicated sender thread drains
+     * into packets. Recording threads never wait on a full queue: the line is dropped instead, and counted by the
+     * {@code statsd.lines.dropped} meter. The default of 0 disables the queue and lines are emitted through a Reactor
+     * sink instead.
+     *
+     * @return The capacity of the sender queue, rounded up to a power of two.
+     * @since 1.8.0
+     */
+    default int senderQueueCapacity() {
+        return getInteger(this, "senderQueueCapacity").orElse(0);
+    }
+
     @Override
     default Validated<?> validate() {
         return checkAll(this,
@@ -147,7 +162,10 @@ public interface StatsdConfig extends MeterRegistryConfig {
                 check("port", StatsdConfig::port),
                 checkRequired("protocol", StatsdConfig::protocol),
                 checkRequired("pollingFrequency", StatsdConfig::pollingFrequency),
-                checkRequired("step", StatsdConfig::step)
+                checkRequired("step", StatsdConfig::step),
+                check("senderQueueCapacity", StatsdConfig::senderQueueCapacity)
+                        .andThen(v -> v.invalidateWhen(capacity -> capacity < 0 || capacity > 1 << 30,
+                                "must be between 0 and 2^30", InvalidReason.MALFORMED))
         );
     }
 }
@@ -26,6 +26,7 @@ import io.micrometer.core.instrument.util.HierarchicalNameMapper;
 import io.micrometer.core.lang.Nullable;
 import io.micrometer.core.util.internal.logging.WarnThenDebugLogger;
 import io.micrometer.statsd.internal.*;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.util.AttributeKey;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
@@ -40,7 +41,9 @@ import reactor.netty.tcp.TcpClient;
 import reactor.netty.udp.UdpClient;
 import reactor.util.retry.Retry;
 
+import java.net.InetSocketAddress;
 import java.net.PortUnreachableException;
+import java.net.SocketAddress;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Map;
@@ -50,6 +53,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 import java.util.function.ToLongFunction;
 import java.util.stream.DoubleStream;
@@ -90,6 +94,9 @@ public class StatsdMeterRegistry extends MeterRegistry {
     @Nullable
     private Consumer<String> lineSink;
 
+    @Nullable
+    private QueueingManySink queueingSink;
+
     private static final AttributeKey<Boolean> CONNECTION_DISPOSED = AttributeKey.valueOf("doOnDisconnectCalled");
 
     public StatsdMeterRegistry(StatsdConfig config, Clock clock) {
@@ -143,16 +150,44 @@ public class StatsdMeterRegistry extends MeterRegistry {
         );
 
         if (config.enabled()) {
-            this.sink = Sinks.many().multicast().directBestEffort();
+            if (config.senderQueueCapacity() > 0 && lineSink == null) {
+                this.queueingSink = new QueueingManySink(config.senderQueueCapacity(), config.maxPacketLength(),
+                        config.buffered(), config.pollingFrequency());
+                this.sink = queueingSink;
+            } else {
+                this.sink = Sinks.many().multicast().directBestEffort();
+            }
 
             try {
                 Class.forName("ch.qos.logback.classic.turbo.TurboFilter", false, getClass().getClassLoader());
                 this.sink = new LogbackMetricsSuppressingManySink(this.sink);
             } catch (ClassNotFoundException ignore) { }
+            if (queueingSink != null) {
+                bindQueueMetrics(queueingSink);
+            }
             start();
         }
     }
 
+    private void bindQueueMetrics(QueueingManySink queueingSink) {
+        Gauge.builder("statsd.queue.size", queueingSink, QueueingManySink::queueSize)
+                .description("The number of lines waiting to be sent to the StatsD agent")
+                .baseUnit("lines")
+                .register(this);
+        Gauge.builder("statsd.queue.capacity", queueingSink, QueueingManySink::queueCapacity)
+                .description("The maximum number of lines that can wait to be sent to the StatsD agent")
+                .baseUnit("lines")
+                .register(this);
+        FunctionCounter.builder("statsd.lines.dropped", queueingSink, QueueingManySink::droppedLines)
+                .description("Lines dropped because the queue to the StatsD agent was full")
+                .baseUnit("lines")
+                .register(this);
+        FunctionCounter.builder("statsd.packets.sent", queueingSink, QueueingManySink::sentPackets)
+                .description("Packets handed to the connection to the StatsD agent")
+                .baseUnit("packets")
+                .register(this);
+    }
+
     public static Builder builder(StatsdConfig config) {
         return new Builder(config);
     }
@@ -212,26 +247,45 @@ public class StatsdMeterRegistry extends MeterRegistry {
                 startPolling();
             } else {
                 final Publisher<String> publisher;
-                if (statsdConfig.buffered()) {
+                if (queueingSink != null) {
+                    // the sender thread of the queue fills packets itself
+                    publisher = this.sink.asFlux();
+                } else if (statsdConfig.buffered()) {
                     publisher = BufferingFlux.create(this.sink.asFlux(), "\n", statsdConfig.maxPacketLength(), statsdConfig.pollingFrequency().toMillis())
                             .onBackpressureLatest();
                 } else {
                     publisher = this.sink.asFlux();
                 }
-                if (statsdConfig.protocol() == StatsdProtocol.UDP) {
-                    prepareUdpClient(publisher);
-                } else if (statsdConfig.protocol() == StatsdProtocol.TCP) {
-                    prepareTcpClient(publisher);
+                switch (statsdConfig.protocol()) {
+                    case UDP:
+                        prepareUdpClient(publisher, this::inetSocketAddress);
+                        break;
+                    case TCP:
+                        prepareTcpClient(publisher, this::inetSocketAddress);
+                        break;
+                    case UDS_DATAGRAM:
+                        prepareUdpClient(publisher, this::domainSocketAddress);
+                        break;
+                    case UDS_STREAM:
+                        prepareTcpClient(publisher, this::domainSocketAddress);
+                        break;
                 }
             }
         }
     }
 
-    private void prepareUdpClient(Publisher<String> publisher) {
+    private SocketAddress inetSocketAddress() {
+        return InetSocketAddress.createUnresolved(statsdConfig.host(), statsdConfig.port());
+    }
+
+    private SocketAddress domainSocketAddress() {
+        return new DomainSocketAddress(statsdConfig.host());
+    }
+
+    private void prepareUdpClient(Publisher<String> publisher, Supplier<SocketAddress> remoteAddress) {
         AtomicReference<UdpClient> udpClientReference = new AtomicReference<>();
         UdpClient udpClient = UdpClient.create()
-                .host(statsdConfig.host())
-                .port(statsdConfig.port())
+                .remoteAddress(remoteAddress)
                 .handle((in, out) -> out
                         .sendString(publisher)
                         .neverComplete()
@@ -247,11 +301,10 @@ public class StatsdMeterRegistry extends MeterRegistry {
         connectAndSubscribe(udpClient);
     }
 
-    private void prepareTcpClient(Publisher<String> publisher) {
+    private void prepareTcpClient(Publisher<String> publisher, Supplier<SocketAddress> remoteAddress) {
         AtomicReference<TcpClient> tcpClientReference = new AtomicReference<>();
         TcpClient tcpClient = TcpClient.create()
-                .host(statsdConfig.host())
-                .port(statsdConfig.port())
+                .remoteAddress(remoteAddress)
                 .handle((in, out) -> out
                         .sendString(publisher)
                         .neverComplete())
@@ -23,5 +23,22 @@ package io.micrometer.statsd;
  */
 public enum StatsdProtocol {
     UDP,
-    TCP
+    TCP,
+
+    /**
+     * Datagrams over the Unix domain socket at the path given by {@link StatsdConfig#host()}. Unlike UDP, the
+     * kernel doesn't drop datagrams when the agent falls behind; sends wait for its socket buffer to drain. Requires
+     * a native Netty transport, which is included for Linux on x86_64.
+     *
+     * @since 1.8.0
+     */
+    UDS_DATAGRAM,
+
+    /**
+     * A stream connection over the Unix domain socket at the path given by {@link StatsdConfig#host()}. Requires a
+     * native Netty transport, which is included for Linux on x86_64.
+     *
+     * @since 1.8.0
+     */
+    UDS_STREAM
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.statsd.internal;
+
+import io.micrometer.core.lang.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This is an internal class only for use within Micrometer.
+ * A bounded, lock-free queue for many producers and a single consumer. Producers claim a slot by advancing the
+ * producer index and then publish their element into it; the consumer frees a slot by clearing it before advancing
+ * the consumer index.
+ *
+ * @param <E> The type of the queued elements.
+ */
+public class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity The minimum capacity of the queue, rounded up to a power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Safe to call from any thread.
+     *
+     * @param element The element to enqueue.
+     * @return {@code false} if the queue is full.
+     */
+    public boolean offer(E element) {
+        long consumerLimit = consumerIndex.get() + buffer.length();
+        while (true) {
+            long index = producerIndex.get();
+            if (index >= consumerLimit) {
+                consumerLimit = consumerIndex.get() + buffer.length();
+                if (index >= consumerLimit) {
+                    return false;
+                }
+            }
+            if (producerIndex.compareAndSet(index, index + 1)) {
+                buffer.lazySet((int) index & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Only to be called from the single consumer thread.
+     *
+     * @return The next element, or {@code null} if the queue is empty.
+     */
+    @Nullable
+    public E poll() {
+        long index = consumerIndex.get();
+        int slot = (int) index & mask;
+        E element = buffer.get(slot);
+        if (element == null) {
+            if (index == producerIndex.get()) {
+                return null;
+            }
+            // a producer has claimed the slot but not yet published its element
+            do {
+                element = buffer.get(slot);
+            } while (element == null);
+        }
+        buffer.lazySet(slot, null);
+        consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    /**
+     * @return The number of queued elements, including any still being published.
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, buffer.length()));
+    }
+
+    public int capacity() {
+        return buffer.length();
+    }
+}
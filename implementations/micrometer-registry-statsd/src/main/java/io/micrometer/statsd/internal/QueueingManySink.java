@@ -0,0 +1,206 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.statsd.internal;
+
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is an internal class only for use within Micrometer.
+ * A sink that hands lines to a {@link MpscRingBuffer} without ever blocking the recording thread, dropping (and
+ * counting) lines when the queue is full. Each subscriber to {@link #asFlux()} gets a dedicated sender thread that
+ * drains the queue into packets as fast as the subscriber requests them.
+ */
+public class QueueingManySink implements Sinks.Many<String> {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MpscRingBuffer<String> queue;
+    private final int maxPacketLength;
+    private final boolean buffered;
+    private final long maxNanosBetweenEmits;
+    private final ThreadFactory threadFactory = new NamedThreadFactory("statsd-sender");
+
+    private final LongAdder droppedLines = new LongAdder();
+    private final LongAdder sentPackets = new LongAdder();
+
+    /**
+     * Guards the queue's single consumer while a sender thread of a new subscriber takes over from the last one.
+     */
+    private final Object consumerLock = new Object();
+
+    /**
+     * @param capacity         The capacity of the queue.
+     * @param maxPacketLength  The maximum length in bytes of a packet of lines joined by newlines.
+     * @param buffered         Whether to fill packets with as many lines as fit. Otherwise, each line is a packet.
+     * @param maxTimeBetweenEmits How long lines are held back waiting for a buffered packet to fill up.
+     */
+    public QueueingManySink(int capacity, int maxPacketLength, boolean buffered, Duration maxTimeBetweenEmits) {
+        this.queue = new MpscRingBuffer<>(capacity);
+        this.maxPacketLength = maxPacketLength;
+        this.buffered = buffered;
+        this.maxNanosBetweenEmits = maxTimeBetweenEmits.toNanos();
+    }
+
+    @Override
+    public Sinks.EmitResult tryEmitNext(String line) {
+        if (queue.offer(line)) {
+            return Sinks.EmitResult.OK;
+        }
+        droppedLines.increment();
+        return Sinks.EmitResult.FAIL_OVERFLOW;
+    }
+
+    @Override
+    public Sinks.EmitResult tryEmitComplete() {
+        return Sinks.EmitResult.OK;
+    }
+
+    @Override
+    public Sinks.EmitResult tryEmitError(Throwable error) {
+        return Sinks.EmitResult.OK;
+    }
+
+    @Override
+    public void emitNext(String line, Sinks.EmitFailureHandler failureHandler) {
+        tryEmitNext(line);
+    }
+
+    @Override
+    public void emitComplete(Sinks.EmitFailureHandler failureHandler) {
+    }
+
+    @Override
+    public void emitError(Throwable error, Sinks.EmitFailureHandler failureHandler) {
+    }
+
+    @Override
+    public int currentSubscriberCount() {
+        return 0;
+    }
+
+    /**
+     * @return Packets of lines, each no longer than the maximum packet length unless a single line is longer.
+     */
+    @Override
+    public Flux<String> asFlux() {
+        return Flux.create(emitter -> {
+            Sender sender = new Sender(emitter);
+            emitter.onDispose(() -> sender.disposed = true);
+            threadFactory.newThread(sender).start();
+        });
+    }
+
+    @Override
+    public Object scanUnsafe(Attr key) {
+        if (key == Attr.BUFFERED) {
+            return queue.size();
+        }
+        if (key == Attr.CAPACITY) {
+            return queue.capacity();
+        }
+        return null;
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    public int queueCapacity() {
+        return queue.capacity();
+    }
+
+    public long droppedLines() {
+        return droppedLines.sum();
+    }
+
+    public long sentPackets() {
+        return sentPackets.sum();
+    }
+
+    private class Sender implements Runnable {
+        private final FluxSink<String> emitter;
+        private final StringBuilder packet = new StringBuilder();
+        private int packetLength;
+        private long packetStart;
+
+        volatile boolean disposed;
+
+        Sender(FluxSink<String> emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void run() {
+            synchronized (consumerLock) {
+                while (!disposed) {
+                    if (emitter.requestedFromDownstream() == 0) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    String line = queue.poll();
+                    if (line == null) {
+                        if (packetLength > 0 && System.nanoTime() - packetStart >= maxNanosBetweenEmits) {
+                            emitPacket();
+                        }
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    } else if (!buffered) {
+                        emit(line);
+                    } else {
+                        append(line);
+                    }
+                }
+            }
+        }
+
+        private void append(String line) {
+            int lineLength = line.getBytes(StandardCharsets.UTF_8).length;
+            if (packetLength > 0 && packetLength + 1 + lineLength > maxPacketLength) {
+                emitPacket();
+            }
+            if (packetLength > 0) {
+                packet.append('\n');
+                packetLength++;
+            } else {
+                packetStart = System.nanoTime();
+            }
+            packet.append(line);
+            packetLength += lineLength;
+            if (packetLength >= maxPacketLength) {
+                emitPacket();
+            }
+        }
+
+        private void emitPacket() {
+            emit(packet.toString());
+            packet.setLength(0);
+            packetLength = 0;
+        }
+
+        private void emit(String packet) {
+            sentPackets.increment();
+            emitter.next(packet);
+        }
+    }
+}
@@ -37,7 +37,7 @@ class StatsdConfigTest {
         assertThat(config.validate().failures().stream().map(Validated.Invalid::getMessage))
                 .containsOnly(
                         "should be one of 'ETSY', 'DATADOG', 'TELEGRAF', 'SYSDIG'",
-                        "should be one of 'UDP', 'TCP'",
+                        "should be one of 'UDP', 'TCP', 'UDS_DATAGRAM', 'UDS_STREAM'",
                         "must contain a valid time unit"
                 )
                 .hasSize(4);
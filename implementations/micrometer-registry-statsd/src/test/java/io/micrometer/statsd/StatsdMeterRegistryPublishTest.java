@@ -21,6 +21,8 @@ import io.micrometer.core.instrument.Counter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import org.junit.jupiter.api.AfterEach;
@@ -34,7 +36,11 @@ import reactor.netty.DisposableChannel;
 import reactor.netty.tcp.TcpServer;
 import reactor.netty.udp.UdpServer;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +50,7 @@ import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * Tests {@link StatsdMeterRegistry} metrics publishing functionality.
@@ -57,24 +64,27 @@ class StatsdMeterRegistryPublishTest {
     DisposableChannel server;
     CountDownLatch serverLatch;
     AtomicInteger serverMetricReadCount = new AtomicInteger();
+    Path socketPath = Paths.get(System.getProperty("java.io.tmpdir"), "statsd-" + Long.toHexString(System.nanoTime()) + ".sock");
 
     volatile boolean bound;
 
     @AfterEach
-    void cleanUp() {
+    void cleanUp() throws IOException {
         meterRegistry.close();
         if (server != null) {
             server.disposeNow();
         }
+        Files.deleteIfExists(socketPath);
     }
 
     @ParameterizedTest
     @EnumSource(StatsdProtocol.class)
     void receiveMetricsSuccessfully(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         serverLatch = new CountDownLatch(3);
         server = startServer(protocol, 0);
 
-        final int port = getPort();
+        final int port = getPort(protocol);
 
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         startRegistryAndWaitForClient();
@@ -88,11 +98,12 @@ class StatsdMeterRegistryPublishTest {
     @ParameterizedTest
     @EnumSource(StatsdProtocol.class)
     void resumeSendingMetrics_whenServerIntermittentlyFails(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         serverLatch = new CountDownLatch(1);
         AtomicInteger writeCount = new AtomicInteger();
         server = startServer(protocol, 0);
 
-        final int port = getPort();
+        final int port = getPort(protocol);
 
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         startRegistryAndWaitForClient();
@@ -116,11 +127,12 @@ class StatsdMeterRegistryPublishTest {
         await().until(() -> bound);
 
         // Note that this guarantees this test to be passed.
-        // For TCP, this will help trigger replacing client. If this triggered replacing, this change will be lost.
+        // For TCP and Unix domain sockets, this will help trigger replacing client. If this triggered replacing, this
+        // change will be lost.
         // For UDP, the first change seems to be lost frequently somehow.
         Counter.builder("another.counter").register(meterRegistry).increment();
 
-        if (protocol == StatsdProtocol.TCP) {
+        if (protocol != StatsdProtocol.UDP) {
             await().until(() -> meterRegistry.statsdConnection.get() != firstClient);
         }
 
@@ -134,10 +146,11 @@ class StatsdMeterRegistryPublishTest {
     @EnumSource(StatsdProtocol.class)
     @Issue("#1676")
     void stopAndStartMeterRegistrySendsMetrics(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         serverLatch = new CountDownLatch(3);
         server = startServer(protocol, 0);
 
-        final int port = getPort();
+        final int port = getPort(protocol);
 
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         startRegistryAndWaitForClient();
@@ -175,11 +188,12 @@ class StatsdMeterRegistryPublishTest {
     @ParameterizedTest
     @EnumSource(StatsdProtocol.class)
     void whenBackendInitiallyDown_metricsSentAfterBackendStarts(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         AtomicInteger writeCount = new AtomicInteger();
         serverLatch = new CountDownLatch(3);
         // start server to secure an open port
         server = startServer(protocol, 0);
-        final int port = getPort();
+        final int port = getPort(protocol);
         server.disposeNow();
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         meterRegistry.start();
@@ -190,8 +204,8 @@ class StatsdMeterRegistryPublishTest {
             await().until(() -> writeCount.get() == 3);
         }
         server = startServer(protocol, port);
-        if (protocol == StatsdProtocol.TCP) {
-            // client is null until TcpClient first connects
+        if (protocol != StatsdProtocol.UDP) {
+            // client is null until TcpClient first connects, and so is a Unix domain socket UdpClient
             await().until(() -> meterRegistry.statsdConnection.get() != null);
             // TcpClient may take some time to reconnect to the server
             await().until(() -> !clientIsDisposed());
@@ -213,10 +227,11 @@ class StatsdMeterRegistryPublishTest {
     @ParameterizedTest
     @EnumSource(StatsdProtocol.class)
     void whenRegistryStopped_doNotConnectToBackend(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         serverLatch = new CountDownLatch(3);
         // start server to secure an open port
         server = startServer(protocol, 0);
-        final int port = getPort();
+        final int port = getPort(protocol);
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         startRegistryAndWaitForClient();
         server.disposeNow();
@@ -232,9 +247,10 @@ class StatsdMeterRegistryPublishTest {
     @EnumSource(StatsdProtocol.class)
     @Issue("#2177")
     void whenSendError_reconnectsAndWritesNewMetrics(StatsdProtocol protocol) throws InterruptedException {
+        skipUdsTestUnlessEpollIsAvailable(protocol);
         serverLatch = new CountDownLatch(3);
         server = startServer(protocol, 0);
-        final int port = getPort();
+        final int port = getPort(protocol);
         meterRegistry = new StatsdMeterRegistry(getUnbufferedConfig(protocol, port), Clock.SYSTEM);
         startRegistryAndWaitForClient();
         ((Connection) meterRegistry.statsdConnection.get()).addHandler("writeFailure", new ChannelOutboundHandlerAdapter() {
@@ -255,8 +271,16 @@ class StatsdMeterRegistryPublishTest {
         await().pollDelay(Duration.ofSeconds(1)).atMost(Duration.ofSeconds(3)).until(() -> serverMetricReadCount.get() == 3);
     }
 
-    private int getPort() {
-        return ((InetSocketAddress) server.address()).getPort();
+    private int getPort(StatsdProtocol protocol) {
+        return isUds(protocol) ? 0 : ((InetSocketAddress) server.address()).getPort();
+    }
+
+    private static boolean isUds(StatsdProtocol protocol) {
+        return protocol == StatsdProtocol.UDS_DATAGRAM || protocol == StatsdProtocol.UDS_STREAM;
+    }
+
+    private static void skipUdsTestUnlessEpollIsAvailable(StatsdProtocol protocol) {
+        assumeTrue(!isUds(protocol) || Epoll.isAvailable(), "Unix domain sockets require the native epoll transport");
     }
 
     private void trackWritesForUdpClient(StatsdProtocol protocol, AtomicInteger writeCount) {
@@ -284,10 +308,11 @@ class StatsdMeterRegistryPublishTest {
     }
 
     private DisposableChannel startServer(StatsdProtocol protocol, int port) {
-        if (protocol == StatsdProtocol.UDP) {
-            return UdpServer.create()
-                    .host("localhost")
-                    .port(port)
+        if (protocol == StatsdProtocol.UDP || protocol == StatsdProtocol.UDS_DATAGRAM) {
+            UdpServer udpServer = protocol == StatsdProtocol.UDP
+                    ? UdpServer.create().host("localhost").port(port)
+                    : UdpServer.create().bindAddress(this::domainSocketAddress);
+            return udpServer
                     .handle((in, out) ->
                             in.receive().asString()
                                     .flatMap(packet -> {
@@ -299,11 +324,12 @@ class StatsdMeterRegistryPublishTest {
                     .doOnUnbound((server) -> bound = false)
                     .wiretap("udpserver", LogLevel.INFO)
                     .bindNow(Duration.ofSeconds(2));
-        } else if (protocol == StatsdProtocol.TCP) {
+        } else if (protocol == StatsdProtocol.TCP || protocol == StatsdProtocol.UDS_STREAM) {
             AtomicReference<DisposableChannel> channel = new AtomicReference<>();
-            return TcpServer.create()
-                    .host("localhost")
-                    .port(port)
+            TcpServer tcpServer = protocol == StatsdProtocol.TCP
+                    ? TcpServer.create().host("localhost").port(port)
+                    : TcpServer.create().bindAddress(this::domainSocketAddress);
+            return tcpServer
                     .handle((in, out) ->
                             in.receive().asString()
                                     .flatMap(packet -> {
@@ -328,6 +354,16 @@ class StatsdMeterRegistryPublishTest {
         }
     }
 
+    private DomainSocketAddress domainSocketAddress() {
+        try {
+            // a socket left over by a previous server would fail the bind
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new DomainSocketAddress(socketPath.toFile());
+    }
+
     private StatsdConfig getUnbufferedConfig(StatsdProtocol protocol, int port) {
         return new StatsdConfig() {
             @Override
@@ -335,6 +371,11 @@ class StatsdMeterRegistryPublishTest {
                 return null;
             }
 
+            @Override
+            public String host() {
+                return isUds(protocol) ? socketPath.toString() : "localhost";
+            }
+
             @Override
             public int port() {
                 return port;
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.statsd.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MpscRingBuffer}.
+ */
+class MpscRingBufferTest {
+
+    @Test
+    void boundedFifo() {
+        MpscRingBuffer<String> queue = new MpscRingBuffer<>(3);
+        assertThat(queue.capacity()).isEqualTo(4);
+        assertThat(queue.poll()).isNull();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(queue.offer("line" + i)).isTrue();
+        }
+        assertThat(queue.offer("line4")).isFalse();
+        assertThat(queue.size()).isEqualTo(4);
+
+        assertThat(queue.poll()).isEqualTo("line0");
+        assertThat(queue.offer("line4")).isTrue();
+        for (int i = 1; i < 5; i++) {
+            assertThat(queue.poll()).isEqualTo("line" + i);
+        }
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<int[]> queue = new MpscRingBuffer<>(64);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        int[] element = {producer, i};
+                        while (!queue.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            // each producer's elements come out in the order it offered them
+            int[] next = new int[producers];
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int received = 0; received < producers * perProducer; ) {
+                int[] element = queue.poll();
+                if (element == null) {
+                    assertThat(System.nanoTime()).isLessThan(deadline);
+                    continue;
+                }
+                assertThat(element[1]).isEqualTo(next[element[0]]);
+                next[element[0]]++;
+                received++;
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertThat(queue.poll()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
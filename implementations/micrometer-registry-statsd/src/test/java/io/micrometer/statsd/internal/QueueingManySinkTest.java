@@ -0,0 +1,89 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.statsd.internal;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link QueueingManySink}.
+ */
+class QueueingManySinkTest {
+
+    @Test
+    void dropsAndCountsLinesWhenFull() {
+        QueueingManySink sink = new QueueingManySink(2, 1400, true, Duration.ofSeconds(1));
+
+        assertThat(sink.tryEmitNext("a:1|c")).isEqualTo(Sinks.EmitResult.OK);
+        assertThat(sink.tryEmitNext("b:1|c")).isEqualTo(Sinks.EmitResult.OK);
+        assertThat(sink.tryEmitNext("c:1|c")).isEqualTo(Sinks.EmitResult.FAIL_OVERFLOW);
+
+        assertThat(sink.queueSize()).isEqualTo(2);
+        assertThat(sink.droppedLines()).isEqualTo(1);
+    }
+
+    @Test
+    void fillsPacketsUpToMaxPacketLength() {
+        QueueingManySink sink = new QueueingManySink(8, 27, true, Duration.ofMillis(100));
+        sink.tryEmitNext("twelve bytes");
+        sink.tryEmitNext("fourteen bytes");
+        sink.tryEmitNext("twelve bytes");
+
+        StepVerifier.create(sink.asFlux())
+                .expectNext("twelve bytes\nfourteen bytes")
+                // held back until no other line arrives in time to share its packet
+                .expectNext("twelve bytes")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(sink.sentPackets()).isEqualTo(2);
+        assertThat(sink.queueSize()).isZero();
+    }
+
+    @Test
+    void unbufferedSendsEachLine() {
+        QueueingManySink sink = new QueueingManySink(8, 1400, false, Duration.ofSeconds(10));
+        sink.tryEmitNext("a:1|c");
+        sink.tryEmitNext("b:1|c");
+
+        StepVerifier.create(sink.asFlux())
+                .expectNext("a:1|c")
+                .expectNext("b:1|c")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void waitsForDemand() {
+        QueueingManySink sink = new QueueingManySink(8, 1400, false, Duration.ofSeconds(10));
+        sink.tryEmitNext("a:1|c");
+        sink.tryEmitNext("b:1|c");
+
+        StepVerifier.create(sink.asFlux(), 1)
+                .expectNext("a:1|c")
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> assertThat(sink.queueSize()).isEqualTo(1))
+                .thenRequest(1)
+                .expectNext("b:1|c")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -24,7 +24,6 @@ import io.micrometer.core.instrument.cumulative.CumulativeCounter;
 import io.micrometer.core.instrument.cumulative.CumulativeFunctionCounter;
 import io.micrometer.core.instrument.cumulative.CumulativeFunctionTimer;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
-import io.micrometer.core.instrument.distribution.HistogramGauges;
 import io.micrometer.core.instrument.distribution.pause.PauseDetector;
 import io.micrometer.core.instrument.internal.DefaultGauge;
 import io.micrometer.core.instrument.internal.DefaultMeter;
@@ -129,7 +128,7 @@ public class WavefrontMeterRegistry extends PushMeterRegistry {
                              PauseDetector pauseDetector) {
         WavefrontTimer timer = new WavefrontTimer(id, clock, distributionStatisticConfig, pauseDetector, getBaseTimeUnit());
         if (!timer.isPublishingHistogram()) {
-            HistogramGauges.registerWithCommonFormat(timer, this);
+            registerHistogramGauges(timer);
         }
         return timer;
     }
@@ -139,7 +138,7 @@ public class WavefrontMeterRegistry extends PushMeterRegistry {
             Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, double scale) {
         WavefrontDistributionSummary summary = new WavefrontDistributionSummary(id, clock, distributionStatisticConfig, scale);
         if (!summary.isPublishingHistogram()) {
-            HistogramGauges.registerWithCommonFormat(summary, this);
+            registerHistogramGauges(summary);
         }
         return summary;
     }
@@ -161,7 +160,7 @@ public class WavefrontMeterRegistry extends PushMeterRegistry {
 
     @Override
     protected void publish() {
-        getMeters().forEach(m -> m.use(
+        getMetersToPublish().forEach(m -> m.use(
                 this::publishMeter,
                 this::publishMeter,
                 this::publishTimer,
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.aop;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Indexes the meters that an aspect keeps per advised method by their id, so that a meter removed from the registry,
+ * e.g. by {@link MeterRegistry#clear()} or idle meter expiry, is dropped from the methods holding it with a lookup
+ * rather than a scan of every advised method. Dropped meters are then registered again rather than recorded to while
+ * detached.
+ * <p>
+ * The registry's listener only holds the index weakly, so that it doesn't keep a discarded aspect reachable. Since
+ * listeners can't be removed from a registry, the listener of a discarded aspect stays registered as a no-op.
+ *
+ * @param <T> The per-method state of the aspect that holds meters.
+ */
+final class CachedMeters<T> {
+    private final Map<Meter.Id, Set<T>> holders = new ConcurrentHashMap<>();
+    private final BiConsumer<T, Meter> forget;
+
+    /**
+     * @param registry The registry the meters are registered with.
+     * @param forget   Drops a removed meter from a method that holds it.
+     */
+    CachedMeters(MeterRegistry registry, BiConsumer<T, Meter> forget) {
+        this.forget = forget;
+        WeakReference<CachedMeters<T>> ref = new WeakReference<>(this);
+        registry.config().onMeterRemoved(meter -> {
+            CachedMeters<T> cachedMeters = ref.get();
+            if (cachedMeters != null) {
+                cachedMeters.removed(meter);
+            }
+        });
+    }
+
+    /**
+     * Record that a method holds a meter.
+     *
+     * @return The meter.
+     */
+    <M extends Meter> M held(M meter, T holder) {
+        holders.computeIfAbsent(meter.getId(), id -> ConcurrentHashMap.newKeySet()).add(holder);
+        return meter;
+    }
+
+    private void removed(Meter meter) {
+        Set<T> removedFrom = holders.remove(meter.getId());
+        if (removedFrom != null) {
+            for (T holder : removedFrom) {
+                forget.accept(holder, meter);
+            }
+        }
+    }
+}
@@ -17,18 +17,22 @@ package io.micrometer.core.aop;
 
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.Nullable;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -73,6 +77,9 @@ import java.util.function.Predicate;
 @NonNullApi
 public class CountedAspect {
     private static final Predicate<ProceedingJoinPoint> DONT_SKIP_ANYTHING = pjp -> false;
+    private static final Function<ProceedingJoinPoint, Iterable<Tag>> CLASS_AND_METHOD_TAGS = pjp ->
+            Tags.of("class", pjp.getStaticPart().getSignature().getDeclaringTypeName(),
+                    "method", pjp.getStaticPart().getSignature().getName());
     public final String DEFAULT_EXCEPTION_TAG_VALUE = "none";
     public final String RESULT_TAG_FAILURE_VALUE = "failure";
     public final String RESULT_TAG_SUCCESS_VALUE = "success";
@@ -102,6 +109,13 @@ public class CountedAspect {
      */
     private final Predicate<ProceedingJoinPoint> shouldSkip;
 
+    /**
+     * Counters per advised method, kept when the tags of the join point only depend on the method. Cached counters are
+     * dropped when they are removed from the registry.
+     */
+    private final Map<MethodKey, CountedMethod> countedMethods = new ConcurrentHashMap<>();
+    private final CachedMeters<CountedMethod> cachedMeters;
+
     /**
      * Creates a {@code CountedAspect} instance with {@link Metrics#globalRegistry}.
      *
@@ -138,12 +152,7 @@ public class CountedAspect {
      * @since 1.7.0
      */
     public CountedAspect(MeterRegistry registry, Predicate<ProceedingJoinPoint> shouldSkip) {
-        this(
-                registry,
-                pjp -> Tags.of("class", pjp.getStaticPart().getSignature().getDeclaringTypeName(),
-                                "method", pjp.getStaticPart().getSignature().getName()),
-                shouldSkip
-        );
+        this(registry, CLASS_AND_METHOD_TAGS, shouldSkip);
     }
 
     /**
@@ -158,6 +167,7 @@ public class CountedAspect {
         this.registry = registry;
         this.tagsBasedOnJoinPoint = tagsBasedOnJoinPoint;
         this.shouldSkip = shouldSkip;
+        this.cachedMeters = new CachedMeters<>(registry, CountedMethod::forget);
     }
 
     /**
@@ -182,15 +192,14 @@ public class CountedAspect {
             return pjp.proceed();
         }
 
-        final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
-        final boolean stopWhenCompleted = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        CountedMethod countedMethod = resolveCountedMethod(pjp, counted);
 
-        if (stopWhenCompleted) {
+        if (countedMethod.stopWhenCompleted) {
             try {
                 return ((CompletionStage<?>) pjp.proceed()).whenComplete((result, throwable) ->
-                        recordCompletionResult(pjp, counted, throwable));
+                        recordCompletionResult(pjp, countedMethod, throwable));
             } catch (Throwable e) {
-                record(pjp, counted, e.getClass().getSimpleName(), RESULT_TAG_FAILURE_VALUE);
+                countedMethod.failure(pjp, e.getClass().getSimpleName()).increment();
                 throw e;
             }
         }
@@ -198,42 +207,112 @@ public class CountedAspect {
         try {
             Object result = pjp.proceed();
             if (!counted.recordFailuresOnly()) {
-                record(pjp, counted, DEFAULT_EXCEPTION_TAG_VALUE, RESULT_TAG_SUCCESS_VALUE);
+                countedMethod.success(pjp).increment();
             }
             return result;
         } catch (Throwable e) {
-            record(pjp, counted, e.getClass().getSimpleName(), RESULT_TAG_FAILURE_VALUE);
+            countedMethod.failure(pjp, e.getClass().getSimpleName()).increment();
             throw e;
         }
     }
 
-    private void recordCompletionResult(ProceedingJoinPoint pjp, Counted counted, Throwable throwable) {
+    private CountedMethod resolveCountedMethod(ProceedingJoinPoint pjp, Counted counted) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Object target = pjp.getTarget();
+        MethodKey key = new MethodKey(method, target == null ? null : target.getClass());
+
+        CountedMethod countedMethod = countedMethods.get(key);
+        if (countedMethod == null) {
+            countedMethod = new CountedMethod(counted, method,
+                    tagsBasedOnJoinPoint == CLASS_AND_METHOD_TAGS ? tagsBasedOnJoinPoint.apply(pjp) : null);
+            CountedMethod existing = countedMethods.putIfAbsent(key, countedMethod);
+            if (existing != null) {
+                countedMethod = existing;
+            }
+        }
+        return countedMethod;
+    }
+
+    private void recordCompletionResult(ProceedingJoinPoint pjp, CountedMethod countedMethod, Throwable throwable) {
 
         if (throwable != null) {
             String exceptionTagValue = throwable.getCause() == null ?
                     throwable.getClass().getSimpleName() : throwable.getCause().getClass().getSimpleName();
-            record(pjp, counted, exceptionTagValue, RESULT_TAG_FAILURE_VALUE);
-        } else if (!counted.recordFailuresOnly()) {
-            record(pjp, counted, DEFAULT_EXCEPTION_TAG_VALUE, RESULT_TAG_SUCCESS_VALUE);
+            countedMethod.failure(pjp, exceptionTagValue).increment();
+        } else if (!countedMethod.counted.recordFailuresOnly()) {
+            countedMethod.success(pjp).increment();
         }
 
     }
 
-    private void record(ProceedingJoinPoint pjp, Counted counted, String exception, String result) {
-        counter(pjp, counted)
-                .tag(EXCEPTION_TAG, exception)
-                .tag(RESULT_TAG, result)
-                .tags(counted.extraTags())
-                .register(registry)
-                .increment();
-    }
+    /**
+     * The {@link Counted} annotation of an advised method. With the default class and method tags, the tags of the
+     * join point are resolved once and registered counters are kept.
+     */
+    private final class CountedMethod {
+        final Counted counted;
+        final boolean stopWhenCompleted;
+
+        @Nullable
+        private final Iterable<Tag> joinPointTags;
 
-    private Counter.Builder counter(ProceedingJoinPoint pjp, Counted counted) {
-        Counter.Builder builder = Counter.builder(counted.value()).tags(tagsBasedOnJoinPoint.apply(pjp));
-        String description = counted.description();
-        if (!description.isEmpty()) {
-            builder.description(description);
+        @Nullable
+        private volatile Counter success;
+
+        // keyed by exception tag value; only used when joinPointTags is known
+        private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+        CountedMethod(Counted counted, Method method, @Nullable Iterable<Tag> joinPointTags) {
+            this.counted = counted;
+            this.stopWhenCompleted = CompletionStage.class.isAssignableFrom(method.getReturnType());
+            this.joinPointTags = joinPointTags;
+        }
+
+        Counter success(ProceedingJoinPoint pjp) {
+            if (joinPointTags == null) {
+                return register(tagsBasedOnJoinPoint.apply(pjp), DEFAULT_EXCEPTION_TAG_VALUE, RESULT_TAG_SUCCESS_VALUE);
+            }
+            Counter counter = success;
+            if (counter == null) {
+                counter = cachedMeters.held(register(joinPointTags, DEFAULT_EXCEPTION_TAG_VALUE, RESULT_TAG_SUCCESS_VALUE), this);
+                success = counter;
+            }
+            return counter;
+        }
+
+        Counter failure(ProceedingJoinPoint pjp, String exception) {
+            if (joinPointTags == null) {
+                return register(tagsBasedOnJoinPoint.apply(pjp), exception, RESULT_TAG_FAILURE_VALUE);
+            }
+            Counter counter = failures.get(exception);
+            if (counter == null) {
+                counter = cachedMeters.held(register(joinPointTags, exception, RESULT_TAG_FAILURE_VALUE), this);
+                failures.put(exception, counter);
+            }
+            return counter;
+        }
+
+        void forget(Meter meter) {
+            if (success == meter) {
+                success = null;
+            }
+            String exception = meter.getId().getTag(EXCEPTION_TAG);
+            if (exception != null) {
+                failures.remove(exception, meter);
+            }
+        }
+
+        private Counter register(Iterable<Tag> joinPointTags, String exception, String result) {
+            Counter.Builder builder = Counter.builder(counted.value()).tags(joinPointTags);
+            String description = counted.description();
+            if (!description.isEmpty()) {
+                builder.description(description);
+            }
+            return builder
+                    .tag(EXCEPTION_TAG, exception)
+                    .tag(RESULT_TAG, result)
+                    .tags(counted.extraTags())
+                    .register(registry);
         }
-        return builder;
     }
 }
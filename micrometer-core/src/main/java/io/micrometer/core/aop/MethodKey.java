@@ -0,0 +1,54 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.aop;
+
+import io.micrometer.core.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * Identifies an advised method together with whatever else its annotation lookup depends on, such as the class of the
+ * target when the annotation may be declared on an implementation rather than on the advised signature.
+ */
+final class MethodKey {
+    private final Method method;
+
+    @Nullable
+    private final Object qualifier;
+
+    MethodKey(Method method, @Nullable Object qualifier) {
+        this.method = method;
+        this.qualifier = qualifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MethodKey that = (MethodKey) o;
+        return method.equals(that.method) && Objects.equals(qualifier, that.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * method.hashCode() + Objects.hashCode(qualifier);
+    }
+}
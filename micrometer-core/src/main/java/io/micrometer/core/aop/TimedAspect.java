@@ -18,20 +18,24 @@ package io.micrometer.core.aop;
 import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.Nullable;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -78,6 +82,9 @@ import java.util.function.Predicate;
 @Incubating(since = "1.0.0")
 public class TimedAspect {
     private static final Predicate<ProceedingJoinPoint> DONT_SKIP_ANYTHING = pjp -> false;
+    private static final Function<ProceedingJoinPoint, Iterable<Tag>> CLASS_AND_METHOD_TAGS = pjp ->
+            Tags.of("class", pjp.getStaticPart().getSignature().getDeclaringTypeName(),
+                    "method", pjp.getStaticPart().getSignature().getName());
     public static final String DEFAULT_METRIC_NAME = "method.timed";
     public static final String DEFAULT_EXCEPTION_TAG_VALUE = "none";
 
@@ -92,6 +99,13 @@ public class TimedAspect {
     private final Function<ProceedingJoinPoint, Iterable<Tag>> tagsBasedOnJoinPoint;
     private final Predicate<ProceedingJoinPoint> shouldSkip;
 
+    /**
+     * Annotation metadata, and meters where the tags of the join point only depend on the method, per advised method.
+     * Cached meters are dropped when they are removed from the registry.
+     */
+    private final Map<MethodKey, TimedMethod> timedMethods = new ConcurrentHashMap<>();
+    private final CachedMeters<TimedMethod> cachedMeters;
+
     /**
      * Creates a {@code TimedAspect} instance with {@link Metrics#globalRegistry}.
      *
@@ -128,12 +142,7 @@ public class TimedAspect {
      * @since 1.7.0
      */
     public TimedAspect(MeterRegistry registry, Predicate<ProceedingJoinPoint> shouldSkip) {
-        this(
-                registry,
-                pjp -> Tags.of("class", pjp.getStaticPart().getSignature().getDeclaringTypeName(),
-                        "method", pjp.getStaticPart().getSignature().getName()),
-                shouldSkip
-        );
+        this(registry, CLASS_AND_METHOD_TAGS, shouldSkip);
     }
 
     /**
@@ -148,6 +157,7 @@ public class TimedAspect {
         this.registry = registry;
         this.tagsBasedOnJoinPoint = tagsBasedOnJoinPoint;
         this.shouldSkip = shouldSkip;
+        this.cachedMeters = new CachedMeters<>(registry, TimedMethod::forget);
     }
 
     @Around("execution (@io.micrometer.core.annotation.Timed * *.*(..))")
@@ -156,33 +166,46 @@ public class TimedAspect {
             return pjp.proceed();
         }
 
-        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
-        Timed timed = method.getAnnotation(Timed.class);
-        if (timed == null) {
-            method = pjp.getTarget().getClass().getMethod(method.getName(), method.getParameterTypes());
-            timed = method.getAnnotation(Timed.class);
+        TimedMethod timedMethod = resolveTimedMethod(pjp);
+
+        if (!timedMethod.timed.longTask()) {
+            return processWithTimer(pjp, timedMethod);
+        } else {
+            return processWithLongTaskTimer(pjp, timedMethod);
         }
+    }
 
-        final String metricName = timed.value().isEmpty() ? DEFAULT_METRIC_NAME : timed.value();
-        final boolean stopWhenCompleted = CompletionStage.class.isAssignableFrom(method.getReturnType());
+    private TimedMethod resolveTimedMethod(ProceedingJoinPoint pjp) throws NoSuchMethodException {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Object target = pjp.getTarget();
+        MethodKey key = new MethodKey(method, target == null ? null : target.getClass());
 
-        if (!timed.longTask()) {
-            return processWithTimer(pjp, timed, metricName, stopWhenCompleted);
-        } else {
-            return processWithLongTaskTimer(pjp, timed, metricName, stopWhenCompleted);
+        TimedMethod timedMethod = timedMethods.get(key);
+        if (timedMethod == null) {
+            Timed timed = method.getAnnotation(Timed.class);
+            if (timed == null) {
+                method = pjp.getTarget().getClass().getMethod(method.getName(), method.getParameterTypes());
+                timed = method.getAnnotation(Timed.class);
+            }
+            timedMethod = new TimedMethod(timed, method, tagsBasedOnJoinPoint == CLASS_AND_METHOD_TAGS ? tagsBasedOnJoinPoint.apply(pjp) : null);
+            TimedMethod existing = timedMethods.putIfAbsent(key, timedMethod);
+            if (existing != null) {
+                timedMethod = existing;
+            }
         }
+        return timedMethod;
     }
 
-    private Object processWithTimer(ProceedingJoinPoint pjp, Timed timed, String metricName, boolean stopWhenCompleted) throws Throwable {
+    private Object processWithTimer(ProceedingJoinPoint pjp, TimedMethod timedMethod) throws Throwable {
 
         Timer.Sample sample = Timer.start(registry);
 
-        if (stopWhenCompleted) {
+        if (timedMethod.stopWhenCompleted) {
             try {
                 return ((CompletionStage<?>) pjp.proceed()).whenComplete((result, throwable) ->
-                        record(pjp, timed, metricName, sample, getExceptionTag(throwable)));
+                        record(pjp, timedMethod, sample, getExceptionTag(throwable)));
             } catch (Exception ex) {
-                record(pjp, timed, metricName, sample, ex.getClass().getSimpleName());
+                record(pjp, timedMethod, sample, ex.getClass().getSimpleName());
                 throw ex;
             }
         }
@@ -194,20 +217,13 @@ public class TimedAspect {
             exceptionClass = ex.getClass().getSimpleName();
             throw ex;
         } finally {
-            record(pjp, timed, metricName, sample, exceptionClass);
+            record(pjp, timedMethod, sample, exceptionClass);
         }
     }
 
-    private void record(ProceedingJoinPoint pjp, Timed timed, String metricName, Timer.Sample sample, String exceptionClass) {
+    private void record(ProceedingJoinPoint pjp, TimedMethod timedMethod, Timer.Sample sample, String exceptionClass) {
         try {
-            sample.stop(Timer.builder(metricName)
-                    .description(timed.description().isEmpty() ? null : timed.description())
-                    .tags(timed.extraTags())
-                    .tags(EXCEPTION_TAG, exceptionClass)
-                    .tags(tagsBasedOnJoinPoint.apply(pjp))
-                    .publishPercentileHistogram(timed.histogram())
-                    .publishPercentiles(timed.percentiles().length == 0 ? null : timed.percentiles())
-                    .register(registry));
+            sample.stop(timedMethod.timer(pjp, exceptionClass));
         } catch (Exception e) {
             // ignoring on purpose
         }
@@ -226,11 +242,11 @@ public class TimedAspect {
         return throwable.getCause().getClass().getSimpleName();
     }
 
-    private Object processWithLongTaskTimer(ProceedingJoinPoint pjp, Timed timed, String metricName, boolean stopWhenCompleted) throws Throwable {
+    private Object processWithLongTaskTimer(ProceedingJoinPoint pjp, TimedMethod timedMethod) throws Throwable {
 
-        Optional<LongTaskTimer.Sample> sample = buildLongTaskTimer(pjp, timed, metricName).map(LongTaskTimer::start);
+        Optional<LongTaskTimer.Sample> sample = buildLongTaskTimer(pjp, timedMethod).map(LongTaskTimer::start);
 
-        if (stopWhenCompleted) {
+        if (timedMethod.stopWhenCompleted) {
             try {
                 return ((CompletionStage<?>) pjp.proceed()).whenComplete((result, throwable) -> sample.ifPresent(this::stopTimer));
             } catch (Exception ex) {
@@ -257,15 +273,91 @@ public class TimedAspect {
     /**
      * Secure long task timer creation - it should not disrupt the application flow in case of exception
      */
-    private Optional<LongTaskTimer> buildLongTaskTimer(ProceedingJoinPoint pjp, Timed timed, String metricName) {
+    private Optional<LongTaskTimer> buildLongTaskTimer(ProceedingJoinPoint pjp, TimedMethod timedMethod) {
         try {
-            return Optional.of(LongTaskTimer.builder(metricName)
-                                       .description(timed.description().isEmpty() ? null : timed.description())
-                                       .tags(timed.extraTags())
-                                       .tags(tagsBasedOnJoinPoint.apply(pjp))
-                                       .register(registry));
+            return Optional.of(timedMethod.longTaskTimer(pjp));
         } catch (Exception e) {
             return Optional.empty();
         }
     }
+
+    /**
+     * The resolved {@link Timed} annotation of an advised method. With the default class and method tags, the tags of
+     * the join point are resolved once and registered meters are kept, so that steady-state calls don't go through a
+     * builder and the registry at all.
+     */
+    private final class TimedMethod {
+        final Timed timed;
+        final String metricName;
+        final boolean stopWhenCompleted;
+
+        @Nullable
+        private final Iterable<Tag> joinPointTags;
+
+        // keyed by exception tag value; only used when joinPointTags is known
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+        @Nullable
+        private volatile LongTaskTimer longTaskTimer;
+
+        TimedMethod(Timed timed, Method method, @Nullable Iterable<Tag> joinPointTags) {
+            this.timed = timed;
+            this.metricName = timed.value().isEmpty() ? DEFAULT_METRIC_NAME : timed.value();
+            this.stopWhenCompleted = CompletionStage.class.isAssignableFrom(method.getReturnType());
+            this.joinPointTags = joinPointTags;
+        }
+
+        Timer timer(ProceedingJoinPoint pjp, String exceptionClass) {
+            if (joinPointTags == null) {
+                return registerTimer(tagsBasedOnJoinPoint.apply(pjp), exceptionClass);
+            }
+            Timer timer = timers.get(exceptionClass);
+            if (timer == null) {
+                timer = cachedMeters.held(registerTimer(joinPointTags, exceptionClass), this);
+                timers.put(exceptionClass, timer);
+            }
+            return timer;
+        }
+
+        private Timer registerTimer(Iterable<Tag> joinPointTags, String exceptionClass) {
+            return Timer.builder(metricName)
+                    .description(timed.description().isEmpty() ? null : timed.description())
+                    .tags(timed.extraTags())
+                    .tags(EXCEPTION_TAG, exceptionClass)
+                    .tags(joinPointTags)
+                    .publishPercentileHistogram(timed.histogram())
+                    .publishPercentiles(timed.percentiles().length == 0 ? null : timed.percentiles())
+                    .register(registry);
+        }
+
+        LongTaskTimer longTaskTimer(ProceedingJoinPoint pjp) {
+            if (joinPointTags == null) {
+                return registerLongTaskTimer(tagsBasedOnJoinPoint.apply(pjp));
+            }
+            LongTaskTimer ltt = longTaskTimer;
+            if (ltt == null) {
+                ltt = cachedMeters.held(registerLongTaskTimer(joinPointTags), this);
+                longTaskTimer = ltt;
+            }
+            return ltt;
+        }
+
+        void forget(Meter meter) {
+            String exceptionClass = meter.getId().getTag(EXCEPTION_TAG);
+            if (exceptionClass != null) {
+                timers.remove(exceptionClass, meter);
+            }
+            if (longTaskTimer == meter) {
+                longTaskTimer = null;
+            }
+        }
+
+        private LongTaskTimer registerLongTaskTimer(Iterable<Tag> joinPointTags) {
+            return LongTaskTimer.builder(metricName)
+                    .description(timed.description().isEmpty() ? null : timed.description())
+                    .tags(timed.extraTags())
+                    .tags(joinPointTags)
+                    .register(registry);
+        }
+    }
 }
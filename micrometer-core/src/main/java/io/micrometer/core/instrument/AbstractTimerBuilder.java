@@ -214,6 +214,19 @@ public abstract class AbstractTimerBuilder<B extends AbstractTimerBuilder<B>> {
         return (B) this;
     }
 
+    /**
+     * Sample the histogram of a very hot timer rather than recording every value to it.
+     *
+     * @param sampleInterval The average number of samples per sample recorded to the histogram.
+     * @return This builder.
+     * @see DistributionStatisticConfig.Builder#histogramSampleInterval(Integer)
+     * @since 1.8.0
+     */
+    public B histogramSampleInterval(@Nullable Integer sampleInterval) {
+        this.distributionConfigBuilder.histogramSampleInterval(sampleInterval);
+        return (B) this;
+    }
+
     /**
      * Sets the pause detector implementation to use for this timer. Can also be configured on a registry-level with
      * {@link MeterRegistry.Config#pauseDetector(PauseDetector)}.
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument;
+
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.WarnThenDebugLogger;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A gauge function that evaluates the user's value function on a background scheduler and serves the last computed
+ * value when the gauge is observed, so that an expensive gauge does not stall a scrape or publish.
+ * <p>
+ * Refreshing starts at registration, so that the value is usually computed by the time the gauge is first observed.
+ * It only starts when the registry creates a gauge backed by this function, not when it hands back a gauge that was
+ * already registered or a gauge denied by a filter. It stops once the gauge is removed, the registry is closed or the
+ * gauged object is garbage collected.
+ *
+ * @param <T> The type of object from which the gauge's value is determined.
+ * @since 1.8.0
+ */
+class AsyncCachedGaugeFunction<T> implements ToDoubleFunction<T> {
+    private static final WarnThenDebugLogger logger = new WarnThenDebugLogger(AsyncCachedGaugeFunction.class);
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final ToDoubleFunction<T> f;
+    private final Duration refreshInterval;
+
+    @Nullable
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Holds the gauged object for the refresh task, strongly only when the gauge was asked to.
+     */
+    @Nullable
+    @SuppressWarnings("FieldCanBeLocal")
+    private final T strongObj;
+    private final WeakReference<T> ref;
+
+    private volatile double value = Double.NaN;
+    private volatile long lastRefreshed;
+    private volatile boolean refreshed;
+
+    @Nullable
+    private volatile ScheduledFuture<?> refreshTask;
+
+    @Nullable
+    private volatile Gauge gauge;
+
+    @Nullable
+    private volatile Meter ageGauge;
+
+    AsyncCachedGaugeFunction(MeterRegistry registry, String name, @Nullable T obj, ToDoubleFunction<T> f,
+                             boolean strongReference, Duration refreshInterval, @Nullable ScheduledExecutorService executor) {
+        this.registry = registry;
+        this.name = name;
+        this.f = f;
+        this.refreshInterval = refreshInterval;
+        this.executor = executor;
+        this.strongObj = strongReference ? obj : null;
+        this.ref = new WeakReference<>(obj);
+    }
+
+    /**
+     * Register a gauge backed by this function and start refreshing its value. If the registry creates the gauge, a
+     * companion time gauge named {@code <name>.age} reports how long ago the cached value was computed.
+     */
+    Gauge register(Meter.Id id, @Nullable T obj) {
+        AtomicBoolean created = new AtomicBoolean();
+        Gauge registered = registry.gauge(id, obj, this, () -> created.set(true));
+        if (!created.get()) {
+            return registered;
+        }
+
+        this.gauge = registered;
+        this.ageGauge = TimeGauge.builder(id.getName() + ".age", this, TimeUnit.NANOSECONDS, AsyncCachedGaugeFunction::ageNanos)
+                .tags(id.getTagsAsIterable())
+                .description("Time since the value of the " + id.getName() + " gauge was last computed")
+                .register(registry);
+        this.refreshTask = (executor == null ? DefaultExecutorHolder.EXECUTOR : executor)
+                .scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toNanos(), TimeUnit.NANOSECONDS);
+        return registered;
+    }
+
+    @Override
+    public double applyAsDouble(T obj) {
+        return value;
+    }
+
+    void refresh() {
+        Gauge registered = gauge;
+        if (registry.isClosed() || (registered != null && !registry.isRegistered(registered))) {
+            stop();
+            return;
+        }
+
+        T obj = strongObj != null ? strongObj : ref.get();
+        if (obj == null) {
+            value = Double.NaN;
+            stop();
+            return;
+        }
+
+        double newValue;
+        try {
+            newValue = f.applyAsDouble(obj);
+        }
+        catch (Throwable ex) {
+            logger.log("Failed to apply the value function for the gauge '" + name + "'.", ex);
+            newValue = Double.NaN;
+        }
+        value = newValue;
+        lastRefreshed = registry.config().clock().monotonicTime();
+        refreshed = true;
+    }
+
+    /**
+     * @return Nanoseconds since the cached value was last computed, or {@link Double#NaN} before the first refresh.
+     */
+    double ageNanos() {
+        return refreshed ? registry.config().clock().monotonicTime() - lastRefreshed : Double.NaN;
+    }
+
+    private void stop() {
+        ScheduledFuture<?> task = refreshTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        Meter age = ageGauge;
+        if (age != null && !registry.isClosed()) {
+            registry.remove(age);
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+        private static final ScheduledExecutorService EXECUTOR =
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("micrometer-gauge-refresh"));
+    }
+}
@@ -356,6 +356,19 @@ public interface DistributionSummary extends Meter, HistogramSupport {
             return this;
         }
 
+        /**
+         * Sample the histogram of a very hot distribution summary rather than recording every value to it.
+         *
+         * @param sampleInterval The average number of samples per sample recorded to the histogram.
+         * @return This builder.
+         * @see DistributionStatisticConfig.Builder#histogramSampleInterval(Integer)
+         * @since 1.8.0
+         */
+        public Builder histogramSampleInterval(@Nullable Integer sampleInterval) {
+            this.distributionConfigBuilder.histogramSampleInterval(sampleInterval);
+            return this;
+        }
+
         /**
          * Multiply values recorded to the distribution summary by a scaling factor.
          *
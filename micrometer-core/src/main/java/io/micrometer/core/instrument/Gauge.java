@@ -19,7 +19,9 @@ import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.distribution.HistogramGauges;
 import io.micrometer.core.lang.Nullable;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 
@@ -96,6 +98,12 @@ public interface Gauge extends Meter {
         @Nullable
         private String baseUnit;
 
+        @Nullable
+        private Duration refreshInterval;
+
+        @Nullable
+        private ScheduledExecutorService refreshExecutor;
+
         private Builder(String name, @Nullable T obj, ToDoubleFunction<T> f) {
             this.name = name;
             this.obj = obj;
@@ -178,6 +186,41 @@ public interface Gauge extends Meter {
             return this;
         }
 
+        /**
+         * Evaluate the value function on a background thread every {@code interval} instead of each time the gauge
+         * is observed. Observing the gauge then returns the most recently computed value immediately, so an expensive
+         * value function (a {@code select count(*)}, a walk over a large collection) no longer stalls a scrape or
+         * publish. A companion time gauge named {@code <name>.age} reports how long ago that value was computed.
+         * <p>
+         * The gauge reports {@link Double#NaN} until its first refresh completes. Refreshing stops once the gauge is
+         * removed, the registry is closed or the gauged object is garbage collected.
+         *
+         * @param interval How often to recompute the gauge's value.
+         * @return The gauge builder with asynchronous refresh enabled.
+         * @since 1.8.0
+         */
+        @Incubating(since = "1.8.0")
+        public Builder<T> asyncRefresh(Duration interval) {
+            this.refreshInterval = interval;
+            return this;
+        }
+
+        /**
+         * Like {@link #asyncRefresh(Duration)}, but evaluates the value function on the given scheduler instead of
+         * a shared daemon thread. Use this when value functions may block for long enough to delay one another.
+         *
+         * @param interval How often to recompute the gauge's value.
+         * @param executor The scheduler that evaluates the value function.
+         * @return The gauge builder with asynchronous refresh enabled.
+         * @since 1.8.0
+         */
+        @Incubating(since = "1.8.0")
+        public Builder<T> asyncRefresh(Duration interval, ScheduledExecutorService executor) {
+            this.refreshInterval = interval;
+            this.refreshExecutor = executor;
+            return this;
+        }
+
         /**
          * Add the gauge to a single registry, or return an existing gauge in that registry. The returned
          * gauge will be unique for each registry, but each registry is guaranteed to only create one gauge
@@ -187,8 +230,12 @@ public interface Gauge extends Meter {
          * @return A new or existing gauge.
          */
         public Gauge register(MeterRegistry registry) {
-            return registry.gauge(new Meter.Id(name, tags, baseUnit, description, Type.GAUGE, syntheticAssociation), obj,
-                    strongReference ? new StrongReferenceGaugeFunction<>(obj, f) : f);
+            Meter.Id id = new Meter.Id(name, tags, baseUnit, description, Type.GAUGE, syntheticAssociation);
+            if (refreshInterval != null) {
+                return new AsyncCachedGaugeFunction<>(registry, name, obj, f, strongReference, refreshInterval, refreshExecutor)
+                        .register(id, obj);
+            }
+            return registry.gauge(id, obj, strongReference ? new StrongReferenceGaugeFunction<>(obj, f) : f);
         }
     }
 }
@@ -21,6 +21,9 @@ import io.micrometer.core.instrument.config.MeterFilter;
 import io.micrometer.core.instrument.config.MeterFilterReply;
 import io.micrometer.core.instrument.config.NamingConvention;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramGauges;
+import io.micrometer.core.instrument.distribution.HistogramSupport;
+import io.micrometer.core.instrument.distribution.SyntheticHistogramGauges;
 import io.micrometer.core.instrument.distribution.pause.NoPauseDetector;
 import io.micrometer.core.instrument.distribution.pause.PauseDetector;
 import io.micrometer.core.instrument.noop.NoopCounter;
@@ -38,7 +41,9 @@ import io.micrometer.core.instrument.search.Search;
 import io.micrometer.core.instrument.util.TimeUtils;
 import io.micrometer.core.lang.Nullable;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -78,6 +83,11 @@ public abstract class MeterRegistry {
     protected final Clock clock;
     private final Object meterMapLock = new Object();
     private volatile MeterFilter[] filters = new MeterFilter[0];
+
+    /**
+     * {@link #filters} combined into a single filter, with name-prefix-based built-in filters looked up through a trie.
+     */
+    private volatile MeterFilter compiledFilter = MeterFilter.compile();
     private final List<Consumer<Meter>> meterAddedListeners = new CopyOnWriteArrayList<>();
     private final List<Consumer<Meter>> meterRemovedListeners = new CopyOnWriteArrayList<>();
     private final List<BiConsumer<Meter.Id, String>> meterRegistrationFailedListeners = new CopyOnWriteArrayList<>();
@@ -99,6 +109,16 @@ public abstract class MeterRegistry {
     private final AtomicBoolean closed = new AtomicBoolean();
     private PauseDetector pauseDetector = new NoPauseDetector();
 
+    @Nullable
+    private volatile Duration idleMeterExpiry;
+
+    /**
+     * Last sampled measurements of each meter eligible for idle expiry. Only touched by idle sweeps and meter
+     * removal, never on the record path.
+     */
+    private final Map<Id, IdleMeterState> idleMeterStates = new ConcurrentHashMap<>();
+    private final AtomicBoolean idleSweepInProgress = new AtomicBoolean();
+
     /**
      * We'll use snake case as a general-purpose default for registries because it is the most
      * likely to result in a portable name. Camel casing is also perfectly acceptable. '-' and '.'
@@ -297,6 +317,20 @@ public abstract class MeterRegistry {
         return registerMeterIfNecessary(Gauge.class, id, id2 -> newGauge(id2, obj, valueFunction), NoopGauge::new);
     }
 
+    /**
+     * Like {@link #gauge(Meter.Id, Object, ToDoubleFunction)}, but tells whether the returned gauge is backed by
+     * {@code valueFunction}, rather than being an existing gauge or a no-op gauge denied by a filter.
+     *
+     * @param onCreated Called if this call creates the gauge, before it is returned.
+     */
+    <T> Gauge gauge(Meter.Id id, @Nullable T obj, ToDoubleFunction<T> valueFunction, Runnable onCreated) {
+        return registerMeterIfNecessary(Gauge.class, id, id2 -> {
+            Gauge gauge = newGauge(id2, obj, valueFunction);
+            onCreated.run();
+            return gauge;
+        }, NoopGauge::new);
+    }
+
     /**
      * Only used by {@link Timer#builder(String)}.
      *
@@ -556,6 +590,58 @@ public abstract class MeterRegistry {
         return gauge(name, tags, map, Map::size);
     }
 
+    /**
+     * Register a single {@link SyntheticHistogramGauges} meter for the percentiles and histogram buckets of a timer,
+     * in place of the individually registered gauges of
+     * {@link HistogramGauges#registerWithCommonFormat(Timer, MeterRegistry)}. The gauges are not listed by
+     * {@link #getMeters()}; push registries expand them when publishing, through
+     * {@link io.micrometer.core.instrument.push.PushMeterRegistry#getMetersToPublish()}.
+     *
+     * @param timer The timer from which to derive gauges.
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    protected void registerHistogramGauges(Timer timer) {
+        registerHistogramGauges(timer, timer.baseTimeUnit());
+    }
+
+    /**
+     * Register a single {@link SyntheticHistogramGauges} meter for the percentiles and histogram buckets of a long
+     * task timer.
+     *
+     * @param ltt The long task timer from which to derive gauges.
+     * @see #registerHistogramGauges(Timer)
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    protected void registerHistogramGauges(LongTaskTimer ltt) {
+        registerHistogramGauges(ltt, ltt.baseTimeUnit());
+    }
+
+    /**
+     * Register a single {@link SyntheticHistogramGauges} meter for the percentiles and histogram buckets of a
+     * distribution summary.
+     *
+     * @param summary The distribution summary from which to derive gauges.
+     * @see #registerHistogramGauges(Timer)
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    protected void registerHistogramGauges(DistributionSummary summary) {
+        registerHistogramGauges(summary, null);
+    }
+
+    private void registerHistogramGauges(HistogramSupport meter, @Nullable TimeUnit baseTimeUnit) {
+        Id meterId = meter.getId();
+        Id id = new Id(meterId.getName() + ".histogram.gauges", Tags.of(meterId.getTagsAsIterable()), null, null,
+                Meter.Type.OTHER, meterId);
+        registerMeterIfNecessary(SyntheticHistogramGauges.class, id,
+                id2 -> SyntheticHistogramGauges.withCommonFormat(id2, meter, baseTimeUnit,
+                        gaugeId -> getAcceptedMappedId(new Id(gaugeId.getName(), Tags.of(gaugeId.getTagsAsIterable()),
+                                gaugeId.getBaseUnit(), null, Meter.Type.GAUGE, meterId))),
+                id2 -> SyntheticHistogramGauges.withCommonFormat(id2, meter, baseTimeUnit, gaugeId -> null));
+    }
+
     private <M extends Meter> M registerMeterIfNecessary(Class<M> meterClass, Meter.Id id, Function<Meter.Id, M> builder,
                                                          Function<Meter.Id, M> noopBuilder) {
         return registerMeterIfNecessary(meterClass, id, null, (id2, conf) -> builder.apply(id2), noopBuilder);
@@ -577,11 +663,7 @@ public abstract class MeterRegistry {
         if (id.syntheticAssociation() != null) {
             return id;
         }
-        Id mappedId = id;
-        for (MeterFilter filter : filters) {
-            mappedId = filter.map(mappedId);
-        }
-        return mappedId;
+        return compiledFilter.map(id);
     }
 
     private Meter getOrCreateMeter(@Nullable DistributionStatisticConfig config,
@@ -603,11 +685,9 @@ public abstract class MeterRegistry {
                     }
 
                     if (config != null) {
-                        for (MeterFilter filter : filters) {
-                            DistributionStatisticConfig filteredConfig = filter.configure(mappedId, config);
-                            if (filteredConfig != null) {
-                                config = filteredConfig;
-                            }
+                        DistributionStatisticConfig filteredConfig = compiledFilter.configure(mappedId, config);
+                        if (filteredConfig != null) {
+                            config = filteredConfig;
                         }
                     }
 
@@ -632,15 +712,26 @@ public abstract class MeterRegistry {
     }
 
     private boolean accept(Meter.Id id) {
-        for (MeterFilter filter : filters) {
-            MeterFilterReply reply = filter.accept(id);
-            if (reply == MeterFilterReply.DENY) {
-                return false;
-            } else if (reply == MeterFilterReply.ACCEPT) {
-                return true;
-            }
-        }
-        return true;
+        return compiledFilter.accept(id) != MeterFilterReply.DENY;
+    }
+
+    /**
+     * The id a meter would be registered with, or {@code null} if the filters deny it. Like an individually registered
+     * histogram gauge, a meter associated with another one is not mapped again, since its id derives from the mapped id
+     * of the other meter.
+     */
+    @Nullable
+    private Id getAcceptedMappedId(Id id) {
+        Id mappedId = getMappedId(id);
+        return accept(mappedId) ? mappedId : null;
+    }
+
+    /**
+     * @param meter A meter previously returned by this registry.
+     * @return {@code true} if this exact meter instance is still registered.
+     */
+    boolean isRegistered(Meter meter) {
+        return meterMap.get(meter.getId()) == meter;
     }
 
     /**
@@ -689,6 +780,7 @@ public abstract class MeterRegistry {
             synchronized (meterMapLock) {
                 m = meterMap.remove(mappedId);
                 if (m != null) {
+                    idleMeterStates.remove(mappedId);
                     Set<Id> synthetics = syntheticAssociations.remove(mappedId);
                     if (synthetics != null) {
                         for (Id synthetic : synthetics) {
@@ -717,6 +809,96 @@ public abstract class MeterRegistry {
         meterMap.keySet().forEach(this::remove);
     }
 
+    /**
+     * Remove counters, timers, distribution summaries and long task timers whose measurements have shown no activity
+     * for at least the duration configured with {@link Config#idleMeterExpiry(Duration)}. Meters are removed through
+     * {@link #remove(Meter.Id)}, so synthetic meters associated with them are removed as well. Does nothing if no idle
+     * meter expiry is configured.
+     * <p>
+     * Activity is detected by sampling each meter's measurements on every sweep, so nothing is added to the record
+     * path. Push registries sweep after each publish, and scrape-based registries may sweep on each scrape. With any
+     * other registry, call this periodically at an interval no longer than the expiry.
+     *
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    public void removeIdleMeters() {
+        Duration expiry = idleMeterExpiry;
+        if (expiry == null || !idleSweepInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long now = clock.wallTime();
+            for (Map.Entry<Id, Meter> entry : meterMap.entrySet()) {
+                Meter meter = entry.getValue();
+                if (!isExpirable(meter)) {
+                    continue;
+                }
+
+                double[] measurements = sample(meter);
+                IdleMeterState state = idleMeterStates.get(entry.getKey());
+                if (state == null) {
+                    idleMeterStates.put(entry.getKey(), new IdleMeterState(measurements, now));
+                } else if (isActive(meter, state.measurements, measurements)) {
+                    state.measurements = measurements;
+                    state.lastActiveTime = now;
+                } else if (now - state.lastActiveTime >= expiry.toMillis()) {
+                    remove(entry.getKey());
+                }
+            }
+
+            // drop state for meters removed by other means while this sweep was running
+            idleMeterStates.keySet().retainAll(meterMap.keySet());
+        } finally {
+            idleSweepInProgress.set(false);
+        }
+    }
+
+    /**
+     * Determine whether a meter saw activity between two idle sweeps. By default any change in the meter's
+     * measurements counts as activity. Registries whose meters report per-step values should also treat a non-zero
+     * step count as activity, since a steady rate yields identical measurements from one step to the next.
+     *
+     * @param meter                The meter being swept.
+     * @param previousMeasurements Measurement values sampled on the last sweep that saw activity, in the order
+     *                             returned by {@link Meter#measure()}.
+     * @param currentMeasurements  Measurement values sampled on this sweep.
+     * @return {@code true} if the meter should be considered active.
+     * @since 1.8.0
+     */
+    protected boolean isActive(Meter meter, double[] previousMeasurements, double[] currentMeasurements) {
+        return !Arrays.equals(previousMeasurements, currentMeasurements);
+    }
+
+    private boolean isExpirable(Meter meter) {
+        // gauges and function-based meters reflect state held elsewhere, so an unchanged value doesn't make them idle
+        return meter.getId().syntheticAssociation() == null && (meter instanceof Counter || meter instanceof Timer ||
+                meter instanceof DistributionSummary || meter instanceof LongTaskTimer);
+    }
+
+    private static double[] sample(Meter meter) {
+        List<Double> values = new ArrayList<>();
+        for (Measurement measurement : meter.measure()) {
+            values.add(measurement.getValue());
+        }
+        double[] sampled = new double[values.size()];
+        for (int i = 0; i < sampled.length; i++) {
+            sampled[i] = values.get(i);
+        }
+        return sampled;
+    }
+
+    private static class IdleMeterState {
+        double[] measurements;
+        long lastActiveTime;
+
+        IdleMeterState(double[] measurements, long lastActiveTime) {
+            this.measurements = measurements;
+            this.lastActiveTime = lastActiveTime;
+        }
+    }
+
     /**
      * Access to configuration options for this registry.
      */
@@ -753,6 +935,7 @@ public abstract class MeterRegistry {
             System.arraycopy(filters, 0, newFilters, 0, filters.length);
             newFilters[filters.length] = filter;
             filters = newFilters;
+            compiledFilter = MeterFilter.compile(newFilters);
             return this;
         }
 
@@ -838,6 +1021,36 @@ public abstract class MeterRegistry {
         public PauseDetector pauseDetector() {
             return pauseDetector;
         }
+
+        /**
+         * Remove counters, timers, distribution summaries and long task timers that show no activity for at least
+         * the given duration. Useful when high-cardinality tags leave behind meters that are never updated again.
+         * Idle meters are removed by {@link MeterRegistry#removeIdleMeters()}. A meter that is used again after
+         * removal is no longer published, so callers should look meters up through the registry rather than hold
+         * on to them when expiry is enabled.
+         *
+         * @param expiry How long a meter may stay idle before it is removed, or {@code null} to disable expiry.
+         * @return This configuration instance.
+         * @since 1.8.0
+         */
+        @Incubating(since = "1.8.0")
+        public Config idleMeterExpiry(@Nullable Duration expiry) {
+            idleMeterExpiry = expiry;
+            if (expiry == null) {
+                idleMeterStates.clear();
+            }
+            return this;
+        }
+
+        /**
+         * @return The idle meter expiry currently in effect, or {@code null} if idle meters are never removed.
+         * @since 1.8.0
+         */
+        @Incubating(since = "1.8.0")
+        @Nullable
+        public Duration idleMeterExpiry() {
+            return idleMeterExpiry;
+        }
     }
 
     /**
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.internal.PollCycle;
+import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Reads MBean attributes on behalf of JMX-backed binders, fetching every attribute of an {@link ObjectName} that
+ * the binder's meters use with a single {@link MBeanServer#getAttributes(ObjectName, String[])} call per poll.
+ * <p>
+ * A poll is not signalled explicitly. Instead, reading an attribute that has already been served since the last
+ * fetch is taken as the start of a new poll, and triggers a fresh fetch of all attributes known for that object.
+ * Meters that each read different attributes of the same object during a poll therefore share one round trip, and
+ * values are never older than the previous poll.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+@NonNullApi
+@NonNullFields
+public class JmxAttributeCache {
+    private final Supplier<List<MBeanServer>> mBeanServerLocator;
+    private final Map<ObjectName, CachedObject> cachedObjects = new ConcurrentHashMap<>();
+
+    private volatile List<MBeanServer> mBeanServers = Collections.emptyList();
+
+    /**
+     * @param mBeanServer The server that hosts the MBeans read through this cache.
+     */
+    public JmxAttributeCache(MBeanServer mBeanServer) {
+        List<MBeanServer> servers = Collections.singletonList(mBeanServer);
+        this.mBeanServerLocator = () -> servers;
+    }
+
+    private JmxAttributeCache(Supplier<List<MBeanServer>> mBeanServerLocator) {
+        this.mBeanServerLocator = mBeanServerLocator;
+    }
+
+    /**
+     * @return A cache that reads each MBean from whichever of the servers found by
+     * {@link MBeanServerFactory#findMBeanServer(String)} hosts it. The servers are looked up once, on first use.
+     */
+    public static JmxAttributeCache forAllMBeanServers() {
+        return new JmxAttributeCache(() -> MBeanServerFactory.findMBeanServer(null));
+    }
+
+    /**
+     * @return The first MBean server found by {@link MBeanServerFactory#findMBeanServer(String)}, or the platform
+     * MBean server if there is none.
+     */
+    public static MBeanServer getMBeanServer() {
+        List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
+        if (!mBeanServers.isEmpty()) {
+            return mBeanServers.get(0);
+        }
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    /**
+     * @param name      The MBean to read from.
+     * @param attribute The attribute to read.
+     * @return The attribute's value as of the current poll, or {@code null} if the MBean or attribute is unavailable.
+     */
+    @Nullable
+    public Object getAttribute(ObjectName name, String attribute) {
+        return cachedObjects.computeIfAbsent(name, CachedObject::new).get(attribute);
+    }
+
+    /**
+     * @param name      The MBean to read from.
+     * @param attribute The attribute to read.
+     * @return The attribute's value as a double, or {@link Double#NaN} if it is unavailable or not numeric.
+     */
+    public double getDouble(ObjectName name, String attribute) {
+        Object value = getAttribute(name, attribute);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return value == null ? Double.NaN : Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @param name      The MBean to read from.
+     * @param attribute The attribute to read.
+     * @return The attribute's value as a long, or {@code 0} if it is unavailable or not numeric.
+     */
+    public long getLong(ObjectName name, String attribute) {
+        Object value = getAttribute(name, attribute);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return value == null ? 0 : Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param name An MBean that has been read through this cache.
+     * @return {@code false} if the MBean was not found on the last fetch of its attributes.
+     */
+    public boolean isRegistered(ObjectName name) {
+        CachedObject cachedObject = cachedObjects.get(name);
+        return cachedObject == null || cachedObject.registered;
+    }
+
+    /**
+     * Forget the attributes of an MBean, for example once it has been unregistered.
+     *
+     * @param name The MBean to forget.
+     */
+    public void evict(ObjectName name) {
+        cachedObjects.remove(name);
+    }
+
+    private List<MBeanServer> mBeanServers() {
+        List<MBeanServer> servers = mBeanServers;
+        if (servers.isEmpty()) {
+            // keep looking until a server exists, since MBean servers may be created after the binder
+            servers = mBeanServerLocator.get();
+            mBeanServers = servers;
+        }
+        return servers;
+    }
+
+    private class CachedObject {
+        private final ObjectName name;
+
+        // guarded by this
+        private final Map<String, Integer> attributes = new LinkedHashMap<>();
+        private final PollCycle pollCycle = new PollCycle();
+        private Map<String, Object> values = Collections.emptyMap();
+
+        @Nullable
+        private MBeanServer mBeanServer;
+
+        private volatile boolean registered = true;
+
+        CachedObject(ObjectName name) {
+            this.name = name;
+        }
+
+        @Nullable
+        synchronized Object get(String attribute) {
+            Integer reader = attributes.get(attribute);
+            if (reader == null) {
+                // first use of this attribute, still within the same poll as the attributes already served
+                reader = pollCycle.addReader(false);
+                attributes.put(attribute, reader);
+                pollCycle.read(reader);
+                fetch();
+            } else if (pollCycle.read(reader)) {
+                fetch();
+            }
+            return values.get(attribute);
+        }
+
+        private void fetch() {
+            values = Collections.emptyMap();
+
+            String[] names = attributes.keySet().toArray(new String[0]);
+            if (mBeanServer != null) {
+                if (fetchFrom(mBeanServer, names)) {
+                    return;
+                }
+                mBeanServer = null;
+            }
+            for (MBeanServer server : mBeanServers()) {
+                if (fetchFrom(server, names)) {
+                    mBeanServer = server;
+                    return;
+                }
+            }
+            registered = false;
+        }
+
+        private boolean fetchFrom(MBeanServer server, String[] names) {
+            try {
+                AttributeList attributeList = server.getAttributes(name, names);
+                Map<String, Object> fetched = new HashMap<>(names.length * 2);
+                for (Attribute attribute : attributeList.asList()) {
+                    fetched.put(attribute.getName(), attribute.getValue());
+                }
+                values = fetched;
+                registered = true;
+                return true;
+            } catch (InstanceNotFoundException e) {
+                return false;
+            } catch (Exception e) {
+                // the MBean is there, but its attributes could not be read this time around
+                registered = true;
+                return true;
+            }
+        }
+    }
+}
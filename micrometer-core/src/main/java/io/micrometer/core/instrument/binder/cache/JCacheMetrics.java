@@ -19,6 +19,7 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.JmxAttributeCache;
 import io.micrometer.core.instrument.config.InvalidConfigurationException;
 import io.micrometer.core.lang.NonNullApi;
 import io.micrometer.core.lang.NonNullFields;
@@ -26,8 +27,8 @@ import io.micrometer.core.lang.Nullable;
 
 import javax.cache.Cache;
 import javax.cache.CacheManager;
-import javax.management.*;
-import java.util.List;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 /**
  * Collect metrics on JSR-107 JCache caches, including detailed metrics on manual puts and removals.
@@ -45,6 +46,8 @@ public class JCacheMetrics extends CacheMeterBinder {
     @Nullable
     ObjectName objectName;
 
+    private final JmxAttributeCache jmxAttributes = JmxAttributeCache.forAllMBeanServers();
+
     /**
      * Record metrics on a JCache cache.
      *
@@ -131,17 +134,9 @@ public class JCacheMetrics extends CacheMeterBinder {
 
     private Long lookupStatistic(String name) {
         if (objectName != null) {
-            try {
-                List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
-                for (MBeanServer mBeanServer : mBeanServers) {
-                    try {
-                        return (Long) mBeanServer.getAttribute(objectName, name);
-                    } catch (AttributeNotFoundException | InstanceNotFoundException ex) {
-                        // did not find MBean, try the next server
-                    }
-                }
-            } catch (MBeanException | ReflectionException ex) {
-                throw new IllegalStateException(ex);
+            Object value = jmxAttributes.getAttribute(objectName, name);
+            if (value instanceof Long) {
+                return (Long) value;
             }
         }
 
@@ -18,6 +18,7 @@ package io.micrometer.core.instrument.binder.commonspool2;
 
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.JmxAttributeCache;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.lang.NonNull;
 import io.micrometer.core.lang.Nullable;
@@ -25,7 +26,6 @@ import io.micrometer.core.util.internal.logging.InternalLogger;
 import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
 
 import javax.management.*;
-import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -53,6 +53,7 @@ public class CommonsObjectPool2Metrics implements MeterBinder, AutoCloseable {
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     private final MBeanServer mBeanServer;
+    private final JmxAttributeCache jmxAttributes;
     private final Iterable<Tag> tags;
     private final List<Runnable> notificationListenerCleanUpRunnables = new CopyOnWriteArrayList<>();
 
@@ -61,22 +62,15 @@ public class CommonsObjectPool2Metrics implements MeterBinder, AutoCloseable {
     }
 
     public CommonsObjectPool2Metrics(Iterable<Tag> tags) {
-        this(getMBeanServer(), tags);
+        this(JmxAttributeCache.getMBeanServer(), tags);
     }
 
     public CommonsObjectPool2Metrics(MBeanServer mBeanServer, Iterable<Tag> tags) {
         this.mBeanServer = mBeanServer;
+        this.jmxAttributes = new JmxAttributeCache(mBeanServer);
         this.tags = tags;
     }
 
-    private static MBeanServer getMBeanServer() {
-        List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
-        if (!mBeanServers.isEmpty()) {
-            return mBeanServers.get(0);
-        }
-        return ManagementFactory.getPlatformMBeanServer();
-    }
-
     @Override
     public void bindTo(@NonNull MeterRegistry registry) {
         for (String type : TYPES) {
@@ -297,20 +291,12 @@ public class CommonsObjectPool2Metrics implements MeterBinder, AutoCloseable {
             AtomicReference<? extends Meter> meter,
             ObjectName o,
             String jmxMetricName) {
-        return s -> safeDouble(
-                () -> {
-                    if (!s.isRegistered(o)) {
-                        registry.remove(meter.get());
-                    }
-                    return s.getAttribute(o, jmxMetricName);
-                });
-    }
-
-    private double safeDouble(Callable<Object> callable) {
-        try {
-            return Double.parseDouble(callable.call().toString());
-        } catch (Exception e) {
-            return Double.NaN;
-        }
+        return s -> {
+            double value = jmxAttributes.getDouble(o, jmxMetricName);
+            if (!jmxAttributes.isRegistered(o)) {
+                registry.remove(meter.get());
+            }
+            return value;
+        };
     }
 }
@@ -15,6 +15,7 @@
  */
 package io.micrometer.core.instrument.binder.db;
 
+import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
@@ -23,12 +24,14 @@ import io.micrometer.core.instrument.binder.BaseUnits;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.lang.NonNullApi;
 import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.function.ToDoubleFunction;
 
 /**
@@ -43,6 +46,9 @@ public class DatabaseTableMetrics implements MeterBinder {
     private final String tableName;
     private final Iterable<Tag> tags;
 
+    @Nullable
+    private final Duration refreshInterval;
+
     /**
      * Record the row count for an individual database table.
      *
@@ -66,11 +72,32 @@ public class DatabaseTableMetrics implements MeterBinder {
      * @param tags           Tags to apply to all recorded metrics.
      */
     public DatabaseTableMetrics(DataSource dataSource, String query, String dataSourceName, String tableName, Iterable<Tag> tags) {
+        this(dataSource, query, dataSourceName, tableName, tags, null);
+    }
+
+    /**
+     * Record the result based on a query that runs on a background thread, so that a slow query doesn't delay
+     * publishing. The gauge serves the result of the last run.
+     *
+     * @param dataSource      The data source to use to run the row count query.
+     * @param query           The query to be run against the table. The first column of the result will be the metric
+     *                        and it should return a single row.
+     * @param dataSourceName  The name prefix of the metrics.
+     * @param tableName       The name of the table to report table size for.
+     * @param tags            Tags to apply to all recorded metrics.
+     * @param refreshInterval How often to run the query, or {@code null} to run it whenever the gauge is observed.
+     * @see Gauge.Builder#asyncRefresh(Duration)
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    public DatabaseTableMetrics(DataSource dataSource, String query, String dataSourceName, String tableName, Iterable<Tag> tags,
+                                @Nullable Duration refreshInterval) {
         this.dataSource = dataSource;
         this.query = query;
         this.dataSourceName = dataSourceName;
         this.tableName = tableName;
         this.tags = tags;
+        this.refreshInterval = refreshInterval;
     }
 
     /**
@@ -112,12 +139,15 @@ public class DatabaseTableMetrics implements MeterBinder {
             }
         };
 
-        Gauge.builder("db.table.size", dataSource, totalRows)
+        Gauge.Builder<DataSource> builder = Gauge.builder("db.table.size", dataSource, totalRows)
                 .tags(tags)
                 .tag("db", dataSourceName)
                 .tag("table", tableName)
                 .description("Number of rows in a database table")
-                .baseUnit(BaseUnits.ROWS)
-                .register(registry);
+                .baseUnit(BaseUnits.ROWS);
+        if (refreshInterval != null) {
+            builder.asyncRefresh(refreshInterval);
+        }
+        builder.register(registry);
     }
 }
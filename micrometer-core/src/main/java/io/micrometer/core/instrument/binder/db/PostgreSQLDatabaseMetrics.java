@@ -20,18 +20,28 @@ import io.micrometer.core.instrument.binder.BaseUnits;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.lang.NonNullApi;
 import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.WarnThenDebugLogger;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.DoubleSupplier;
 
 /**
  * {@link MeterBinder} for a PostgreSQL database.
+ * <p>
+ * Statistics are fetched by two queries on one connection, one for the database and one for the background writer,
+ * and cached for a short interval, so that one scrape or publish of the meters bound here costs two round trips to the
+ * database rather than one per meter. When a query fails, the statistics it fetches keep their last values, or are
+ * {@code NaN} if it never succeeded.
  *
  * @author Kristof Depypere
  * @author Jon Schneider
@@ -42,51 +52,86 @@ import java.util.function.DoubleSupplier;
 @NonNullFields
 public class PostgreSQLDatabaseMetrics implements MeterBinder {
 
-    private static final String SELECT = "SELECT ";
-
-    private static final String QUERY_DEAD_TUPLE_COUNT = getUserTableQuery("n_dead_tup");
-    private static final String QUERY_TIMED_CHECKPOINTS_COUNT = getBgWriterQuery("checkpoints_timed");
-    private static final String QUERY_REQUESTED_CHECKPOINTS_COUNT = getBgWriterQuery("checkpoints_req");
-    private static final String QUERY_BUFFERS_CLEAN = getBgWriterQuery("buffers_clean");
-    private static final String QUERY_BUFFERS_BACKEND = getBgWriterQuery("buffers_backend");
-    private static final String QUERY_BUFFERS_CHECKPOINT = getBgWriterQuery("buffers_checkpoint");
+    private static final WarnThenDebugLogger logger = new WarnThenDebugLogger(PostgreSQLDatabaseMetrics.class);
+
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(5);
+
+    private static final String SIZE = "size";
+    private static final String CONNECTIONS = "connections";
+    private static final String LOCKS = "locks";
+    private static final String ROWS_FETCHED = "tup_fetched";
+    private static final String ROWS_INSERTED = "tup_inserted";
+    private static final String ROWS_UPDATED = "tup_updated";
+    private static final String ROWS_DELETED = "tup_deleted";
+    private static final String ROWS_DEAD = "n_dead_tup";
+    private static final String TEMP_BYTES = "temp_bytes";
+    private static final String BLOCKS_HIT = "blks_hit";
+    private static final String BLOCKS_READ = "blks_read";
+    private static final String TRANSACTIONS = "transactions";
+    private static final String CHECKPOINTS_TIMED = "checkpoints_timed";
+    private static final String CHECKPOINTS_REQUESTED = "checkpoints_req";
+    private static final String BUFFERS_CLEAN = "buffers_clean";
+    private static final String BUFFERS_BACKEND = "buffers_backend";
+    private static final String BUFFERS_CHECKPOINT = "buffers_checkpoint";
+
+    private static final String[] DATABASE_STATS = {
+            SIZE, CONNECTIONS, LOCKS, ROWS_FETCHED, ROWS_INSERTED, ROWS_UPDATED, ROWS_DELETED, ROWS_DEAD, TEMP_BYTES,
+            BLOCKS_HIT, BLOCKS_READ, TRANSACTIONS
+    };
+
+    private static final String[] BGWRITER_STATS = {
+            CHECKPOINTS_TIMED, CHECKPOINTS_REQUESTED, BUFFERS_CLEAN, BUFFERS_BACKEND, BUFFERS_CHECKPOINT
+    };
+
+    static final String QUERY_DATABASE_STATS = "SELECT pg_database_size(s.datname) AS " + SIZE +
+            ", s.numbackends AS " + CONNECTIONS +
+            ", (SELECT count(*) FROM pg_locks l JOIN pg_database d ON l.database = d.oid WHERE d.datname = s.datname) AS " + LOCKS +
+            ", s.tup_fetched, s.tup_inserted, s.tup_updated, s.tup_deleted" +
+            ", (SELECT sum(n_dead_tup) FROM pg_stat_user_tables) AS " + ROWS_DEAD +
+            ", s.temp_bytes, s.blks_hit, s.blks_read" +
+            ", s.xact_commit + s.xact_rollback AS " + TRANSACTIONS +
+            " FROM pg_stat_database s WHERE s.datname = ?";
+
+    // PostgreSQL 17 moves the checkpoint and backend columns out of pg_stat_bgwriter, so this is queried on its own
+    static final String QUERY_BGWRITER_STATS = "SELECT checkpoints_timed, checkpoints_req, buffers_clean, " +
+            "buffers_backend, buffers_checkpoint FROM pg_stat_bgwriter";
 
     private final String database;
     private final DataSource postgresDataSource;
     private final Iterable<Tag> tags;
+    private final long refreshIntervalNanos;
     private final Map<String, Double> beforeResetValuesCacheMap;
     private final Map<String, Double> previousValueCacheMap;
 
-    private final String queryConnectionCount;
-    private final String queryReadCount;
-    private final String queryInsertCount;
-    private final String queryTempBytes;
-    private final String queryUpdateCount;
-    private final String queryDeleteCount;
-    private final String queryBlockHits;
-    private final String queryBlockReads;
-    private final String queryTransactionCount;
+    private volatile Clock clock = Clock.SYSTEM;
+
+    private volatile Map<String, Long> stats = Collections.emptyMap();
+    private volatile long lastRefresh;
+    private volatile boolean refreshed;
 
     public PostgreSQLDatabaseMetrics(DataSource postgresDataSource, String database) {
         this(postgresDataSource, database, Tags.empty());
     }
 
     public PostgreSQLDatabaseMetrics(DataSource postgresDataSource, String database, Iterable<Tag> tags) {
+        this(postgresDataSource, database, tags, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * @param postgresDataSource The data source to query statistics from.
+     * @param database The database to report on.
+     * @param tags Tags to add to every meter.
+     * @param refreshInterval How long statistics fetched from the database are served to meters before they are
+     *                        fetched again.
+     * @since 1.8.0
+     */
+    public PostgreSQLDatabaseMetrics(DataSource postgresDataSource, String database, Iterable<Tag> tags, Duration refreshInterval) {
         this.postgresDataSource = postgresDataSource;
         this.database = database;
         this.tags = Tags.of(tags).and(createDbTag(database));
+        this.refreshIntervalNanos = refreshInterval.toNanos();
         this.beforeResetValuesCacheMap = new ConcurrentHashMap<>();
         this.previousValueCacheMap = new ConcurrentHashMap<>();
-
-        this.queryConnectionCount = getDBStatQuery(database, "SUM(numbackends)");
-        this.queryReadCount = getDBStatQuery(database, "tup_fetched");
-        this.queryInsertCount = getDBStatQuery(database, "tup_inserted");
-        this.queryTempBytes = getDBStatQuery(database, "temp_bytes");
-        this.queryUpdateCount = getDBStatQuery(database, "tup_updated");
-        this.queryDeleteCount = getDBStatQuery(database, "tup_deleted");
-        this.queryBlockHits = getDBStatQuery(database, "blks_hit");
-        this.queryBlockReads = getDBStatQuery(database, "blks_read");
-        this.queryTransactionCount = getDBStatQuery(database, "xact_commit + xact_rollback");
     }
 
     private static Tag createDbTag(String database) {
@@ -95,38 +140,30 @@ public class PostgreSQLDatabaseMetrics implements MeterBinder {
 
     @Override
     public void bindTo(MeterRegistry registry) {
-        Gauge.builder("postgres.size", postgresDataSource, dataSource -> getDatabaseSize())
+        this.clock = registry.config().clock();
+
+        Gauge.builder("postgres.size", postgresDataSource, dataSource -> getStat(SIZE))
                 .tags(tags)
                 .description("The database size")
                 .register(registry);
-        Gauge.builder("postgres.connections", postgresDataSource, dataSource -> getConnectionCount())
+        Gauge.builder("postgres.connections", postgresDataSource, dataSource -> getStat(CONNECTIONS))
                 .tags(tags)
                 .description("Number of active connections to the given db")
                 .register(registry);
 
         // Hit ratio can be derived from dividing hits/reads
-        FunctionCounter.builder("postgres.blocks.hits", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.blocks.hits", this::getBlockHits))
-                .tags(tags)
-                .description("Number of times disk blocks were found already in the buffer cache, so that a read was not necessary")
-                .register(registry);
-        FunctionCounter.builder("postgres.blocks.reads", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.blocks.reads", this::getBlockReads))
-                .tags(tags)
-                .description("Number of disk blocks read in this database")
-                .register(registry);
+        registerCounter(registry, "postgres.blocks.hits", BLOCKS_HIT,
+                "Number of times disk blocks were found already in the buffer cache, so that a read was not necessary");
+        registerCounter(registry, "postgres.blocks.reads", BLOCKS_READ, "Number of disk blocks read in this database");
 
-        FunctionCounter.builder("postgres.transactions", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.transactions", this::getTransactionCount))
-                .tags(tags)
-                .description("Total number of transactions executed (commits + rollbacks)")
-                .register(registry);
-        Gauge.builder("postgres.locks", postgresDataSource, dataSource -> getLockCount())
+        registerCounter(registry, "postgres.transactions", TRANSACTIONS,
+                "Total number of transactions executed (commits + rollbacks)");
+        Gauge.builder("postgres.locks", postgresDataSource, dataSource -> getStat(LOCKS))
                 .tags(tags)
                 .description("Number of locks on the given db")
                 .register(registry);
         FunctionCounter.builder("postgres.temp.writes", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.temp.writes", this::getTempBytes))
+                dataSource -> resettableFunctionalCounter("postgres.temp.writes", () -> getStat(TEMP_BYTES)))
                 .tags(tags)
                 .description("The total amount of temporary writes to disk to execute queries")
                 .baseUnit(BaseUnits.BYTES)
@@ -137,127 +174,31 @@ public class PostgreSQLDatabaseMetrics implements MeterBinder {
     }
 
     private void registerRowCountMetrics(MeterRegistry registry) {
-        FunctionCounter.builder("postgres.rows.fetched", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.rows.fetched", this::getReadCount))
-                .tags(tags)
-                .description("Number of rows fetched from the db")
-                .register(registry);
-        FunctionCounter.builder("postgres.rows.inserted", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.rows.inserted", this::getInsertCount))
-                .tags(tags)
-                .description("Number of rows inserted from the db")
-                .register(registry);
-        FunctionCounter.builder("postgres.rows.updated", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.rows.updated", this::getUpdateCount))
-                .tags(tags)
-                .description("Number of rows updated from the db")
-                .register(registry);
-        FunctionCounter.builder("postgres.rows.deleted", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.rows.deleted", this::getDeleteCount))
-                .tags(tags)
-                .description("Number of rows deleted from the db")
-                .register(registry);
-        Gauge.builder("postgres.rows.dead", postgresDataSource, dataSource -> getDeadTupleCount())
+        registerCounter(registry, "postgres.rows.fetched", ROWS_FETCHED, "Number of rows fetched from the db");
+        registerCounter(registry, "postgres.rows.inserted", ROWS_INSERTED, "Number of rows inserted from the db");
+        registerCounter(registry, "postgres.rows.updated", ROWS_UPDATED, "Number of rows updated from the db");
+        registerCounter(registry, "postgres.rows.deleted", ROWS_DELETED, "Number of rows deleted from the db");
+        Gauge.builder("postgres.rows.dead", postgresDataSource, dataSource -> getStat(ROWS_DEAD))
                 .tags(tags)
                 .description("Total number of dead rows in the current database")
                 .register(registry);
     }
 
     private void registerCheckpointMetrics(MeterRegistry registry) {
-        FunctionCounter.builder("postgres.checkpoints.timed", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.checkpoints.timed", this::getTimedCheckpointsCount))
-                .tags(tags)
-                .description("Number of checkpoints timed")
-                .register(registry);
-        FunctionCounter.builder("postgres.checkpoints.requested", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.checkpoints.requested", this::getRequestedCheckpointsCount))
-                .tags(tags)
-                .description("Number of checkpoints requested")
-                .register(registry);
-
-        FunctionCounter.builder("postgres.buffers.checkpoint", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.buffers.checkpoint", this::getBuffersCheckpoint))
-                .tags(tags)
-                .description("Number of buffers written during checkpoints")
-                .register(registry);
-        FunctionCounter.builder("postgres.buffers.clean", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.buffers.clean", this::getBuffersClean))
-                .tags(tags)
-                .description("Number of buffers written by the background writer")
-                .register(registry);
-        FunctionCounter.builder("postgres.buffers.backend", postgresDataSource,
-                dataSource -> resettableFunctionalCounter("postgres.buffers.backend", this::getBuffersBackend))
-                .tags(tags)
-                .description("Number of buffers written directly by a backend")
-                .register(registry);
-    }
-
-    private Long getDatabaseSize() {
-        return runQuery("SELECT pg_database_size('" + database + "')");
-    }
-
-    private Long getLockCount() {
-        return runQuery("SELECT count(*) FROM pg_locks l JOIN pg_database d ON l.DATABASE=d.oid WHERE d.datname='" + database + "'");
-    }
-
-    private Long getConnectionCount() {
-        return runQuery(this.queryConnectionCount);
-    }
-
-    private Long getReadCount() {
-        return runQuery(this.queryReadCount);
-    }
-
-    private Long getInsertCount() {
-        return runQuery(this.queryInsertCount);
-    }
-
-    private Long getTempBytes() {
-        return runQuery(this.queryTempBytes);
-    }
-
-    private Long getUpdateCount() {
-        return runQuery(this.queryUpdateCount);
-    }
-
-    private Long getDeleteCount() {
-        return runQuery(this.queryDeleteCount);
-    }
-
-    private Long getBlockHits() {
-        return runQuery(this.queryBlockHits);
-    }
-
-    private Long getBlockReads() {
-        return runQuery(this.queryBlockReads);
-    }
-
-    private Long getTransactionCount() {
-        return runQuery(this.queryTransactionCount);
-    }
-
-    private Long getDeadTupleCount() {
-        return runQuery(QUERY_DEAD_TUPLE_COUNT);
-    }
-
-    private Long getTimedCheckpointsCount() {
-        return runQuery(QUERY_TIMED_CHECKPOINTS_COUNT);
-    }
-
-    private Long getRequestedCheckpointsCount() {
-        return runQuery(QUERY_REQUESTED_CHECKPOINTS_COUNT);
-    }
-
-    private Long getBuffersClean() {
-        return runQuery(QUERY_BUFFERS_CLEAN);
-    }
+        registerCounter(registry, "postgres.checkpoints.timed", CHECKPOINTS_TIMED, "Number of checkpoints timed");
+        registerCounter(registry, "postgres.checkpoints.requested", CHECKPOINTS_REQUESTED, "Number of checkpoints requested");
 
-    private Long getBuffersBackend() {
-        return runQuery(QUERY_BUFFERS_BACKEND);
+        registerCounter(registry, "postgres.buffers.checkpoint", BUFFERS_CHECKPOINT, "Number of buffers written during checkpoints");
+        registerCounter(registry, "postgres.buffers.clean", BUFFERS_CLEAN, "Number of buffers written by the background writer");
+        registerCounter(registry, "postgres.buffers.backend", BUFFERS_BACKEND, "Number of buffers written directly by a backend");
     }
 
-    private Long getBuffersCheckpoint() {
-        return runQuery(QUERY_BUFFERS_CHECKPOINT);
+    private void registerCounter(MeterRegistry registry, String name, String stat, String description) {
+        FunctionCounter.builder(name, postgresDataSource,
+                dataSource -> resettableFunctionalCounter(name, () -> getStat(stat)))
+                .tags(tags)
+                .description(description)
+                .register(registry);
     }
 
     /**
@@ -265,6 +206,10 @@ public class PostgreSQLDatabaseMetrics implements MeterBinder {
      */
     Double resettableFunctionalCounter(String functionalCounterKey, DoubleSupplier function) {
         Double result = function.getAsDouble();
+        if (result.isNaN()) {
+            // never fetched, which is not a reset
+            return result;
+        }
         Double previousResult = previousValueCacheMap.getOrDefault(functionalCounterKey, 0D);
         Double beforeResetValue = beforeResetValuesCacheMap.getOrDefault(functionalCounterKey, 0D);
         Double correctedValue = result + beforeResetValue;
@@ -277,27 +222,73 @@ public class PostgreSQLDatabaseMetrics implements MeterBinder {
         return correctedValue;
     }
 
-    private Long runQuery(String query) {
-        try (Connection connection = postgresDataSource.getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(query)) {
-            if (resultSet.next()) {
-                return resultSet.getObject(1, Long.class);
+    private double getStat(String stat) {
+        Long value = getStats().get(stat);
+        return value == null ? Double.NaN : value;
+    }
+
+    private Map<String, Long> getStats() {
+        if (isStale()) {
+            synchronized (this) {
+                // another meter may have refreshed the statistics while we were waiting
+                if (isStale()) {
+                    stats = queryStats();
+                    lastRefresh = clock.monotonicTime();
+                    refreshed = true;
+                }
             }
-        } catch (SQLException ignored) {
         }
-        return 0L;
+        return stats;
     }
 
-    private static String getDBStatQuery(String database, String statName) {
-        return SELECT + statName + " FROM pg_stat_database WHERE datname = '" + database + "'";
+    private boolean isStale() {
+        return !refreshed || clock.monotonicTime() - lastRefresh >= refreshIntervalNanos;
     }
 
-    private static String getUserTableQuery(String statName) {
-        return SELECT + statName + " FROM pg_stat_user_tables";
+    private Map<String, Long> queryStats() {
+        Map<String, Long> result = new HashMap<>((DATABASE_STATS.length + BGWRITER_STATS.length) * 2);
+        try (Connection connection = postgresDataSource.getConnection()) {
+            queryStats(connection, QUERY_DATABASE_STATS, database, DATABASE_STATS, result);
+            queryStats(connection, QUERY_BGWRITER_STATS, null, BGWRITER_STATS, result);
+        } catch (SQLException e) {
+            logger.log("Failed to fetch statistics of PostgreSQL database " + database + ".", e);
+            keepPreviousStats(DATABASE_STATS, result);
+            keepPreviousStats(BGWRITER_STATS, result);
+        }
+        return result;
+    }
+
+    private void queryStats(Connection connection, String query, @Nullable String parameter, String[] statNames,
+                            Map<String, Long> result) {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    for (String stat : statNames) {
+                        result.put(stat, resultSet.getLong(stat));
+                    }
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            logger.log("Failed to fetch PostgreSQL statistics with [" + query + "].", e);
+        }
+        keepPreviousStats(statNames, result);
     }
 
-    private static String getBgWriterQuery(String statName) {
-        return SELECT + statName + " FROM pg_stat_bgwriter";
+    /**
+     * Serve the last fetched values of statistics that could not be fetched, rather than zeros that counters would take
+     * for a pg_stat_reset.
+     */
+    private void keepPreviousStats(String[] statNames, Map<String, Long> result) {
+        Map<String, Long> previous = stats;
+        for (String stat : statNames) {
+            Long value = previous.get(stat);
+            if (value != null) {
+                result.putIfAbsent(stat, value);
+            }
+        }
     }
 }
@@ -0,0 +1,221 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.kafka;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.InternalLogger;
+import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
+import io.micrometer.core.util.internal.logging.WarnThenDebugLogger;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.utils.AppInfoParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.micrometer.core.instrument.binder.kafka.KafkaMetrics.KAFKA_VERSION_TAG_NAME;
+import static io.micrometer.core.instrument.binder.kafka.KafkaMetrics.METRIC_GROUP_APP_INFO;
+import static io.micrometer.core.instrument.binder.kafka.KafkaMetrics.METRIC_GROUP_METRICS_COUNT;
+import static io.micrometer.core.instrument.binder.kafka.KafkaMetrics.START_TIME_METRIC_NAME;
+
+/**
+ * Kafka client {@link MetricsReporter} registering meters as Kafka adds and removes metrics, instead of polling the
+ * client's {@code metrics()} map as {@link KafkaClientMetrics} does. Meters follow the same naming convention:
+ * {@code kafka.(metric_group).(metric_name)}.
+ * <p>
+ * Kafka instantiates reporters itself, so the reporter is configured through the client configuration:
+ * <pre>
+ * props.put(ProducerConfig.METRIC_REPORTER_CLASSES_CONFIG, KafkaClientMetricsReporter.class.getName());
+ * props.put(KafkaClientMetricsReporter.METER_REGISTRY_CONFIG, meterRegistry);
+ * props.put(KafkaClientMetricsReporter.TAGS_CONFIG, Tags.of("app", "orders"));
+ * </pre>
+ * Without a registry in the configuration, meters are registered with {@link Metrics#globalRegistry}.
+ * <p>
+ * Kafka reports some metrics both with and without topic or partition tags. As with {@link KafkaClientMetrics}, only
+ * the variant with the most tags is registered for a meter name, and the others are registered again once it is gone.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+@NonNullApi
+@NonNullFields
+public class KafkaClientMetricsReporter implements MetricsReporter {
+    private static final InternalLogger log = InternalLoggerFactory.getInstance(KafkaClientMetricsReporter.class);
+    private static final WarnThenDebugLogger warnThenDebugLogger = new WarnThenDebugLogger(KafkaClientMetricsReporter.class);
+
+    /**
+     * Client configuration key for the {@link MeterRegistry} to register meters with.
+     */
+    public static final String METER_REGISTRY_CONFIG = "micrometer.meter.registry";
+
+    /**
+     * Client configuration key for additional tags, an {@code Iterable<Tag>}.
+     */
+    public static final String TAGS_CONFIG = "micrometer.tags";
+
+    private MeterRegistry registry = Metrics.globalRegistry;
+    private Iterable<Tag> extraTags = Collections.emptyList();
+    private final String kafkaVersion = AppInfoParser.getVersion();
+
+    // guarded by this
+    private final Map<String, MeterGroup> meterGroups = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object registry = configs.get(METER_REGISTRY_CONFIG);
+        if (registry instanceof MeterRegistry) {
+            this.registry = (MeterRegistry) registry;
+        }
+        Object tags = configs.get(TAGS_CONFIG);
+        if (tags instanceof Iterable) {
+            this.extraTags = (Iterable<Tag>) tags;
+        }
+    }
+
+    @Override
+    public synchronized void init(List<KafkaMetric> metrics) {
+        for (KafkaMetric metric : metrics) {
+            metricChange(metric);
+        }
+    }
+
+    @Override
+    public synchronized void metricChange(KafkaMetric metric) {
+        MetricName metricName = metric.metricName();
+        // Filter out non-numeric values
+        // Filter out metrics from groups that include metadata, except for the start time as KafkaMetrics does
+        if (!(metric.metricValue() instanceof Number) ||
+                (METRIC_GROUP_APP_INFO.equals(metricName.group()) && !START_TIME_METRIC_NAME.equals(metricName.name())) ||
+                METRIC_GROUP_METRICS_COUNT.equals(metricName.group())) {
+            return;
+        }
+
+        MeterGroup group = meterGroups.computeIfAbsent(KafkaMetrics.meterName(metric), MeterGroup::new);
+        group.metrics.put(metricName, metric);
+        // a changed metric replaces the one registered under the same name
+        removeMeter(group.meters.remove(metricName));
+
+        int tagCount = metricName.tags().size();
+        if (tagCount > group.maxTags) {
+            // the metrics registered so far all have fewer tags
+            group.meters.values().forEach(this::removeMeter);
+            group.meters.clear();
+            group.maxTags = tagCount;
+        }
+        if (tagCount == group.maxTags) {
+            bind(group, metricName, metric);
+        }
+    }
+
+    @Override
+    public synchronized void metricRemoval(KafkaMetric metric) {
+        MeterGroup group = meterGroups.get(KafkaMetrics.meterName(metric));
+        if (group == null) {
+            return;
+        }
+
+        MetricName metricName = metric.metricName();
+        group.metrics.remove(metricName);
+        removeMeter(group.meters.remove(metricName));
+        if (group.metrics.isEmpty()) {
+            meterGroups.remove(group.meterName);
+            return;
+        }
+
+        if (metricName.tags().size() == group.maxTags) {
+            int maxTags = 0;
+            for (MetricName remaining : group.metrics.keySet()) {
+                maxTags = Math.max(maxTags, remaining.tags().size());
+            }
+            if (maxTags < group.maxTags) {
+                // the last metric with the most tags is gone, so register those that now have the most
+                group.maxTags = maxTags;
+                for (Map.Entry<MetricName, KafkaMetric> entry : group.metrics.entrySet()) {
+                    if (entry.getKey().tags().size() == maxTags) {
+                        bind(group, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void bind(MeterGroup group, MetricName metricName, KafkaMetric metric) {
+        List<Tag> tags = meterTags(metricName);
+        try {
+            group.meters.put(metricName, KafkaMetrics.registerMeter(registry, metric, group.meterName, tags));
+        } catch (Exception ex) {
+            String message = ex.getMessage();
+            if (message != null && message.contains("Prometheus requires")) {
+                warnThenDebugLogger.log("Failed to bind meter: " + group.meterName + " " + tags
+                        + ". However, this could happen and might be restored when metrics change.");
+            } else {
+                log.warn("Failed to bind meter: " + group.meterName + " " + tags + ".", ex);
+            }
+        }
+    }
+
+    private void removeMeter(@Nullable Meter meter) {
+        if (meter != null) {
+            registry.remove(meter);
+        }
+    }
+
+    private List<Tag> meterTags(MetricName metricName) {
+        List<Tag> tags = new ArrayList<>();
+        metricName.tags().forEach((key, value) -> tags.add(Tag.of(key.replaceAll("-", "."), value)));
+        tags.add(Tag.of(KAFKA_VERSION_TAG_NAME, kafkaVersion));
+        extraTags.forEach(tags::add);
+        return tags;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MeterGroup group : meterGroups.values()) {
+            group.meters.values().forEach(registry::remove);
+        }
+        meterGroups.clear();
+    }
+
+    /**
+     * Kafka metrics sharing a meter name.
+     */
+    private static class MeterGroup {
+        final String meterName;
+        final Map<MetricName, KafkaMetric> metrics = new HashMap<>();
+        final Map<MetricName, Meter> meters = new HashMap<>();
+
+        /**
+         * The most tags of the group's metrics, which only the metrics with that many tags are registered with.
+         */
+        int maxTags;
+
+        MeterGroup(String meterName) {
+            this.meterName = meterName;
+        }
+    }
+}
@@ -18,17 +18,16 @@ package io.micrometer.core.instrument.binder.kafka;
 import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.JmxAttributeCache;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.lang.NonNullApi;
 import io.micrometer.core.lang.NonNullFields;
 import io.micrometer.core.lang.Nullable;
 
 import javax.management.*;
-import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -60,6 +59,7 @@ public class KafkaConsumerMetrics implements MeterBinder, AutoCloseable {
     private static final String METRIC_NAME_PREFIX = "kafka.consumer.";
 
     private final MBeanServer mBeanServer;
+    private final JmxAttributeCache jmxAttributes;
 
     private final Iterable<Tag> tags;
 
@@ -73,22 +73,15 @@ public class KafkaConsumerMetrics implements MeterBinder, AutoCloseable {
     }
 
     public KafkaConsumerMetrics(Iterable<Tag> tags) {
-        this(getMBeanServer(), tags);
+        this(JmxAttributeCache.getMBeanServer(), tags);
     }
 
     public KafkaConsumerMetrics(MBeanServer mBeanServer, Iterable<Tag> tags) {
         this.mBeanServer = mBeanServer;
+        this.jmxAttributes = new JmxAttributeCache(mBeanServer);
         this.tags = tags;
     }
 
-    private static MBeanServer getMBeanServer() {
-        List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
-        if (!mBeanServers.isEmpty()) {
-            return mBeanServers.get(0);
-        }
-        return ManagementFactory.getPlatformMBeanServer();
-    }
-
     @Override
     public void bindTo(MeterRegistry registry) {
         registerMetricsEventually(registry, "consumer-fetch-manager-metrics", (o, tags) -> {
@@ -230,12 +223,13 @@ public class KafkaConsumerMetrics implements MeterBinder, AutoCloseable {
 
     private ToDoubleFunction<MBeanServer> getJmxAttribute(MeterRegistry registry, AtomicReference<? extends Meter> meter,
                                                           ObjectName o, String jmxMetricName) {
-        return s -> safeDouble(() -> {
-            if (!s.isRegistered(o)) {
+        return s -> {
+            double value = jmxAttributes.getDouble(o, jmxMetricName);
+            if (!jmxAttributes.isRegistered(o)) {
                 registry.remove(meter.get());
             }
-            return s.getAttribute(o, jmxMetricName);
-        });
+            return value;
+        };
     }
 
     private TimeGauge registerTimeGaugeForObject(MeterRegistry registry, ObjectName o, String jmxMetricName, Tags allTags, String description) {
@@ -311,6 +305,7 @@ public class KafkaConsumerMetrics implements MeterBinder, AutoCloseable {
                 ObjectName o2 = mbs2.getMBeanName();
                 if (o2.equals(o)) {
                     meters.stream().forEach(registry::remove);
+                    jmxAttributes.evict(o);
                 }
                 removeNotificationListener(this);
             }
@@ -338,14 +333,6 @@ public class KafkaConsumerMetrics implements MeterBinder, AutoCloseable {
         }
     }
 
-    private double safeDouble(Callable<Object> callable) {
-        try {
-            return Double.parseDouble(callable.call().toString());
-        } catch (Exception e) {
-            return Double.NaN;
-        }
-    }
-
     private Iterable<Tag> nameTag(ObjectName name) {
         Tags tags = Tags.empty();
 
@@ -209,7 +209,7 @@ class KafkaMetrics implements MeterBinder, AutoCloseable {
         registeredMeters.add(meter);
     }
 
-    private Meter registerMeter(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
+    static Meter registerMeter(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
         if (name.endsWith("total") || name.endsWith("count")) {
             return registerCounter(registry, metric, name, tags);
         } else {
@@ -217,14 +217,14 @@ class KafkaMetrics implements MeterBinder, AutoCloseable {
         }
     }
 
-    private Gauge registerGauge(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
+    private static Gauge registerGauge(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
         return Gauge.builder(name, metric, toMetricValue())
                 .tags(tags)
                 .description(metric.metricName().description())
                 .register(registry);
     }
 
-    private FunctionCounter registerCounter(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
+    private static FunctionCounter registerCounter(MeterRegistry registry, Metric metric, String name, Iterable<Tag> tags) {
         return FunctionCounter.builder(name, metric, toMetricValue())
                 .tags(tags)
                 .description(metric.metricName().description())
@@ -250,7 +250,7 @@ class KafkaMetrics implements MeterBinder, AutoCloseable {
         return meterTags(metric, false);
     }
 
-    private String meterName(Metric metric) {
+    static String meterName(Metric metric) {
         String name = METRIC_NAME_PREFIX + metric.metricName().group() + "." + metric.metricName().name();
         return name.replaceAll("-metrics", "").replaceAll("-", ".");
     }
@@ -45,6 +45,9 @@ import static java.util.stream.StreamSupport.stream;
  * doesn't provide URI patterns. We provide {@value OkHttpMetricsEventListener#URI_PATTERN} header to support
  * {@literal uri} tag or you can configure a {@link Builder#uriMapper(Function) URI mapper} to provide your own tag
  * values for {@literal uri} tag.
+ * <p>
+ * A single listener instance tracks in-flight calls in a shared map. With {@link Builder#buildFactory()}, each call
+ * instead gets its own listener holding the state of that call.
  *
  * @author Bjarte S. Karlsen
  * @author Jon Schneider
@@ -78,6 +81,12 @@ public class OkHttpMetricsEventListener extends EventListener {
             TAG_TARGET_PORT, TAG_VALUE_UNKNOWN
     );
 
+    /**
+     * Listeners caching timers, by registry. A single meter removed listener is registered per registry, and neither
+     * the registries nor the listeners are kept reachable from here.
+     */
+    private static final Map<MeterRegistry, Set<OkHttpMetricsEventListener>> TIMER_CACHING_LISTENERS = new WeakHashMap<>();
+
     @Nullable
     private static Method getMethod(Class<?>... parameterTypes) {
         try {
@@ -98,6 +107,12 @@ public class OkHttpMetricsEventListener extends EventListener {
     // VisibleForTesting
     final ConcurrentMap<Call, CallState> callState = new ConcurrentHashMap<>();
 
+    /**
+     * Timers by the request and response attributes their tags are derived from. Only used without context-specific
+     * tags, which may depend on anything about the request or response.
+     */
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
     protected OkHttpMetricsEventListener(MeterRegistry registry, String requestsMetricName, Function<Request, String> urlMapper,
                                          Iterable<Tag> extraTags,
                                          Iterable<BiFunction<Request, Response, Tag>> contextSpecificTags) {
@@ -121,6 +136,31 @@ public class OkHttpMetricsEventListener extends EventListener {
             unknownRequestTags.add(Tag.of(requestTagKey, "UNKNOWN"));
         }
         this.unknownRequestTags = unknownRequestTags;
+
+        if (!contextSpecificTags.iterator().hasNext()) {
+            forgetRemovedTimers(registry, this);
+        }
+    }
+
+    private static void forgetRemovedTimers(MeterRegistry registry, OkHttpMetricsEventListener listener) {
+        synchronized (TIMER_CACHING_LISTENERS) {
+            Set<OkHttpMetricsEventListener> listeners = TIMER_CACHING_LISTENERS.get(registry);
+            if (listeners == null) {
+                Set<OkHttpMetricsEventListener> registryListeners = Collections.newSetFromMap(new WeakHashMap<>());
+                registry.config().onMeterRemoved(meter -> {
+                    if (meter instanceof Timer) {
+                        synchronized (TIMER_CACHING_LISTENERS) {
+                            for (OkHttpMetricsEventListener registryListener : registryListeners) {
+                                registryListener.timers.values().remove(meter);
+                            }
+                        }
+                    }
+                });
+                listeners = registryListeners;
+                TIMER_CACHING_LISTENERS.put(registry, listeners);
+            }
+            listeners.add(listener);
+        }
     }
 
     public static Builder builder(MeterRegistry registry, String name) {
@@ -157,6 +197,26 @@ public class OkHttpMetricsEventListener extends EventListener {
 
     // VisibleForTesting
     void time(CallState state) {
+        timer(state).record(registry.config().clock().monotonicTime() - state.startTime, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(CallState state) {
+        Request request = state.request;
+        if (request == null || contextSpecificTags.iterator().hasNext()) {
+            return registerTimer(state);
+        }
+
+        TimerKey key = new TimerKey(request.method(), getUriTag(state, request),
+                getStatusMessage(state.response, state.exception), getRequestTags(request), request.url());
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = registerTimer(state);
+            timers.put(key, timer);
+        }
+        return timer;
+    }
+
+    private Timer registerTimer(CallState state) {
         Request request = state.request;
         boolean requestAvailable = request != null;
 
@@ -176,11 +236,10 @@ public class OkHttpMetricsEventListener extends EventListener {
             tags = Tags.of(tags).and("host", requestAvailable ? request.url().host() : TAG_VALUE_UNKNOWN);
         }
 
-        Timer.builder(this.requestsMetricName)
+        return Timer.builder(this.requestsMetricName)
                 .tags(tags)
                 .description("Timer of OkHttp operation")
-                .register(registry)
-                .record(registry.config().clock().monotonicTime() - state.startTime, TimeUnit.NANOSECONDS);
+                .register(registry);
     }
 
     private Tags generateTagsForRoute(@Nullable Request request) {
@@ -247,6 +306,117 @@ public class OkHttpMetricsEventListener extends EventListener {
         }
     }
 
+    /**
+     * The attributes of a request and its response that timer tags are derived from, when there are no context-specific
+     * tags. Extra tags are the same for every request.
+     */
+    private static final class TimerKey {
+        private final String method;
+        private final String uri;
+        private final String status;
+        private final Iterable<Tag> requestTags;
+        private final HttpUrl url;
+        private final int hashCode;
+
+        TimerKey(String method, String uri, String status, Iterable<Tag> requestTags, HttpUrl url) {
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+            this.requestTags = requestTags;
+            this.url = url;
+
+            int result = method.hashCode();
+            result = 31 * result + uri.hashCode();
+            result = 31 * result + status.hashCode();
+            result = 31 * result + requestTags.hashCode();
+            result = 31 * result + url.scheme().hashCode();
+            result = 31 * result + url.host().hashCode();
+            result = 31 * result + url.port();
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TimerKey that = (TimerKey) o;
+            return hashCode == that.hashCode && method.equals(that.method) && uri.equals(that.uri)
+                    && status.equals(that.status) && requestTags.equals(that.requestTags)
+                    && url.port() == that.url.port() && url.scheme().equals(that.url.scheme())
+                    && url.host().equals(that.url.host());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Creates a listener per call, so that the state of a call is held by its own listener rather than in a map shared
+     * by all calls.
+     */
+    private static final class PerCallFactory implements EventListener.Factory {
+        private final OkHttpMetricsEventListener metrics;
+
+        PerCallFactory(OkHttpMetricsEventListener metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public EventListener create(Call call) {
+            return new PerCallListener(metrics);
+        }
+    }
+
+    /**
+     * Tracks a single call. OkHttp delivers the events of a call one after another, so no synchronization is needed.
+     */
+    private static final class PerCallListener extends EventListener {
+        private final OkHttpMetricsEventListener metrics;
+
+        @Nullable
+        private CallState state;
+
+        PerCallListener(OkHttpMetricsEventListener metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            state = new CallState(metrics.registry.config().clock().monotonicTime(), call.request());
+        }
+
+        @Override
+        public void callFailed(Call call, IOException e) {
+            CallState state = this.state;
+            if (state != null) {
+                this.state = null;
+                state.exception = e;
+                metrics.time(state);
+            }
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            state = null;
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            CallState state = this.state;
+            if (state != null) {
+                this.state = null;
+                state.response = response;
+                metrics.time(state);
+            }
+        }
+    }
+
     public static class Builder {
         private final MeterRegistry registry;
         private final String name;
@@ -342,5 +512,17 @@ public class OkHttpMetricsEventListener extends EventListener {
         public OkHttpMetricsEventListener build() {
             return new OkHttpMetricsEventListener(registry, name, uriMapper, tags, contextSpecificTags, requestTagKeys, includeHostTag);
         }
+
+        /**
+         * Build an {@link EventListener.Factory} to be configured with
+         * {@link OkHttpClient.Builder#eventListenerFactory(EventListener.Factory)}. Each call gets its own listener
+         * holding the state of that call, rather than sharing a map of in-flight calls.
+         *
+         * @return a factory of per-call listeners
+         * @since 1.8.0
+         */
+        public EventListener.Factory buildFactory() {
+            return new PerCallFactory(build());
+        }
     }
 }
@@ -0,0 +1,540 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.system;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.internal.PollCycle;
+import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Record CPU and memory limits, usage, throttling and pressure of the Linux control group (cgroup) the process runs
+ * in, which is what actually bounds a containerized process. Both cgroup v2 (the unified hierarchy) and cgroup v1 are
+ * supported, the version being detected from the files under {@code /sys/fs/cgroup}.
+ * <p>
+ * The controller files are kept open and read once per poll into a snapshot that backs all meters. A new poll is
+ * detected when a meter that was already read since the last snapshot is read again. The files stay open until the
+ * binder is closed, after which its meters are {@code NaN}.
+ * <p>
+ * Pressure stall information (PSI) is only available with cgroup v2. Like {@code process.cpu.usage},
+ * {@code cgroup.pressure} is a ratio in the range [0..1] rather than the percentage the kernel reports, and so has no
+ * base unit. {@code cgroup.cpu.limit} and {@code cgroup.memory.limit} are {@code NaN} when there is no limit. Nothing
+ * is registered when no cgroup is found.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+@NonNullApi
+@NonNullFields
+public class CgroupMetrics implements MeterBinder, AutoCloseable {
+    private static final String[] PRESSURE_RESOURCES = {"cpu", "memory", "io"};
+    private static final String[] PRESSURE_WINDOWS = {"10s", "60s", "300s"};
+
+    private final Iterable<Tag> tags;
+
+    @Nullable
+    private final Cgroup cgroup;
+
+    // guarded by this
+    private final PollCycle pollCycle = new PollCycle();
+    private final Snapshot snapshot = new Snapshot();
+    private boolean closed;
+
+    public CgroupMetrics() {
+        this(emptyList());
+    }
+
+    public CgroupMetrics(Iterable<Tag> tags) {
+        this(tags, Paths.get("/sys/fs/cgroup"), Paths.get("/proc/self/cgroup"));
+    }
+
+    /**
+     * @param tags          Tags to apply to all recorded metrics.
+     * @param cgroupRoot    The mount point of the cgroup file system, usually {@code /sys/fs/cgroup}.
+     * @param processCgroup The cgroup membership of the process, usually {@code /proc/self/cgroup}.
+     */
+    // VisibleForTesting
+    CgroupMetrics(Iterable<Tag> tags, Path cgroupRoot, Path processCgroup) {
+        this.tags = tags;
+        this.cgroup = detect(cgroupRoot, readLines(processCgroup));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Cgroup cgroup = this.cgroup;
+        if (cgroup == null) {
+            return;
+        }
+        synchronized (this) {
+            cgroup.read(snapshot);
+        }
+
+        if (!Double.isNaN(snapshot.periods)) {
+            gauge(registry, "cgroup.cpu.limit", s -> s.cpuLimit, null, Tags.empty(),
+                    "The number of processors the cgroup may use, as its CPU quota divided by its period");
+        }
+        timeGauge(registry, "cgroup.cpu.time", s -> s.cpuTime, Tags.empty(),
+                "The CPU time used by all tasks in the cgroup");
+        counter(registry, "cgroup.cpu.periods", s -> s.periods, null, Tags.empty(),
+                "The number of enforcement periods in which the cgroup was runnable");
+        if (!Double.isNaN(snapshot.throttledTime)) {
+            int countIndex = nextIndex();
+            int totalTimeIndex = nextIndex();
+            FunctionTimer.builder("cgroup.cpu.throttled", this,
+                    m -> (long) m.value(countIndex, s -> s.throttledPeriods),
+                    m -> m.value(totalTimeIndex, s -> s.throttledTime), TimeUnit.SECONDS)
+                    .tags(tags)
+                    .description("The enforcement periods in which the cgroup was throttled because it used up its " +
+                            "CPU quota, and the total time for which its tasks were throttled")
+                    .register(registry);
+        }
+
+        if (!Double.isNaN(snapshot.memoryUsage)) {
+            gauge(registry, "cgroup.memory.limit", s -> s.memoryLimit, BaseUnits.BYTES, Tags.empty(),
+                    "The memory limit of the cgroup");
+            gauge(registry, "cgroup.memory.usage", s -> s.memoryUsage, BaseUnits.BYTES, Tags.empty(),
+                    "The memory used by the cgroup, including the page cache");
+        }
+        String eventsDescription = "The number of memory events of the cgroup: high and max are the number of times " +
+                "usage reached the respective limit, oom the number of times an allocation failed because of the " +
+                "limit and oom_kill the number of tasks killed by the OOM killer";
+        counter(registry, "cgroup.memory.events", s -> s.memoryHighEvents, BaseUnits.EVENTS, Tags.of("event", "high"), eventsDescription);
+        counter(registry, "cgroup.memory.events", s -> s.memoryMaxEvents, BaseUnits.EVENTS, Tags.of("event", "max"), eventsDescription);
+        counter(registry, "cgroup.memory.events", s -> s.oomEvents, BaseUnits.EVENTS, Tags.of("event", "oom"), eventsDescription);
+        counter(registry, "cgroup.memory.events", s -> s.oomKillEvents, BaseUnits.EVENTS, Tags.of("event", "oom_kill"), eventsDescription);
+
+        for (int resource = 0; resource < PRESSURE_RESOURCES.length; resource++) {
+            pressure(registry, resource, false);
+            pressure(registry, resource, true);
+        }
+    }
+
+    private void pressure(MeterRegistry registry, int resource, boolean full) {
+        int offset = full ? Snapshot.PRESSURE_FULL : Snapshot.PRESSURE_SOME;
+        Tags pressureTags = Tags.of("resource", PRESSURE_RESOURCES[resource], "kind", full ? "full" : "some");
+        String who = full ? "all non-idle tasks" : "at least one task";
+        for (int window = 0; window < PRESSURE_WINDOWS.length; window++) {
+            int field = offset + window;
+            if (Double.isNaN(snapshot.pressure[resource][field])) {
+                continue;
+            }
+            gauge(registry, "cgroup.pressure", s -> s.pressure[resource][field], null,
+                    pressureTags.and("window", PRESSURE_WINDOWS[window]),
+                    "The share of time in which " + who + " in the cgroup stalled on the resource, " +
+                            "averaged over the window, in the range [0..1]");
+        }
+        int total = offset + Snapshot.PRESSURE_TOTAL;
+        timeGauge(registry, "cgroup.pressure.stalled", s -> s.pressure[resource][total], pressureTags,
+                "The total time in which " + who + " in the cgroup stalled on the resource");
+    }
+
+    private void gauge(MeterRegistry registry, String name, ToDoubleFunction<Snapshot> value, @Nullable String baseUnit,
+                       Tags extraTags, String description) {
+        int index = nextIndex();
+        Gauge.builder(name, this, m -> m.value(index, value))
+                .tags(tags)
+                .tags(extraTags)
+                .description(description)
+                .baseUnit(baseUnit)
+                .register(registry);
+    }
+
+    /**
+     * Register a time gauge, in seconds, if the cgroup provides its value.
+     */
+    private void timeGauge(MeterRegistry registry, String name, ToDoubleFunction<Snapshot> value, Tags extraTags,
+                           String description) {
+        if (!Double.isNaN(value.applyAsDouble(snapshot))) {
+            int index = nextIndex();
+            TimeGauge.builder(name, this, TimeUnit.SECONDS, m -> m.value(index, value))
+                    .tags(tags)
+                    .tags(extraTags)
+                    .description(description)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Register a function counter if the cgroup provides its value.
+     */
+    private void counter(MeterRegistry registry, String name, ToDoubleFunction<Snapshot> value, @Nullable String baseUnit,
+                         Tags extraTags, String description) {
+        if (!Double.isNaN(value.applyAsDouble(snapshot))) {
+            int index = nextIndex();
+            FunctionCounter.builder(name, this, m -> m.value(index, value))
+                    .tags(tags)
+                    .tags(extraTags)
+                    .description(description)
+                    .baseUnit(baseUnit)
+                    .register(registry);
+        }
+    }
+
+    private synchronized int nextIndex() {
+        return pollCycle.addReader(true);
+    }
+
+    private synchronized double value(int index, ToDoubleFunction<Snapshot> value) {
+        Cgroup cgroup = this.cgroup;
+        if (cgroup == null || closed) {
+            return Double.NaN;
+        }
+        if (pollCycle.read(index)) {
+            cgroup.read(snapshot);
+        }
+        return value.applyAsDouble(snapshot);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (cgroup != null) {
+            cgroup.close();
+        }
+    }
+
+    @Nullable
+    private static Cgroup detect(Path cgroupRoot, List<String> processCgroup) {
+        if (Files.exists(cgroupRoot.resolve("cgroup.controllers"))) {
+            // the only entry of the unified hierarchy is "0::<path>"
+            for (String line : processCgroup) {
+                if (line.startsWith("0::")) {
+                    return new CgroupV2(directory(cgroupRoot, line.substring(3)));
+                }
+            }
+            return new CgroupV2(cgroupRoot);
+        }
+
+        Path cpu = cgroupRoot.resolve("cpu");
+        Path cpuacct = cgroupRoot.resolve("cpuacct");
+        Path memory = cgroupRoot.resolve("memory");
+        if (!Files.isDirectory(cpu) && !Files.isDirectory(cpuacct) && !Files.isDirectory(memory)) {
+            return null;
+        }
+        // entries of the v1 hierarchies are "<id>:<controller>[,<controller>...]:<path>"
+        for (String line : processCgroup) {
+            String[] fields = line.split(":", 3);
+            if (fields.length == 3) {
+                List<String> controllers = Arrays.asList(fields[1].split(","));
+                if (controllers.contains("cpu")) {
+                    cpu = directory(cpu, fields[2]);
+                }
+                if (controllers.contains("cpuacct")) {
+                    cpuacct = directory(cpuacct, fields[2]);
+                }
+                if (controllers.contains("memory")) {
+                    memory = directory(memory, fields[2]);
+                }
+            }
+        }
+        return new CgroupV1(cpu, cpuacct, memory);
+    }
+
+    /**
+     * In a container with its own cgroup namespace, the hierarchy is mounted at the cgroup of the process itself, and
+     * the path of the process in {@code /proc/self/cgroup} is either {@code /} or doesn't exist under the mount point.
+     */
+    private static Path directory(Path hierarchy, String cgroupPath) {
+        String relative = cgroupPath.startsWith("/") ? cgroupPath.substring(1) : cgroupPath;
+        if (!relative.isEmpty()) {
+            Path directory = hierarchy.resolve(relative);
+            if (Files.isDirectory(directory)) {
+                return directory;
+            }
+        }
+        return hierarchy;
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static double orNaN(long value) {
+        return value < 0 ? Double.NaN : value;
+    }
+
+    private static double scaled(long value, double divisor) {
+        return value < 0 ? Double.NaN : value / divisor;
+    }
+
+    private interface Cgroup {
+        void read(Snapshot snapshot);
+
+        void close();
+    }
+
+    /**
+     * The unified hierarchy, see https://www.kernel.org/doc/html/latest/admin-guide/cgroup-v2.html.
+     */
+    private static class CgroupV2 implements Cgroup {
+        private static final byte[] USAGE_USEC = ProcFile.ascii("usage_usec ");
+        private static final byte[] NR_PERIODS = ProcFile.ascii("nr_periods ");
+        private static final byte[] NR_THROTTLED = ProcFile.ascii("nr_throttled ");
+        private static final byte[] THROTTLED_USEC = ProcFile.ascii("throttled_usec ");
+        private static final byte[] MAX = ProcFile.ascii("max");
+        private static final byte[] HIGH_EVENTS = ProcFile.ascii("high ");
+        private static final byte[] MAX_EVENTS = ProcFile.ascii("max ");
+        private static final byte[] OOM_EVENTS = ProcFile.ascii("oom ");
+        private static final byte[] OOM_KILL_EVENTS = ProcFile.ascii("oom_kill ");
+        private static final byte[] SOME = ProcFile.ascii("some ");
+        private static final byte[] FULL = ProcFile.ascii("full ");
+
+        private final ProcFile cpuStat;
+        private final ProcFile cpuMax;
+        private final ProcFile memoryCurrent;
+        private final ProcFile memoryMax;
+        private final ProcFile memoryEvents;
+        private final ProcFile[] pressure = new ProcFile[PRESSURE_RESOURCES.length];
+
+        CgroupV2(Path directory) {
+            this.cpuStat = new ProcFile(directory.resolve("cpu.stat"));
+            this.cpuMax = new ProcFile(directory.resolve("cpu.max"));
+            this.memoryCurrent = new ProcFile(directory.resolve("memory.current"));
+            this.memoryMax = new ProcFile(directory.resolve("memory.max"));
+            this.memoryEvents = new ProcFile(directory.resolve("memory.events"));
+            for (int i = 0; i < PRESSURE_RESOURCES.length; i++) {
+                pressure[i] = new ProcFile(directory.resolve(PRESSURE_RESOURCES[i] + ".pressure"));
+            }
+        }
+
+        @Override
+        public void close() {
+            cpuStat.close();
+            cpuMax.close();
+            memoryCurrent.close();
+            memoryMax.close();
+            memoryEvents.close();
+            for (ProcFile file : pressure) {
+                file.close();
+            }
+        }
+
+        @Override
+        public void read(Snapshot snapshot) {
+            snapshot.clear();
+
+            if (cpuStat.read()) {
+                snapshot.cpuTime = scaled(cpuStat.parseLong(cpuStat.find(USAGE_USEC)), 1e6);
+                // only present when the cpu controller is enabled for the cgroup
+                snapshot.periods = orNaN(cpuStat.parseLong(cpuStat.find(NR_PERIODS)));
+                snapshot.throttledPeriods = orNaN(cpuStat.parseLong(cpuStat.find(NR_THROTTLED)));
+                snapshot.throttledTime = scaled(cpuStat.parseLong(cpuStat.find(THROTTLED_USEC)), 1e6);
+            }
+
+            // "$MAX $PERIOD", where $MAX is "max" without a limit
+            if (cpuMax.read() && !cpuMax.fieldEquals(0, MAX)) {
+                long quota = cpuMax.parseLong(0);
+                long period = cpuMax.parseLong(cpuMax.skipFields(0, 1));
+                if (quota >= 0 && period > 0) {
+                    snapshot.cpuLimit = (double) quota / period;
+                }
+            }
+
+            if (memoryCurrent.read()) {
+                snapshot.memoryUsage = orNaN(memoryCurrent.parseLong(0));
+            }
+            if (memoryMax.read() && !memoryMax.fieldEquals(0, MAX)) {
+                snapshot.memoryLimit = orNaN(memoryMax.parseLong(0));
+            }
+            if (memoryEvents.read()) {
+                snapshot.memoryHighEvents = orNaN(memoryEvents.parseLong(memoryEvents.find(HIGH_EVENTS)));
+                snapshot.memoryMaxEvents = orNaN(memoryEvents.parseLong(memoryEvents.find(MAX_EVENTS)));
+                snapshot.oomEvents = orNaN(memoryEvents.parseLong(memoryEvents.find(OOM_EVENTS)));
+                snapshot.oomKillEvents = orNaN(memoryEvents.parseLong(memoryEvents.find(OOM_KILL_EVENTS)));
+            }
+
+            for (int i = 0; i < pressure.length; i++) {
+                ProcFile file = pressure[i];
+                if (file.read()) {
+                    readPressure(file, file.find(SOME), snapshot.pressure[i], Snapshot.PRESSURE_SOME);
+                    // not reported for cpu by kernels before 5.13
+                    readPressure(file, file.find(FULL), snapshot.pressure[i], Snapshot.PRESSURE_FULL);
+                }
+            }
+        }
+
+        /**
+         * Read a line like {@code some avg10=0.12 avg60=0.05 avg300=0.01 total=123456}, where the averages are
+         * percentages, stored as ratios, and the total is in microseconds.
+         */
+        private static void readPressure(ProcFile file, int pos, double[] pressure, int offset) {
+            if (pos < 0) {
+                return;
+            }
+            for (int window = 0; window < PRESSURE_WINDOWS.length; window++) {
+                pos = file.skipPast(pos, (byte) '=');
+                pressure[offset + window] = pos < 0 ? Double.NaN : file.parseDecimal(pos) / 100;
+            }
+            pressure[offset + Snapshot.PRESSURE_TOTAL] = scaled(file.parseLong(file.skipPast(pos, (byte) '=')), 1e6);
+        }
+    }
+
+    /**
+     * Separate cpu, cpuacct and memory hierarchies, see
+     * https://www.kernel.org/doc/html/latest/admin-guide/cgroup-v1/index.html.
+     */
+    private static class CgroupV1 implements Cgroup {
+        private static final byte[] NR_PERIODS = ProcFile.ascii("nr_periods ");
+        private static final byte[] NR_THROTTLED = ProcFile.ascii("nr_throttled ");
+        private static final byte[] THROTTLED_TIME = ProcFile.ascii("throttled_time ");
+        private static final byte[] OOM_KILL = ProcFile.ascii("oom_kill ");
+
+        /**
+         * The memory limit is set to the largest multiple of the page size when there is none.
+         */
+        private static final long UNLIMITED = Long.MAX_VALUE / 2;
+
+        private final ProcFile cpuStat;
+        private final ProcFile cpuQuota;
+        private final ProcFile cpuPeriod;
+        private final ProcFile cpuUsage;
+        private final ProcFile memoryUsage;
+        private final ProcFile memoryLimit;
+        private final ProcFile memoryFailures;
+        private final ProcFile oomControl;
+
+        CgroupV1(Path cpu, Path cpuacct, Path memory) {
+            this.cpuStat = new ProcFile(cpu.resolve("cpu.stat"));
+            this.cpuQuota = new ProcFile(cpu.resolve("cpu.cfs_quota_us"));
+            this.cpuPeriod = new ProcFile(cpu.resolve("cpu.cfs_period_us"));
+            this.cpuUsage = new ProcFile(cpuacct.resolve("cpuacct.usage"));
+            this.memoryUsage = new ProcFile(memory.resolve("memory.usage_in_bytes"));
+            this.memoryLimit = new ProcFile(memory.resolve("memory.limit_in_bytes"));
+            this.memoryFailures = new ProcFile(memory.resolve("memory.failcnt"));
+            this.oomControl = new ProcFile(memory.resolve("memory.oom_control"));
+        }
+
+        @Override
+        public void close() {
+            cpuStat.close();
+            cpuQuota.close();
+            cpuPeriod.close();
+            cpuUsage.close();
+            memoryUsage.close();
+            memoryLimit.close();
+            memoryFailures.close();
+            oomControl.close();
+        }
+
+        @Override
+        public void read(Snapshot snapshot) {
+            snapshot.clear();
+
+            if (cpuStat.read()) {
+                snapshot.periods = orNaN(cpuStat.parseLong(cpuStat.find(NR_PERIODS)));
+                snapshot.throttledPeriods = orNaN(cpuStat.parseLong(cpuStat.find(NR_THROTTLED)));
+                snapshot.throttledTime = scaled(cpuStat.parseLong(cpuStat.find(THROTTLED_TIME)), 1e9);
+            }
+
+            // the quota is -1 without a limit
+            if (cpuQuota.read() && cpuPeriod.read()) {
+                long quota = cpuQuota.parseLong(0);
+                long period = cpuPeriod.parseLong(0);
+                if (quota >= 0 && period > 0) {
+                    snapshot.cpuLimit = (double) quota / period;
+                }
+            }
+
+            if (cpuUsage.read()) {
+                snapshot.cpuTime = scaled(cpuUsage.parseLong(0), 1e9);
+            }
+
+            if (memoryUsage.read()) {
+                snapshot.memoryUsage = orNaN(memoryUsage.parseLong(0));
+            }
+            if (memoryLimit.read()) {
+                long limit = memoryLimit.parseLong(0);
+                if (limit < UNLIMITED) {
+                    snapshot.memoryLimit = orNaN(limit);
+                }
+            }
+            // the number of times usage hit the limit, which is what memory.events reports as max in v2
+            if (memoryFailures.read()) {
+                snapshot.memoryMaxEvents = orNaN(memoryFailures.parseLong(0));
+            }
+            // oom_kill is only reported by kernels since 4.13
+            if (oomControl.read()) {
+                snapshot.oomKillEvents = orNaN(oomControl.parseLong(oomControl.find(OOM_KILL)));
+            }
+        }
+    }
+
+    private static class Snapshot {
+        static final int PRESSURE_SOME = 0;
+        static final int PRESSURE_FULL = 4;
+        static final int PRESSURE_TOTAL = 3;
+
+        double cpuLimit;
+        double cpuTime;
+        double periods;
+        double throttledPeriods;
+        double throttledTime;
+        double memoryLimit;
+        double memoryUsage;
+        double memoryHighEvents;
+        double memoryMaxEvents;
+        double oomEvents;
+        double oomKillEvents;
+
+        /**
+         * Per resource, the some and full averages over each window followed by their total.
+         */
+        final double[][] pressure = new double[PRESSURE_RESOURCES.length][8];
+
+        void clear() {
+            cpuLimit = Double.NaN;
+            cpuTime = Double.NaN;
+            periods = Double.NaN;
+            throttledPeriods = Double.NaN;
+            throttledTime = Double.NaN;
+            memoryLimit = Double.NaN;
+            memoryUsage = Double.NaN;
+            memoryHighEvents = Double.NaN;
+            memoryMaxEvents = Double.NaN;
+            oomEvents = Double.NaN;
+            oomKillEvents = Double.NaN;
+            for (double[] resource : pressure) {
+                Arrays.fill(resource, Double.NaN);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.system;
+
+import io.micrometer.core.lang.Nullable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A small text file, typically under {@code /proc} or {@code /sys/fs/cgroup}, that is read repeatedly. The file is
+ * kept open and re-read from the start into a reused buffer, and values are parsed straight from the bytes without
+ * creating strings.
+ * <p>
+ * Not thread-safe.
+ */
+final class ProcFile {
+    private final Path path;
+
+    @Nullable
+    private RandomAccessFile file;
+
+    private byte[] buffer = new byte[1024];
+    private int length = -1;
+
+    ProcFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Read the current contents of the file.
+     *
+     * @return {@code false} if the file could not be read, in which case it is reopened on the next read.
+     */
+    boolean read() {
+        try {
+            RandomAccessFile file = this.file;
+            if (file == null) {
+                file = new RandomAccessFile(path.toFile(), "r");
+                this.file = file;
+            } else {
+                file.seek(0);
+            }
+
+            int length = 0;
+            int n;
+            while ((n = file.read(buffer, length, buffer.length - length)) > 0) {
+                length += n;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            this.length = length;
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            close();
+            this.length = -1;
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the last read succeeded.
+     */
+    boolean isRead() {
+        return length >= 0;
+    }
+
+    /**
+     * @param key A key at the start of a line, such as {@code "VmRSS:"} or {@code "nr_throttled "}.
+     * @return The position just after the key, or -1 if no line starts with it.
+     */
+    int find(byte[] key) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (startsWith(lineStart, key)) {
+                return lineStart + key.length;
+            }
+            int lineEnd = indexOf((byte) '\n', lineStart);
+            if (lineEnd < 0) {
+                return -1;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The position of the last occurrence of {@code b}, or -1.
+     */
+    int lastIndexOf(byte b) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skip whitespace-separated fields.
+     *
+     * @param pos    A position at or before the start of a field.
+     * @param fields The number of fields to skip.
+     * @return The position after the skipped fields.
+     */
+    int skipFields(int pos, int fields) {
+        for (int i = 0; i < fields; i++) {
+            pos = skipSpaces(pos);
+            while (pos < length && !isSpace(buffer[pos])) {
+                pos++;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @param pos A position at or before the start of a field, which may be preceded by spaces.
+     * @return The integral value of the field, or -1 if there is no number at this position.
+     */
+    long parseLong(int pos) {
+        pos = skipSpaces(pos);
+        if (pos < 0 || pos >= length || !isDigit(buffer[pos])) {
+            return -1;
+        }
+        long value = 0;
+        while (pos < length && isDigit(buffer[pos])) {
+            value = value * 10 + (buffer[pos++] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @param pos A position at or before the start of a field, which may be preceded by spaces.
+     * @return The decimal value of the field, such as {@code 0.52}, or {@code NaN} if there is no number at this
+     * position.
+     */
+    double parseDecimal(int pos) {
+        pos = skipSpaces(pos);
+        if (pos < 0 || pos >= length || !isDigit(buffer[pos])) {
+            return Double.NaN;
+        }
+        long value = 0;
+        while (pos < length && isDigit(buffer[pos])) {
+            value = value * 10 + (buffer[pos++] - '0');
+        }
+        long scale = 1;
+        if (pos < length && buffer[pos] == '.') {
+            pos++;
+            while (pos < length && isDigit(buffer[pos])) {
+                value = value * 10 + (buffer[pos++] - '0');
+                scale *= 10;
+            }
+        }
+        return (double) value / scale;
+    }
+
+    /**
+     * @param pos A position in a line.
+     * @param b   The byte to look for.
+     * @return The position just after the next occurrence of {@code b} on the same line, or -1 if there is none.
+     */
+    int skipPast(int pos, byte b) {
+        if (pos < 0) {
+            return -1;
+        }
+        for (int i = pos; i < length && buffer[i] != '\n'; i++) {
+            if (buffer[i] == b) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param pos A position at or before the start of a field, which may be preceded by spaces.
+     * @param word The expected field.
+     * @return Whether the field at this position is exactly {@code word}.
+     */
+    boolean fieldEquals(int pos, byte[] word) {
+        pos = skipSpaces(pos);
+        return pos >= 0 && startsWith(pos, word) && (pos + word.length == length || isSpace(buffer[pos + word.length]));
+    }
+
+    void close() {
+        RandomAccessFile file = this.file;
+        this.file = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private int skipSpaces(int pos) {
+        if (pos < 0) {
+            return pos;
+        }
+        while (pos < length && isSpace(buffer[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private boolean startsWith(int pos, byte[] prefix) {
+        if (pos + prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[pos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from) {
+        for (int i = from; i < length; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.system;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.internal.PollCycle;
+import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Record CPU, memory, thread and file descriptor metrics of the process and the system, read directly from
+ * {@code /proc} on Linux. This is an alternative to {@link ProcessorMetrics} and {@link FileDescriptorMetrics} that
+ * doesn't go through the {@code OperatingSystemMXBean}. It registers meters with the same names as theirs, like
+ * {@code process.cpu.usage} and {@code process.files.open}, so that dashboards work with either: bind one or the
+ * other to a registry, not both, or the meters of whichever is bound last are ignored.
+ * <p>
+ * {@code /proc/self/stat}, {@code /proc/self/status}, {@code /proc/stat}, {@code /proc/loadavg} and the size of
+ * {@code /proc/self/fd} are read once per poll into a snapshot that backs all meters. A new poll is detected when a
+ * meter that was already read since the last snapshot is read again. CPU usage is the change in CPU time between two
+ * snapshots, as a fraction of the time of all CPUs. The files are kept open until the binder is closed, after which
+ * its meters are {@code NaN}.
+ * <p>
+ * Nothing is registered on systems without {@code /proc}.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+@NonNullApi
+@NonNullFields
+public class ProcfsMetrics implements MeterBinder, AutoCloseable {
+    private static final byte[] CPU = ProcFile.ascii("cpu ");
+    private static final byte[] VM_RSS = ProcFile.ascii("VmRSS:");
+    private static final byte[] VM_SIZE = ProcFile.ascii("VmSize:");
+    private static final byte[] VM_SWAP = ProcFile.ascii("VmSwap:");
+    private static final byte[] VOLUNTARY_CTXT_SWITCHES = ProcFile.ascii("voluntary_ctxt_switches:");
+    private static final byte[] NONVOLUNTARY_CTXT_SWITCHES = ProcFile.ascii("nonvoluntary_ctxt_switches:");
+    private static final byte[] MAX_OPEN_FILES = ProcFile.ascii("Max open files");
+
+    private final Iterable<Tag> tags;
+
+    private final ProcFile processStat;
+    private final ProcFile processStatus;
+    private final ProcFile systemStat;
+    private final ProcFile loadAverage;
+    private final File fdDirectory;
+    private final boolean fdDirectorySizeIsCount;
+    private final double maxFiles;
+
+    // guarded by this
+    private final PollCycle pollCycle = new PollCycle();
+    private boolean closed;
+    private final Snapshot snapshot = new Snapshot();
+    private final Snapshot previous = new Snapshot();
+
+    public ProcfsMetrics() {
+        this(emptyList());
+    }
+
+    public ProcfsMetrics(Iterable<Tag> tags) {
+        this(tags, Paths.get("/proc"));
+    }
+
+    // VisibleForTesting
+    ProcfsMetrics(Iterable<Tag> tags, Path procRoot) {
+        this.tags = tags;
+        Path self = procRoot.resolve("self");
+        this.processStat = new ProcFile(self.resolve("stat"));
+        this.processStatus = new ProcFile(self.resolve("status"));
+        this.systemStat = new ProcFile(procRoot.resolve("stat"));
+        this.loadAverage = new ProcFile(procRoot.resolve("loadavg"));
+        this.fdDirectory = self.resolve("fd").toFile();
+        this.fdDirectorySizeIsCount = isSizeEntryCount(self.resolve("fd"));
+        this.maxFiles = readMaxFiles(self.resolve("limits"));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        synchronized (this) {
+            // the baseline for CPU usage on the first poll
+            refresh();
+        }
+        if (!processStat.isRead()) {
+            return;
+        }
+
+        if (systemStat.isRead()) {
+            gauge(registry, "process.cpu.usage", s -> s.processCpuUsage, null,
+                    "The \"recent cpu usage\" for the Java Virtual Machine process");
+            gauge(registry, "system.cpu.usage", s -> s.systemCpuUsage, null,
+                    "The \"recent cpu usage\" for the whole system");
+        }
+
+        if (loadAverage.isRead()) {
+            String description = "The sum of the number of runnable entities queued to available processors and the number " +
+                    "of runnable entities running on the available processors averaged over a period of time";
+            gauge(registry, "system.load.average.1m", s -> s.loadAverage1m, null, description);
+            gauge(registry, "system.load.average.5m", s -> s.loadAverage5m, null, description);
+            gauge(registry, "system.load.average.15m", s -> s.loadAverage15m, null, description);
+        }
+
+        gauge(registry, "process.threads", s -> s.threads, BaseUnits.THREADS, "The number of threads of the process");
+
+        if (processStatus.isRead()) {
+            gauge(registry, "process.memory.rss", s -> s.residentBytes, BaseUnits.BYTES,
+                    "The resident set size of the process");
+            gauge(registry, "process.memory.virtual", s -> s.virtualBytes, BaseUnits.BYTES,
+                    "The virtual memory size of the process");
+            gauge(registry, "process.memory.swap", s -> s.swapBytes, BaseUnits.BYTES,
+                    "The amount of memory of the process swapped out");
+            counter(registry, "process.context.switches", "voluntary", s -> s.voluntaryContextSwitches);
+            counter(registry, "process.context.switches", "involuntary", s -> s.involuntaryContextSwitches);
+        }
+
+        if (fdDirectory.isDirectory()) {
+            gauge(registry, "process.files.open", s -> s.openFiles, BaseUnits.FILES, "The open file descriptor count");
+        }
+        if (!Double.isNaN(maxFiles)) {
+            Gauge.builder("process.files.max", this, m -> m.maxFiles)
+                    .tags(tags)
+                    .description("The maximum file descriptor count")
+                    .baseUnit(BaseUnits.FILES)
+                    .register(registry);
+        }
+    }
+
+    private void gauge(MeterRegistry registry, String name, ToDoubleFunction<Snapshot> value, @Nullable String baseUnit,
+                       String description) {
+        int index = nextIndex();
+        Gauge.builder(name, this, m -> m.value(index, value))
+                .tags(tags)
+                .description(description)
+                .baseUnit(baseUnit)
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String type, ToDoubleFunction<Snapshot> value) {
+        int index = nextIndex();
+        FunctionCounter.builder(name, this, m -> m.value(index, value))
+                .tags(tags)
+                .tag("type", type)
+                .description("The number of context switches of the process")
+                .register(registry);
+    }
+
+    private synchronized int nextIndex() {
+        return pollCycle.addReader(true);
+    }
+
+    private synchronized double value(int index, ToDoubleFunction<Snapshot> value) {
+        if (closed) {
+            return Double.NaN;
+        }
+        if (pollCycle.read(index)) {
+            refresh();
+        }
+        return value.applyAsDouble(snapshot);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        processStat.close();
+        processStatus.close();
+        systemStat.close();
+        loadAverage.close();
+    }
+
+    // guarded by this
+    private void refresh() {
+        previous.copyFrom(snapshot);
+
+        if (processStat.read()) {
+            // fields after the command name, which is in parentheses and may itself contain spaces or parentheses
+            int pos = processStat.lastIndexOf((byte) ')') + 1;
+            if (pos > 0) {
+                // utime is the 14th field, the state being the 3rd
+                pos = processStat.skipFields(pos, 11);
+                long utime = processStat.parseLong(pos);
+                pos = processStat.skipFields(pos, 1);
+                long stime = processStat.parseLong(pos);
+                snapshot.processCpuTicks = utime + stime;
+                // num_threads is the 20th field
+                snapshot.threads = orNaN(processStat.parseLong(processStat.skipFields(pos, 5)));
+            }
+        }
+
+        if (processStatus.read()) {
+            snapshot.residentBytes = kibibytes(processStatus.parseLong(processStatus.find(VM_RSS)));
+            snapshot.virtualBytes = kibibytes(processStatus.parseLong(processStatus.find(VM_SIZE)));
+            snapshot.swapBytes = kibibytes(processStatus.parseLong(processStatus.find(VM_SWAP)));
+            snapshot.voluntaryContextSwitches = orNaN(processStatus.parseLong(processStatus.find(VOLUNTARY_CTXT_SWITCHES)));
+            snapshot.involuntaryContextSwitches = orNaN(processStatus.parseLong(processStatus.find(NONVOLUNTARY_CTXT_SWITCHES)));
+        }
+
+        if (systemStat.read()) {
+            int pos = systemStat.find(CPU);
+            if (pos >= 0) {
+                // user nice system idle iowait irq softirq steal; guest time is already included in user time
+                long total = 0;
+                long idle = 0;
+                for (int field = 0; field < 8; field++) {
+                    long ticks = Math.max(0, systemStat.parseLong(pos));
+                    total += ticks;
+                    if (field == 3 || field == 4) {
+                        idle += ticks;
+                    }
+                    pos = systemStat.skipFields(pos, 1);
+                }
+                snapshot.totalCpuTicks = total;
+                snapshot.idleCpuTicks = idle;
+            }
+
+            long totalDelta = snapshot.totalCpuTicks - previous.totalCpuTicks;
+            if (totalDelta > 0) {
+                snapshot.systemCpuUsage = 1 - (double) (snapshot.idleCpuTicks - previous.idleCpuTicks) / totalDelta;
+                snapshot.processCpuUsage = (double) (snapshot.processCpuTicks - previous.processCpuTicks) / totalDelta;
+            }
+        }
+
+        if (loadAverage.read()) {
+            snapshot.loadAverage1m = loadAverage.parseDecimal(0);
+            snapshot.loadAverage5m = loadAverage.parseDecimal(loadAverage.skipFields(0, 1));
+            snapshot.loadAverage15m = loadAverage.parseDecimal(loadAverage.skipFields(0, 2));
+        }
+
+        snapshot.openFiles = countOpenFiles();
+    }
+
+    private double countOpenFiles() {
+        if (fdDirectorySizeIsCount) {
+            return fdDirectory.length();
+        }
+        String[] fds = fdDirectory.list();
+        return fds == null ? Double.NaN : fds.length;
+    }
+
+    /**
+     * Since Linux 6.2, the size of a {@code /proc/<pid>/fd} directory is its number of entries, which takes a single
+     * {@code stat} rather than listing them. Older kernels report a size of 0.
+     */
+    private static boolean isSizeEntryCount(Path fdDirectory) {
+        try {
+            return "proc".equals(Files.getFileStore(fdDirectory).type()) && Files.size(fdDirectory) > 0;
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static double readMaxFiles(Path limits) {
+        ProcFile file = new ProcFile(limits);
+        try {
+            if (file.read()) {
+                // the soft limit, which is "unlimited" rather than a number if there is none
+                long max = file.parseLong(file.find(MAX_OPEN_FILES));
+                if (max >= 0) {
+                    return max;
+                }
+            }
+            return Double.NaN;
+        } finally {
+            file.close();
+        }
+    }
+
+    private static double orNaN(long value) {
+        return value < 0 ? Double.NaN : value;
+    }
+
+    private static double kibibytes(long kB) {
+        return kB < 0 ? Double.NaN : kB * 1024d;
+    }
+
+    private static class Snapshot {
+        long processCpuTicks;
+        long totalCpuTicks;
+        long idleCpuTicks;
+        double processCpuUsage = Double.NaN;
+        double systemCpuUsage = Double.NaN;
+        double loadAverage1m = Double.NaN;
+        double loadAverage5m = Double.NaN;
+        double loadAverage15m = Double.NaN;
+        double threads = Double.NaN;
+        double residentBytes = Double.NaN;
+        double virtualBytes = Double.NaN;
+        double swapBytes = Double.NaN;
+        double voluntaryContextSwitches = Double.NaN;
+        double involuntaryContextSwitches = Double.NaN;
+        double openFiles = Double.NaN;
+
+        void copyFrom(Snapshot other) {
+            processCpuTicks = other.processCpuTicks;
+            totalCpuTicks = other.totalCpuTicks;
+            idleCpuTicks = other.idleCpuTicks;
+        }
+    }
+}
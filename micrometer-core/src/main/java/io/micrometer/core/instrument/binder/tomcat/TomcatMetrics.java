@@ -17,6 +17,7 @@ package io.micrometer.core.instrument.binder.tomcat;
 
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.JmxAttributeCache;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.lang.NonNullApi;
 import io.micrometer.core.lang.NonNullFields;
@@ -24,11 +25,8 @@ import io.micrometer.core.lang.Nullable;
 import org.apache.catalina.Manager;
 
 import javax.management.*;
-import java.lang.management.ManagementFactory;
 import java.util.Collections;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -56,6 +54,7 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     private final Manager manager;
 
     private final MBeanServer mBeanServer;
+    private final JmxAttributeCache jmxAttributes;
     private final Iterable<Tag> tags;
 
     private final Set<NotificationListener> notificationListeners = ConcurrentHashMap.newKeySet();
@@ -70,6 +69,7 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
         this.manager = manager;
         this.tags = tags;
         this.mBeanServer = mBeanServer;
+        this.jmxAttributes = new JmxAttributeCache(mBeanServer);
 
         if (manager != null) {
             this.jmxDomain = manager.getContext().getDomain();
@@ -85,11 +85,7 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     }
 
     public static MBeanServer getMBeanServer() {
-        List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
-        if (!mBeanServers.isEmpty()) {
-            return mBeanServers.get(0);
-        }
-        return ManagementFactory.getPlatformMBeanServer();
+        return JmxAttributeCache.getMBeanServer();
     }
 
     @Override
@@ -140,37 +136,37 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     private void registerThreadPoolMetrics(MeterRegistry registry) {
         registerMetricsEventually(":type=ThreadPool,name=*", (name, allTags) -> {
             Gauge.builder("tomcat.threads.config.max", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "maxThreads")))
+                    s -> jmxAttributes.getDouble(name, "maxThreads"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.THREADS)
                     .register(registry);
 
             Gauge.builder("tomcat.threads.busy", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "currentThreadsBusy")))
+                    s -> jmxAttributes.getDouble(name, "currentThreadsBusy"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.THREADS)
                     .register(registry);
 
             Gauge.builder("tomcat.threads.current", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "currentThreadCount")))
+                    s -> jmxAttributes.getDouble(name, "currentThreadCount"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.THREADS)
                     .register(registry);
 
             Gauge.builder("tomcat.connections.current", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "connectionCount")))
+                    s -> jmxAttributes.getDouble(name, "connectionCount"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.CONNECTIONS)
                     .register(registry);
 
             Gauge.builder("tomcat.connections.keepalive.current", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "keepAliveCount")))
+                    s -> jmxAttributes.getDouble(name, "keepAliveCount"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.CONNECTIONS)
                     .register(registry);
 
             Gauge.builder("tomcat.connections.config.max", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "maxConnections")))
+                    s -> jmxAttributes.getDouble(name, "maxConnections"))
                     .tags(allTags)
                     .baseUnit(BaseUnits.CONNECTIONS)
                     .register(registry);
@@ -180,12 +176,12 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     private void registerCacheMetrics(MeterRegistry registry) {
         registerMetricsEventually(":type=StringCache", (name, allTags) -> {
             FunctionCounter.builder("tomcat.cache.access", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "accessCount")))
+                    s -> jmxAttributes.getDouble(name, "accessCount"))
                     .tags(allTags)
                     .register(registry);
 
             FunctionCounter.builder("tomcat.cache.hit", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "hitCount")))
+                    s -> jmxAttributes.getDouble(name, "hitCount"))
                     .tags(allTags)
                     .register(registry);
         });
@@ -194,18 +190,18 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     private void registerServletMetrics(MeterRegistry registry) {
         registerMetricsEventually(":j2eeType=Servlet,name=*,*", (name, allTags) -> {
             FunctionCounter.builder("tomcat.servlet.error", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "errorCount")))
+                    s -> jmxAttributes.getDouble(name, "errorCount"))
                     .tags(allTags)
                     .register(registry);
 
             FunctionTimer.builder("tomcat.servlet.request", mBeanServer,
-                    s -> safeLong(() -> s.getAttribute(name, "requestCount")),
-                    s -> safeDouble(() -> s.getAttribute(name, "processingTime")), TimeUnit.MILLISECONDS)
+                    s -> jmxAttributes.getLong(name, "requestCount"),
+                    s -> jmxAttributes.getDouble(name, "processingTime"), TimeUnit.MILLISECONDS)
                     .tags(allTags)
                     .register(registry);
 
             TimeGauge.builder("tomcat.servlet.request.max", mBeanServer, TimeUnit.MILLISECONDS,
-                    s -> safeDouble(() -> s.getAttribute(name, "maxTime")))
+                    s -> jmxAttributes.getDouble(name, "maxTime"))
                     .tags(allTags)
                     .register(registry);
         });
@@ -214,30 +210,30 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
     private void registerGlobalRequestMetrics(MeterRegistry registry) {
         registerMetricsEventually(":type=GlobalRequestProcessor,name=*", (name, allTags) -> {
             FunctionCounter.builder("tomcat.global.sent", mBeanServer,
-                s -> safeDouble(() -> s.getAttribute(name, "bytesSent")))
+                s -> jmxAttributes.getDouble(name, "bytesSent"))
                 .tags(allTags)
                 .baseUnit(BaseUnits.BYTES)
                 .register(registry);
 
             FunctionCounter.builder("tomcat.global.received", mBeanServer,
-                s -> safeDouble(() -> s.getAttribute(name, "bytesReceived")))
+                s -> jmxAttributes.getDouble(name, "bytesReceived"))
                 .tags(allTags)
                 .baseUnit(BaseUnits.BYTES)
                 .register(registry);
 
             FunctionCounter.builder("tomcat.global.error", mBeanServer,
-                    s -> safeDouble(() -> s.getAttribute(name, "errorCount")))
+                    s -> jmxAttributes.getDouble(name, "errorCount"))
                     .tags(allTags)
                     .register(registry);
 
             FunctionTimer.builder("tomcat.global.request", mBeanServer,
-                    s -> safeLong(() -> s.getAttribute(name, "requestCount")),
-                    s -> safeDouble(() -> s.getAttribute(name, "processingTime")), TimeUnit.MILLISECONDS)
+                    s -> jmxAttributes.getLong(name, "requestCount"),
+                    s -> jmxAttributes.getDouble(name, "processingTime"), TimeUnit.MILLISECONDS)
                     .tags(allTags)
                     .register(registry);
 
             TimeGauge.builder("tomcat.global.request.max", mBeanServer, TimeUnit.MILLISECONDS,
-                    s -> safeDouble(() -> s.getAttribute(name, "maxTime")))
+                    s -> jmxAttributes.getDouble(name, "maxTime"))
                     .tags(allTags)
                     .register(registry);
         });
@@ -340,22 +336,6 @@ public class TomcatMetrics implements MeterBinder, AutoCloseable {
         }
     }
 
-    private double safeDouble(Callable<Object> callable) {
-        try {
-            return Double.parseDouble(callable.call().toString());
-        } catch (Exception e) {
-            return Double.NaN;
-        }
-    }
-
-    private long safeLong(Callable<Object> callable) {
-        try {
-            return Long.parseLong(callable.call().toString());
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
     private Iterable<Tag> nameTag(ObjectName name) {
         String nameTagValue = name.getKeyProperty("name");
         if (nameTagValue != null) {
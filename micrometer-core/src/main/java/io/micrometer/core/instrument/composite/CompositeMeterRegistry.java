@@ -33,6 +33,23 @@ import java.util.function.ToLongFunction;
  * The clock of the composite effectively overrides the clocks of the registries it manages without actually
  * replacing the state of the clock in these registries with the exception of long task timers, whose clock cannot
  * be overridden.
+ * <p>
+ * By default, every sample recorded to a composite meter is recorded again to the corresponding meter in each child
+ * registry. When constructed with {@code sharedAccumulation} enabled, counters and timers that don't publish
+ * distribution statistics instead accumulate once in the composite, and each child registry registers a function
+ * counter or function timer that reads from that accumulation, deriving its own cumulative or step view at publish
+ * time. Recording cost then no longer depends on the number of child registries.
+ * <p>
+ * Shared accumulation is deliberately limited in scope:
+ * <ul>
+ *     <li>Child registries see a {@link FunctionCounter} or {@link FunctionTimer} rather than a {@link Counter} or
+ *     {@link Timer}, so a search such as {@code registry.get(name).timer()} on a child registry won't find them.</li>
+ *     <li>The decaying max of a shared timer is available on the composite timer only and is not published by child
+ *     registries.</li>
+ *     <li>Timers that publish percentiles or a percentile histogram, as well as all distribution summaries and long
+ *     task timers, keep recording to every child registry. Histogram buckets and percentiles are not shared, because
+ *     step-based child registries would each need their own rotating view of the buckets.</li>
+ * </ul>
  *
  * @author Jon Schneider
  * @author Johnny Lim
@@ -48,6 +65,8 @@ public class CompositeMeterRegistry extends MeterRegistry {
     private final AtomicBoolean parentLock = new AtomicBoolean();
     private volatile Set<CompositeMeterRegistry> parents = Collections.newSetFromMap(new IdentityHashMap<>());
 
+    private final boolean sharedAccumulation;
+
     public CompositeMeterRegistry() {
         this(Clock.SYSTEM);
     }
@@ -57,7 +76,21 @@ public class CompositeMeterRegistry extends MeterRegistry {
     }
 
     public CompositeMeterRegistry(Clock clock, Iterable<MeterRegistry> registries) {
+        this(clock, registries, false);
+    }
+
+    /**
+     * @param clock              The clock used by composite meters.
+     * @param registries         The initial set of child registries.
+     * @param sharedAccumulation Whether counters and timers without distribution statistics accumulate once in the
+     *                           composite and are exposed to child registries as function counters and function timers.
+     *                           Other meters always record to every child registry. See the class documentation for
+     *                           what child registries don't publish in this mode.
+     * @since 1.8.0
+     */
+    public CompositeMeterRegistry(Clock clock, Iterable<MeterRegistry> registries, boolean sharedAccumulation) {
         super(clock);
+        this.sharedAccumulation = sharedAccumulation;
         config()
                 .namingConvention(NamingConvention.identity)
                 .onMeterAdded(m -> {
@@ -76,6 +109,10 @@ public class CompositeMeterRegistry extends MeterRegistry {
 
     @Override
     protected Timer newTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
+        if (sharedAccumulation && !distributionStatisticConfig.isPublishingPercentiles() &&
+                !distributionStatisticConfig.isPublishingHistogram()) {
+            return new SharedCompositeTimer(id, clock, distributionStatisticConfig, pauseDetector);
+        }
         return new CompositeTimer(id, clock, distributionStatisticConfig, pauseDetector);
     }
 
@@ -86,7 +123,7 @@ public class CompositeMeterRegistry extends MeterRegistry {
 
     @Override
     protected Counter newCounter(Meter.Id id) {
-        return new CompositeCounter(id);
+        return sharedAccumulation ? new SharedCompositeCounter(id) : new CompositeCounter(id);
     }
 
     @Override
@@ -223,6 +260,14 @@ public class CompositeMeterRegistry extends MeterRegistry {
         lock(parentLock, () -> parents.forEach(CompositeMeterRegistry::updateDescendants));
     }
 
+    /**
+     * @return Whether counters and timers accumulate once in this composite rather than in each child registry.
+     * @since 1.8.0
+     */
+    public boolean isSharedAccumulation() {
+        return sharedAccumulation;
+    }
+
     public Set<MeterRegistry> getRegistries() {
         return unmodifiableRegistries;
     }
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.composite;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.noop.NoopFunctionCounter;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A composite counter that accumulates increments once and exposes the running total to each child
+ * registry as a {@link FunctionCounter}, so that each child derives its own cumulative or step view at publish time.
+ */
+class SharedCompositeCounter extends AbstractCompositeMeter<FunctionCounter> implements Counter {
+    private final DoubleAdder count = new DoubleAdder();
+
+    SharedCompositeCounter(Meter.Id id) {
+        super(id);
+    }
+
+    @Override
+    public void increment(double amount) {
+        count.add(amount);
+    }
+
+    @Override
+    public double count() {
+        return count.sum();
+    }
+
+    @Override
+    FunctionCounter newNoopMeter() {
+        return new NoopFunctionCounter(getId());
+    }
+
+    @Override
+    FunctionCounter registerNewMeter(MeterRegistry registry) {
+        return FunctionCounter.builder(getId().getName(), count, DoubleAdder::sum)
+                .tags(getId().getTagsAsIterable())
+                .description(getId().getDescription())
+                .baseUnit(getId().getBaseUnit())
+                .register(registry);
+    }
+}
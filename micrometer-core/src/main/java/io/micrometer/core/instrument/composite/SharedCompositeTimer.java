@@ -0,0 +1,119 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.composite;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.cumulative.CumulativeTimer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.pause.PauseDetector;
+import io.micrometer.core.instrument.noop.NoopFunctionTimer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A composite timer that records each sample once into a single cumulative accumulator and exposes its count
+ * and total time to each child registry as a {@link FunctionTimer}. Child registries derive their own cumulative
+ * or step view at publish time, so recording cost does not depend on the number of child registries.
+ * <p>
+ * Only timers that don't publish distribution statistics are accumulated this way. The decaying max is available
+ * on the composite timer itself, but is not exported through child registries.
+ */
+class SharedCompositeTimer extends AbstractCompositeMeter<FunctionTimer> implements Timer {
+    private final Timer accumulator;
+
+    SharedCompositeTimer(Meter.Id id, Clock clock, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
+        super(id);
+        this.accumulator = new CumulativeTimer(id, clock, distributionStatisticConfig.merge(DistributionStatisticConfig.DEFAULT),
+                pauseDetector, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void record(long amount, TimeUnit unit) {
+        accumulator.record(amount, unit);
+    }
+
+    @Override
+    public void record(Duration duration) {
+        accumulator.record(duration);
+    }
+
+    @Override
+    public <T> T record(Supplier<T> f) {
+        return accumulator.record(f);
+    }
+
+    @Override
+    public <T> T recordCallable(Callable<T> f) throws Exception {
+        return accumulator.recordCallable(f);
+    }
+
+    @Override
+    public void record(Runnable f) {
+        accumulator.record(f);
+    }
+
+    @Override
+    public long count() {
+        return accumulator.count();
+    }
+
+    @Override
+    public double totalTime(TimeUnit unit) {
+        return accumulator.totalTime(unit);
+    }
+
+    @Override
+    public double max(TimeUnit unit) {
+        return accumulator.max(unit);
+    }
+
+    @Override
+    public HistogramSnapshot takeSnapshot() {
+        return accumulator.takeSnapshot();
+    }
+
+    @Override
+    public TimeUnit baseTimeUnit() {
+        return accumulator.baseTimeUnit();
+    }
+
+    @Override
+    public void close() {
+        accumulator.close();
+    }
+
+    @Override
+    FunctionTimer newNoopMeter() {
+        return new NoopFunctionTimer(getId());
+    }
+
+    @Override
+    FunctionTimer registerNewMeter(MeterRegistry registry) {
+        return FunctionTimer.builder(getId().getName(), accumulator, Timer::count,
+                t -> t.totalTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                .tags(getId().getTagsAsIterable())
+                .description(getId().getDescription())
+                .register(registry);
+    }
+}
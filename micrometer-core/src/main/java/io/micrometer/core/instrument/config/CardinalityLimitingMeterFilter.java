@@ -0,0 +1,182 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.config;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.lang.NonNull;
+import io.micrometer.core.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Places an upper bound on the number of distinct tag combinations of each meter name that starts with a given
+ * prefix. Once a name has reached the limit, further combinations are mapped onto a single overflow series whose tag
+ * values are all replaced with an overflow value, so totals stay correct while the number of series stays bounded.
+ * <p>
+ * Memory is constant per meter name: admitted combinations are kept in a set bounded by the limit, and the number of
+ * distinct combinations ever seen is estimated with a HyperLogLog sketch. Once bound to a registry with
+ * {@link #bindTo(MeterRegistry)}, the estimate is reported as a {@code meter.tag.combinations} gauge tagged with the
+ * limited meter's name.
+ * <p>
+ * The overflow series replaces the value of every tag present when this filter is applied, so add this filter before
+ * any common tags that should be preserved on the overflow series.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+public class CardinalityLimitingMeterFilter implements MeterFilter, MeterBinder {
+    public static final String DEFAULT_OVERFLOW_TAG_VALUE = "OTHER";
+
+    private static final String ESTIMATE_GAUGE_NAME = "meter.tag.combinations";
+
+    private static final int ESTIMATE_PRECISION = 10;
+
+    private final String meterNamePrefix;
+    private final int maximumTagCombinations;
+    private final String overflowTagValue;
+
+    private final Map<String, NameState> states = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile MeterRegistry registry;
+
+    /**
+     * @param meterNamePrefix        Apply the limit to each meter name that begins with this prefix.
+     * @param maximumTagCombinations The number of distinct tag combinations allowed per meter name.
+     */
+    public CardinalityLimitingMeterFilter(String meterNamePrefix, int maximumTagCombinations) {
+        this(meterNamePrefix, maximumTagCombinations, DEFAULT_OVERFLOW_TAG_VALUE);
+    }
+
+    /**
+     * @param meterNamePrefix        Apply the limit to each meter name that begins with this prefix.
+     * @param maximumTagCombinations The number of distinct tag combinations allowed per meter name.
+     * @param overflowTagValue       The tag value used for every tag of the overflow series.
+     */
+    public CardinalityLimitingMeterFilter(String meterNamePrefix, int maximumTagCombinations, String overflowTagValue) {
+        if (maximumTagCombinations < 1) {
+            throw new IllegalArgumentException("maximumTagCombinations must be at least 1");
+        }
+        this.meterNamePrefix = meterNamePrefix;
+        this.maximumTagCombinations = maximumTagCombinations;
+        this.overflowTagValue = overflowTagValue;
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        if (!id.getName().startsWith(meterNamePrefix) || ESTIMATE_GAUGE_NAME.equals(id.getName())) {
+            return id;
+        }
+
+        List<Tag> tags = id.getTags();
+        if (tags.isEmpty()) {
+            return id;
+        }
+
+        NameState state = states.get(id.getName());
+        if (state == null) {
+            state = states.computeIfAbsent(id.getName(), NameState::new);
+            registerEstimate(state);
+        }
+
+        if (state.admit(tags)) {
+            return id;
+        }
+
+        List<Tag> overflowTags = new ArrayList<>(tags.size());
+        for (Tag tag : tags) {
+            overflowTags.add(Tag.of(tag.getKey(), overflowTagValue));
+        }
+        return id.replaceTags(overflowTags);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        states.values().forEach(this::registerEstimate);
+    }
+
+    /**
+     * @param meterName The name of a limited meter.
+     * @return The estimated number of distinct tag combinations seen for the meter name, including those mapped onto
+     * the overflow series.
+     */
+    public long estimatedTagCombinations(String meterName) {
+        NameState state = states.get(meterName);
+        return state == null ? 0 : state.estimate.estimate();
+    }
+
+    private void registerEstimate(NameState state) {
+        MeterRegistry registry = this.registry;
+        if (registry != null) {
+            Gauge.builder(ESTIMATE_GAUGE_NAME, state, s -> s.estimate.estimate())
+                    .tag("name", state.name)
+                    .description("Estimated number of distinct tag combinations seen for a cardinality-limited meter")
+                    .strongReference(true)
+                    .register(registry);
+        }
+    }
+
+    private class NameState {
+        final String name;
+        final HyperLogLog estimate = new HyperLogLog(ESTIMATE_PRECISION);
+
+        // only grows up to the limit, and only while holding the lock
+        final Set<List<Tag>> admitted = ConcurrentHashMap.newKeySet();
+
+        NameState(String name) {
+            this.name = name;
+        }
+
+        boolean admit(List<Tag> tags) {
+            if (admitted.contains(tags)) {
+                return true;
+            }
+
+            estimate.offer(hash(tags));
+
+            if (admitted.size() >= maximumTagCombinations) {
+                return false;
+            }
+
+            synchronized (this) {
+                if (admitted.size() >= maximumTagCombinations) {
+                    return admitted.contains(tags);
+                }
+                admitted.add(tags);
+                return true;
+            }
+        }
+
+        private long hash(List<Tag> tags) {
+            long h = 1;
+            for (Tag tag : tags) {
+                h = 31 * h + tag.getKey().hashCode();
+                h = 31 * h + tag.getValue().hashCode();
+            }
+            return HyperLogLog.mix(h);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A sequence of filters applied in order, in which runs of consecutive {@link NamePrefixMeterFilter}s are replaced
+ * by a name-prefix trie. Filters in a run never change the meter name, so the filters applicable to a meter can be
+ * looked up once per run from its name, at a cost proportional to the name's length rather than to the run's size.
+ */
+final class CompiledMeterFilter implements MeterFilter {
+    /**
+     * Shorter runs are cheaper to evaluate linearly than to look up in a trie.
+     */
+    static final int MINIMUM_TRIE_RUN = 8;
+
+    private final MeterFilter[] stages;
+
+    private CompiledMeterFilter(MeterFilter[] stages) {
+        this.stages = stages;
+    }
+
+    static MeterFilter compile(MeterFilter... filters) {
+        List<MeterFilter> stages = new ArrayList<>();
+        List<NamePrefixMeterFilter> run = new ArrayList<>();
+        for (MeterFilter filter : filters) {
+            if (filter instanceof NamePrefixMeterFilter) {
+                run.add((NamePrefixMeterFilter) filter);
+            } else {
+                addRun(stages, run);
+                stages.add(filter);
+            }
+        }
+        addRun(stages, run);
+        return new CompiledMeterFilter(stages.toArray(new MeterFilter[0]));
+    }
+
+    private static void addRun(List<MeterFilter> stages, List<NamePrefixMeterFilter> run) {
+        if (run.size() < MINIMUM_TRIE_RUN) {
+            stages.addAll(run);
+        } else {
+            stages.add(new NamePrefixTrie(run));
+        }
+        run.clear();
+    }
+
+    @Override
+    public MeterFilterReply accept(Meter.Id id) {
+        for (MeterFilter stage : stages) {
+            MeterFilterReply reply = stage.accept(id);
+            if (reply != MeterFilterReply.NEUTRAL) {
+                return reply;
+            }
+        }
+        return MeterFilterReply.NEUTRAL;
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        Meter.Id mappedId = id;
+        for (MeterFilter stage : stages) {
+            mappedId = stage.map(mappedId);
+        }
+        return mappedId;
+    }
+
+    @Override
+    public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        DistributionStatisticConfig filteredConfig = config;
+        for (MeterFilter stage : stages) {
+            DistributionStatisticConfig stageConfig = stage.configure(id, filteredConfig);
+            if (stageConfig != null) {
+                filteredConfig = stageConfig;
+            }
+        }
+        return filteredConfig;
+    }
+
+    private static final class NamePrefixTrie implements MeterFilter {
+        private final Node root;
+
+        NamePrefixTrie(List<NamePrefixMeterFilter> run) {
+            MutableNode mutableRoot = new MutableNode();
+            for (int i = 0; i < run.size(); i++) {
+                MutableNode node = mutableRoot;
+                String prefix = run.get(i).prefix;
+                for (int c = 0; c < prefix.length(); c++) {
+                    node = node.children.computeIfAbsent(prefix.charAt(c), k -> new MutableNode());
+                }
+                node.filterIndices.add(i);
+            }
+            this.root = mutableRoot.freeze(run, new int[0]);
+        }
+
+        /**
+         * @return Filters whose prefix the name starts with, in their original order.
+         */
+        private MeterFilter[] applicableFilters(String name) {
+            Node node = root;
+            for (int c = 0; c < name.length(); c++) {
+                Node child = node.child(name.charAt(c));
+                if (child == null) {
+                    break;
+                }
+                node = child;
+            }
+            return node.applicable;
+        }
+
+        @Override
+        public MeterFilterReply accept(Meter.Id id) {
+            for (MeterFilter filter : applicableFilters(id.getName())) {
+                MeterFilterReply reply = filter.accept(id);
+                if (reply != MeterFilterReply.NEUTRAL) {
+                    return reply;
+                }
+            }
+            return MeterFilterReply.NEUTRAL;
+        }
+
+        @Override
+        public Meter.Id map(Meter.Id id) {
+            Meter.Id mappedId = id;
+            for (MeterFilter filter : applicableFilters(id.getName())) {
+                mappedId = filter.map(mappedId);
+            }
+            return mappedId;
+        }
+
+        @Override
+        public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+            DistributionStatisticConfig filteredConfig = config;
+            for (MeterFilter filter : applicableFilters(id.getName())) {
+                DistributionStatisticConfig stageConfig = filter.configure(id, filteredConfig);
+                if (stageConfig != null) {
+                    filteredConfig = stageConfig;
+                }
+            }
+            return filteredConfig;
+        }
+    }
+
+    private static final class MutableNode {
+        final Map<Character, MutableNode> children = new TreeMap<>();
+        final List<Integer> filterIndices = new ArrayList<>();
+
+        Node freeze(List<NamePrefixMeterFilter> run, int[] inheritedIndices) {
+            int[] indices = Arrays.copyOf(inheritedIndices, inheritedIndices.length + filterIndices.size());
+            for (int i = 0; i < filterIndices.size(); i++) {
+                indices[inheritedIndices.length + i] = filterIndices.get(i);
+            }
+            Arrays.sort(indices);
+
+            MeterFilter[] applicable = new MeterFilter[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                applicable[i] = run.get(indices[i]);
+            }
+
+            char[] keys = new char[children.size()];
+            Node[] frozenChildren = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                frozenChildren[i] = child.getValue().freeze(run, indices);
+                i++;
+            }
+            return new Node(keys, frozenChildren, applicable);
+        }
+    }
+
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+
+        /**
+         * Filters whose prefix is this node's path or one of its ancestors' paths, in their original order.
+         */
+        final MeterFilter[] applicable;
+
+        Node(char[] keys, Node[] children, MeterFilter[] applicable) {
+            this.keys = keys;
+            this.children = children;
+            this.applicable = applicable;
+        }
+
+        @Nullable
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+}
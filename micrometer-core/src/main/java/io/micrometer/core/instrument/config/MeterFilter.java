@@ -15,6 +15,7 @@
  */
 package io.micrometer.core.instrument.config;
 
+import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.core.lang.Nullable;
@@ -52,7 +53,7 @@ public interface MeterFilter {
      * @return A common tag filter.
      */
     static MeterFilter commonTags(Iterable<Tag> tags) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter("") {
             @Override
             public Meter.Id map(Meter.Id id) {
                 return id.replaceTags(Tags.concat(tags, id.getTagsAsIterable()));
@@ -69,10 +70,10 @@ public interface MeterFilter {
      * @return A tag-renaming filter.
      */
     static MeterFilter renameTag(String meterNamePrefix, String fromTagKey, String toTagKey) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(meterNamePrefix) {
             @Override
             public Meter.Id map(Meter.Id id) {
-                if (!id.getName().startsWith(meterNamePrefix))
+                if (!matches(id))
                     return id;
 
                 List<Tag> tags = new ArrayList<>();
@@ -94,7 +95,7 @@ public interface MeterFilter {
      * @return A tag-suppressing filter.
      */
     static MeterFilter ignoreTags(String... tagKeys) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter("") {
             @Override
             public Meter.Id map(Meter.Id id) {
                 List<Tag> tags = stream(id.getTagsAsIterable().spliterator(), false)
@@ -121,7 +122,7 @@ public interface MeterFilter {
      * @return A filter that replaces tag values.
      */
     static MeterFilter replaceTagValues(String tagKey, Function<String, String> replacement, String... exceptions) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter("") {
             @Override
             public Meter.Id map(Meter.Id id) {
                 List<Tag> tags = stream(id.getTagsAsIterable().spliterator(), false)
@@ -241,10 +242,11 @@ public interface MeterFilter {
      * @param maximumTagValues The total number of tag values that are allowable.
      * @param onMaxReached     After the maximum number of tag values have been seen, apply this filter.
      * @return A meter filter that limits the number of tags produced by matching metrics.
+     * @see CardinalityLimitingMeterFilter
      */
     static MeterFilter maximumAllowableTags(String meterNamePrefix, String tagKey, int maximumTagValues,
                                             MeterFilter onMaxReached) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(meterNamePrefix) {
             private final Set<String> observedTagValues = ConcurrentHashMap.newKeySet();
 
             @Override
@@ -263,7 +265,7 @@ public interface MeterFilter {
 
             @Nullable
             private String matchNameAndGetTagValue(Meter.Id id) {
-                return id.getName().startsWith(meterNamePrefix) ? id.getTag(tagKey) : null;
+                return matches(id) ? id.getTag(tagKey) : null;
             }
 
             @Override
@@ -288,7 +290,12 @@ public interface MeterFilter {
      * @return A filter that guarantees the exclusion of matching meters.
      */
     static MeterFilter denyNameStartsWith(String prefix) {
-        return deny(id -> id.getName().startsWith(prefix));
+        return new NamePrefixMeterFilter(prefix) {
+            @Override
+            public MeterFilterReply accept(Meter.Id id) {
+                return matches(id) ? MeterFilterReply.DENY : MeterFilterReply.NEUTRAL;
+            }
+        };
     }
 
     /**
@@ -299,7 +306,12 @@ public interface MeterFilter {
      * @since 1.2.0
      */
     static MeterFilter acceptNameStartsWith(String prefix) {
-        return accept(id -> id.getName().startsWith(prefix));
+        return new NamePrefixMeterFilter(prefix) {
+            @Override
+            public MeterFilterReply accept(Meter.Id id) {
+                return matches(id) ? MeterFilterReply.ACCEPT : MeterFilterReply.NEUTRAL;
+            }
+        };
     }
 
     /**
@@ -310,10 +322,10 @@ public interface MeterFilter {
      * @return A filter that applies a maximum expected value to a timer.
      */
     static MeterFilter maxExpected(String prefix, Duration max) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(prefix) {
             @Override
             public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
-                if (id.getType() == Meter.Type.TIMER && id.getName().startsWith(prefix)) {
+                if (id.getType() == Meter.Type.TIMER && matches(id)) {
                     return DistributionStatisticConfig.builder()
                             .maximumExpectedValue((double) max.toNanos())
                             .build()
@@ -346,10 +358,10 @@ public interface MeterFilter {
      * @since 1.4.0
      */
     static MeterFilter maxExpected(String prefix, double max) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(prefix) {
             @Override
             public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
-                if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY && id.getName().startsWith(prefix)) {
+                if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY && matches(id)) {
                     return DistributionStatisticConfig.builder()
                             .maximumExpectedValue(max)
                             .build()
@@ -368,10 +380,10 @@ public interface MeterFilter {
      * @return A filter that applies a minimum expected value to a timer.
      */
     static MeterFilter minExpected(String prefix, Duration min) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(prefix) {
             @Override
             public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
-                if (id.getType() == Meter.Type.TIMER && id.getName().startsWith(prefix)) {
+                if (id.getType() == Meter.Type.TIMER && matches(id)) {
                     return DistributionStatisticConfig.builder()
                             .minimumExpectedValue((double) min.toNanos())
                             .build()
@@ -404,10 +416,10 @@ public interface MeterFilter {
      * @since 1.4.0
      */
     static MeterFilter minExpected(String prefix, double min) {
-        return new MeterFilter() {
+        return new NamePrefixMeterFilter(prefix) {
             @Override
             public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
-                if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY && id.getName().startsWith(prefix)) {
+                if (id.getType() == Meter.Type.DISTRIBUTION_SUMMARY && matches(id)) {
                     return DistributionStatisticConfig.builder()
                             .minimumExpectedValue(min)
                             .build()
@@ -418,6 +430,23 @@ public interface MeterFilter {
         };
     }
 
+    /**
+     * Combine a sequence of filters into a single filter that behaves exactly like applying them in order. Long runs
+     * of consecutive name-prefix-based built-in filters ({@link #denyNameStartsWith}, {@link #acceptNameStartsWith},
+     * {@link #renameTag}, {@link #maxExpected}, {@link #minExpected}, {@link #maximumAllowableTags}, as well as
+     * {@link #commonTags}, {@link #ignoreTags} and {@link #replaceTagValues}, which apply to every name) are
+     * compiled into a name-prefix trie, so only the filters applicable to a meter's name are evaluated. Any other
+     * filter is evaluated as is, in its original position.
+     *
+     * @param filters The filters to combine, in the order in which they apply.
+     * @return A filter equivalent to the given filters applied in order.
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    static MeterFilter compile(MeterFilter... filters) {
+        return CompiledMeterFilter.compile(filters);
+    }
+
     /**
      * @param id Id with {@link MeterFilter#map} transformations applied.
      * @return After all transformations, should a real meter be registered for this id, or should it be no-op'd.
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.config;
+
+import io.micrometer.core.instrument.Meter;
+
+/**
+ * A built-in filter that only affects meters whose name starts with a given prefix, and that never changes the name
+ * of the meters it maps. For meters whose name doesn't start with the prefix, every operation is the identity, which
+ * lets a compiled filter chain skip the filter entirely based on a prefix lookup.
+ */
+abstract class NamePrefixMeterFilter implements MeterFilter {
+    final String prefix;
+
+    NamePrefixMeterFilter(String prefix) {
+        this.prefix = prefix;
+    }
+
+    boolean matches(Meter.Id id) {
+        return id.getName().startsWith(prefix);
+    }
+}
@@ -23,6 +23,7 @@ import java.io.PrintStream;
 import java.lang.reflect.Array;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
@@ -46,6 +47,8 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
     private final Clock clock;
     private final boolean supportsAggregablePercentiles;
 
+    private final int sampleInterval;
+
     private final T[] ringBuffer;
     private short currentBucket;
     private final long durationBetweenRotatesMillis;
@@ -66,6 +69,9 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
         this.distributionStatisticConfig = validateDistributionConfig(distributionStatisticConfig);
         this.supportsAggregablePercentiles = supportsAggregablePercentiles;
 
+        final Integer histogramSampleInterval = distributionStatisticConfig.getHistogramSampleInterval();
+        this.sampleInterval = histogramSampleInterval == null ? 1 : histogramSampleInterval;
+
         final int ageBuckets = distributionStatisticConfig.getBufferLength();
         if (ageBuckets <= 0) {
             rejectHistogramConfig("bufferLength (" + ageBuckets + ") must be greater than 0.");
@@ -108,6 +114,11 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
                     minimumExpectedValue + ").");
         }
 
+        final Integer histogramSampleInterval = distributionStatisticConfig.getHistogramSampleInterval();
+        if (histogramSampleInterval != null && histogramSampleInterval <= 0) {
+            rejectHistogramConfig("histogramSampleInterval (" + histogramSampleInterval + ") must be greater than 0.");
+        }
+
         if (distributionStatisticConfig.getServiceLevelObjectiveBoundaries() != null) {
             for (double slo : distributionStatisticConfig.getServiceLevelObjectiveBoundaries()) {
                 if (slo <= 0) {
@@ -133,9 +144,15 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
 
     abstract T newBucket();
 
-    abstract void recordLong(T bucket, long value);
+    /**
+     * @param count The number of samples this value stands for, greater than 1 when samples are skipped.
+     */
+    abstract void recordLong(T bucket, long value, long count);
 
-    abstract void recordDouble(T bucket, double value);
+    /**
+     * @param count The number of samples this value stands for, greater than 1 when samples are skipped.
+     */
+    abstract void recordDouble(T bucket, double value, long count);
 
     abstract void resetBucket(T bucket);
 
@@ -165,7 +182,7 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
         synchronized (this) {
             accumulateIfStale();
             values = takeValueSnapshot();
-            counts = takeCountSnapshot();
+            counts = takeCountSnapshot(count);
         }
 
         return new HistogramSnapshot(count, total, max, values, counts, this::outputSummary);
@@ -192,7 +209,7 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
         return values;
     }
 
-    private CountAtBucket[] takeCountSnapshot() {
+    private CountAtBucket[] takeCountSnapshot(long count) {
         if (!distributionStatisticConfig.isPublishingHistogram()) {
             return null;
         }
@@ -206,16 +223,24 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
         final Iterator<Double> iterator = monitoredValues.iterator();
         for (int i = 0; i < counts.length; i++) {
             final double v = iterator.next();
-            counts[i] = new CountAtBucket(v, countAtValue(v));
+            double countAtValue = countAtValue(v);
+            if (sampleInterval > 1) {
+                // weighted samples can overshoot the exact count, which cumulative buckets must never exceed
+                countAtValue = Math.min(countAtValue, count);
+            }
+            counts[i] = new CountAtBucket(v, countAtValue);
         }
         return counts;
     }
 
     public void recordLong(long value) {
+        if (skipSample()) {
+            return;
+        }
         rotate();
         try {
             for (T bucket : ringBuffer) {
-                recordLong(bucket, value);
+                recordLong(bucket, value, sampleInterval);
             }
         } catch (IndexOutOfBoundsException ignored) {
             // the value is so large (or small) that the dynamic range of the histogram cannot be extended to include it
@@ -225,10 +250,13 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
     }
 
     public void recordDouble(double value) {
+        if (skipSample()) {
+            return;
+        }
         rotate();
         try {
             for (T bucket : ringBuffer) {
-                recordDouble(bucket, value);
+                recordDouble(bucket, value, sampleInterval);
             }
         } catch (IndexOutOfBoundsException ignored) {
             // the value is so large (or small) that the dynamic range of the histogram cannot be extended to include it
@@ -237,6 +265,14 @@ abstract class AbstractTimeWindowHistogram<T, U> implements Histogram {
         }
     }
 
+    /**
+     * Whether to leave a sample out of the histogram, picking samples at random rather than counting them so that
+     * recording threads don't contend on a shared counter.
+     */
+    private boolean skipSample() {
+        return sampleInterval > 1 && ThreadLocalRandom.current().nextInt(sampleInterval) != 0;
+    }
+
     private void rotate() {
         long timeSinceLastRotateMillis = clock.wallTime() - lastRotateTimestampMillis;
         if (timeSinceLastRotateMillis < durationBetweenRotatesMillis) {
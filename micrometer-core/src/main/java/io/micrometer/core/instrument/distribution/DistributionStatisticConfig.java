@@ -69,6 +69,9 @@ public class DistributionStatisticConfig implements Mergeable<DistributionStatis
     @Nullable
     private Integer bufferLength;
 
+    @Nullable
+    private Integer histogramSampleInterval;
+
     public static Builder builder() {
         return new Builder();
     }
@@ -91,6 +94,7 @@ public class DistributionStatisticConfig implements Mergeable<DistributionStatis
                 .maximumExpectedValue(this.maximumExpectedValue == null ? parent.maximumExpectedValue : this.maximumExpectedValue)
                 .expiry(this.expiry == null ? parent.expiry : this.expiry)
                 .bufferLength(this.bufferLength == null ? parent.bufferLength : this.bufferLength)
+                .histogramSampleInterval(this.histogramSampleInterval == null ? parent.histogramSampleInterval : this.histogramSampleInterval)
                 .build();
     }
 
@@ -260,6 +264,16 @@ public class DistributionStatisticConfig implements Mergeable<DistributionStatis
         return serviceLevelObjectives;
     }
 
+    /**
+     * @return The average number of samples per sample recorded to the histogram, {@code null} or 1 to record all.
+     * @see Builder#histogramSampleInterval(Integer)
+     * @since 1.8.0
+     */
+    @Nullable
+    public Integer getHistogramSampleInterval() {
+        return histogramSampleInterval;
+    }
+
     public static class Builder {
         private final DistributionStatisticConfig config = new DistributionStatisticConfig();
 
@@ -428,6 +442,22 @@ public class DistributionStatisticConfig implements Mergeable<DistributionStatis
             return this;
         }
 
+        /**
+         * Only about one in this many samples is recorded to the histogram that backs percentiles, percentile
+         * histograms and SLO boundaries, each counting for this many samples. This lowers the recording cost of very
+         * hot meters at the expense of accuracy. Count, total and max are still recorded for every sample, and
+         * cumulative bucket counts are capped at the count so that they never exceed it.
+         *
+         * @param histogramSampleInterval The average number of samples per sample recorded to the histogram,
+         *                                {@code null} or 1 to record all.
+         * @return This builder.
+         * @since 1.8.0
+         */
+        public Builder histogramSampleInterval(@Nullable Integer histogramSampleInterval) {
+            config.histogramSampleInterval = histogramSampleInterval;
+            return this;
+        }
+
         /**
          * @return A new immutable distribution configuration.
          */
@@ -17,22 +17,26 @@ package io.micrometer.core.instrument.distribution;
 
 import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.internal.PollCycle;
 import io.micrometer.core.instrument.util.DoubleFormat;
+import io.micrometer.core.lang.Nullable;
 
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.ToDoubleFunction;
 
 @Incubating(since = "1.0.3")
 public class HistogramGauges {
-    // How many gauges have been polled so far on this publish cycle
-    volatile CountDownLatch polledGaugesLatch;
+    /**
+     * Which gauges have been polled since the last snapshot. A gauge that is polled again triggers a new snapshot, so
+     * each publish cycle sees one snapshot regardless of whether some gauges were filtered out or polled twice.
+     */
+    // guarded by this
+    private final PollCycle pollCycle = new PollCycle();
 
     private volatile HistogramSnapshot snapshot;
 
     private final HistogramSupport meter;
-    private final int totalGauges;
 
     /**
      * Register a set of gauges for percentiles and histogram buckets that follow a common format when
@@ -43,17 +47,7 @@ public class HistogramGauges {
      * @return registered {@code HistogramGauges}
      */
     public static HistogramGauges registerWithCommonFormat(Timer timer, MeterRegistry registry) {
-        return getHistogramGauges(timer, timer.getId(), timer.baseTimeUnit(), registry);
-    }
-
-    private static HistogramGauges getHistogramGauges(HistogramSupport histogramSupport, Meter.Id id, TimeUnit baseTimeUnit, MeterRegistry registry) {
-        return HistogramGauges.register(histogramSupport, registry,
-                percentile -> id.getName() + ".percentile",
-                percentile -> Tags.concat(id.getTagsAsIterable(), "phi", DoubleFormat.decimalOrNan(percentile.percentile())),
-                percentile -> percentile.value(baseTimeUnit),
-                bucket -> id.getName() + ".histogram",
-                bucket -> Tags.concat(id.getTagsAsIterable(), "le", bucket.isPositiveInf()
-                        ? "+Inf" : DoubleFormat.wholeOrDecimal(bucket.bucket(baseTimeUnit))));
+        return new HistogramGauges(timer, registry, commonFormat(timer.getId(), timer.baseTimeUnit()));
     }
 
     /**
@@ -66,18 +60,11 @@ public class HistogramGauges {
      * @since 1.5.0
      */
     public static HistogramGauges registerWithCommonFormat(LongTaskTimer ltt, MeterRegistry registry) {
-        return getHistogramGauges(ltt, ltt.getId(), ltt.baseTimeUnit(), registry);
+        return new HistogramGauges(ltt, registry, commonFormat(ltt.getId(), ltt.baseTimeUnit()));
     }
 
     public static HistogramGauges registerWithCommonFormat(DistributionSummary summary, MeterRegistry registry) {
-        Meter.Id id = summary.getId();
-        return HistogramGauges.register(summary, registry,
-                percentile -> id.getName() + ".percentile",
-                percentile -> Tags.concat(id.getTagsAsIterable(), "phi", DoubleFormat.decimalOrNan(percentile.percentile())),
-                ValueAtPercentile::value,
-                bucket -> id.getName() + ".histogram",
-                bucket -> Tags.concat(id.getTagsAsIterable(), "le", bucket.isPositiveInf()
-                        ? "+Inf" : DoubleFormat.wholeOrDecimal(bucket.bucket())));
+        return new HistogramGauges(summary, registry, commonFormat(summary.getId(), null));
     }
 
     public static HistogramGauges register(HistogramSupport meter, MeterRegistry registry,
@@ -86,15 +73,27 @@ public class HistogramGauges {
                                            Function<ValueAtPercentile, Double> percentileValue,
                                            Function<CountAtBucket, String> bucketName,
                                            Function<CountAtBucket, Iterable<Tag>> bucketTags) {
-        return new HistogramGauges(meter, registry, percentileName, percentileTags, percentileValue, bucketName, bucketTags);
+        return new HistogramGauges(meter, registry, new Format(percentileName, percentileTags, percentileValue::apply, bucketName, bucketTags));
+    }
+
+    /**
+     * The common format for percentile and histogram bucket gauges: {@code <name>.percentile} tagged with
+     * {@code phi}, and {@code <name>.histogram} tagged with {@code le}.
+     *
+     * @param id the id of the meter the gauges are derived from
+     * @param baseTimeUnit the base time unit of a timer, or {@code null} for a distribution summary
+     */
+    static Format commonFormat(Meter.Id id, @Nullable TimeUnit baseTimeUnit) {
+        return new Format(
+                percentile -> id.getName() + ".percentile",
+                percentile -> Tags.concat(id.getTagsAsIterable(), "phi", DoubleFormat.decimalOrNan(percentile.percentile())),
+                baseTimeUnit == null ? ValueAtPercentile::value : percentile -> percentile.value(baseTimeUnit),
+                bucket -> id.getName() + ".histogram",
+                bucket -> Tags.concat(id.getTagsAsIterable(), "le", bucket.isPositiveInf()
+                        ? "+Inf" : DoubleFormat.wholeOrDecimal(baseTimeUnit == null ? bucket.bucket() : bucket.bucket(baseTimeUnit))));
     }
 
-    private HistogramGauges(HistogramSupport meter, MeterRegistry registry,
-                            Function<ValueAtPercentile, String> percentileName,
-                            Function<ValueAtPercentile, Iterable<Tag>> percentileTags,
-                            Function<ValueAtPercentile, Double> percentileValue,
-                            Function<CountAtBucket, String> bucketName,
-                            Function<CountAtBucket, Iterable<Tag>> bucketTags) {
+    private HistogramGauges(HistogramSupport meter, MeterRegistry registry, Format format) {
         this.meter = meter;
 
         HistogramSnapshot initialSnapshot = meter.takeSnapshot();
@@ -103,23 +102,15 @@ public class HistogramGauges {
         ValueAtPercentile[] valueAtPercentiles = initialSnapshot.percentileValues();
         CountAtBucket[] countAtBuckets = initialSnapshot.histogramCounts();
 
-        this.totalGauges = valueAtPercentiles.length + countAtBuckets.length;
-
-        // set to zero initially, so the first polling of one of the gauges on each publish cycle results in a
-        // new snapshot
-        this.polledGaugesLatch = new CountDownLatch(0);
-
         for (int i = 0; i < valueAtPercentiles.length; i++) {
             final int index = i;
+            final int gaugeIndex = addGauge();
 
-            ToDoubleFunction<HistogramSupport> percentileValueFunction = m -> {
-                snapshotIfNecessary();
-                polledGaugesLatch.countDown();
-                return percentileValue.apply(snapshot.percentileValues()[index]);
-            };
+            ToDoubleFunction<HistogramSupport> percentileValueFunction = m ->
+                    format.percentileValue.applyAsDouble(snapshotForGauge(gaugeIndex).percentileValues()[index]);
 
-            Gauge.builder(percentileName.apply(valueAtPercentiles[i]), meter, percentileValueFunction)
-                    .tags(percentileTags.apply(valueAtPercentiles[i]))
+            Gauge.builder(format.percentileName.apply(valueAtPercentiles[i]), meter, percentileValueFunction)
+                    .tags(format.percentileTags.apply(valueAtPercentiles[i]))
                     .baseUnit(meter.getId().getBaseUnit())
                     .synthetic(meter.getId())
                     .register(registry);
@@ -127,24 +118,52 @@ public class HistogramGauges {
 
         for (int i = 0; i < countAtBuckets.length; i++) {
             final int index = i;
+            final int gaugeIndex = addGauge();
 
-            ToDoubleFunction<HistogramSupport> bucketCountFunction = m -> {
-                snapshotIfNecessary();
-                polledGaugesLatch.countDown();
-                return snapshot.histogramCounts()[index].count();
-            };
+            ToDoubleFunction<HistogramSupport> bucketCountFunction = m ->
+                    snapshotForGauge(gaugeIndex).histogramCounts()[index].count();
 
-            Gauge.builder(bucketName.apply(countAtBuckets[i]), meter, bucketCountFunction)
-                    .tags(bucketTags.apply(countAtBuckets[i]))
+            Gauge.builder(format.bucketName.apply(countAtBuckets[i]), meter, bucketCountFunction)
+                    .tags(format.bucketTags.apply(countAtBuckets[i]))
                     .synthetic(meter.getId())
                     .register(registry);
         }
     }
 
-    private void snapshotIfNecessary() {
-        if (polledGaugesLatch.getCount() == 0) {
-            snapshot = meter.takeSnapshot();
-            polledGaugesLatch = new CountDownLatch(totalGauges);
+    private synchronized int addGauge() {
+        // marked as polled initially, so the first polling of each gauge results in a new snapshot
+        return pollCycle.addReader(true);
+    }
+
+    private HistogramSnapshot snapshotForGauge(int gaugeIndex) {
+        synchronized (this) {
+            if (pollCycle.read(gaugeIndex)) {
+                snapshot = meter.takeSnapshot();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * How percentile and histogram bucket gauges are named, tagged and valued.
+     */
+    static class Format {
+        final Function<ValueAtPercentile, String> percentileName;
+        final Function<ValueAtPercentile, Iterable<Tag>> percentileTags;
+        final ToDoubleFunction<ValueAtPercentile> percentileValue;
+        final Function<CountAtBucket, String> bucketName;
+        final Function<CountAtBucket, Iterable<Tag>> bucketTags;
+
+        Format(Function<ValueAtPercentile, String> percentileName,
+               Function<ValueAtPercentile, Iterable<Tag>> percentileTags,
+               ToDoubleFunction<ValueAtPercentile> percentileValue,
+               Function<CountAtBucket, String> bucketName,
+               Function<CountAtBucket, Iterable<Tag>> bucketTags) {
+            this.percentileName = percentileName;
+            this.percentileTags = percentileTags;
+            this.percentileValue = percentileValue;
+            this.bucketName = bucketName;
+            this.bucketTags = bucketTags;
         }
     }
 }
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.distribution;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.AbstractMeter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A single synthetic meter standing in for the percentile and histogram bucket gauges of a {@link HistogramSupport}
+ * meter. Rather than registering each percentile and bucket as its own gauge, as {@link HistogramGauges} does, the
+ * registry holds this one meter and push registries expand it into {@link #gauges()} when they publish, so every
+ * percentile and bucket published together is read from the same {@link HistogramSnapshot}. Searching the registry
+ * finds this meter, not the individual gauges.
+ * <p>
+ * Gauges follow the common format of {@link HistogramGauges#registerWithCommonFormat(Timer, MeterRegistry)}.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+public final class SyntheticHistogramGauges extends AbstractMeter {
+    private final HistogramSupport meter;
+    private final ToDoubleFunction<ValueAtPercentile> percentileValue;
+
+    /**
+     * Ids of the percentile and bucket gauges, indexed like the snapshot. {@code null} where the gauge was denied.
+     */
+    private final Meter.Id[] percentileIds;
+    private final Meter.Id[] bucketIds;
+    private final int gaugeCount;
+
+    private SyntheticHistogramGauges(Meter.Id id, HistogramSupport meter, HistogramGauges.Format format,
+                                     Function<Meter.Id, Meter.Id> resolveId) {
+        super(id);
+        this.meter = meter;
+        this.percentileValue = format.percentileValue;
+
+        HistogramSnapshot initialSnapshot = meter.takeSnapshot();
+        ValueAtPercentile[] valueAtPercentiles = initialSnapshot.percentileValues();
+        CountAtBucket[] countAtBuckets = initialSnapshot.histogramCounts();
+
+        int count = 0;
+        this.percentileIds = new Meter.Id[valueAtPercentiles.length];
+        for (int i = 0; i < valueAtPercentiles.length; i++) {
+            percentileIds[i] = resolveId.apply(new Meter.Id(format.percentileName.apply(valueAtPercentiles[i]),
+                    Tags.of(format.percentileTags.apply(valueAtPercentiles[i])), meter.getId().getBaseUnit(), null,
+                    Meter.Type.GAUGE));
+            if (percentileIds[i] != null) {
+                count++;
+            }
+        }
+
+        this.bucketIds = new Meter.Id[countAtBuckets.length];
+        for (int i = 0; i < countAtBuckets.length; i++) {
+            bucketIds[i] = resolveId.apply(new Meter.Id(format.bucketName.apply(countAtBuckets[i]),
+                    Tags.of(format.bucketTags.apply(countAtBuckets[i])), null, null, Meter.Type.GAUGE));
+            if (bucketIds[i] != null) {
+                count++;
+            }
+        }
+
+        this.gaugeCount = count;
+    }
+
+    /**
+     * Create synthetic histogram gauges in the common format. Intended to be called by a {@link MeterRegistry}, which
+     * resolves the id of each gauge once, through the same filters it would apply when registering the gauge.
+     *
+     * @param id           the id of the synthetic meter itself
+     * @param meter        the meter from which to derive gauges
+     * @param baseTimeUnit the base time unit of a timer, or {@code null} for a distribution summary
+     * @param resolveId    the id to publish a percentile or bucket gauge with, or {@code null} if it is denied
+     * @return synthetic histogram gauges for {@code meter}
+     */
+    public static SyntheticHistogramGauges withCommonFormat(Meter.Id id, HistogramSupport meter,
+                                                            @Nullable TimeUnit baseTimeUnit,
+                                                            Function<Meter.Id, Meter.Id> resolveId) {
+        return new SyntheticHistogramGauges(id, meter, HistogramGauges.commonFormat(meter.getId(), baseTimeUnit),
+                resolveId);
+    }
+
+    /**
+     * Take one snapshot of the underlying meter and read every percentile and bucket gauge from it. Meant to be called
+     * once per publish.
+     *
+     * @return point-in-time gauges, which are not themselves registered with any registry
+     */
+    public List<Gauge> gauges() {
+        if (gaugeCount == 0) {
+            return Collections.emptyList();
+        }
+
+        HistogramSnapshot snapshot = meter.takeSnapshot();
+        ValueAtPercentile[] valueAtPercentiles = snapshot.percentileValues();
+        CountAtBucket[] countAtBuckets = snapshot.histogramCounts();
+
+        List<Gauge> gauges = new ArrayList<>(gaugeCount);
+        for (int i = 0; i < percentileIds.length && i < valueAtPercentiles.length; i++) {
+            if (percentileIds[i] != null) {
+                gauges.add(new SnapshotGauge(percentileIds[i], percentileValue.applyAsDouble(valueAtPercentiles[i])));
+            }
+        }
+        for (int i = 0; i < bucketIds.length && i < countAtBuckets.length; i++) {
+            if (bucketIds[i] != null) {
+                gauges.add(new SnapshotGauge(bucketIds[i], countAtBuckets[i].count()));
+            }
+        }
+        return gauges;
+    }
+
+    /**
+     * The values of this meter are only meaningful alongside the ids of the individual gauges, so they are exposed
+     * through {@link #gauges()} instead.
+     *
+     * @return no measurements
+     */
+    @Override
+    public Iterable<Measurement> measure() {
+        return Collections.emptyList();
+    }
+
+    private static final class SnapshotGauge extends AbstractMeter implements Gauge {
+        private final double value;
+
+        SnapshotGauge(Meter.Id id, double value) {
+            super(id);
+            this.value = value;
+        }
+
+        @Override
+        public double value() {
+            return value;
+        }
+    }
+}
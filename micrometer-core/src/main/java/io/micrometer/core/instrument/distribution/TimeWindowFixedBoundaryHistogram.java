@@ -56,13 +56,13 @@ public class TimeWindowFixedBoundaryHistogram
     }
 
     @Override
-    void recordLong(FixedBoundaryHistogram bucket, long value) {
-        bucket.record(value);
+    void recordLong(FixedBoundaryHistogram bucket, long value, long count) {
+        bucket.record(value, count);
     }
 
     @Override
-    final void recordDouble(FixedBoundaryHistogram bucket, double value) {
-        recordLong(bucket, (long) Math.ceil(value));
+    final void recordDouble(FixedBoundaryHistogram bucket, double value, long count) {
+        recordLong(bucket, (long) Math.ceil(value), count);
     }
 
     @Override
@@ -137,10 +137,10 @@ public class TimeWindowFixedBoundaryHistogram
             }
         }
 
-        void record(long value) {
+        void record(long value, long count) {
             int index = leastLessThanOrEqualTo(value);
             if (index > -1)
-                values.incrementAndGet(index);
+                values.addAndGet(index, count);
         }
 
         /**
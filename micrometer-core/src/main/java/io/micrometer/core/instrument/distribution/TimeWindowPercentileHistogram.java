@@ -45,13 +45,21 @@ public class TimeWindowPercentileHistogram extends AbstractTimeWindowHistogram<D
     }
 
     @Override
-    void recordDouble(DoubleRecorder bucket, double value) {
-        bucket.recordValue(value);
+    void recordDouble(DoubleRecorder bucket, double value, long count) {
+        if (count == 1) {
+            bucket.recordValue(value);
+        } else {
+            bucket.recordValueWithCount(value, count);
+        }
     }
 
     @Override
-    void recordLong(DoubleRecorder bucket, long value) {
-        bucket.recordValue(value);
+    void recordLong(DoubleRecorder bucket, long value, long count) {
+        if (count == 1) {
+            bucket.recordValue(value);
+        } else {
+            bucket.recordValueWithCount(value, count);
+        }
     }
 
     @Override
@@ -27,23 +27,46 @@ import io.micrometer.core.instrument.util.MeterEquivalence;
 import io.micrometer.core.instrument.util.TimeUtils;
 
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class DefaultLongTaskTimer extends AbstractMeter implements LongTaskTimer {
+    private static final int MAX_CELLS = maxCellCount();
+
+    /**
+     * The smallest number of stopped tasks that may be left in {@link #activeTasks} before it is compacted.
+     */
+    private static final int MIN_COMPACTION_THRESHOLD = 64;
+
     /**
-     * Preferring {@link ConcurrentLinkedDeque} over {@link CopyOnWriteArrayList} here because...
+     * Active tasks in the order they were started, so the oldest task is at the head and {@link #max(TimeUnit)} is
+     * O(1). A task stopped at the head is unlinked right away. A task stopped anywhere else is only marked stopped,
+     * because removing it from the middle of the deque is O(N). Marked tasks are unlinked in a single pass once there
+     * are about as many of them as there are active tasks, which keeps {@code stop()} amortized O(1).
      * <p>
-     * Retrieval of percentile values will be O(N) but starting/stopping tasks will be O(1). Starting/stopping
-     * tasks happen in the same thread as the main application code, where publishing generally happens in a separate
-     * thread. Also, shipping client-side percentiles should be relatively uncommon.
+     * The count of active tasks and the sum of their start times are maintained on start and stop in cells striped
+     * by thread, so that {@link #duration(TimeUnit)} is computed arithmetically without threads that start and stop
+     * tasks contending with each other or with the publishing thread. Like {@link LongAdder}, there is a single cell
+     * until two threads contend on one, and the table of cells then doubles, with each new cell allocated the first
+     * time a thread maps to it.
      * <p>
-     * Histogram creation is O(N) for both the queue and list options, because we have to consider which bucket each
-     * active task belongs.
+     * Retrieval of percentile and histogram values is O(N log N), because they sort a primitive copy of the start
+     * times, but these happen in the publishing thread, and shipping client-side percentiles should be relatively
+     * uncommon.
      */
     private final Deque<SampleImpl> activeTasks = new ConcurrentLinkedDeque<>();
 
+    private volatile Cell[] cells = { new Cell() };
+    private final AtomicBoolean resizingCells = new AtomicBoolean();
+
+    private final LongAdder stoppedInDeque = new LongAdder();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile int compactionThreshold = MIN_COMPACTION_THRESHOLD;
+
     private final Clock clock;
     private final TimeUnit baseTimeUnit;
     private final DistributionStatisticConfig distributionStatisticConfig;
@@ -80,36 +103,122 @@ public class DefaultLongTaskTimer extends AbstractMeter implements LongTaskTimer
         this.supportsAggregablePercentiles = supportsAggregablePercentiles;
     }
 
+    private static int maxCellCount() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+    }
+
     @Override
     public Sample start() {
-        SampleImpl sample = new SampleImpl();
+        long startTime = clock.monotonicTime();
+        SampleImpl sample = new SampleImpl(startTime, add(startTime));
         activeTasks.add(sample);
         return sample;
     }
 
+    /**
+     * Add a task start time to the cell of the current thread, allocating that cell if it doesn't exist yet and
+     * doubling the table of cells if it is contended.
+     *
+     * @return the cell the start time was added to
+     */
+    private Cell add(long startTime) {
+        int hash = (int) Thread.currentThread().getId();
+        for (;;) {
+            Cell[] cs = cells;
+            int i = hash & (cs.length - 1);
+            Cell cell = cs[i];
+            if (cell == null) {
+                if (resizingCells.compareAndSet(false, true)) {
+                    try {
+                        if (cells == cs && cs[i] == null) {
+                            cs[i] = new Cell();
+                        }
+                    } finally {
+                        resizingCells.set(false);
+                    }
+                }
+            } else if (cell.tryAdd(startTime)) {
+                return cell;
+            } else if (cs.length < MAX_CELLS && resizingCells.compareAndSet(false, true)) {
+                try {
+                    if (cells == cs) {
+                        cells = Arrays.copyOf(cs, cs.length * 2);
+                    }
+                } finally {
+                    resizingCells.set(false);
+                }
+            } else {
+                cell.add(startTime);
+                return cell;
+            }
+        }
+    }
+
     @Override
     public double duration(TimeUnit unit) {
         long now = clock.monotonicTime();
         long sum = 0L;
-        for (SampleImpl task : activeTasks) {
-            sum += now - task.startTime();
+        for (Cell cell : cells) {
+            if (cell != null) {
+                sum += cell.totalDuration(now);
+            }
         }
         return TimeUtils.nanosToUnit(sum, unit);
     }
 
     @Override
     public double max(TimeUnit unit) {
-        Sample oldest = activeTasks.peek();
-        return oldest == null ? 0.0 : oldest.duration(unit);
+        SampleImpl oldest;
+        while ((oldest = activeTasks.peek()) != null && oldest.isStopped()) {
+            activeTasks.removeFirstOccurrence(oldest);
+        }
+        return oldest == null ? 0.0 : TimeUtils.nanosToUnit(clock.monotonicTime() - oldest.startTime, unit);
     }
 
     @Override
     public int activeTasks() {
-        return activeTasks.size();
+        int count = 0;
+        for (Cell cell : cells) {
+            if (cell != null) {
+                count += cell.count();
+            }
+        }
+        return count;
     }
 
     protected void forEachActive(Consumer<Sample> sample) {
-        activeTasks.forEach(sample);
+        for (SampleImpl task : activeTasks) {
+            if (!task.isStopped()) {
+                sample.accept(task);
+            }
+        }
+    }
+
+    private void stopped(SampleImpl sample) {
+        if (activeTasks.peek() == sample) {
+            activeTasks.removeFirstOccurrence(sample);
+            return;
+        }
+
+        stoppedInDeque.increment();
+        if (stoppedInDeque.sum() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            try {
+                // the count is only a trigger, so tasks stopped during the pass may be counted twice or not at all
+                stoppedInDeque.reset();
+                int active = 0;
+                for (Iterator<SampleImpl> tasks = activeTasks.iterator(); tasks.hasNext(); ) {
+                    if (tasks.next().isStopped()) {
+                        tasks.remove();
+                    } else {
+                        active++;
+                    }
+                }
+                compactionThreshold = Math.max(MIN_COMPACTION_THRESHOLD, active);
+            } finally {
+                compacting.set(false);
+            }
+        }
     }
 
     @Override
@@ -130,117 +239,105 @@ public class DefaultLongTaskTimer extends AbstractMeter implements LongTaskTimer
 
     @Override
     public HistogramSnapshot takeSnapshot() {
-        Queue<Double> percentilesRequested = new ArrayBlockingQueue<>(distributionStatisticConfig.getPercentiles() == null ? 1 :
-                distributionStatisticConfig.getPercentiles().length);
-        double[] percentilesRequestedArr = distributionStatisticConfig.getPercentiles();
-        if (percentilesRequestedArr != null && percentilesRequestedArr.length > 0) {
-            Arrays.stream(percentilesRequestedArr).sorted().boxed().forEach(percentilesRequested::add);
-        }
-
-        NavigableSet<Double> buckets = distributionStatisticConfig.getHistogramBuckets(supportsAggregablePercentiles);
-
-        CountAtBucket[] countAtBucketsArr = new CountAtBucket[0];
-
-        List<Double> percentilesAboveInterpolatableLine = percentilesRequested.stream()
-                .filter(p -> p * (activeTasks.size() + 1) > activeTasks.size())
-                .collect(Collectors.toList());
-
-        percentilesRequested.removeAll(percentilesAboveInterpolatableLine);
-
-        List<ValueAtPercentile> valueAtPercentiles = new ArrayList<>(percentilesRequested.size());
-
-        if (!percentilesRequested.isEmpty() || !buckets.isEmpty()) {
-            Double percentile = percentilesRequested.poll();
-            Double bucket = buckets.pollFirst();
-
-            List<CountAtBucket> countAtBuckets = new ArrayList<>(buckets.size());
-
-            SampleImpl priorActiveTask = null;
-            int i = 0;
-
-            Iterator<SampleImpl> youngestToOldest = activeTasks.descendingIterator();
-            while (youngestToOldest.hasNext()) {
-                SampleImpl activeTask = youngestToOldest.next();
-                i++;
-                if (bucket != null) {
-                    if (activeTask.duration(TimeUnit.NANOSECONDS) > bucket) {
-                        countAtBuckets.add(new CountAtBucket(bucket, i - 1));
-                        bucket = buckets.pollFirst();
-                    }
+        long[] startTimes = new long[16];
+        int n = 0;
+        for (SampleImpl task : activeTasks) {
+            if (!task.isStopped()) {
+                if (n == startTimes.length) {
+                    startTimes = Arrays.copyOf(startTimes, n * 2);
                 }
+                startTimes[n++] = task.startTime;
+            }
+        }
+        startTimes = Arrays.copyOf(startTimes, n);
+        long now = clock.monotonicTime();
+        long sum = 0L;
+        for (long startTime : startTimes) {
+            sum += now - startTime;
+        }
 
-                if (percentile != null) {
-                    double rank = percentile * (activeTasks.size() + 1);
-
-                    if (i >= rank) {
-                        double percentileValue = activeTask.duration(TimeUnit.NANOSECONDS);
-                        if (i != rank && priorActiveTask != null) {
-                            // interpolate the percentile value when the active task rank is non-integral
-                            double priorPercentileValue = priorActiveTask.duration(TimeUnit.NANOSECONDS);
-                            percentileValue = priorPercentileValue +
-                                    ((percentileValue - priorPercentileValue) * (rank - (int) rank));
-                        }
-
-                        valueAtPercentiles.add(new ValueAtPercentile(percentile, percentileValue));
-                        percentile = percentilesRequested.poll();
+        // oldest to youngest, so the task with rank i (1-based, shortest duration first) is at count - i
+        Arrays.sort(startTimes);
+        int count = startTimes.length;
+        double max = count == 0 ? 0.0 : now - startTimes[0];
+
+        double[] percentilesRequested = distributionStatisticConfig.getPercentiles();
+        ValueAtPercentile[] valueAtPercentiles = new ValueAtPercentile[0];
+        if (percentilesRequested != null && percentilesRequested.length > 0) {
+            double[] percentiles = percentilesRequested.clone();
+            Arrays.sort(percentiles);
+            valueAtPercentiles = new ValueAtPercentile[percentiles.length];
+            for (int p = 0; p < percentiles.length; p++) {
+                double percentile = percentiles[p];
+                double rank = percentile * (count + 1);
+                double percentileValue;
+                if (rank > count) {
+                    // above the interpolatable line, which is just the max
+                    percentileValue = max;
+                } else {
+                    int i = Math.max(1, (int) Math.ceil(rank));
+                    percentileValue = now - startTimes[count - i];
+                    if (i != rank && i > 1) {
+                        // interpolate the percentile value when the active task rank is non-integral
+                        double priorPercentileValue = now - startTimes[count - i + 1];
+                        percentileValue = priorPercentileValue +
+                                ((percentileValue - priorPercentileValue) * (rank - (int) rank));
                     }
                 }
-
-                priorActiveTask = activeTask;
-            }
-
-            // fill out the rest of the cumulative histogram
-            while (bucket != null) {
-                countAtBuckets.add(new CountAtBucket(bucket, i));
-                bucket = buckets.pollFirst();
+                valueAtPercentiles[p] = new ValueAtPercentile(percentile, percentileValue);
             }
-
-            countAtBucketsArr = countAtBuckets.toArray(countAtBucketsArr);
         }
 
-        double duration = duration(TimeUnit.NANOSECONDS);
-        double max = max(TimeUnit.NANOSECONDS);
-
-        // we wouldn't need to iterate over all the active tasks just to calculate the 100th percentile, which is just the max.
-        for (Double percentile : percentilesAboveInterpolatableLine) {
-            valueAtPercentiles.add(new ValueAtPercentile(percentile, max));
+        NavigableSet<Double> buckets = distributionStatisticConfig.getHistogramBuckets(supportsAggregablePercentiles);
+        CountAtBucket[] countAtBuckets = new CountAtBucket[buckets.size()];
+        int b = 0;
+        int i = 0;
+        for (Double bucket : buckets) {
+            // advance over tasks, youngest to oldest, that are no longer than this bucket
+            while (i < count && now - startTimes[count - i - 1] <= bucket) {
+                i++;
+            }
+            countAtBuckets[b++] = new CountAtBucket(bucket, i);
         }
 
-        ValueAtPercentile[] valueAtPercentilesArr = valueAtPercentiles.toArray(new ValueAtPercentile[0]);
-
         return new HistogramSnapshot(
-                activeTasks.size(),
-                duration,
+                count,
+                sum,
                 max,
-                valueAtPercentilesArr,
-                countAtBucketsArr,
+                valueAtPercentiles,
+                countAtBuckets,
                 (ps, scaling) -> ps.print("Summary output for LongTaskTimer histograms is not supported.")
         );
     }
 
     class SampleImpl extends Sample {
         private final long startTime;
-        private volatile boolean stopped;
+        private final Cell cell;
+        volatile int stopped;
 
-        private SampleImpl() {
-            this.startTime = clock.monotonicTime();
+        private SampleImpl(long startTime, Cell cell) {
+            this.startTime = startTime;
+            this.cell = cell;
         }
 
         @Override
         public long stop() {
-            activeTasks.remove(this);
-            long duration = (long) duration(TimeUnit.NANOSECONDS);
-            stopped = true;
+            long duration = clock.monotonicTime() - startTime;
+            if (!STOPPED.compareAndSet(this, 0, 1)) {
+                return -1;
+            }
+            cell.remove(startTime);
+            stopped(this);
             return duration;
         }
 
-        @Override
-        public double duration(TimeUnit unit) {
-            return stopped ? -1 : TimeUtils.nanosToUnit(clock.monotonicTime() - startTime, unit);
+        private boolean isStopped() {
+            return stopped != 0;
         }
 
-        private long startTime() {
-            return startTime;
+        @Override
+        public double duration(TimeUnit unit) {
+            return isStopped() ? -1 : TimeUtils.nanosToUnit(clock.monotonicTime() - startTime, unit);
         }
 
         @Override
@@ -253,4 +350,72 @@ public class DefaultLongTaskTimer extends AbstractMeter implements LongTaskTimer
                     '}';
         }
     }
+
+    private static final AtomicIntegerFieldUpdater<SampleImpl> STOPPED =
+            AtomicIntegerFieldUpdater.newUpdater(SampleImpl.class, "stopped");
+
+    /**
+     * The count and sum of start times of the tasks started on a subset of threads. Both are updated and read
+     * together while holding the cell's lock, a flag that is only spun on after {@link #tryAdd(long)} has failed
+     * and the table of cells could not grow any further.
+     */
+    private static final class Cell {
+        private static final AtomicIntegerFieldUpdater<Cell> LOCKED =
+                AtomicIntegerFieldUpdater.newUpdater(Cell.class, "locked");
+
+        private volatile int locked;
+        private int count;
+        private long startTimeSum;
+
+        /**
+         * @return {@code false} without adding the start time if another thread holds the lock
+         */
+        boolean tryAdd(long startTime) {
+            if (!LOCKED.compareAndSet(this, 0, 1)) {
+                return false;
+            }
+            count++;
+            startTimeSum += startTime;
+            locked = 0;
+            return true;
+        }
+
+        void add(long startTime) {
+            lock();
+            count++;
+            startTimeSum += startTime;
+            locked = 0;
+        }
+
+        void remove(long startTime) {
+            lock();
+            count--;
+            startTimeSum -= startTime;
+            locked = 0;
+        }
+
+        int count() {
+            lock();
+            int count = this.count;
+            locked = 0;
+            return count;
+        }
+
+        /**
+         * The sum of {@code now - startTime} over the tasks in this cell. The intermediate products may overflow, but
+         * two's complement arithmetic makes the result exact whenever the total duration itself fits in a long.
+         */
+        long totalDuration(long now) {
+            lock();
+            long totalDuration = count * now - startTimeSum;
+            locked = 0;
+            return totalDuration;
+        }
+
+        private void lock() {
+            while (!LOCKED.compareAndSet(this, 0, 1)) {
+                Thread.yield();
+            }
+        }
+    }
 }
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.internal;
+
+import java.util.BitSet;
+
+/**
+ * Detects the polls of meters whose values come from one shared snapshot, when the registry reads meters without
+ * signalling that a poll starts. Each meter, or other reader of the snapshot, is a reader of the cycle, and a reader
+ * that reads again after having read since the last snapshot starts a new poll. Readers that are filtered out or read
+ * twice in the same publish therefore still see one snapshot per poll.
+ * <p>
+ * Not thread-safe: it is guarded by whatever guards the snapshot.
+ *
+ * @since 1.8.0
+ */
+public final class PollCycle {
+    private final BitSet read = new BitSet();
+    private int readers;
+
+    /**
+     * @param read Whether the reader counts as having read in the current poll, so that its first read starts a new
+     *             poll. This is the case when the snapshot was taken before the reader was added.
+     * @return The index of the new reader.
+     */
+    public int addReader(boolean read) {
+        int reader = readers++;
+        this.read.set(reader, read);
+        return reader;
+    }
+
+    /**
+     * Record a read.
+     *
+     * @param reader The index of the reader.
+     * @return Whether this read starts a new poll, in which case the caller takes a new snapshot.
+     */
+    public boolean read(int reader) {
+        boolean newPoll = read.get(reader);
+        if (newPoll) {
+            read.clear();
+        }
+        read.set(reader);
+        return newPoll;
+    }
+}
@@ -84,7 +84,7 @@ public class LoggingMeterRegistry extends StepMeterRegistry {
     @Override
     protected void publish() {
         if (config.enabled()) {
-            getMeters().stream()
+            getMetersToPublish().stream()
                     .sorted((m1, m2) -> {
                         int typeComp = m1.getId().getType().compareTo(m2.getId().getType());
                         if (typeComp == 0) {
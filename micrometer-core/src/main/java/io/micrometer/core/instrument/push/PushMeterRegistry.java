@@ -15,13 +15,19 @@
  */
 package io.micrometer.core.instrument.push;
 
+import io.micrometer.core.annotation.Incubating;
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.SyntheticHistogramGauges;
 import io.micrometer.core.instrument.util.TimeUtils;
 import io.micrometer.core.lang.Nullable;
 import io.micrometer.core.util.internal.logging.InternalLogger;
 import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -44,12 +50,34 @@ public abstract class PushMeterRegistry extends MeterRegistry {
 
     protected abstract void publish();
 
+    /**
+     * The meters to publish: those of {@link #getMeters()}, with each {@link SyntheticHistogramGauges} expanded into
+     * its percentile and histogram bucket gauges, all read from one snapshot of the histogram. Implementations of
+     * {@link #publish()} should iterate these rather than {@link #getMeters()}.
+     *
+     * @return the meters to publish
+     * @since 1.8.0
+     */
+    @Incubating(since = "1.8.0")
+    public List<Meter> getMetersToPublish() {
+        List<Meter> meters = new ArrayList<>();
+        forEachMeter(meter -> {
+            if (meter instanceof SyntheticHistogramGauges) {
+                meters.addAll(((SyntheticHistogramGauges) meter).gauges());
+            } else {
+                meters.add(meter);
+            }
+        });
+        return Collections.unmodifiableList(meters);
+    }
+
     /**
      * Catch uncaught exceptions thrown from {@link #publish()}.
      */
     private void publishSafely() {
         try {
             publish();
+            removeIdleMeters();
         } catch (Throwable e) {
             logger.warn("Unexpected exception thrown while publishing metrics for " + this.getClass().getSimpleName(), e);
         }
@@ -100,6 +100,16 @@ public class SimpleMeterRegistry extends MeterRegistry {
         return timer;
     }
 
+    @Override
+    protected boolean isActive(Meter meter, double[] previousMeasurements, double[] currentMeasurements) {
+        if (super.isActive(meter, previousMeasurements, currentMeasurements)) {
+            return true;
+        }
+        // step counts reset every step, so a steady rate produces unchanged measurements
+        // the first measurement of every expirable meter is its count or active task count
+        return config.mode() == CountingMode.STEP && currentMeasurements.length > 0 && currentMeasurements[0] != 0;
+    }
+
     @Override
     protected <T> Gauge newGauge(Meter.Id id, @Nullable T obj, ToDoubleFunction<T> valueFunction) {
         return new DefaultGauge<>(id, obj, valueFunction);
@@ -17,7 +17,6 @@ package io.micrometer.core.instrument.step;
 
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
-import io.micrometer.core.instrument.distribution.HistogramGauges;
 import io.micrometer.core.instrument.distribution.pause.PauseDetector;
 import io.micrometer.core.instrument.internal.DefaultGauge;
 import io.micrometer.core.instrument.internal.DefaultLongTaskTimer;
@@ -55,7 +54,7 @@ public abstract class StepMeterRegistry extends PushMeterRegistry {
     @Override
     protected LongTaskTimer newLongTaskTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig) {
         LongTaskTimer ltt = new DefaultLongTaskTimer(id, clock, getBaseTimeUnit(), distributionStatisticConfig, false);
-        HistogramGauges.registerWithCommonFormat(ltt, this);
+        registerHistogramGauges(ltt);
         return ltt;
     }
 
@@ -63,7 +62,7 @@ public abstract class StepMeterRegistry extends PushMeterRegistry {
     protected Timer newTimer(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, PauseDetector pauseDetector) {
         Timer timer = new StepTimer(id, clock, distributionStatisticConfig, pauseDetector, getBaseTimeUnit(),
             this.config.step().toMillis(), false);
-        HistogramGauges.registerWithCommonFormat(timer, this);
+        registerHistogramGauges(timer);
         return timer;
     }
 
@@ -71,7 +70,7 @@ public abstract class StepMeterRegistry extends PushMeterRegistry {
     protected DistributionSummary newDistributionSummary(Meter.Id id, DistributionStatisticConfig distributionStatisticConfig, double scale) {
         DistributionSummary summary = new StepDistributionSummary(id, clock, distributionStatisticConfig, scale,
             config.step().toMillis(), false);
-        HistogramGauges.registerWithCommonFormat(summary, this);
+        registerHistogramGauges(summary);
         return summary;
     }
 
@@ -90,6 +89,13 @@ public abstract class StepMeterRegistry extends PushMeterRegistry {
         return new DefaultMeter(id, type, measurements);
     }
 
+    @Override
+    protected boolean isActive(Meter meter, double[] previousMeasurements, double[] currentMeasurements) {
+        // the first measurement of every expirable meter is its step count or active task count
+        return super.isActive(meter, previousMeasurements, currentMeasurements) ||
+                (currentMeasurements.length > 0 && currentMeasurements[0] != 0);
+    }
+
     @Override
     protected DistributionStatisticConfig defaultHistogramConfig() {
         return DistributionStatisticConfig.builder()
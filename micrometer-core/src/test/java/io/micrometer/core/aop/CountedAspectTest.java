@@ -64,6 +64,43 @@ class CountedAspectTest {
         assertThat(counter.getId().getDescription()).isNull();
     }
 
+    @Test
+    void countedRepeatedly() {
+        countedService.succeedWithMetrics();
+        countedService.succeedWithMetrics();
+        try {
+            countedService.fail();
+        } catch (Exception ignored) {
+        }
+        try {
+            countedService.fail();
+        } catch (Exception ignored) {
+        }
+
+        assertThat(meterRegistry.get("metric.success").tag("result", "success").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("metric.failing").tag("exception", "RuntimeException").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void countedAfterCounterIsRemoved() {
+        countedService.succeedWithMetrics();
+        try {
+            countedService.fail();
+        } catch (Exception ignored) {
+        }
+
+        meterRegistry.clear();
+
+        countedService.succeedWithMetrics();
+        try {
+            countedService.fail();
+        } catch (Exception ignored) {
+        }
+
+        assertThat(meterRegistry.get("metric.success").tag("result", "success").counter().count()).isOne();
+        assertThat(meterRegistry.get("metric.failing").tag("exception", "RuntimeException").counter().count()).isOne();
+    }
+
     @Test
     void countedWithSkipPredicate() {
         CountedService countedService = getAdvisedService(
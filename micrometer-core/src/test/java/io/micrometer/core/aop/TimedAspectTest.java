@@ -19,6 +19,8 @@ import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.LongTaskTimer;
 import io.micrometer.core.instrument.Meter.Id;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.core.instrument.distribution.pause.PauseDetector;
@@ -32,6 +34,7 @@ import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
 import javax.annotation.Nonnull;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static java.util.concurrent.CompletableFuture.supplyAsync;
@@ -56,6 +59,83 @@ class TimedAspectTest {
                 .timer().count()).isEqualTo(1);
     }
 
+    @Test
+    void timeMethodRepeatedly() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory pf = new AspectJProxyFactory(new TimedService());
+        pf.addAspect(new TimedAspect(registry));
+
+        TimedService service = pf.getProxy();
+
+        service.call();
+        service.call();
+
+        assertThat(registry.get("call")
+                .tag("class", "io.micrometer.core.aop.TimedAspectTest$TimedService")
+                .tag("method", "call")
+                .tag("extra", "tag")
+                .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void timeMethodAfterTimerIsRemoved() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory pf = new AspectJProxyFactory(new TimedService());
+        pf.addAspect(new TimedAspect(registry));
+
+        TimedService service = pf.getProxy();
+
+        service.call();
+        registry.clear();
+        service.call();
+
+        assertThat(registry.get("call")
+                .tag("class", "io.micrometer.core.aop.TimedAspectTest$TimedService")
+                .tag("method", "call")
+                .tag("extra", "tag")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void timeMethodWithLongTaskTimerAfterTimerIsRemoved() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory pf = new AspectJProxyFactory(new TimedService());
+        pf.addAspect(new TimedAspect(registry));
+
+        TimedService service = pf.getProxy();
+
+        service.longCall();
+        registry.remove(registry.get("longCall").longTaskTimer());
+        service.longCall();
+
+        assertThat(registry.get("longCall")
+                .tag("class", "io.micrometer.core.aop.TimedAspectTest$TimedService")
+                .tag("method", "longCall")
+                .tag("extra", "tag")
+                .longTaskTimers()).hasSize(1);
+    }
+
+    @Test
+    void timeMethodWithTagsBasedOnJoinPointArguments() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory pf = new AspectJProxyFactory(new TimedService());
+        pf.addAspect(new TimedAspect(registry, (Function<ProceedingJoinPoint, Iterable<Tag>>) pjp ->
+                Tags.of("arg", String.valueOf(pjp.getArgs()[0]))));
+
+        TimedService service = pf.getProxy();
+
+        service.callWithArg("a");
+        service.callWithArg("b");
+        service.callWithArg("b");
+
+        assertThat(registry.get("callWithArg").tag("arg", "a").timer().count()).isEqualTo(1);
+        assertThat(registry.get("callWithArg").tag("arg", "b").timer().count()).isEqualTo(2);
+    }
+
     @Test
     void timeMethodWithSkipPredicate() {
         MeterRegistry registry = new SimpleMeterRegistry();
@@ -317,6 +397,10 @@ class TimedAspectTest {
         @Timed(value = "longCall", extraTags = {"extra", "tag"}, longTask = true)
         void longCall() {
         }
+
+        @Timed("callWithArg")
+        void callWithArg(String arg) {
+        }
     }
 
     static class AsyncTimedService {
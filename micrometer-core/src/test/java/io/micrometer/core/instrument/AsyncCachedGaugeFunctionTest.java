@@ -0,0 +1,143 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncCachedGaugeFunctionTest {
+    private final MockClock clock = new MockClock();
+    private final MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    private final List<String> list = Arrays.asList("a", "b", "c");
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void servesCachedValueComputedInTheBackground() throws InterruptedException {
+        CountDownLatch evaluated = new CountDownLatch(1);
+
+        Gauge gauge = Gauge.builder("my.gauge", list, l -> {
+            evaluations.incrementAndGet();
+            evaluated.countDown();
+            return l.size();
+        }).asyncRefresh(Duration.ofHours(1), executor).register(registry);
+
+        // refreshing starts at registration, before the gauge is observed
+        assertThat(evaluated.await(10, TimeUnit.SECONDS)).isTrue();
+        awaitPendingRefreshes();
+
+        assertThat(gauge.value()).isEqualTo(3.0);
+        assertThat(gauge.value()).isEqualTo(3.0);
+        assertThat(evaluations.get()).isEqualTo(1);
+
+        clock.add(5, TimeUnit.SECONDS);
+        assertThat(registry.get("my.gauge.age").timeGauge().value(TimeUnit.SECONDS)).isEqualTo(5.0);
+    }
+
+    @Test
+    void ageIsNotReportedBeforeFirstRefresh() {
+        CountDownLatch paused = new CountDownLatch(1);
+        executor.execute(() -> awaitUninterruptibly(paused));
+
+        Gauge gauge = Gauge.builder("my.gauge", list, List::size).asyncRefresh(Duration.ofHours(1), executor).register(registry);
+
+        assertThat(gauge.value()).isNaN();
+        assertThat(registry.get("my.gauge.age").timeGauge().value()).isNaN();
+        paused.countDown();
+    }
+
+    @Test
+    void stopsRefreshingOnceGaugeIsRemoved() throws InterruptedException {
+        AsyncCachedGaugeFunction<List<String>> f = new AsyncCachedGaugeFunction<>(registry, "my.gauge", list,
+                this::countedSize, true, Duration.ofHours(1), executor);
+        Gauge gauge = f.register(new Meter.Id("my.gauge", Tags.empty(), null, null, Meter.Type.GAUGE), list);
+        awaitPendingRefreshes();
+        assertThat(evaluations.get()).isEqualTo(1);
+
+        registry.remove(gauge);
+        f.refresh();
+
+        assertThat(evaluations.get()).isEqualTo(1);
+        assertThat(registry.find("my.gauge.age").timeGauge()).isNull();
+    }
+
+    @Test
+    void existingGaugeIsNotRefreshedAndHasNoAge() throws InterruptedException {
+        Gauge existing = Gauge.builder("my.gauge", list, l -> 42).register(registry);
+
+        Gauge gauge = Gauge.builder("my.gauge", list, this::countedSize).asyncRefresh(Duration.ofHours(1), executor)
+                .register(registry);
+        awaitPendingRefreshes();
+
+        assertThat(gauge).isSameAs(existing);
+        assertThat(gauge.value()).isEqualTo(42);
+        assertThat(evaluations.get()).isZero();
+        assertThat(registry.find("my.gauge.age").timeGauge()).isNull();
+    }
+
+    @Test
+    void deniedGaugeIsNotRefreshedAndHasNoAge() throws InterruptedException {
+        registry.config().meterFilter(MeterFilter.deny(id -> id.getName().equals("my.gauge")));
+
+        Gauge.builder("my.gauge", list, this::countedSize).asyncRefresh(Duration.ofHours(1), executor).register(registry);
+        awaitPendingRefreshes();
+
+        assertThat(evaluations.get()).isZero();
+        assertThat(registry.find("my.gauge.age").timeGauge()).isNull();
+    }
+
+    private double countedSize(List<String> l) {
+        evaluations.incrementAndGet();
+        return l.size();
+    }
+
+    /**
+     * Wait until the executor has run the refreshes that were due, which run immediately once scheduled.
+     */
+    private void awaitPendingRefreshes() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(done::countDown);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,10 +21,14 @@ import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.core.instrument.distribution.pause.PauseDetector;
 import io.micrometer.core.instrument.noop.NoopCounter;
 import io.micrometer.core.instrument.noop.NoopTimer;
+import io.micrometer.core.instrument.simple.CountingMode;
+import io.micrometer.core.instrument.simple.SimpleConfig;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -196,4 +200,79 @@ class MeterRegistryTest {
 
         assertThat(registry.get("my.gauge").gauge().value()).isEqualTo(1d);
     }
+
+    @Test
+    void idleMetersAreRemovedAfterExpiry() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        registry.config().idleMeterExpiry(Duration.ofMinutes(5));
+
+        Counter idle = registry.counter("idle");
+        Counter active = registry.counter("active");
+        idle.increment();
+        active.increment();
+        registry.removeIdleMeters();
+
+        for (int i = 0; i < 5; i++) {
+            clock.add(Duration.ofMinutes(1));
+            active.increment();
+            registry.removeIdleMeters();
+        }
+
+        assertThat(registry.find("idle").counter()).isNull();
+        assertThat(registry.find("active").counter()).isSameAs(active);
+    }
+
+    @Test
+    void gaugesAreNotRemovedWhenIdle() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        registry.config().idleMeterExpiry(Duration.ofMinutes(1));
+
+        registry.gauge("gauge", new AtomicInteger(1));
+        registry.removeIdleMeters();
+        clock.add(Duration.ofMinutes(2));
+        registry.removeIdleMeters();
+
+        assertThat(registry.find("gauge").gauge()).isNotNull();
+    }
+
+    @Test
+    void idleMetersAreNotRemovedWithoutExpiry() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+
+        registry.counter("idle");
+        registry.removeIdleMeters();
+        clock.add(Duration.ofDays(1));
+        registry.removeIdleMeters();
+
+        assertThat(registry.find("idle").counter()).isNotNull();
+    }
+
+    @Test
+    void steadyRateStepCounterIsNotRemovedAsIdle() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(new SimpleConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public CountingMode mode() {
+                return CountingMode.STEP;
+            }
+        }, clock);
+        registry.config().idleMeterExpiry(Duration.ofMinutes(3));
+
+        Counter counter = registry.counter("steady");
+        for (int i = 0; i < 10; i++) {
+            counter.increment();
+            clock.add(SimpleConfig.DEFAULT.step());
+            registry.removeIdleMeters();
+        }
+
+        assertThat(registry.find("steady").counter()).isSameAs(counter);
+    }
 }
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JmxAttributeCacheTest {
+    private final MBeanServer delegate = MBeanServerFactory.newMBeanServer();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final MBeanServer mBeanServer = (MBeanServer) Proxy.newProxyInstance(MBeanServer.class.getClassLoader(),
+            new Class<?>[]{MBeanServer.class}, (proxy, method, args) -> {
+                if (method.getName().startsWith("getAttribute")) {
+                    roundTrips.incrementAndGet();
+                }
+                try {
+                    return method.invoke(delegate, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+
+    private final Pool pool = new Pool();
+    private final ObjectName name;
+
+    JmxAttributeCacheTest() throws Exception {
+        name = new ObjectName("test:type=Pool");
+        delegate.registerMBean(pool, name);
+    }
+
+    @AfterEach
+    void unregister() throws Exception {
+        if (delegate.isRegistered(name)) {
+            delegate.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void readsAllAttributesOfAnObjectInOneRoundTripPerPoll() {
+        JmxAttributeCache cache = new JmxAttributeCache(mBeanServer);
+
+        // the first poll discovers which attributes are used
+        poll(cache);
+        roundTrips.set(0);
+
+        pool.active = 5;
+        assertThat(cache.getDouble(name, "Active")).isEqualTo(5.0);
+        assertThat(cache.getLong(name, "Idle")).isEqualTo(2);
+        assertThat(cache.getAttribute(name, "Name")).isEqualTo("pool");
+        assertThat(roundTrips.get()).isEqualTo(1);
+
+        // reading an attribute again starts the next poll
+        pool.active = 6;
+        assertThat(cache.getDouble(name, "Active")).isEqualTo(6.0);
+        assertThat(roundTrips.get()).isEqualTo(2);
+    }
+
+    @Test
+    void unavailableAttributesAndObjects() throws Exception {
+        JmxAttributeCache cache = new JmxAttributeCache(mBeanServer);
+
+        assertThat(cache.getDouble(name, "Missing")).isNaN();
+        assertThat(cache.getLong(name, "Name")).isEqualTo(0);
+        assertThat(cache.isRegistered(name)).isTrue();
+
+        delegate.unregisterMBean(name);
+        poll(cache);
+
+        assertThat(cache.getDouble(name, "Active")).isNaN();
+        assertThat(cache.isRegistered(name)).isFalse();
+    }
+
+    private void poll(JmxAttributeCache cache) {
+        cache.getDouble(name, "Active");
+        cache.getLong(name, "Idle");
+        cache.getAttribute(name, "Name");
+    }
+
+    public interface PoolMBean {
+        int getActive();
+
+        int getIdle();
+
+        String getName();
+    }
+
+    static class Pool implements PoolMBean {
+        volatile int active = 1;
+
+        @Override
+        public int getActive() {
+            return active;
+        }
+
+        @Override
+        public int getIdle() {
+            return 2;
+        }
+
+        @Override
+        public String getName() {
+            return "pool";
+        }
+    }
+}
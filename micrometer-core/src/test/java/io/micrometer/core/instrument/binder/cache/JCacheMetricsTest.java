@@ -183,7 +183,11 @@ class JCacheMetricsTest extends AbstractCacheMetricsTest {
 
         @Override
         public AttributeList getAttributes(String[] attributes) {
-            return null;
+            AttributeList attributeList = new AttributeList();
+            for (String attribute : attributes) {
+                attributeList.add(new Attribute(attribute, expectedAttributeValue));
+            }
+            return attributeList;
         }
 
         @Override
@@ -16,6 +16,7 @@
 package io.micrometer.core.instrument.binder.db;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hsqldb.jdbc.JDBCDataSource;
 import org.junit.jupiter.api.AfterEach;
@@ -24,8 +25,10 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 /**
  * @author Jon Schneider
@@ -63,6 +66,17 @@ class DatabaseTableMetricsTest {
                 .gauge().value()).isEqualTo(1.0);
     }
 
+    @Test
+    void rowCountGaugeRefreshedInTheBackground() {
+        new DatabaseTableMetrics(ds, "SELECT COUNT(1) FROM foo", "mydb", "foo", Tags.empty(), Duration.ofMinutes(1))
+                .bindTo(registry);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(registry.get("db.table.size")
+                .tag("table", "foo")
+                .gauge().value()).isEqualTo(1.0));
+        assertThat(registry.get("db.table.size.age").timeGauge()).isNotNull();
+    }
+
     @Test
     void rowCountForNonExistentTable() {
         DatabaseTableMetrics.monitor(registry, "dne", "mydb", ds);
@@ -15,11 +15,27 @@
  */
 package io.micrometer.core.instrument.binder.db;
 
+import io.micrometer.core.instrument.Measurement;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleConfig;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -92,4 +108,143 @@ class PostgreSQLDatabaseMetricsTest {
 
         assertThat(result).isEqualTo(14);
     }
+
+    @Test
+    void shouldFetchAllStatisticsOnOneConnectionPerRefresh() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("size", 1024L);
+        stats.put("connections", 3L);
+        stats.put("tup_fetched", 10L);
+        stats.put("n_dead_tup", 7L);
+        stats.put("buffers_clean", 42L);
+        StatsDataSource dataSource = new StatsDataSource(stats);
+
+        new PostgreSQLDatabaseMetrics(dataSource.get(), DATABASE_NAME, Tags.empty(), Duration.ofSeconds(10)).bindTo(registry);
+
+        registry.getMeters().forEach(meter -> meter.measure().forEach(Measurement::getValue));
+        assertThat(dataSource.connections.get()).isEqualTo(1);
+        assertThat(dataSource.queries.get()).isEqualTo(2);
+        assertThat(dataSource.database).isEqualTo(DATABASE_NAME);
+
+        assertThat(registry.get("postgres.size").gauge().value()).isEqualTo(1024);
+        assertThat(registry.get("postgres.connections").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(10);
+        assertThat(registry.get("postgres.rows.dead").gauge().value()).isEqualTo(7);
+        assertThat(registry.get("postgres.buffers.clean").functionCounter().count()).isEqualTo(42);
+        assertThat(registry.get("postgres.locks").gauge().value()).isEqualTo(0);
+        assertThat(dataSource.queries.get()).isEqualTo(2);
+
+        stats.put("tup_fetched", 15L);
+        clock.add(10, TimeUnit.SECONDS);
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(15);
+        assertThat(registry.get("postgres.size").gauge().value()).isEqualTo(1024);
+        assertThat(dataSource.connections.get()).isEqualTo(2);
+        assertThat(dataSource.queries.get()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldKeepLastValuesOfStatisticsWhoseQueryFails() {
+        MockClock clock = new MockClock();
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("tup_fetched", 10L);
+        stats.put("buffers_clean", 42L);
+        StatsDataSource dataSource = new StatsDataSource(stats);
+        dataSource.failing.add(PostgreSQLDatabaseMetrics.QUERY_BGWRITER_STATS);
+
+        new PostgreSQLDatabaseMetrics(dataSource.get(), DATABASE_NAME, Tags.empty(), Duration.ofSeconds(10)).bindTo(registry);
+
+        // the background writer statistics were never fetched, but the database statistics still are
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(10);
+        assertThat(registry.get("postgres.buffers.clean").functionCounter().count()).isNaN();
+
+        dataSource.failing.clear();
+        clock.add(10, TimeUnit.SECONDS);
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(10);
+        assertThat(registry.get("postgres.buffers.clean").functionCounter().count()).isEqualTo(42);
+
+        dataSource.failing.add(PostgreSQLDatabaseMetrics.QUERY_DATABASE_STATS);
+        stats.put("tup_fetched", 15L);
+        clock.add(10, TimeUnit.SECONDS);
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(10);
+
+        // a failed query is not mistaken for a pg_stat_reset once it recovers
+        dataSource.failing.clear();
+        clock.add(10, TimeUnit.SECONDS);
+        assertThat(registry.get("postgres.rows.fetched").functionCounter().count()).isEqualTo(15);
+    }
+
+    /**
+     * An in-memory stand-in for a PostgreSQL data source that answers each statistics query with a single row, or fails
+     * the queries in {@link #failing}.
+     */
+    private static class StatsDataSource {
+        private final Map<String, Long> stats;
+        private final Set<String> failing = new HashSet<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger queries = new AtomicInteger();
+        private String database;
+
+        StatsDataSource(Map<String, Long> stats) {
+            this.stats = stats;
+        }
+
+        DataSource get() {
+            return proxy(DataSource.class, (dataSourceMethod, dataSourceArgs) -> {
+                assertThat(dataSourceMethod).isEqualTo("getConnection");
+                connections.incrementAndGet();
+                return proxy(Connection.class, (connectionMethod, connectionArgs) -> {
+                    if (connectionMethod.equals("close")) {
+                        return null;
+                    }
+                    assertThat(connectionMethod).isEqualTo("prepareStatement");
+                    String query = (String) connectionArgs[0];
+                    assertThat(query).isIn(PostgreSQLDatabaseMetrics.QUERY_DATABASE_STATS,
+                            PostgreSQLDatabaseMetrics.QUERY_BGWRITER_STATS);
+                    return proxy(PreparedStatement.class, (statementMethod, statementArgs) -> {
+                        switch (statementMethod) {
+                            case "setString":
+                                database = (String) statementArgs[1];
+                                return null;
+                            case "executeQuery":
+                                queries.incrementAndGet();
+                                if (failing.contains(query)) {
+                                    throw new SQLException("permission denied for " + query);
+                                }
+                                return resultSet();
+                            default:
+                                return null;
+                        }
+                    });
+                });
+            });
+        }
+
+        private ResultSet resultSet() {
+            AtomicInteger row = new AtomicInteger();
+            return proxy(ResultSet.class, (method, args) -> {
+                switch (method) {
+                    case "next":
+                        return row.getAndIncrement() == 0;
+                    case "getLong":
+                        return stats.getOrDefault((String) args[0], 0L);
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, JdbcMethodHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> handler.invoke(method.getName(), args));
+        }
+    }
+
+    @FunctionalInterface
+    private interface JdbcMethodHandler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
 }
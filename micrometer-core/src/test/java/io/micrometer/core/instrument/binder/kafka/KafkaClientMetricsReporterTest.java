@@ -0,0 +1,160 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.stats.Value;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Time;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.apache.kafka.clients.producer.ProducerConfig.BOOTSTRAP_SERVERS_CONFIG;
+import static org.apache.kafka.clients.producer.ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG;
+import static org.apache.kafka.clients.producer.ProducerConfig.METRIC_REPORTER_CLASSES_CONFIG;
+import static org.apache.kafka.clients.producer.ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaClientMetricsReporterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final KafkaClientMetricsReporter reporter = new KafkaClientMetricsReporter();
+
+    @BeforeEach
+    void configure() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(KafkaClientMetricsReporter.METER_REGISTRY_CONFIG, registry);
+        configs.put(KafkaClientMetricsReporter.TAGS_CONFIG, Tags.of("app", "test"));
+        reporter.configure(configs);
+    }
+
+    @Test
+    void addsAndRemovesMetersAsMetricsChange() {
+        KafkaMetric metric = metric("records-lag-max", "consumer-fetch-manager-metrics", Collections.singletonMap("client-id", "c1"));
+
+        reporter.init(Collections.singletonList(metric));
+        assertThat(registry.get("kafka.consumer.fetch.manager.records.lag.max")
+                .tags("client.id", "c1", "app", "test").gauge()).isNotNull();
+
+        reporter.metricRemoval(metric);
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    @Test
+    void registersOnlyTheVariantWithMostTags() {
+        KafkaMetric lessTags = metric("records-lag-max", "consumer-fetch-manager-metrics", Collections.singletonMap("client-id", "c1"));
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("client-id", "c1");
+        tags.put("topic", "t1");
+        KafkaMetric moreTags = metric("records-lag-max", "consumer-fetch-manager-metrics", tags);
+
+        reporter.metricChange(lessTags);
+        reporter.metricChange(moreTags);
+        assertThat(registry.find("kafka.consumer.fetch.manager.records.lag.max").gauges()).hasSize(1);
+        assertThat(registry.get("kafka.consumer.fetch.manager.records.lag.max").tag("topic", "t1").gauge()).isNotNull();
+
+        reporter.metricRemoval(moreTags);
+        assertThat(registry.find("kafka.consumer.fetch.manager.records.lag.max").gauges()).hasSize(1);
+        assertThat(registry.find("kafka.consumer.fetch.manager.records.lag.max").tagKeys("topic").gauge()).isNull();
+    }
+
+    @Test
+    void changedMetricOnlyReplacesItsOwnMeter() {
+        KafkaMetric c1 = metric("records-lag-max", "consumer-fetch-manager-metrics", Collections.singletonMap("client-id", "c1"));
+        KafkaMetric c2 = metric("records-lag-max", "consumer-fetch-manager-metrics", Collections.singletonMap("client-id", "c2"));
+        reporter.init(Arrays.asList(c1, c2));
+
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        registry.config().onMeterAdded(meter -> added.incrementAndGet());
+        registry.config().onMeterRemoved(meter -> removed.incrementAndGet());
+
+        reporter.metricChange(c2);
+
+        assertThat(added.get()).isEqualTo(1);
+        assertThat(removed.get()).isEqualTo(1);
+        assertThat(registry.find("kafka.consumer.fetch.manager.records.lag.max").gauges()).hasSize(2);
+    }
+
+    @Test
+    void registersStartTimeButNotOtherAppInfo() {
+        reporter.metricChange(metric("start-time-ms", "app-info", Collections.singletonMap("client-id", "c1")));
+        reporter.metricChange(metric("count", "kafka-metrics-count", Collections.singletonMap("client-id", "c1")));
+
+        assertThat(registry.getMeters()).hasSize(1);
+        assertThat(registry.get("kafka.app.info.start.time.ms").tags("client.id", "c1", "app", "test").gauge()).isNotNull();
+    }
+
+    @Test
+    void registersTheSameMetersAsKafkaClientMetrics() {
+        MeterRegistry polledRegistry = new SimpleMeterRegistry();
+        Properties producerConfig = new Properties();
+        producerConfig.put(BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        producerConfig.put(KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerConfig.put(VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerConfig.put(METRIC_REPORTER_CLASSES_CONFIG, KafkaClientMetricsReporter.class.getName());
+        producerConfig.put(KafkaClientMetricsReporter.METER_REGISTRY_CONFIG, registry);
+
+        try (Producer<String, String> producer = new KafkaProducer<>(producerConfig);
+             KafkaClientMetrics metrics = new KafkaClientMetrics(producer)) {
+            metrics.bindTo(polledRegistry);
+
+            assertThat(meterIds(registry)).isEqualTo(meterIds(polledRegistry));
+            assertThat(meterIds(registry)).contains("kafka.app.info.start.time.ms " + Collections.singleton("client.id"));
+        }
+    }
+
+    @Test
+    void closeRemovesAllMeters() {
+        reporter.metricChange(metric("a", "b", Collections.emptyMap()));
+        reporter.metricChange(metric("request-total", "producer-metrics", Collections.emptyMap()));
+        assertThat(registry.getMeters()).hasSize(2);
+
+        reporter.close();
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private static Set<String> meterIds(MeterRegistry registry) {
+        return registry.getMeters().stream()
+                .map(meter -> meter.getId().getName() + " " + meter.getId().getTags().stream()
+                        .map(Tag::getKey)
+                        .filter(key -> !key.equals("kafka.version"))
+                        .collect(Collectors.toCollection(TreeSet::new)))
+                .collect(Collectors.toSet());
+    }
+
+    private KafkaMetric metric(String name, String group, Map<String, String> tags) {
+        return new KafkaMetric(this, new MetricName(name, group, "", tags), new Value(), new MetricConfig(), Time.SYSTEM);
+    }
+}
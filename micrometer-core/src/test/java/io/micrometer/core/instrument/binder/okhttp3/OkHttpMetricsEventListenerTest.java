@@ -80,6 +80,54 @@ class OkHttpMetricsEventListenerTest {
                 .timer().count()).isEqualTo(1L);
     }
 
+    @Test
+    void timeSuccessfulWithFactory(@WiremockResolver.Wiremock WireMockServer server) throws IOException {
+        server.stubFor(any(anyUrl()));
+        Request request = new Request.Builder()
+                .url(server.baseUrl())
+                .build();
+
+        OkHttpClient client = new OkHttpClient.Builder()
+                .eventListenerFactory(OkHttpMetricsEventListener.builder(registry, "okhttp.requests")
+                        .tags(Tags.of("foo", "bar"))
+                        .uriMapper(URI_MAPPER)
+                        .buildFactory())
+                .build();
+
+        client.newCall(request).execute().close();
+        client.newCall(request).execute().close();
+
+        assertThat(registry.get("okhttp.requests")
+                .tags("foo", "bar", "status", "200", "uri", URI_EXAMPLE_VALUE,
+                        "target.host", "localhost",
+                        "target.port", String.valueOf(server.port()),
+                        "target.scheme", "http")
+                .timer().count()).isEqualTo(2L);
+    }
+
+    @Test
+    void timersAreRegisteredAgainAfterRemoval(@WiremockResolver.Wiremock WireMockServer server) throws IOException {
+        server.stubFor(any(anyUrl()));
+        Request request = new Request.Builder()
+                .url(server.baseUrl())
+                .build();
+
+        OkHttpMetricsEventListener.Builder builder = OkHttpMetricsEventListener.builder(registry, "okhttp.requests")
+                .uriMapper(URI_MAPPER);
+        OkHttpClient client = new OkHttpClient.Builder().eventListener(builder.build()).build();
+        OkHttpClient factoryClient = new OkHttpClient.Builder().eventListenerFactory(builder.buildFactory()).build();
+
+        client.newCall(request).execute().close();
+        factoryClient.newCall(request).execute().close();
+        registry.clear();
+        client.newCall(request).execute().close();
+        factoryClient.newCall(request).execute().close();
+
+        assertThat(registry.get("okhttp.requests")
+                .tags("status", "200", "uri", URI_EXAMPLE_VALUE)
+                .timer().count()).isEqualTo(2L);
+    }
+
     @Test
     void timeNotFound(@WiremockResolver.Wiremock WireMockServer server) throws IOException {
         server.stubFor(any(anyUrl()).willReturn(aResponse().withStatus(404)));
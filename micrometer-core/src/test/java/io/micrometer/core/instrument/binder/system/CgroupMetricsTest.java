@@ -0,0 +1,165 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.system;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CgroupMetrics}.
+ */
+class CgroupMetricsTest {
+
+    @TempDir
+    Path root;
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void cgroupV2() throws IOException {
+        write("cgroup.controllers", "cpuset cpu io memory pids\n");
+        write("proc/self/cgroup", "0::/system.slice/app.service\n");
+        Path cgroup = root.resolve("system.slice/app.service");
+        write(cgroup, "cpu.stat", "usage_usec 2500000\nuser_usec 2000000\nsystem_usec 500000\n" +
+                "nr_periods 100\nnr_throttled 12\nthrottled_usec 1500000\n");
+        write(cgroup, "cpu.max", "150000 100000\n");
+        write(cgroup, "memory.current", "104857600\n");
+        write(cgroup, "memory.max", "max\n");
+        write(cgroup, "memory.events", "low 0\nhigh 4\nmax 3\noom 2\noom_kill 1\noom_group_kill 0\n");
+        write(cgroup, "memory.pressure", "some avg10=1.50 avg60=0.75 avg300=0.10 total=2000000\n" +
+                "full avg10=0.50 avg60=0.25 avg300=0.00 total=1000000\n");
+        write(cgroup, "cpu.pressure", "some avg10=12.00 avg60=6.00 avg300=3.00 total=4000000\n");
+
+        new CgroupMetrics(Tags.of("k", "v"), root, root.resolve("proc/self/cgroup")).bindTo(registry);
+
+        assertThat(registry.get("cgroup.cpu.limit").tag("k", "v").gauge().value()).isEqualTo(1.5);
+        assertThat(registry.get("cgroup.cpu.time").timeGauge().value(TimeUnit.SECONDS)).isEqualTo(2.5);
+        assertThat(registry.get("cgroup.cpu.periods").functionCounter().count()).isEqualTo(100);
+        FunctionTimer throttled = registry.get("cgroup.cpu.throttled").functionTimer();
+        assertThat(throttled.count()).isEqualTo(12);
+        assertThat(throttled.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(1500);
+
+        assertThat(registry.get("cgroup.memory.usage").gauge().value()).isEqualTo(104857600);
+        assertThat(registry.get("cgroup.memory.limit").gauge().value()).isNaN();
+        assertThat(registry.get("cgroup.memory.events").tag("event", "high").functionCounter().count()).isEqualTo(4);
+        assertThat(registry.get("cgroup.memory.events").tag("event", "max").functionCounter().count()).isEqualTo(3);
+        assertThat(registry.get("cgroup.memory.events").tag("event", "oom").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cgroup.memory.events").tag("event", "oom_kill").functionCounter().count()).isEqualTo(1);
+
+        assertThat(registry.get("cgroup.pressure").tags("resource", "memory", "kind", "some", "window", "10s").gauge().value())
+                .isEqualTo(0.015);
+        assertThat(registry.get("cgroup.pressure").tags("resource", "memory", "kind", "full", "window", "60s").gauge().value())
+                .isEqualTo(0.0025);
+        assertThat(registry.get("cgroup.pressure").gauge().getId().getBaseUnit()).isNull();
+        assertThat(registry.get("cgroup.pressure.stalled").tags("resource", "memory", "kind", "full").timeGauge()
+                .value(TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(registry.get("cgroup.pressure").tags("resource", "cpu", "kind", "some", "window", "300s").gauge().value())
+                .isEqualTo(0.03);
+        assertThat(registry.get("cgroup.pressure.stalled").tags("resource", "cpu", "kind", "some").timeGauge()
+                .value(TimeUnit.SECONDS)).isEqualTo(4);
+        // no full line for cpu and no io.pressure
+        assertThat(registry.find("cgroup.pressure").tags("resource", "cpu", "kind", "full").gauge()).isNull();
+        assertThat(registry.find("cgroup.pressure").tags("resource", "io").gauge()).isNull();
+    }
+
+    @Test
+    void valuesAreReadAgainOnTheNextPoll() throws IOException {
+        write("cgroup.controllers", "cpu memory\n");
+        write("cpu.stat", "usage_usec 1000000\nnr_periods 10\nnr_throttled 1\nthrottled_usec 100000\n");
+        write("cpu.max", "max 100000\n");
+        new CgroupMetrics(Tags.empty(), root, root.resolve("missing")).bindTo(registry);
+
+        assertThat(registry.get("cgroup.cpu.limit").gauge().value()).isNaN();
+        assertThat(registry.get("cgroup.cpu.throttled").functionTimer().count()).isEqualTo(1);
+        // memory controller files are missing
+        assertThat(registry.find("cgroup.memory.usage").gauge()).isNull();
+
+        write("cpu.stat", "usage_usec 2000000\nnr_periods 20\nnr_throttled 5\nthrottled_usec 700000\n");
+        write("cpu.max", "50000 100000\n");
+        assertThat(registry.get("cgroup.cpu.limit").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("cgroup.cpu.throttled").functionTimer().count()).isEqualTo(5);
+        assertThat(registry.get("cgroup.cpu.throttled").functionTimer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(700);
+    }
+
+    @Test
+    void cgroupV1() throws IOException {
+        write("proc/self/cgroup", "12:memory:/docker/abc\n11:cpu,cpuacct:/docker/abc\n1:name=systemd:/docker/abc\n");
+        write("cpu/docker/abc/cpu.stat", "nr_periods 50\nnr_throttled 7\nthrottled_time 2500000000\n");
+        write("cpu/docker/abc/cpu.cfs_quota_us", "200000\n");
+        write("cpu/docker/abc/cpu.cfs_period_us", "100000\n");
+        write("cpuacct/docker/abc/cpuacct.usage", "12000000000\n");
+        // a container with its own cgroup namespace only sees its own cgroup at the root of each hierarchy
+        write("memory/memory.usage_in_bytes", "52428800\n");
+        write("memory/memory.limit_in_bytes", "9223372036854771712\n");
+        write("memory/memory.failcnt", "9\n");
+        write("memory/memory.oom_control", "oom_kill_disable 0\nunder_oom 0\noom_kill 2\n");
+
+        new CgroupMetrics(Tags.empty(), root, root.resolve("proc/self/cgroup")).bindTo(registry);
+
+        assertThat(registry.get("cgroup.cpu.limit").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("cgroup.cpu.time").timeGauge().value(TimeUnit.SECONDS)).isEqualTo(12);
+        assertThat(registry.get("cgroup.cpu.periods").functionCounter().count()).isEqualTo(50);
+        assertThat(registry.get("cgroup.cpu.throttled").functionTimer().count()).isEqualTo(7);
+        assertThat(registry.get("cgroup.cpu.throttled").functionTimer().totalTime(TimeUnit.SECONDS)).isEqualTo(2.5);
+        assertThat(registry.get("cgroup.memory.usage").gauge().value()).isEqualTo(52428800);
+        assertThat(registry.get("cgroup.memory.limit").gauge().value()).isNaN();
+        assertThat(registry.get("cgroup.memory.events").tag("event", "max").functionCounter().count()).isEqualTo(9);
+        assertThat(registry.get("cgroup.memory.events").tag("event", "oom_kill").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.find("cgroup.memory.events").tag("event", "oom").functionCounter()).isNull();
+        assertThat(registry.find("cgroup.pressure").gauge()).isNull();
+    }
+
+    @Test
+    void metersAreNaNOnceClosed() throws IOException {
+        write("cgroup.controllers", "cpu memory\n");
+        write("cpu.stat", "usage_usec 1000000\nnr_periods 10\nnr_throttled 1\nthrottled_usec 100000\n");
+        CgroupMetrics cgroupMetrics = new CgroupMetrics(Tags.empty(), root, root.resolve("missing"));
+        cgroupMetrics.bindTo(registry);
+
+        cgroupMetrics.close();
+
+        assertThat(registry.get("cgroup.cpu.periods").functionCounter().count()).isNaN();
+    }
+
+    @Test
+    void noMetricsWithoutCgroups() {
+        new CgroupMetrics(Tags.empty(), root, root.resolve("missing")).bindTo(registry);
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private void write(String file, String content) throws IOException {
+        write(root, file, content);
+    }
+
+    private void write(Path directory, String file, String content) throws IOException {
+        Path path = directory.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.binder.system;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Tests for {@link ProcfsMetrics}.
+ */
+class ProcfsMetricsTest {
+
+    @TempDir
+    Path proc;
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void processAndSystemMetrics() throws IOException {
+        writeProcFiles(100, 50, 1000, 800);
+        new ProcfsMetrics(Tags.of("k", "v"), proc).bindTo(registry);
+
+        assertThat(registry.get("process.threads").tag("k", "v").gauge().value()).isEqualTo(23);
+        assertThat(registry.get("process.memory.rss").gauge().value()).isEqualTo(2048 * 1024);
+        assertThat(registry.get("process.memory.virtual").gauge().value()).isEqualTo(4096 * 1024);
+        assertThat(registry.get("process.memory.swap").gauge().value()).isEqualTo(0);
+        assertThat(registry.get("process.context.switches").tag("type", "voluntary").functionCounter().count()).isEqualTo(17);
+        assertThat(registry.get("process.context.switches").tag("type", "involuntary").functionCounter().count()).isEqualTo(3);
+        assertThat(registry.get("system.load.average.1m").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("system.load.average.5m").gauge().value()).isEqualTo(1.25);
+        assertThat(registry.get("system.load.average.15m").gauge().value()).isEqualTo(2.0);
+        assertThat(registry.get("process.files.open").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("process.files.max").gauge().value()).isEqualTo(1024);
+    }
+
+    @Test
+    void cpuUsageIsTheChangeBetweenPolls() throws IOException {
+        writeProcFiles(100, 50, 1000, 800);
+        new ProcfsMetrics(Tags.empty(), proc).bindTo(registry);
+
+        // 40 of 200 ticks spent by the process, 150 of 200 ticks idle
+        writeProcFiles(130, 60, 1200, 950);
+        assertThat(registry.get("process.cpu.usage").gauge().value()).isEqualTo(0.2, offset(1e-9));
+        assertThat(registry.get("system.cpu.usage").gauge().value()).isEqualTo(0.25, offset(1e-9));
+
+        // reading a meter again starts a new poll
+        writeProcFiles(230, 60, 1600, 1150);
+        assertThat(registry.get("process.cpu.usage").gauge().value()).isEqualTo(0.25, offset(1e-9));
+        assertThat(registry.get("system.cpu.usage").gauge().value()).isEqualTo(0.5, offset(1e-9));
+    }
+
+    @Test
+    void commandNameWithSpacesAndParentheses() throws IOException {
+        writeProcFiles(100, 50, 1000, 800);
+        write("self/stat", "42 (my (odd) cmd) S 1 42 42 0 -1 4194560 100 0 0 0 100 50 0 0 20 0 7 0 1000 0 0");
+        new ProcfsMetrics(Tags.empty(), proc).bindTo(registry);
+
+        assertThat(registry.get("process.threads").gauge().value()).isEqualTo(7);
+    }
+
+    @Test
+    void unlimitedOpenFiles() throws IOException {
+        writeProcFiles(100, 50, 1000, 800);
+        write("self/limits", "Limit                     Soft Limit           Hard Limit           Units     \n" +
+                "Max open files            unlimited            unlimited            files     \n");
+        new ProcfsMetrics(Tags.empty(), proc).bindTo(registry);
+
+        assertThat(registry.find("process.files.max").gauge()).isNull();
+        assertThat(registry.find("process.files.open").gauge()).isNotNull();
+    }
+
+    @Test
+    void metersAreNaNOnceClosed() throws IOException {
+        writeProcFiles(100, 50, 1000, 800);
+        ProcfsMetrics procfsMetrics = new ProcfsMetrics(Tags.empty(), proc);
+        procfsMetrics.bindTo(registry);
+
+        procfsMetrics.close();
+
+        assertThat(registry.get("process.threads").gauge().value()).isNaN();
+    }
+
+    @Test
+    void noMetricsWithoutProcfs() {
+        new ProcfsMetrics(Tags.empty(), proc.resolve("missing")).bindTo(registry);
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    private void writeProcFiles(long utime, long stime, long totalTicks, long idleTicks) throws IOException {
+        write("self/stat", "42 (java) S 1 42 42 0 -1 4194560 100 0 0 0 " + utime + " " + stime +
+                " 0 0 20 0 23 0 1000 4194304 512 18446744073709551615");
+        write("self/status", "Name:\tjava\n" +
+                "VmSize:\t    4096 kB\n" +
+                "VmRSS:\t    2048 kB\n" +
+                "VmSwap:\t       0 kB\n" +
+                "Threads:\t23\n" +
+                "voluntary_ctxt_switches:\t17\n" +
+                "nonvoluntary_ctxt_switches:\t3\n");
+        // idle time is split between idle and iowait
+        long iowait = 10;
+        long user = totalTicks - idleTicks - 20;
+        write("stat", "cpu  " + user + " 0 20 " + (idleTicks - iowait) + " " + iowait + " 0 0 0 0 0\n" +
+                "cpu0 " + user + " 0 20 " + (idleTicks - iowait) + " " + iowait + " 0 0 0 0 0\n" +
+                "intr 1 2 3\n");
+        write("loadavg", "0.50 1.25 2.00 1/123 4567\n");
+        write("self/limits", "Limit                     Soft Limit           Hard Limit           Units     \n" +
+                "Max processes             63459                63459                processes \n" +
+                "Max open files            1024                 4096                 files     \n");
+        Path fd = Files.createDirectories(proc.resolve("self/fd"));
+        for (int i = 0; i < 3; i++) {
+            Path file = fd.resolve(Integer.toString(i));
+            if (!Files.exists(file)) {
+                Files.createFile(file);
+            }
+        }
+    }
+
+    private void write(String file, String content) throws IOException {
+        Path path = proc.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
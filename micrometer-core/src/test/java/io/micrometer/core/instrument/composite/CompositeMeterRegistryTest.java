@@ -32,6 +32,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -488,4 +489,76 @@ class CompositeMeterRegistryTest {
         assertThat(this.simple.getMeters()).isEmpty();
     }
 
+    @Test
+    void sharedAccumulationRecordsCounterOnceAndExposesFunctionCounterToChildren() {
+        SimpleMeterRegistry other = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, Arrays.asList(simple, other), true);
+
+        Counter counter = shared.counter("counter");
+        counter.increment(2);
+
+        assertThat(counter.count()).isEqualTo(2);
+        assertThat(simple.get("counter").functionCounter().count()).isEqualTo(2);
+        assertThat(other.get("counter").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void sharedAccumulationRecordsTimerOnceAndExposesFunctionTimerToChildren() {
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, singletonList(simple), true);
+
+        Timer timer = shared.timer("timer");
+        timer.record(1, TimeUnit.SECONDS);
+        timer.record(3, TimeUnit.SECONDS);
+
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(timer.max(TimeUnit.SECONDS)).isEqualTo(3);
+
+        FunctionTimer child = simple.get("timer").functionTimer();
+        assertThat(child.count()).isEqualTo(2);
+        assertThat(child.totalTime(TimeUnit.SECONDS)).isEqualTo(4);
+    }
+
+    @Test
+    void sharedAccumulationFallsBackToFanOutForTimersWithDistributionStatistics() {
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, singletonList(simple), true);
+
+        Timer.builder("timer").publishPercentiles(0.5).register(shared).record(1, TimeUnit.SECONDS);
+
+        assertThat(simple.get("timer").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedAccumulationFallsBackToFanOutForDistributionSummaries() {
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, singletonList(simple), true);
+
+        DistributionSummary.builder("summary").register(shared).record(3);
+
+        DistributionSummary child = simple.get("summary").summary();
+        assertThat(child.count()).isEqualTo(1);
+        assertThat(child.max()).isEqualTo(3);
+    }
+
+    @Test
+    void sharedAccumulationDoesNotPublishTimerMaxThroughChildren() {
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, singletonList(simple), true);
+
+        shared.timer("timer").record(3, TimeUnit.SECONDS);
+
+        assertThat(simple.find("timer").timer()).isNull();
+        assertThat(simple.get("timer").functionTimer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedAccumulationAddsFunctionMetersToRegistriesAddedLater() {
+        CompositeMeterRegistry shared = new CompositeMeterRegistry(clock, emptyList(), true);
+
+        Counter counter = shared.counter("counter");
+        counter.increment();
+
+        shared.add(simple);
+        counter.increment();
+
+        assertThat(simple.get("counter").functionCounter().count()).isEqualTo(2);
+    }
+
 }
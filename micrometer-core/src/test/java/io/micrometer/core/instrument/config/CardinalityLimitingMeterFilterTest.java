@@ -0,0 +1,104 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link CardinalityLimitingMeterFilter}.
+ */
+class CardinalityLimitingMeterFilterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void excessTagCombinationsAreRedirectedToOverflowSeries() {
+        registry.config().meterFilter(new CardinalityLimitingMeterFilter("http", 2));
+
+        registry.counter("http.requests", "uri", "/a", "status", "200").increment();
+        registry.counter("http.requests", "uri", "/b", "status", "200").increment();
+        registry.counter("http.requests", "uri", "/c", "status", "200").increment();
+        registry.counter("http.requests", "uri", "/d", "status", "500").increment();
+
+        assertThat(registry.get("http.requests").counters()).hasSize(3);
+        assertThat(registry.get("http.requests").tags("uri", "OTHER", "status", "OTHER").counter().count()).isEqualTo(2);
+        assertThat(registry.get("http.requests").counters().stream().mapToDouble(Counter::count).sum()).isEqualTo(4);
+    }
+
+    @Test
+    void admittedCombinationsKeepMappingToThemselves() {
+        registry.config().meterFilter(new CardinalityLimitingMeterFilter("", 1));
+
+        Counter first = registry.counter("my.counter", "k", "v1");
+        registry.counter("my.counter", "k", "v2");
+
+        assertThat(registry.counter("my.counter", "k", "v1")).isSameAs(first);
+    }
+
+    @Test
+    void limitIsAppliedPerMeterName() {
+        registry.config().meterFilter(new CardinalityLimitingMeterFilter("", 1));
+
+        registry.counter("a", "k", "v1");
+        registry.counter("b", "k", "v2");
+
+        assertThat(registry.get("a").tag("k", "v1").counter()).isNotNull();
+        assertThat(registry.get("b").tag("k", "v2").counter()).isNotNull();
+    }
+
+    @Test
+    void namesOutsidePrefixAreNotLimited() {
+        registry.config().meterFilter(new CardinalityLimitingMeterFilter("http", 1));
+
+        registry.counter("jvm.thing", "k", "v1");
+        registry.counter("jvm.thing", "k", "v2");
+
+        assertThat(registry.get("jvm.thing").counters()).hasSize(2);
+    }
+
+    @Test
+    void estimatedCombinationsAreReportedAsGaugeOnceBound() {
+        CardinalityLimitingMeterFilter filter = new CardinalityLimitingMeterFilter("", 10);
+        registry.config().meterFilter(filter);
+        filter.bindTo(registry);
+
+        for (int i = 0; i < 1000; i++) {
+            registry.counter("my.counter", "id", Integer.toString(i));
+        }
+
+        assertThat(registry.get("my.counter").counters()).hasSize(11);
+        assertThat(registry.get("meter.tag.combinations").tag("name", "my.counter").gauge().value())
+                .isCloseTo(1000, within(100.0));
+        assertThat(filter.estimatedTagCombinations("my.counter")).isCloseTo(1000, within(100L));
+    }
+
+    @Test
+    void estimateIsAccurateAcrossCardinalities() {
+        for (int cardinality : new int[] { 10, 1_000, 100_000 }) {
+            HyperLogLog hll = new HyperLogLog(10);
+            for (int i = 0; i < cardinality; i++) {
+                hll.offer(HyperLogLog.mix(i));
+                hll.offer(HyperLogLog.mix(i));
+            }
+            assertThat((double) hll.estimate()).isCloseTo(cardinality, within(cardinality * 0.1));
+        }
+    }
+}
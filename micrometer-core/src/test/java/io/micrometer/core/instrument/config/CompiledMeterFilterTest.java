@@ -0,0 +1,101 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.core.instrument.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MeterFilter#compile(MeterFilter...)}.
+ */
+class CompiledMeterFilterTest {
+    private final List<MeterFilter> filters = new ArrayList<>();
+
+    @Test
+    void compiledFilterBehavesLikeFiltersAppliedInOrder() {
+        filters.add(MeterFilter.commonTags(Tags.of("region", "us-east-1")));
+        for (int i = 0; i < CompiledMeterFilter.MINIMUM_TRIE_RUN; i++) {
+            filters.add(MeterFilter.renameTag("app" + i, "from", "to" + i));
+            filters.add(MeterFilter.maxExpected("app" + i, Duration.ofSeconds(i + 1)));
+        }
+        filters.add(MeterFilter.acceptNameStartsWith("app1.important"));
+        filters.add(MeterFilter.denyNameStartsWith("app1"));
+        filters.add(MeterFilter.deny(id -> id.getName().endsWith(".denied")));
+        filters.add(MeterFilter.ignoreTags("ignored"));
+        filters.add(MeterFilter.minExpected("app", Duration.ofMillis(1)));
+
+        MeterFilter compiled = MeterFilter.compile(filters.toArray(new MeterFilter[0]));
+
+        for (String name : new String[] { "app1.important.timer", "app1.timer", "app12.timer", "app3", "ap", "other",
+                "app2.denied", "" }) {
+            Meter.Id id = new Meter.Id(name, Tags.of("from", "v", "ignored", "x"), null, null, Meter.Type.TIMER);
+
+            Meter.Id expectedId = id;
+            for (MeterFilter filter : filters) {
+                expectedId = filter.map(expectedId);
+            }
+            Meter.Id mappedId = compiled.map(id);
+            assertThat(mappedId).isEqualTo(expectedId);
+            assertThat(mappedId.getTags()).isEqualTo(expectedId.getTags());
+
+            MeterFilterReply expectedReply = MeterFilterReply.NEUTRAL;
+            for (MeterFilter filter : filters) {
+                MeterFilterReply reply = filter.accept(expectedId);
+                if (reply != MeterFilterReply.NEUTRAL) {
+                    expectedReply = reply;
+                    break;
+                }
+            }
+            assertThat(compiled.accept(mappedId)).isEqualTo(expectedReply);
+
+            DistributionStatisticConfig expectedConfig = DistributionStatisticConfig.NONE;
+            for (MeterFilter filter : filters) {
+                DistributionStatisticConfig filtered = filter.configure(expectedId, expectedConfig);
+                if (filtered != null) {
+                    expectedConfig = filtered;
+                }
+            }
+            DistributionStatisticConfig config = compiled.configure(mappedId, DistributionStatisticConfig.NONE);
+            assertThat(config.getMaximumExpectedValueAsDouble()).isEqualTo(expectedConfig.getMaximumExpectedValueAsDouble());
+            assertThat(config.getMinimumExpectedValueAsDouble()).isEqualTo(expectedConfig.getMinimumExpectedValueAsDouble());
+        }
+    }
+
+    @Test
+    void filtersWithNullConfigurationAreSkipped() {
+        filters.add(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return null;
+            }
+        });
+        filters.add(MeterFilter.maxExpected("timer", Duration.ofSeconds(1)));
+
+        Meter.Id id = new Meter.Id("timer", Tags.empty(), null, null, Meter.Type.TIMER);
+        DistributionStatisticConfig config = MeterFilter.compile(filters.toArray(new MeterFilter[0]))
+                .configure(id, DistributionStatisticConfig.NONE);
+
+        assertThat(config.getMaximumExpectedValueAsDouble()).isEqualTo(Duration.ofSeconds(1).toNanos());
+    }
+}
@@ -34,5 +34,14 @@ class DistributionStatisticConfigTest {
 
         assertThat(merged.getPercentiles()).containsExactly(0.90);
         assertThat(merged.getExpiry()).isEqualTo(Duration.ofMinutes(2));
+        assertThat(merged.getHistogramSampleInterval()).isNull();
+    }
+
+    @Test
+    void mergeHistogramSampleInterval() {
+        DistributionStatisticConfig c1 = DistributionStatisticConfig.builder().histogramSampleInterval(10).build();
+        DistributionStatisticConfig c2 = DistributionStatisticConfig.builder().percentiles(0.90).build();
+
+        assertThat(c2.merge(c1).getHistogramSampleInterval()).isEqualTo(10);
     }
 }
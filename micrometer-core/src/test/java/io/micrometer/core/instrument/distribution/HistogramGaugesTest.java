@@ -16,6 +16,7 @@
 package io.micrometer.core.instrument.distribution;
 
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -38,12 +39,36 @@ class HistogramGaugesTest {
                 .serviceLevelObjectives(Duration.ofMillis(1))
                 .register(registry);
 
-        HistogramGauges gauges = HistogramGauges.registerWithCommonFormat(timer, registry);
+        HistogramGauges.registerWithCommonFormat(timer, registry);
 
         timer.record(1, TimeUnit.MILLISECONDS);
-
         assertThat(registry.get("my.timer.histogram").gauge().value()).isEqualTo(1);
-        assertThat(gauges.polledGaugesLatch.getCount()).isEqualTo(0);
+
+        timer.record(1, TimeUnit.MILLISECONDS);
+        assertThat(registry.get("my.timer.histogram").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void gaugesPolledInOneCycleShareOneSnapshotWhenSomeAreDenied() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(MeterFilter.deny(id -> "0.1".equals(id.getTag("le"))));
+
+        Timer timer = Timer.builder("my.timer")
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(10), Duration.ofMillis(100))
+                .register(registry);
+        Gauge le1 = registry.get("my.timer.histogram").tag("le", "0.001").gauge();
+        Gauge le10 = registry.get("my.timer.histogram").tag("le", "0.01").gauge();
+
+        timer.record(1, TimeUnit.MILLISECONDS);
+        assertThat(le1.value()).isEqualTo(1);
+
+        // still the same cycle, so read from the snapshot le1 was read from
+        timer.record(5, TimeUnit.MILLISECONDS);
+        assertThat(le10.value()).isEqualTo(1);
+
+        // polling le1 again starts a new cycle, even though the denied gauge is never polled
+        assertThat(le1.value()).isEqualTo(1);
+        assertThat(le10.value()).isEqualTo(2);
     }
 
     @Test
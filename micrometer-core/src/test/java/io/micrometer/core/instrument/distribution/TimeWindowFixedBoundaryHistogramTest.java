@@ -69,4 +69,47 @@ class TimeWindowFixedBoundaryHistogramTest {
             );
         }
     }
+
+    @Test
+    void sampledHistogramCountsAreScaled() {
+        try (TimeWindowFixedBoundaryHistogram histogram = new TimeWindowFixedBoundaryHistogram(new MockClock(),
+                DistributionStatisticConfig.builder()
+                        .serviceLevelObjectives(5.0, 10.0)
+                        .bufferLength(1)
+                        .histogramSampleInterval(10)
+                        .build()
+                        .merge(DistributionStatisticConfig.DEFAULT), false)) {
+
+            for (int i = 0; i < 100_000; i++) {
+                histogram.recordLong(i % 2 == 0 ? 5 : 10);
+            }
+
+            CountAtBucket[] counts = histogram.takeSnapshot(100_000, 0, 0).histogramCounts();
+            // each recorded sample counts for ten
+            assertThat(counts[0].count() % 10).isZero();
+            assertThat(counts[0].count()).isBetween(45_000.0, 55_000.0);
+            assertThat(counts[1].count()).isBetween(95_000.0, 105_000.0);
+        }
+    }
+
+    @Test
+    void sampledHistogramCountsNeverExceedCount() {
+        try (TimeWindowFixedBoundaryHistogram histogram = new TimeWindowFixedBoundaryHistogram(new MockClock(),
+                DistributionStatisticConfig.builder()
+                        .serviceLevelObjectives(5.0, 10.0)
+                        .bufferLength(1)
+                        .histogramSampleInterval(10)
+                        .build()
+                        .merge(DistributionStatisticConfig.DEFAULT), false)) {
+
+            for (int i = 0; i < 100_000; i++) {
+                histogram.recordLong(5);
+            }
+
+            // as if half of the samples were recorded after the count was read
+            CountAtBucket[] counts = histogram.takeSnapshot(50_000, 0, 0).histogramCounts();
+            assertThat(counts[0].count()).isEqualTo(50_000);
+            assertThat(counts[1].count()).isEqualTo(50_000);
+        }
+    }
 }
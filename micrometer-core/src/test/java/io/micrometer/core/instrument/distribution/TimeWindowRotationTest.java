@@ -78,6 +78,14 @@ class TimeWindowRotationTest {
             .build());
     }
 
+    @ParameterizedTest
+    @MethodSource("histogramTypes")
+    void histogramSampleIntervalValidation(Class<? extends AbstractTimeWindowHistogram<?, ?>> histogramType) {
+        expectValidationFailure(histogramType, DistributionStatisticConfig.builder()
+            .histogramSampleInterval(0)
+            .build());
+    }
+
     @ParameterizedTest
     @MethodSource("histogramTypes")
     void bufferLengthValidation(Class<? extends AbstractTimeWindowHistogram<?, ?>> histogramType) {
@@ -17,6 +17,7 @@ package io.micrometer.core.instrument.step;
 
 import io.micrometer.core.Issue;
 import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.config.MeterFilter;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
@@ -53,7 +54,7 @@ class StepMeterRegistryTest {
         }
     };
 
-    private MeterRegistry registry = new StepMeterRegistry(config, clock) {
+    private StepMeterRegistry registry = new StepMeterRegistry(config, clock) {
         @Override
         protected void publish() {
             publishes.incrementAndGet();
@@ -77,19 +78,65 @@ class StepMeterRegistryTest {
         Timer timer = Timer.builder("my.timer").serviceLevelObjectives(ofMillis(1)).register(registry);
         timer.record(1, MILLISECONDS);
 
-        Gauge summaryHist1 = registry.get("my.summary.histogram").tags("le", "1").gauge();
-        Gauge summaryHist2 = registry.get("my.summary.histogram").tags("le", "2").gauge();
-        Gauge timerHist = registry.get("my.timer.histogram").tags("le", "0.001").gauge();
-
-        assertThat(summaryHist1.value()).isEqualTo(1);
-        assertThat(summaryHist2.value()).isEqualTo(1);
-        assertThat(timerHist.value()).isEqualTo(1);
+        assertThat(publishedGauge("my.summary.histogram", "le", "1").value()).isEqualTo(1);
+        assertThat(publishedGauge("my.summary.histogram", "le", "2").value()).isEqualTo(1);
+        assertThat(publishedGauge("my.timer.histogram", "le", "0.001").value()).isEqualTo(1);
 
         clock.add(config.step());
 
-        assertThat(summaryHist1.value()).isEqualTo(0);
-        assertThat(summaryHist2.value()).isEqualTo(0);
-        assertThat(timerHist.value()).isEqualTo(0);
+        assertThat(publishedGauge("my.summary.histogram", "le", "1").value()).isEqualTo(0);
+        assertThat(publishedGauge("my.summary.histogram", "le", "2").value()).isEqualTo(0);
+        assertThat(publishedGauge("my.timer.histogram", "le", "0.001").value()).isEqualTo(0);
+    }
+
+    @Test
+    void histogramGaugesAreOnlyExpandedWhenPublishing() {
+        Timer timer = Timer.builder("my.timer")
+                .serviceLevelObjectives(ofMillis(1), ofMillis(10))
+                .publishPercentiles(0.5)
+                .register(registry);
+        timer.record(1, MILLISECONDS);
+
+        assertThat(registry.getMeters()).extracting(m -> m.getId().getName())
+                .containsExactlyInAnyOrder("my.timer", "my.timer.histogram.gauges");
+        assertThat(registry.find("my.timer.histogram").gauges()).isEmpty();
+
+        assertThat(registry.getMetersToPublish()).extracting(m -> m.getId().getName())
+                .containsExactlyInAnyOrder("my.timer", "my.timer.percentile", "my.timer.histogram", "my.timer.histogram");
+
+        registry.remove(timer);
+        assertThat(registry.getMeters()).isEmpty();
+        assertThat(registry.getMetersToPublish()).isEmpty();
+    }
+
+    @Test
+    void histogramGaugeIdsAreMappedAndFilteredOnceAtRegistration() {
+        registry.config()
+                .meterFilter(MeterFilter.deny(id -> "0.01".equals(id.getTag("le"))))
+                .meterFilter(new MeterFilter() {
+                    @Override
+                    public Meter.Id map(Meter.Id id) {
+                        return id.withName("prefix." + id.getName());
+                    }
+                });
+
+        Timer.builder("my.timer")
+                .serviceLevelObjectives(ofMillis(1), ofMillis(10))
+                .register(registry)
+                .record(1, MILLISECONDS);
+
+        assertThat(registry.getMetersToPublish()).extracting(m -> m.getId().getName())
+                .containsExactlyInAnyOrder("prefix.my.timer", "prefix.my.timer.histogram");
+        assertThat(publishedGauge("prefix.my.timer.histogram", "le", "0.001").value()).isEqualTo(1);
+    }
+
+    private Gauge publishedGauge(String name, String tagKey, String tagValue) {
+        for (Meter meter : registry.getMetersToPublish()) {
+            if (meter.getId().getName().equals(name) && tagValue.equals(meter.getId().getTag(tagKey))) {
+                return (Gauge) meter;
+            }
+        }
+        throw new AssertionError("no gauge " + name + " with " + tagKey + "=" + tagValue + " is published");
     }
 
     @Issue("#484")
@@ -15,12 +15,18 @@
  */
 package io.micrometer.jersey2.server;
 
+import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.glassfish.jersey.server.model.ResourceMethod;
 import org.glassfish.jersey.server.monitoring.ApplicationEvent;
 import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
 import org.glassfish.jersey.server.monitoring.RequestEvent;
 import org.glassfish.jersey.server.monitoring.RequestEventListener;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -36,6 +42,7 @@ public class MetricsApplicationEventListener implements ApplicationEventListener
     private final String metricName;
     private final AnnotationFinder annotationFinder;
     private final boolean autoTimeRequests;
+    private final Map<ResourceMethod, Set<Timed>> timedAnnotationsCache = new ConcurrentHashMap<>();
 
     public MetricsApplicationEventListener(MeterRegistry registry, JerseyTagsProvider tagsProvider, String metricName,
                                            boolean autoTimeRequests) {
@@ -54,10 +61,15 @@ public class MetricsApplicationEventListener implements ApplicationEventListener
 
     @Override
     public void onEvent(ApplicationEvent event) {
+        if (event.getType() == ApplicationEvent.Type.RELOAD_FINISHED) {
+            // resource methods of the previous model are no longer matched
+            timedAnnotationsCache.clear();
+        }
     }
 
     @Override
     public RequestEventListener onRequest(RequestEvent requestEvent) {
-        return new MetricsRequestEventListener(meterRegistry, tagsProvider, metricName, autoTimeRequests, annotationFinder);
+        return new MetricsRequestEventListener(meterRegistry, tagsProvider, metricName, autoTimeRequests, annotationFinder,
+                timedAnnotationsCache);
     }
 }
@@ -18,55 +18,68 @@ package io.micrometer.jersey2.server;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.LongTaskTimer;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
-import org.glassfish.jersey.server.ContainerRequest;
+import io.micrometer.core.lang.Nullable;
 import org.glassfish.jersey.server.model.ResourceMethod;
 import org.glassfish.jersey.server.monitoring.RequestEvent;
 import org.glassfish.jersey.server.monitoring.RequestEventListener;
 
 import javax.ws.rs.NotFoundException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * {@link RequestEventListener} recording timings for Jersey server requests.
+ * <p>
+ * An instance tracks a single request, as created for each request by {@link MetricsApplicationEventListener}.
+ * Jersey delivers the events of a request one at a time, so the state of the request is held in plain fields.
  *
  * @author Michael Weirauch
  * @author Jon Schneider
  */
 public class MetricsRequestEventListener implements RequestEventListener {
 
-    private final Map<ContainerRequest, Timer.Sample> shortTaskSample = Collections
-        .synchronizedMap(new IdentityHashMap<>());
-
-    private final Map<ContainerRequest, Collection<LongTaskTimer.Sample>> longTaskSamples = Collections
-        .synchronizedMap(new IdentityHashMap<>());
-
-    private final Map<ContainerRequest, Set<Timed>> timedAnnotationsOnRequest = Collections
-        .synchronizedMap(new IdentityHashMap<>());
-
     private final MeterRegistry registry;
     private final JerseyTagsProvider tagsProvider;
     private boolean autoTimeRequests;
     private final TimedFinder timedFinder;
     private final String metricName;
+    private final Map<ResourceMethod, Set<Timed>> timedAnnotationsCache;
+
+    @Nullable
+    private Set<Timed> timedAnnotations;
+
+    @Nullable
+    private Timer.Sample shortTaskSample;
+
+    @Nullable
+    private List<LongTaskTimer.Sample> longTaskSamples;
 
     public MetricsRequestEventListener(MeterRegistry registry, JerseyTagsProvider tagsProvider,
                                        String metricName, boolean autoTimeRequests, AnnotationFinder annotationFinder) {
+        this(registry, tagsProvider, metricName, autoTimeRequests, annotationFinder, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @param timedAnnotationsCache {@link Timed} annotations resolved per resource method, shared by the listeners
+     *                              of all requests to the same application
+     */
+    MetricsRequestEventListener(MeterRegistry registry, JerseyTagsProvider tagsProvider, String metricName,
+                                boolean autoTimeRequests, AnnotationFinder annotationFinder,
+                                Map<ResourceMethod, Set<Timed>> timedAnnotationsCache) {
         this.registry = requireNonNull(registry);
         this.tagsProvider = requireNonNull(tagsProvider);
         this.metricName = requireNonNull(metricName);
         this.autoTimeRequests = autoTimeRequests;
         this.timedFinder = new TimedFinder(annotationFinder);
+        this.timedAnnotationsCache = timedAnnotationsCache;
     }
 
     @Override
     public void onEvent(RequestEvent event) {
-        ContainerRequest containerRequest = event.getContainerRequest();
-        Set<Timed> timedAnnotations;
-
         switch (event.getType()) {
             case ON_EXCEPTION:
                 if (!(event.getException() instanceof NotFoundException)) {
@@ -74,75 +87,80 @@ public class MetricsRequestEventListener implements RequestEventListener {
                 }
             case REQUEST_MATCHED:
                 timedAnnotations = annotations(event);
-
-                timedAnnotationsOnRequest.put(containerRequest, timedAnnotations);
-                shortTaskSample.put(containerRequest, Timer.start(registry));
-
-                List<LongTaskTimer.Sample> longTaskSamples = longTaskTimers(timedAnnotations, event).stream().map(LongTaskTimer::start).collect(Collectors.toList());
-                if (!longTaskSamples.isEmpty()) {
-                    this.longTaskSamples.put(containerRequest, longTaskSamples);
-                }
+                shortTaskSample = Timer.start(registry);
+                longTaskSamples = startLongTaskTimers(timedAnnotations, event);
                 break;
             case FINISHED:
-                timedAnnotations = timedAnnotationsOnRequest.remove(containerRequest);
-                Timer.Sample shortSample = shortTaskSample.remove(containerRequest);
-
+                Timer.Sample shortSample = shortTaskSample;
                 if (shortSample != null) {
-                    for (Timer timer : shortTimers(timedAnnotations, event)) {
-                        shortSample.stop(timer);
-                    }
+                    stopShortTimers(shortSample, timedAnnotations, event);
                 }
 
-                Collection<LongTaskTimer.Sample> longSamples = this.longTaskSamples.remove(containerRequest);
+                List<LongTaskTimer.Sample> longSamples = longTaskSamples;
                 if (longSamples != null) {
                     for (LongTaskTimer.Sample longSample : longSamples) {
                         longSample.stop();
                     }
                 }
+
+                timedAnnotations = null;
+                shortTaskSample = null;
+                longTaskSamples = null;
                 break;
         }
     }
 
-    private Set<Timer> shortTimers(Set<Timed> timed, RequestEvent event) {
+    private void stopShortTimers(Timer.Sample sample, @Nullable Set<Timed> timed, RequestEvent event) {
         /*
          * Given we didn't find any matching resource method, 404s will be only
          * recorded when auto-time-requests is enabled. On par with WebMVC
          * instrumentation.
          */
         if ((timed == null || timed.isEmpty()) && autoTimeRequests) {
-            return Collections.singleton(registry.timer(metricName, tagsProvider.httpRequestTags(event)));
+            sample.stop(registry.timer(metricName, tagsProvider.httpRequestTags(event)));
+            return;
         }
 
-        if (timed == null) {
-            return Collections.emptySet();
+        if (timed == null || timed.isEmpty()) {
+            return;
         }
 
-        return timed.stream()
-            .map(t -> Timer.builder(t, metricName).tags(tagsProvider.httpRequestTags(event)).register(registry))
-            .collect(Collectors.toSet());
+        Iterable<Tag> tags = tagsProvider.httpRequestTags(event);
+        for (Timed t : timed) {
+            sample.stop(Timer.builder(t, metricName).tags(tags).register(registry));
+        }
     }
 
-    private Set<LongTaskTimer> longTaskTimers(Set<Timed> timed, RequestEvent event) {
-        return timed.stream()
-            .filter(Timed::longTask)
-            .map(LongTaskTimer::builder)
-            .map(b -> b.tags(tagsProvider.httpLongRequestTags(event)).register(registry))
-            .collect(Collectors.toSet());
+    @Nullable
+    private List<LongTaskTimer.Sample> startLongTaskTimers(Set<Timed> timed, RequestEvent event) {
+        List<LongTaskTimer.Sample> samples = null;
+        for (Timed t : timed) {
+            if (t.longTask()) {
+                if (samples == null) {
+                    samples = new ArrayList<>(timed.size());
+                }
+                samples.add(LongTaskTimer.builder(t).tags(tagsProvider.httpLongRequestTags(event)).register(registry).start());
+            }
+        }
+        return samples;
     }
 
     private Set<Timed> annotations(RequestEvent event) {
-        final Set<Timed> timed = new HashSet<>();
-
         final ResourceMethod matchingResourceMethod = event.getUriInfo().getMatchedResourceMethod();
-        if (matchingResourceMethod != null) {
-            // collect on method level
-            timed.addAll(timedFinder.findTimedAnnotations(matchingResourceMethod.getInvocable().getHandlingMethod()));
-
-            // fallback on class level
-            if (timed.isEmpty()) {
-                timed.addAll(timedFinder.findTimedAnnotations(matchingResourceMethod.getInvocable().getHandlingMethod()
-                    .getDeclaringClass()));
-            }
+        if (matchingResourceMethod == null) {
+            return Collections.emptySet();
+        }
+        return timedAnnotationsCache.computeIfAbsent(matchingResourceMethod, this::findTimedAnnotations);
+    }
+
+    private Set<Timed> findTimedAnnotations(ResourceMethod resourceMethod) {
+        // collect on method level
+        Set<Timed> timed = timedFinder.findTimedAnnotations(resourceMethod.getInvocable().getHandlingMethod());
+
+        // fallback on class level
+        if (timed.isEmpty()) {
+            timed = timedFinder.findTimedAnnotations(resourceMethod.getInvocable().getHandlingMethod()
+                .getDeclaringClass());
         }
         return timed;
     }
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.jfr;
+
+import io.micrometer.core.annotation.Incubating;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.lang.NonNullApi;
+import io.micrometer.core.lang.NonNullFields;
+import io.micrometer.core.lang.Nullable;
+import io.micrometer.core.util.internal.logging.InternalLogger;
+import io.micrometer.core.util.internal.logging.InternalLoggerFactory;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Turn JDK Flight Recorder events into meters, for the JVM activity that the management beans don't expose:
+ * <ul>
+ *     <li>{@code jvm.safepoint.sync}: the time taken to bring all threads to a safepoint.</li>
+ *     <li>{@code jvm.safepoint.operation}: the VM operations executed at a safepoint, by operation.</li>
+ *     <li>{@code jvm.threads.allocated}: the heap memory allocated by threads, by thread name. Threads started after
+ *     binding are counted from their start, threads already running from their first sample. Allocation is sampled
+ *     periodically, so threads that end before their first sample are not counted.</li>
+ *     <li>{@code jvm.monitor.contention}: the time threads were blocked entering a contended monitor, by monitor
+ *     class.</li>
+ *     <li>{@code jvm.compilation.deoptimizations}: the deoptimizations of compiled code, by reason and action.</li>
+ * </ul>
+ * Only these events are enabled, in a {@link RecordingStream} per registry whose events are handled on the stream's
+ * own thread. Tags are bounded: VM operations, deoptimization reasons and actions are fixed sets. Numbers are replaced
+ * in thread names so that threads of a pool, like {@code pool-1-thread-12}, share a counter, and the numbers and
+ * addresses of lambda, hidden and proxy classes are removed from monitor class names. Past
+ * {@value #MAX_TAG_VALUES} thread names or monitor classes, further ones are tagged {@value #OTHER_TAG_VALUE}.
+ * <p>
+ * Requires JDK 14 or later. Nothing is recorded if Flight Recorder is not available.
+ *
+ * @since 1.8.0
+ */
+@Incubating(since = "1.8.0")
+@NonNullApi
+@NonNullFields
+public class JfrMetrics implements MeterBinder, AutoCloseable {
+    private static final InternalLogger log = InternalLoggerFactory.getInstance(JfrMetrics.class);
+
+    static final String SAFEPOINT_SYNCHRONIZATION = "jdk.SafepointStateSynchronization";
+    static final String VM_OPERATION = "jdk.ExecuteVMOperation";
+    static final String THREAD_ALLOCATION = "jdk.ThreadAllocationStatistics";
+    static final String THREAD_END = "jdk.ThreadEnd";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    static final String DEOPTIMIZATION = "jdk.Deoptimization";
+
+    static final int MAX_TAG_VALUES = 100;
+    static final String OTHER_TAG_VALUE = "other";
+
+    private static final Pattern NUMBERS = Pattern.compile("0x[0-9a-fA-F]+|\\d+");
+
+    // the address of hidden classes, like com.example.Foo$$Lambda$14/0x0000000800c02840
+    private static final Pattern HIDDEN_CLASS_ADDRESS = Pattern.compile("/0x[0-9a-fA-F]+$");
+    // the number of generated classes, like com.example.Foo$$Lambda$14 or com.sun.proxy.$Proxy12
+    private static final Pattern GENERATED_CLASS_NUMBER = Pattern.compile(
+            "(?<=\\$\\$Lambda)\\$\\d+|(?<=\\$Proxy)\\d+|(?<=\\$\\$EnhancerBySpringCGLIB\\$\\$)[0-9a-f]+");
+
+    private final Iterable<Tag> tags;
+    private final Duration allocationSamplingPeriod;
+    private final Duration monitorEnterThreshold;
+
+    private final List<RecordingStream> streams = new CopyOnWriteArrayList<>();
+
+    public JfrMetrics() {
+        this(emptyList());
+    }
+
+    public JfrMetrics(Iterable<Tag> tags) {
+        this(tags, Duration.ofSeconds(10), Duration.ofMillis(20));
+    }
+
+    /**
+     * @param tags                     Tags to apply to all recorded metrics.
+     * @param allocationSamplingPeriod How often the allocated memory of each thread is sampled.
+     * @param monitorEnterThreshold    Monitor contention shorter than this is neither recorded by Flight Recorder nor
+     *                                 counted, which keeps the overhead of frequently contended monitors low.
+     */
+    public JfrMetrics(Iterable<Tag> tags, Duration allocationSamplingPeriod, Duration monitorEnterThreshold) {
+        this.tags = tags;
+        this.allocationSamplingPeriod = allocationSamplingPeriod;
+        this.monitorEnterThreshold = monitorEnterThreshold;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        RecordingStream stream;
+        try {
+            stream = new RecordingStream();
+        } catch (IllegalStateException | SecurityException e) {
+            log.warn("Flight Recorder is not available, JVM events will not be recorded", e);
+            return;
+        }
+
+        stream.enable(SAFEPOINT_SYNCHRONIZATION).withoutThreshold();
+        stream.enable(VM_OPERATION).withoutThreshold();
+        stream.enable(THREAD_ALLOCATION).withPeriod(allocationSamplingPeriod);
+        stream.enable(THREAD_END);
+        stream.enable(MONITOR_ENTER).withThreshold(monitorEnterThreshold).withoutStackTrace();
+        stream.enable(DEOPTIMIZATION).withoutStackTrace();
+
+        // Java thread ids are never reused and increase, so threads with a higher id start after this point
+        long lastThreadIdAtBind = Arrays.stream(ManagementFactory.getThreadMXBean().getAllThreadIds()).max().orElse(0);
+
+        EventHandler handler = new EventHandler(registry, lastThreadIdAtBind);
+        stream.onEvent(SAFEPOINT_SYNCHRONIZATION, handler::safepointSynchronization);
+        stream.onEvent(VM_OPERATION, handler::vmOperation);
+        stream.onEvent(THREAD_ALLOCATION, handler::threadAllocation);
+        stream.onEvent(THREAD_END, handler::threadEnd);
+        stream.onEvent(MONITOR_ENTER, handler::monitorEnter);
+        stream.onEvent(DEOPTIMIZATION, handler::deoptimization);
+
+        streams.add(stream);
+        stream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        for (RecordingStream stream : streams) {
+            stream.close();
+        }
+        streams.clear();
+    }
+
+    // VisibleForTesting
+    static String threadName(@Nullable String name) {
+        return name == null ? "unknown" : NUMBERS.matcher(name).replaceAll("#");
+    }
+
+    // VisibleForTesting
+    static String className(@Nullable String name) {
+        if (name == null) {
+            return "unknown";
+        }
+        String withoutAddress = HIDDEN_CLASS_ADDRESS.matcher(name).replaceFirst("");
+        return GENERATED_CLASS_NUMBER.matcher(withoutAddress).replaceAll("");
+    }
+
+    /**
+     * @return The tag value, or {@value #OTHER_TAG_VALUE} once meters already exist for {@value #MAX_TAG_VALUES}
+     * other values.
+     */
+    // VisibleForTesting
+    static String boundedTagValue(Map<String, ?> meters, String tagValue) {
+        return meters.size() < MAX_TAG_VALUES || meters.containsKey(tagValue) ? tagValue : OTHER_TAG_VALUE;
+    }
+
+    /**
+     * Events of a stream are all handled on the same thread, so the meters of each kind of event are cached in plain
+     * maps rather than looked up in the registry for every event.
+     */
+    private class EventHandler {
+        private final MeterRegistry registry;
+        private final Timer safepointSync;
+        private final Map<String, Timer> vmOperations = new HashMap<>();
+        private final Map<String, Timer> monitorEnters = new HashMap<>();
+        private final Map<String, Counter> deoptimizations = new HashMap<>();
+
+        /**
+         * The last sampled allocation of each live thread, by thread id.
+         */
+        private final Map<Long, ThreadAllocation> threadAllocations = new HashMap<>();
+        private final Map<String, Counter> allocationCounters = new HashMap<>();
+        private final long lastThreadIdAtBind;
+
+        EventHandler(MeterRegistry registry, long lastThreadIdAtBind) {
+            this.registry = registry;
+            this.lastThreadIdAtBind = lastThreadIdAtBind;
+            this.safepointSync = Timer.builder("jvm.safepoint.sync")
+                    .tags(tags)
+                    .description("Time taken to bring all threads to a safepoint")
+                    .register(registry);
+        }
+
+        void safepointSynchronization(RecordedEvent event) {
+            safepointSync.record(event.getDuration());
+        }
+
+        void vmOperation(RecordedEvent event) {
+            if (!event.getBoolean("safepoint")) {
+                return;
+            }
+            String operation = event.getString("operation");
+            vmOperations.computeIfAbsent(operation == null ? "unknown" : operation, op -> Timer.builder("jvm.safepoint.operation")
+                    .tags(tags)
+                    .tag("operation", op)
+                    .description("Time spent executing VM operations at a safepoint")
+                    .register(registry))
+                    .record(event.getDuration());
+        }
+
+        void threadAllocation(RecordedEvent event) {
+            RecordedThread thread = event.getThread("thread");
+            if (thread == null) {
+                return;
+            }
+            long threadId = thread.getJavaThreadId();
+            long allocated = event.getLong("allocated");
+            ThreadAllocation last = threadAllocations.get(threadId);
+            if (last == null) {
+                String name = boundedTagValue(allocationCounters, threadName(thread.getJavaName()));
+                Counter counter = allocationCounters.computeIfAbsent(name, n -> Counter.builder("jvm.threads.allocated")
+                        .tags(tags)
+                        .tag("thread", n)
+                        .description("Heap memory allocated by threads, with numbers in thread names replaced by #")
+                        .baseUnit(BaseUnits.BYTES)
+                        .register(registry));
+                // what a thread allocated before binding is not counted, its first sample is only a baseline
+                if (threadId > lastThreadIdAtBind) {
+                    counter.increment(allocated);
+                }
+                threadAllocations.put(threadId, new ThreadAllocation(counter, allocated));
+            } else {
+                last.counter.increment(Math.max(0, allocated - last.allocated));
+                last.allocated = allocated;
+            }
+        }
+
+        void threadEnd(RecordedEvent event) {
+            RecordedThread thread = event.getThread("thread");
+            if (thread != null) {
+                threadAllocations.remove(thread.getJavaThreadId());
+            }
+        }
+
+        void monitorEnter(RecordedEvent event) {
+            RecordedClass monitorClass = event.getClass("monitorClass");
+            String className = boundedTagValue(monitorEnters, className(monitorClass == null ? null : monitorClass.getName()));
+            monitorEnters.computeIfAbsent(className, c -> Timer.builder("jvm.monitor.contention")
+                    .tags(tags)
+                    .tag("class", c)
+                    .description("Time threads were blocked entering a monitor held by another thread")
+                    .register(registry))
+                    .record(event.getDuration());
+        }
+
+        void deoptimization(RecordedEvent event) {
+            String reason = event.getString("reason");
+            String action = event.getString("action");
+            deoptimizations.computeIfAbsent(reason + ':' + action, key -> Counter.builder("jvm.compilation.deoptimizations")
+                    .tags(tags)
+                    .tag("reason", reason == null ? "unknown" : reason)
+                    .tag("action", action == null ? "unknown" : action)
+                    .description("Deoptimizations of compiled code")
+                    .register(registry))
+                    .increment();
+        }
+    }
+
+    private static class ThreadAllocation {
+        final Counter counter;
+        long allocated;
+
+        ThreadAllocation(Counter counter, long allocated) {
+            this.counter = counter;
+            this.allocated = allocated;
+        }
+    }
+}
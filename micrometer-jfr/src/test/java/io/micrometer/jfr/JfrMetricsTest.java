@@ -0,0 +1,165 @@
+/**
+ * Copyright 2021 VMware, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micrometer.jfr;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tests for {@link JfrMetrics}.
+ */
+class JfrMetricsTest {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    JfrMetrics jfrMetrics = new JfrMetrics(Tags.of("k", "v"), Duration.ofMillis(100), Duration.ofMillis(10));
+
+    @AfterEach
+    void closeStreams() {
+        jfrMetrics.close();
+    }
+
+    @Test
+    void safepoints() {
+        jfrMetrics.bindTo(registry);
+        assertThat(registry.get("jvm.safepoint.sync").tag("k", "v").timer()).isNotNull();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            // a full collection is a VM operation executed at a safepoint
+            System.gc();
+            assertThat(registry.get("jvm.safepoint.sync").timer().count()).isGreaterThan(0);
+            assertThat(registry.get("jvm.safepoint.operation").timers().stream().mapToLong(Timer::count).sum())
+                    .isGreaterThan(0);
+        });
+    }
+
+    @Test
+    void monitorContention() throws InterruptedException {
+        jfrMetrics.bindTo(registry);
+
+        ContendedLock lock = new ContendedLock();
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (lock) {
+                locked.countDown();
+                sleep(200);
+            }
+        });
+        holder.start();
+        locked.await();
+        synchronized (lock) {
+            lock.entered = true;
+        }
+        holder.join();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(registry.get("jvm.monitor.contention")
+                .tag("class", ContendedLock.class.getName()).timer().count()).isEqualTo(1));
+    }
+
+    @Test
+    void threadAllocation() throws InterruptedException {
+        jfrMetrics.bindTo(registry);
+
+        Thread allocator = new Thread(() -> {
+            long end = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                blackhole = new byte[1024 * 1024];
+                sleep(10);
+            }
+        }, "allocator-1");
+        allocator.start();
+        try {
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(registry.get("jvm.threads.allocated")
+                    .tags("k", "v", "thread", "allocator-#").counter().count()).isGreaterThan(1024 * 1024));
+        } finally {
+            allocator.interrupt();
+            allocator.join();
+        }
+    }
+
+    @Test
+    void allocationOfThreadsStartedAfterBindingIsCountedFromTheirStart() throws InterruptedException {
+        jfrMetrics.bindTo(registry);
+
+        Thread allocator = new Thread(() -> {
+            // allocated before the thread's first sample, then idle until it has been sampled
+            blackhole = new byte[4 * 1024 * 1024];
+            sleep(500);
+        }, "short-lived-1");
+        allocator.start();
+        allocator.join();
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(registry.get("jvm.threads.allocated")
+                .tags("k", "v", "thread", "short-lived-#").counter().count()).isGreaterThanOrEqualTo(4 * 1024 * 1024));
+    }
+
+    @Test
+    void digitsInThreadNamesAreReplaced() {
+        assertThat(JfrMetrics.threadName("pool-12-thread-3")).isEqualTo("pool-#-thread-#");
+        assertThat(JfrMetrics.threadName("main")).isEqualTo("main");
+        assertThat(JfrMetrics.threadName("worker-0x7f3a2c")).isEqualTo("worker-#");
+        assertThat(JfrMetrics.threadName(null)).isEqualTo("unknown");
+    }
+
+    @Test
+    void numbersOfGeneratedClassesAreRemoved() {
+        assertThat(JfrMetrics.className("com.example.Foo$$Lambda$14/0x0000000800c02840")).isEqualTo("com.example.Foo$$Lambda");
+        assertThat(JfrMetrics.className("com.example.Foo$$Lambda/0x0000000800c02840")).isEqualTo("com.example.Foo$$Lambda");
+        assertThat(JfrMetrics.className("com.sun.proxy.$Proxy12")).isEqualTo("com.sun.proxy.$Proxy");
+        assertThat(JfrMetrics.className("com.example.Foo$$EnhancerBySpringCGLIB$$3f2a9c1b")).isEqualTo("com.example.Foo$$EnhancerBySpringCGLIB$$");
+        assertThat(JfrMetrics.className("com.example.Foo$Inner2")).isEqualTo("com.example.Foo$Inner2");
+        assertThat(JfrMetrics.className(null)).isEqualTo("unknown");
+    }
+
+    @Test
+    void tagValuesAreBounded() {
+        Map<String, Object> meters = new HashMap<>();
+        for (int i = 0; i < JfrMetrics.MAX_TAG_VALUES; i++) {
+            String tagValue = JfrMetrics.boundedTagValue(meters, "value" + i);
+            assertThat(tagValue).isEqualTo("value" + i);
+            meters.put(tagValue, new Object());
+        }
+
+        assertThat(JfrMetrics.boundedTagValue(meters, "value0")).isEqualTo("value0");
+        assertThat(JfrMetrics.boundedTagValue(meters, "another")).isEqualTo(JfrMetrics.OTHER_TAG_VALUE);
+    }
+
+    static volatile Object blackhole;
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class ContendedLock {
+        boolean entered;
+    }
+}
@@ -19,12 +19,14 @@ import io.micrometer.core.instrument.LongTaskTimer;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.MockClock;
 import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import io.micrometer.core.instrument.simple.SimpleConfig;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -62,4 +64,87 @@ public class DefaultLongTaskTimerTest {
         assertThat(countAtBuckets[2].bucket(TimeUnit.MINUTES)).isEqualTo(1);
         assertThat(countAtBuckets[2].count()).isEqualTo(11);
     }
+
+    @Test
+    @DisplayName("duration and active task count account for tasks stopped out of order")
+    void stopOutOfOrder() {
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+        LongTaskTimer t = LongTaskTimer.builder("my.timer").register(registry);
+
+        List<LongTaskTimer.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(t.start());
+            clock(registry).add(1, TimeUnit.SECONDS);
+        }
+
+        // stop every other task, starting from the oldest
+        for (int i = 0; i < 100; i += 2) {
+            samples.get(i).stop();
+        }
+
+        assertThat(t.activeTasks()).isEqualTo(50);
+        // the remaining tasks have been running for 99, 97, ..., 1 seconds
+        assertThat(t.duration(TimeUnit.SECONDS)).isEqualTo(2500);
+        assertThat(t.max(TimeUnit.SECONDS)).isEqualTo(99);
+
+        for (int i = 0; i < 50; i++) {
+            t.start();
+        }
+        assertThat(t.activeTasks()).isEqualTo(100);
+        assertThat(t.duration(TimeUnit.SECONDS)).isEqualTo(2500);
+        assertThat(t.takeSnapshot().count()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("tasks stopped out of order are pruned while the oldest active task stays the max")
+    void manyStopsOutOfOrder() {
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+        LongTaskTimer t = LongTaskTimer.builder("my.timer").register(registry);
+
+        LongTaskTimer.Sample oldest = t.start();
+        List<LongTaskTimer.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            clock(registry).add(1, TimeUnit.SECONDS);
+            samples.add(t.start());
+        }
+
+        // stop all but the last task, youngest first, which is never at the head
+        for (int i = samples.size() - 2; i >= 0; i--) {
+            samples.get(i).stop();
+        }
+
+        assertThat(t.activeTasks()).isEqualTo(2);
+        assertThat(t.duration(TimeUnit.SECONDS)).isEqualTo(1000);
+        assertThat(t.max(TimeUnit.SECONDS)).isEqualTo(1000);
+        assertThat(t.takeSnapshot().count()).isEqualTo(2);
+
+        oldest.stop();
+        assertThat(t.max(TimeUnit.SECONDS)).isEqualTo(0);
+        assertThat(oldest.stop()).isEqualTo(-1);
+        assertThat(t.activeTasks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("supports sending percentiles of active task duration")
+    void percentiles() {
+        MeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+
+        LongTaskTimer t = LongTaskTimer.builder("my.timer")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        for (int i = 0; i < 9; i++) {
+            t.start();
+            clock(registry).add(1, TimeUnit.SECONDS);
+        }
+
+        ValueAtPercentile[] percentiles = t.takeSnapshot().percentileValues();
+
+        assertThat(percentiles[0].percentile()).isEqualTo(0.5);
+        assertThat(percentiles[0].value(TimeUnit.SECONDS)).isEqualTo(5);
+
+        // above the interpolatable line, so this is the max
+        assertThat(percentiles[1].percentile()).isEqualTo(0.99);
+        assertThat(percentiles[1].value(TimeUnit.SECONDS)).isEqualTo(9);
+    }
 }